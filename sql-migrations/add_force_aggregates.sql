@@ -0,0 +1,17 @@
+-- Add unit totals to forces
+-- Kept current by every unit write (ForceAggregateService) and reconciled nightly
+-- (forces.aggregates.reconcile-cron). Run once to fill in the totals of existing forces.
+
+ALTER TABLE forces ADD COLUMN IF NOT EXISTS unit_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE forces ADD COLUMN IF NOT EXISTS total_points INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE forces ADD COLUMN IF NOT EXISTS total_crusade_points INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE forces ADD COLUMN IF NOT EXISTS total_xp INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE forces ADD COLUMN IF NOT EXISTS total_kills INTEGER NOT NULL DEFAULT 0;
+
+UPDATE forces f SET unit_count = a.unit_count, total_points = a.total_points,
+    total_crusade_points = a.total_crusade_points, total_xp = a.total_xp, total_kills = a.total_kills
+FROM (SELECT force_id, COUNT(*) AS unit_count, COALESCE(SUM(points), 0) AS total_points,
+             COALESCE(SUM(crusade_points), 0) AS total_crusade_points, COALESCE(SUM(xp), 0) AS total_xp,
+             COALESCE(SUM(kill_count), 0) AS total_kills
+      FROM units WHERE deleted_timestamp IS NULL GROUP BY force_id) a
+WHERE f.id = a.force_id;
@@ -0,0 +1,35 @@
+-- Stable datasheet keys on MFM units: points and model counts are looked up by mfm_units.datasheet_id,
+-- so a unit still finds its points after a rename (through an alias). New imports set the key; run this
+-- once to add the column where ddl-auto does not manage the schema and to key the units already stored.
+-- Keys are normalized as in MfmDatasheetService.normalize.
+
+ALTER TABLE mfm_units ADD COLUMN IF NOT EXISTS datasheet_id BIGINT;
+CREATE INDEX IF NOT EXISTS idx_mfm_units_datasheet_id ON mfm_units (datasheet_id, mfm_version_id);
+
+CREATE TEMP TABLE mfm_unit_keys AS
+SELECT u.id, u.mfm_version_id, v.game_system, v.version, f.name AS faction_name, u.name,
+       upper(regexp_replace(btrim(f.name), '\s+', ' ', 'g')) AS faction_key,
+       upper(regexp_replace(btrim(u.name), '\s+', ' ', 'g')) AS name_key
+FROM mfm_units u
+JOIN mfm_factions f ON f.id = u.faction_id
+JOIN mfm_versions v ON v.id = f.mfm_version_id
+WHERE u.datasheet_id IS NULL;
+
+-- Datasheets for units that have neither a datasheet nor an alias yet, named as in their newest version
+INSERT INTO mfm_datasheets (game_system, faction_name, name, faction_key, name_key, created_timestamp)
+SELECT DISTINCT ON (k.faction_key, k.name_key)
+       coalesce(k.game_system, '40K'), k.faction_name, k.name, k.faction_key, k.name_key, now() AT TIME ZONE 'UTC'
+FROM mfm_unit_keys k
+WHERE NOT EXISTS (SELECT 1 FROM mfm_datasheet_aliases a
+                  WHERE a.faction_key = k.faction_key AND a.name_key = k.name_key)
+ORDER BY k.faction_key, k.name_key, k.version DESC
+ON CONFLICT (faction_key, name_key) DO NOTHING;
+
+UPDATE mfm_units u
+SET datasheet_id = coalesce(a.datasheet_id, d.id)
+FROM mfm_unit_keys k
+LEFT JOIN mfm_datasheet_aliases a ON a.faction_key = k.faction_key AND a.name_key = k.name_key
+LEFT JOIN mfm_datasheets d ON d.faction_key = k.faction_key AND d.name_key = k.name_key
+WHERE u.id = k.id AND u.mfm_version_id = k.mfm_version_id;
+
+DROP TABLE mfm_unit_keys;
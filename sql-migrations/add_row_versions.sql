@@ -0,0 +1,5 @@
+-- Add row versions to units and forces
+-- Bumped on every write (JPA @Version) and checked by PATCH requests sent with If-Match (ColumnPatch).
+
+ALTER TABLE units ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE forces ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
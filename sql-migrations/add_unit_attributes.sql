@@ -0,0 +1,27 @@
+-- Structured unit attributes: one row per wargear, enhancement, relic, battle trait or battle scar entry
+-- Derived from the units' text fields by UnitAttributeService on every unit write. Run once to create
+-- the table where ddl-auto does not manage the schema, and to fill it in for existing units.
+
+CREATE TABLE IF NOT EXISTS unit_attributes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    unit_id BIGINT NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    name VARCHAR(500) NOT NULL,
+    name_key VARCHAR(500) NOT NULL,
+    position INTEGER NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_unit_attributes_kind_name ON unit_attributes (kind, name_key, unit_id);
+CREATE INDEX IF NOT EXISTS idx_unit_attributes_unit_kind ON unit_attributes (unit_id, kind);
+CREATE INDEX IF NOT EXISTS idx_forces_club_id ON forces (club_id);
+
+DELETE FROM unit_attributes;
+
+INSERT INTO unit_attributes (unit_id, kind, name, name_key, position)
+SELECT u.id, a.kind, left(btrim(p.name), 500),
+       left(upper(regexp_replace(btrim(p.name), '\s+', ' ', 'g')), 500), p.position
+FROM units u
+CROSS JOIN LATERAL (VALUES ('WARGEAR', u.wargear), ('ENHANCEMENT', u.enhancements), ('RELIC', u.relics),
+                           ('BATTLE_TRAIT', u.battle_traits), ('BATTLE_SCAR', u.battle_scars)) AS a(kind, text)
+CROSS JOIN LATERAL regexp_split_to_table(a.text, '[\r\n,;]+') WITH ORDINALITY AS p(name, position)
+WHERE btrim(p.name) <> '';
@@ -0,0 +1,176 @@
+-- Partition the MFM tables by version
+-- Every MFM table gets an mfm_version_id key and is LIST partitioned on it, one partition per version
+-- (mfm_units_v<id>, ...). Retiring or replacing a version then detaches and drops its partitions
+-- (MfmPartitionService) instead of deleting rows through joins across whole tables.
+--
+-- Run once with the application stopped. Requires PostgreSQL 12 or later.
+-- Set spring.jpa.properties.hibernate.hbm2ddl.extra_physical_table_types=PARTITIONED TABLE (already in
+-- application.properties) so schema update recognizes the partitioned tables.
+
+BEGIN;
+
+-- Step 1: Copy the version key onto every row
+ALTER TABLE mfm_units ADD COLUMN IF NOT EXISTS mfm_version_id BIGINT;
+ALTER TABLE mfm_detachments ADD COLUMN IF NOT EXISTS mfm_version_id BIGINT;
+ALTER TABLE mfm_unit_variants ADD COLUMN IF NOT EXISTS mfm_version_id BIGINT;
+ALTER TABLE mfm_enhancements ADD COLUMN IF NOT EXISTS mfm_version_id BIGINT;
+ALTER TABLE mfm_units ADD COLUMN IF NOT EXISTS datasheet_id BIGINT;
+
+UPDATE mfm_units u SET mfm_version_id = f.mfm_version_id
+FROM mfm_factions f WHERE u.faction_id = f.id AND u.mfm_version_id IS NULL;
+
+UPDATE mfm_detachments d SET mfm_version_id = f.mfm_version_id
+FROM mfm_factions f WHERE d.faction_id = f.id AND d.mfm_version_id IS NULL;
+
+UPDATE mfm_unit_variants v SET mfm_version_id = u.mfm_version_id
+FROM mfm_units u WHERE v.unit_id = u.id AND v.mfm_version_id IS NULL;
+
+UPDATE mfm_enhancements e SET mfm_version_id = d.mfm_version_id
+FROM mfm_detachments d WHERE e.detachment_id = d.id AND e.mfm_version_id IS NULL;
+
+-- Step 2: Create partitioned copies of the tables.
+-- The primary key of a partitioned table must contain the partition key, so rows are keyed by (id, mfm_version_id)
+CREATE TABLE mfm_factions_partitioned (
+    id BIGINT NOT NULL,
+    mfm_version_id BIGINT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    supergroup VARCHAR(50),
+    ally_to VARCHAR(50),
+    created_timestamp TIMESTAMP NOT NULL,
+    updated_timestamp TIMESTAMP,
+    CONSTRAINT pk_mfm_factions PRIMARY KEY (id, mfm_version_id)
+) PARTITION BY LIST (mfm_version_id);
+
+CREATE TABLE mfm_units_partitioned (
+    id BIGINT NOT NULL,
+    mfm_version_id BIGINT NOT NULL,
+    faction_id BIGINT NOT NULL,
+    name VARCHAR(200) NOT NULL,
+    unit_type VARCHAR(50),
+    datasheet_id BIGINT,
+    created_timestamp TIMESTAMP NOT NULL,
+    updated_timestamp TIMESTAMP,
+    CONSTRAINT pk_mfm_units PRIMARY KEY (id, mfm_version_id)
+) PARTITION BY LIST (mfm_version_id);
+
+CREATE TABLE mfm_detachments_partitioned (
+    id BIGINT NOT NULL,
+    mfm_version_id BIGINT NOT NULL,
+    faction_id BIGINT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    created_timestamp TIMESTAMP NOT NULL,
+    updated_timestamp TIMESTAMP,
+    CONSTRAINT pk_mfm_detachments PRIMARY KEY (id, mfm_version_id)
+) PARTITION BY LIST (mfm_version_id);
+
+CREATE TABLE mfm_unit_variants_partitioned (
+    id BIGINT NOT NULL,
+    mfm_version_id BIGINT NOT NULL,
+    unit_id BIGINT NOT NULL,
+    model_count INTEGER NOT NULL,
+    points INTEGER NOT NULL,
+    created_timestamp TIMESTAMP NOT NULL,
+    updated_timestamp TIMESTAMP,
+    CONSTRAINT pk_mfm_unit_variants PRIMARY KEY (id, mfm_version_id)
+) PARTITION BY LIST (mfm_version_id);
+
+CREATE TABLE mfm_enhancements_partitioned (
+    id BIGINT NOT NULL,
+    mfm_version_id BIGINT NOT NULL,
+    detachment_id BIGINT NOT NULL,
+    name VARCHAR(200) NOT NULL,
+    points INTEGER NOT NULL,
+    created_timestamp TIMESTAMP NOT NULL,
+    updated_timestamp TIMESTAMP,
+    CONSTRAINT pk_mfm_enhancements PRIMARY KEY (id, mfm_version_id)
+) PARTITION BY LIST (mfm_version_id);
+
+-- Step 3: One partition per existing version, named like the partitions MfmPartitionService creates
+DO $$
+DECLARE
+    version_id BIGINT;
+    mfm_table TEXT;
+BEGIN
+    FOR version_id IN SELECT id FROM mfm_versions LOOP
+        FOREACH mfm_table IN ARRAY ARRAY['mfm_factions', 'mfm_units', 'mfm_detachments', 'mfm_unit_variants', 'mfm_enhancements'] LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES IN (%s)',
+                           mfm_table || '_v' || version_id, mfm_table || '_partitioned', version_id);
+        END LOOP;
+    END LOOP;
+END $$;
+
+-- Step 4: Copy the rows into their partitions
+INSERT INTO mfm_factions_partitioned (id, mfm_version_id, name, supergroup, ally_to, created_timestamp, updated_timestamp)
+SELECT id, mfm_version_id, name, supergroup, ally_to, created_timestamp, updated_timestamp FROM mfm_factions;
+
+INSERT INTO mfm_units_partitioned (id, mfm_version_id, faction_id, name, unit_type, datasheet_id, created_timestamp, updated_timestamp)
+SELECT id, mfm_version_id, faction_id, name, unit_type, datasheet_id, created_timestamp, updated_timestamp FROM mfm_units;
+
+INSERT INTO mfm_detachments_partitioned (id, mfm_version_id, faction_id, name, created_timestamp, updated_timestamp)
+SELECT id, mfm_version_id, faction_id, name, created_timestamp, updated_timestamp FROM mfm_detachments;
+
+INSERT INTO mfm_unit_variants_partitioned (id, mfm_version_id, unit_id, model_count, points, created_timestamp, updated_timestamp)
+SELECT id, mfm_version_id, unit_id, model_count, points, created_timestamp, updated_timestamp FROM mfm_unit_variants;
+
+INSERT INTO mfm_enhancements_partitioned (id, mfm_version_id, detachment_id, name, points, created_timestamp, updated_timestamp)
+SELECT id, mfm_version_id, detachment_id, name, points, created_timestamp, updated_timestamp FROM mfm_enhancements;
+
+-- Step 5: Replace the old tables
+DROP TABLE mfm_enhancements;
+DROP TABLE mfm_unit_variants;
+DROP TABLE mfm_detachments;
+DROP TABLE mfm_units;
+DROP TABLE mfm_factions;
+
+ALTER TABLE mfm_factions_partitioned RENAME TO mfm_factions;
+ALTER TABLE mfm_units_partitioned RENAME TO mfm_units;
+ALTER TABLE mfm_detachments_partitioned RENAME TO mfm_detachments;
+ALTER TABLE mfm_unit_variants_partitioned RENAME TO mfm_unit_variants;
+ALTER TABLE mfm_enhancements_partitioned RENAME TO mfm_enhancements;
+
+-- Step 6: Id sequences continuing from the copied rows (the identity sequences went with the old tables)
+CREATE SEQUENCE mfm_factions_id_seq OWNED BY mfm_factions.id;
+CREATE SEQUENCE mfm_units_id_seq OWNED BY mfm_units.id;
+CREATE SEQUENCE mfm_detachments_id_seq OWNED BY mfm_detachments.id;
+CREATE SEQUENCE mfm_unit_variants_id_seq OWNED BY mfm_unit_variants.id;
+CREATE SEQUENCE mfm_enhancements_id_seq OWNED BY mfm_enhancements.id;
+
+SELECT setval('mfm_factions_id_seq', COALESCE((SELECT MAX(id) FROM mfm_factions), 0) + 1, false);
+SELECT setval('mfm_units_id_seq', COALESCE((SELECT MAX(id) FROM mfm_units), 0) + 1, false);
+SELECT setval('mfm_detachments_id_seq', COALESCE((SELECT MAX(id) FROM mfm_detachments), 0) + 1, false);
+SELECT setval('mfm_unit_variants_id_seq', COALESCE((SELECT MAX(id) FROM mfm_unit_variants), 0) + 1, false);
+SELECT setval('mfm_enhancements_id_seq', COALESCE((SELECT MAX(id) FROM mfm_enhancements), 0) + 1, false);
+
+ALTER TABLE mfm_factions ALTER COLUMN id SET DEFAULT nextval('mfm_factions_id_seq');
+ALTER TABLE mfm_units ALTER COLUMN id SET DEFAULT nextval('mfm_units_id_seq');
+ALTER TABLE mfm_detachments ALTER COLUMN id SET DEFAULT nextval('mfm_detachments_id_seq');
+ALTER TABLE mfm_unit_variants ALTER COLUMN id SET DEFAULT nextval('mfm_unit_variants_id_seq');
+ALTER TABLE mfm_enhancements ALTER COLUMN id SET DEFAULT nextval('mfm_enhancements_id_seq');
+
+-- Step 7: Foreign keys within a version, so rows can only reference rows of their own partition
+ALTER TABLE mfm_factions ADD CONSTRAINT fk_mfm_factions_version
+    FOREIGN KEY (mfm_version_id) REFERENCES mfm_versions (id);
+ALTER TABLE mfm_units ADD CONSTRAINT fk_mfm_units_faction
+    FOREIGN KEY (faction_id, mfm_version_id) REFERENCES mfm_factions (id, mfm_version_id);
+ALTER TABLE mfm_detachments ADD CONSTRAINT fk_mfm_detachments_faction
+    FOREIGN KEY (faction_id, mfm_version_id) REFERENCES mfm_factions (id, mfm_version_id);
+ALTER TABLE mfm_unit_variants ADD CONSTRAINT fk_mfm_unit_variants_unit
+    FOREIGN KEY (unit_id, mfm_version_id) REFERENCES mfm_units (id, mfm_version_id);
+ALTER TABLE mfm_enhancements ADD CONSTRAINT fk_mfm_enhancements_detachment
+    FOREIGN KEY (detachment_id, mfm_version_id) REFERENCES mfm_detachments (id, mfm_version_id);
+
+-- Step 8: Indexes declared by the entities, so schema update does not try to create them
+CREATE INDEX idx_mfm_factions_mfm_version_id ON mfm_factions (mfm_version_id);
+CREATE INDEX idx_mfm_units_mfm_version_id ON mfm_units (mfm_version_id);
+CREATE INDEX idx_mfm_units_datasheet_id ON mfm_units (datasheet_id, mfm_version_id);
+CREATE INDEX idx_mfm_detachments_mfm_version_id ON mfm_detachments (mfm_version_id);
+CREATE INDEX idx_mfm_unit_variants_mfm_version_id ON mfm_unit_variants (mfm_version_id);
+CREATE INDEX idx_mfm_enhancements_mfm_version_id ON mfm_enhancements (mfm_version_id);
+
+-- Lookups by parent within a partition
+CREATE INDEX idx_mfm_units_faction_id ON mfm_units (faction_id);
+CREATE INDEX idx_mfm_detachments_faction_id ON mfm_detachments (faction_id);
+CREATE INDEX idx_mfm_unit_variants_unit_id ON mfm_unit_variants (unit_id);
+CREATE INDEX idx_mfm_enhancements_detachment_id ON mfm_enhancements (detachment_id);
+
+COMMIT;
@@ -2,8 +2,10 @@ package com.warplay;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class WarplayApp {
     public static void main(String[] args) {
         // Set JVM timezone to UTC for consistent timestamp handling
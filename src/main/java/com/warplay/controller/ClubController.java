@@ -29,11 +29,18 @@ public class ClubController {
     @Autowired
     private LoggingService loggingService;
 
+    // Get all active clubs; one page at a time when a cursor or limit is given
     @GetMapping
-    public ResponseEntity<List<ClubWithMemberCount>> getAllActiveClubs() {
+    public ResponseEntity<?> getAllActiveClubs(@RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit) {
         long startTime = System.currentTimeMillis();
 
         try {
+            if (cursor != null || limit != null) {
+                logger.debug("Fetching a page of active clubs with member counts");
+                return ResponseEntity.ok(clubService.getActiveClubsWithMemberCountPage(cursor, limit));
+            }
+
             logger.debug("Fetching all active clubs with member counts");
 
             List<ClubWithMemberCount> clubs = clubService.getAllActiveClubsWithMemberCount();
@@ -45,6 +52,10 @@ public class ClubController {
             logger.info("Successfully retrieved {} active clubs with member counts", clubs.size());
             return ResponseEntity.ok(clubs);
 
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid clubs page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+
         } catch (Exception e) {
             long duration = System.currentTimeMillis() - startTime;
             loggingService.logError("GET_ALL_CLUBS", e,
@@ -1,12 +1,23 @@
 package com.warplay.controller;
 
+import com.warplay.dto.BattleResultsRequest;
 import com.warplay.dto.CreateForceRequest;
 import com.warplay.dto.ForceResponse;
+import com.warplay.dto.ForceRosterResponse;
+import com.warplay.dto.LeaderboardEntry;
+import com.warplay.dto.UnitBatchRequest;
+import com.warplay.dto.UnitBatchResponse;
 import com.warplay.service.ForceService;
+import com.warplay.service.ColumnPatch;
+import com.warplay.service.CrusadeService;
 import com.warplay.service.JwtService;
+import com.warplay.service.LeaderboardService;
+import com.warplay.service.UnitService;
+import jakarta.validation.ValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +36,15 @@ public class ForceController {
     @Autowired
     private ForceService forceService;
     
+    @Autowired
+    private UnitService unitService;
+    
+    @Autowired
+    private CrusadeService crusadeService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
     @Autowired
     private JwtService jwtService;
     
@@ -77,6 +97,48 @@ public class ForceController {
         }
     }
     
+    /**
+     * Get the leaderboard of the forces in a club; metric is kills, xp
+     */
+    @GetMapping("/club/{clubId}/leaderboard")
+    public ResponseEntity<?> getClubLeaderboard(@PathVariable Long clubId,
+                                                 @RequestParam(required = false) String metric,
+                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            logger.debug("API request to fetch force leaderboard ({}) for club: {}", metric, clubId);
+            List<LeaderboardEntry> board = leaderboardService.getForceBoard(clubId, metric, limit);
+            return ResponseEntity.ok(board);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching force leaderboard for club {}: {}", clubId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to fetch leaderboard: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get the leaderboard of the forces in a crusade; metric is kills, xp
+     */
+    @GetMapping("/crusade/{crusadeId}/leaderboard")
+    public ResponseEntity<?> getCrusadeLeaderboard(@PathVariable Long crusadeId,
+                                                 @RequestParam(required = false) String metric,
+                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            logger.debug("API request to fetch force leaderboard ({}) for crusade: {}", metric, crusadeId);
+            List<LeaderboardEntry> board = leaderboardService.getForceBoard(crusadeService.getCrusadeClubId(crusadeId), metric, limit);
+            return ResponseEntity.ok(board);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching force leaderboard for crusade {}: {}", crusadeId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to fetch leaderboard: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Get all forces for a user
      */
@@ -111,14 +173,142 @@ public class ForceController {
     }
     
     /**
-     * Get all forces
+     * Get a force with its units and roster totals
+     */
+    @GetMapping("/{id}/roster")
+    public ResponseEntity<?> getForceRoster(@PathVariable Long id) {
+        try {
+            logger.debug("API request to fetch roster of force: {}", id);
+            return forceService.getForceRoster(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            logger.error("Error fetching roster of force {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to fetch force roster: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Copy a force with its units, optionally into another club and under another name
+     */
+    @PostMapping("/{id}/clone")
+    public ResponseEntity<?> cloneForce(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long clubId,
+            @RequestParam(required = false) String name,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        try {
+            logger.info("API request to clone force: {}", id);
+            
+            // Extract Google user ID from Authorization header
+            String googleUserId = extractUserIdFromAuth(authHeader);
+            if (googleUserId == null) {
+                logger.warn("Unauthorized attempt to clone force: {}", id);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Authentication required"));
+            }
+            
+            ForceResponse force = forceService.cloneForce(id, clubId, name, googleUserId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(force);
+            
+        } catch (IllegalArgumentException e) {
+            logger.warn("Validation error cloning force {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error cloning force {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to clone force: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Create, update and delete several units of a force in one transaction; returns the updated roster
+     */
+    @PostMapping("/{id}/units:batch")
+    public ResponseEntity<?> applyUnitBatch(
+            @PathVariable Long id,
+            @RequestBody UnitBatchRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        try {
+            logger.info("API request to apply a unit batch to force: {}", id);
+            
+            // Extract Google user ID from Authorization header
+            String googleUserId = extractUserIdFromAuth(authHeader);
+            if (googleUserId == null) {
+                logger.warn("Unauthorized attempt to change units of force: {}", id);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Authentication required"));
+            }
+            
+            UnitBatchResponse response = unitService.applyBatch(id, request, googleUserId);
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException | ValidationException e) {
+            logger.warn("Error applying unit batch to force {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error applying unit batch to force {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to apply unit batch: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Record a battle's XP, battles, kills and deaths for units of a force; returns the updated roster
+     */
+    @PostMapping("/{id}/battle-results")
+    public ResponseEntity<?> applyBattleResults(
+            @PathVariable Long id,
+            @RequestBody BattleResultsRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        try {
+            logger.info("API request to record battle results for force: {}", id);
+            
+            // Extract Google user ID from Authorization header
+            String googleUserId = extractUserIdFromAuth(authHeader);
+            if (googleUserId == null) {
+                logger.warn("Unauthorized attempt to record battle results for force: {}", id);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Authentication required"));
+            }
+            
+            ForceRosterResponse roster = unitService.applyBattleResults(id, request, googleUserId);
+            return ResponseEntity.ok(roster);
+            
+        } catch (IllegalArgumentException | ValidationException e) {
+            logger.warn("Error recording battle results for force {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error recording battle results for force {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to record battle results: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get all forces; one page at a time when a cursor or limit is given
      */
     @GetMapping
-    public ResponseEntity<?> getAllForces() {
+    public ResponseEntity<?> getAllForces(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit) {
         try {
+            if (cursor != null || limit != null) {
+                logger.debug("API request to fetch a page of forces");
+                return ResponseEntity.ok(forceService.getForcesPage(cursor, limit));
+            }
             logger.debug("API request to fetch all forces");
             List<ForceResponse> forces = forceService.getAllForces();
             return ResponseEntity.ok(forces);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error fetching all forces: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -149,7 +339,11 @@ public class ForceController {
             ForceResponse force = forceService.updateForce(id, request, googleUserId);
             return ResponseEntity.ok(force);
             
-        } catch (RuntimeException e) {
+        } catch (OptimisticLockingFailureException e) {
+            logger.info("Version conflict updating force {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "Force was changed by another request, reload it and try again"));
+        } catch (IllegalArgumentException | ValidationException e) {
             logger.warn("Error updating force {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(Map.of("message", e.getMessage()));
@@ -160,6 +354,48 @@ public class ForceController {
         }
     }
     
+    /**
+     * Partially update a force: only the fields in the body are written. Send the version from the ETag
+     * as If-Match to update without a pre-read; a stale version answers 409.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchForce(
+            @PathVariable Long id,
+            @RequestBody CreateForceRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        try {
+            logger.info("API request to patch force: {}", id);
+            
+            // Extract Google user ID from Authorization header
+            String googleUserId = extractUserIdFromAuth(authHeader);
+            if (googleUserId == null) {
+                logger.warn("Unauthorized attempt to patch force: {}", id);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Authentication required"));
+            }
+            
+            ForceResponse force = forceService.patchForce(id, request, ColumnPatch.parseVersion(ifMatch), googleUserId);
+            return ResponseEntity.ok()
+                .eTag("\"" + force.getVersion() + "\"")
+                .body(force);
+            
+        } catch (OptimisticLockingFailureException e) {
+            logger.info("Version conflict patching force {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", e.getMessage()));
+        } catch (IllegalArgumentException | ValidationException e) {
+            logger.warn("Error patching force {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error patching force {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to update force: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Delete a force (soft delete)
      */
@@ -182,7 +418,7 @@ public class ForceController {
             forceService.deleteForce(id, googleUserId);
             return ResponseEntity.ok(Map.of("message", "Force deleted successfully"));
             
-        } catch (RuntimeException e) {
+        } catch (IllegalArgumentException | ValidationException e) {
             logger.warn("Error deleting force {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(Map.of("message", e.getMessage()));
@@ -1,14 +1,29 @@
 package com.warplay.controller;
 
 import com.warplay.dto.*;
+import com.warplay.entity.MfmDatasheet;
+import com.warplay.entity.MfmDatasheetAlias;
+import com.warplay.service.MfmCatalogEncodingService;
+import com.warplay.service.MfmCatalogService;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
 import com.warplay.service.MfmDataService;
+import com.warplay.service.MfmDatasheetService;
+import com.warplay.service.JwtService;
+import com.warplay.service.MfmVersionManagementService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -21,6 +36,25 @@ public class MfmController {
     @Autowired
     private MfmDataService mfmDataService;
     
+    @Autowired
+    private MfmVersionManagementService mfmVersionManagementService;
+    
+    @Autowired
+    private MfmDatasheetService mfmDatasheetService;
+    
+    @Autowired
+    private MfmCatalogService mfmCatalogService;
+    
+    @Autowired
+    private MfmCatalogEncodingService mfmCatalogEncodingService;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    // Google IDs of the users allowed to change MFM data; the read endpoints stay public
+    @Value("${mfm.admin.google-ids:}")
+    private List<String> adminGoogleIds;
+    
     // Version endpoints
     @GetMapping("/versions")
     public ResponseEntity<List<MfmVersionResponse>> getAllVersions() {
@@ -45,6 +79,58 @@ public class MfmController {
                              .orElse(ResponseEntity.notFound().build());
     }
     
+    /**
+     * Move an inactive version to a cold archive; its points stay available through the catalog
+     */
+    @PostMapping("/versions/{version}/archive")
+    public ResponseEntity<Map<String, Object>> archiveVersion(@PathVariable String version,
+                                                              @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        ResponseEntity<Map<String, Object>> denied = checkAdmin(authHeader);
+        if (denied != null) {
+            return denied;
+        }
+        logger.info("Archiving MFM version: {}", version);
+        Map<String, Object> response = new HashMap<>();
+        try {
+            long bytes = mfmVersionManagementService.archiveVersion(version);
+            response.put("success", true);
+            response.put("version", version);
+            response.put("archiveBytes", bytes);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            logger.error("Error archiving MFM version {}", version, e);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * Archive every inactive version that is not the latest
+     */
+    @PostMapping("/versions/archive-retired")
+    public ResponseEntity<Map<String, Object>> archiveRetiredVersions(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        ResponseEntity<Map<String, Object>> denied = checkAdmin(authHeader);
+        if (denied != null) {
+            return denied;
+        }
+        logger.info("Archiving retired MFM versions");
+        List<String> archived = mfmVersionManagementService.archiveRetiredVersions();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("archivedVersions", archived);
+        return ResponseEntity.ok(response);
+    }
+    
     // Faction endpoints
     @GetMapping("/factions")
     public ResponseEntity<List<MfmFactionResponse>> getFactions(@RequestParam(defaultValue = "latest") String version) {
@@ -89,7 +175,43 @@ public class MfmController {
             units = mfmDataService.getUnitsByFactionAndVersion(faction, version);
         }
         
-        return ResponseEntity.ok(units);
+        return ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(units);
+    }
+    
+    /**
+     * Units of a faction as CBOR, encoded from the cached catalog. When the Accept header lists both CBOR
+     * and Smile, request mapping picks this or the Smile variant by quality.
+     */
+    @GetMapping(value = "/units", produces = MfmCatalogEncodingService.CBOR)
+    public ResponseEntity<byte[]> getUnitsCbor(@RequestParam String faction,
+                                               @RequestParam(defaultValue = "latest") String version) {
+        return getUnitsEncoded(faction, version, MfmCatalogEncodingService.CBOR);
+    }
+    
+    /**
+     * Units of a faction as Smile, encoded from the cached catalog
+     */
+    @GetMapping(value = "/units", produces = MfmCatalogEncodingService.SMILE)
+    public ResponseEntity<byte[]> getUnitsSmile(@RequestParam String faction,
+                                                @RequestParam(defaultValue = "latest") String version) {
+        return getUnitsEncoded(faction, version, MfmCatalogEncodingService.SMILE);
+    }
+    
+    private ResponseEntity<byte[]> getUnitsEncoded(String faction, String version, String mediaType) {
+        logger.info("Getting units for faction: {} and version: {} as {}", faction, version, mediaType);
+        
+        Optional<MfmCatalog> catalog = "latest".equals(version)
+            ? mfmCatalogService.getLatestCatalog()
+            : mfmCatalogService.getCatalog(version);
+        if (catalog.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        byte[] body = mfmCatalogEncodingService.encodeUnits(catalog.get(), faction, mediaType);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(mediaType))
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+            .body(body);
     }
     
     @GetMapping("/units/{unitName}")
@@ -211,4 +333,109 @@ public class MfmController {
         return points.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
     }
+    
+    // Datasheet key endpoints
+    @GetMapping("/datasheets")
+    public ResponseEntity<List<Map<String, Object>>> getDatasheets(@RequestParam String faction) {
+        logger.info("Getting datasheet keys for faction: {}", faction);
+        List<MfmDatasheet> factionDatasheets = mfmDatasheetService.getDatasheets(faction);
+        Map<Long, List<MfmDatasheetAlias>> aliases = mfmDatasheetService.getAliases(
+            factionDatasheets.stream().map(MfmDatasheet::getId).toList());
+        List<Map<String, Object>> datasheets = new ArrayList<>();
+        for (MfmDatasheet datasheet : factionDatasheets) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("id", datasheet.getId());
+            entry.put("factionName", datasheet.getFactionName());
+            entry.put("name", datasheet.getName());
+            entry.put("aliases", aliases.getOrDefault(datasheet.getId(), List.of()).stream()
+                .map(MfmDatasheetAlias::getAliasName)
+                .toList());
+            datasheets.add(entry);
+        }
+        return ResponseEntity.ok(datasheets);
+    }
+    
+    /**
+     * Add another name for a datasheet (e.g. after a rename); a datasheet already created under that name is merged in
+     */
+    @PostMapping("/datasheets/{id}/aliases")
+    public ResponseEntity<Map<String, Object>> addDatasheetAlias(@PathVariable Long id, @RequestParam String alias,
+                                                                 @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        ResponseEntity<Map<String, Object>> denied = checkAdmin(authHeader);
+        if (denied != null) {
+            return denied;
+        }
+        logger.info("Adding alias '{}' for datasheet {}", alias, id);
+        Map<String, Object> response = new HashMap<>();
+        try {
+            MfmDatasheetAlias saved = mfmDatasheetService.addAlias(id, alias);
+            response.put("success", true);
+            response.put("datasheetId", saved.getDatasheetId());
+            response.put("alias", saved.getAliasName());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (Exception e) {
+            logger.error("Error adding alias for datasheet {}", id, e);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * Give datasheet keys to units stored without one
+     */
+    @PostMapping("/datasheets/resolve-units")
+    public ResponseEntity<Map<String, Object>> resolveUnitDatasheets(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        ResponseEntity<Map<String, Object>> denied = checkAdmin(authHeader);
+        if (denied != null) {
+            return denied;
+        }
+        logger.info("Resolving datasheet keys of units");
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("resolvedUnits", mfmDatasheetService.resolveUnresolvedUnits());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 401 or 403 response when the caller is not an MFM administrator (mfm.admin.google-ids), otherwise null
+     */
+    private ResponseEntity<Map<String, Object>> checkAdmin(String authHeader) {
+        String googleUserId = extractUserIdFromAuth(authHeader);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        if (googleUserId == null) {
+            response.put("error", "Authentication required");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        if (!adminGoogleIds.contains(googleUserId)) {
+            logger.warn("User {} is not allowed to change MFM data", googleUserId);
+            response.put("error", "MFM administrator rights required");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+        return null;
+    }
+    
+    /**
+     * Extract Google user ID from Authorization header
+     */
+    private String extractUserIdFromAuth(String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            try {
+                Optional<Map<String, Object>> userInfo = jwtService.validateToken(token);
+                if (userInfo.isPresent()) {
+                    return (String) userInfo.get().get("googleId");
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to extract user ID from token: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
 }
@@ -1,20 +1,28 @@
 package com.warplay.controller;
 
+import com.warplay.service.JwtService;
+import com.warplay.service.MfmImportJobService;
 import com.warplay.service.MfmRawTextParserService;
+import com.warplay.service.MfmStatsService;
 import com.warplay.service.MfmValidationService;
+import com.warplay.service.PointsCatalogParserRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/mfm/raw-parser")
@@ -29,83 +37,212 @@ public class MfmRawParserController {
     @Autowired
     private MfmValidationService mfmValidationService;
     
+    @Autowired
+    private MfmImportJobService mfmImportJobService;
+    
+    @Autowired
+    private MfmStatsService mfmStatsService;
+    
+    @Autowired
+    private PointsCatalogParserRegistry pointsCatalogParserRegistry;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Value("${mfm.upload.max-bytes:10485760}")
+    private long maxUploadBytes;
+    
+    // Google IDs of the users allowed to import MFM data and see import jobs
+    @Value("${mfm.admin.google-ids:}")
+    private List<String> adminGoogleIds;
+    
     /**
-     * Parse a raw MFM text file and store in database
+     * Queue a raw MFM text or PDF file for parsing and storage. Returns a job id to poll.
+     * Points lists of other game systems are imported by passing the game system short name.
+     * The import job endpoints are for MFM administrators only.
      */
     @PostMapping("/parse")
-    public ResponseEntity<Map<String, Object>> parseMfmFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> parseMfmFile(@RequestParam("file") MultipartFile file,
+                                                            @RequestParam(value = "gameSystem", required = false) String gameSystem,
+                                                            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        ResponseEntity<Map<String, Object>> denied = checkAdmin(authHeader);
+        if (denied != null) {
+            return denied;
+        }
         try {
-            logger.info("Received MFM file for parsing: {}", file.getOriginalFilename());
+            logger.info("Received MFM file for parsing: {} ({} bytes)", file.getOriginalFilename(), file.getSize());
             
-            // Save uploaded file temporarily
-            Path tempFile = Files.createTempFile("mfm_", ".txt");
-            Files.write(tempFile, file.getBytes());
+            // Oversized uploads are refused before any content is read
+            String sourceName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload.txt";
+            MfmImportJobService.MfmImportJob job = mfmImportJobService.submitUpload(file, sourceName, gameSystem, maxUploadBytes);
             
-            // Parse the file
-            MfmRawTextParserService.MfmParseResult result = mfmRawTextParserService.parseAndStoreMfmFile(tempFile.toString());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobAcceptedResponse(job));
             
-            // Clean up temp file
-            Files.deleteIfExists(tempFile);
+        } catch (MfmRawTextParserService.MfmSizeLimitExceededException e) {
+            logger.warn("Rejected MFM upload {}: {}", file.getOriginalFilename(), e.getMessage());
             
             Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("version", result.getVersion());
-            response.put("unitsCount", result.getUnitsCount());
-            response.put("enhancementsCount", result.getEnhancementsCount());
-            response.put("factionsCount", result.getFactionsCount());
-            response.put("detachmentsCount", result.getDetachmentsCount());
-            response.put("message", "MFM file parsed and stored successfully");
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            response.put("message", "MFM file is too large");
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+            
+        } catch (RejectedExecutionException e) {
+            return importsBusyResponse(e);
             
         } catch (Exception e) {
-            logger.error("Error parsing MFM file", e);
+            logger.error("Error submitting MFM file", e);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("error", e.getMessage());
-            response.put("message", "Failed to parse MFM file");
+            response.put("message", "Failed to submit MFM file");
             
             return ResponseEntity.badRequest().body(response);
         }
     }
     
     /**
-     * Parse a raw MFM text file from file path (for server-side files)
+     * Queue a raw MFM text file from file path (for server-side files). Returns a job id to poll.
      */
     @PostMapping("/parse-file")
-    public ResponseEntity<Map<String, Object>> parseMfmFileFromPath(@RequestParam("filePath") String filePath) {
+    public ResponseEntity<Map<String, Object>> parseMfmFileFromPath(@RequestParam("filePath") String filePath,
+                                                                    @RequestParam(value = "gameSystem", required = false) String gameSystem,
+                                                                    @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        ResponseEntity<Map<String, Object>> denied = checkAdmin(authHeader);
+        if (denied != null) {
+            return denied;
+        }
         try {
-            logger.info("Parsing MFM file from path: {}", filePath);
+            logger.info("Submitting MFM file from path: {}", filePath);
             
-            // Parse the file
-            MfmRawTextParserService.MfmParseResult result = mfmRawTextParserService.parseAndStoreMfmFile(filePath);
+            if (!Files.isRegularFile(Paths.get(filePath))) {
+                throw new IllegalArgumentException("File not found: " + filePath);
+            }
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("version", result.getVersion());
-            response.put("unitsCount", result.getUnitsCount());
-            response.put("enhancementsCount", result.getEnhancementsCount());
-            response.put("factionsCount", result.getFactionsCount());
-            response.put("detachmentsCount", result.getDetachmentsCount());
-            response.put("message", "MFM file parsed and stored successfully");
+            MfmImportJobService.MfmImportJob job = mfmImportJobService.submitFile(filePath, gameSystem, false);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobAcceptedResponse(job));
+            
+        } catch (RejectedExecutionException e) {
+            return importsBusyResponse(e);
             
         } catch (Exception e) {
-            logger.error("Error parsing MFM file from path: {}", filePath, e);
+            logger.error("Error submitting MFM file from path: {}", filePath, e);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("error", e.getMessage());
-            response.put("message", "Failed to parse MFM file");
+            response.put("message", "Failed to submit MFM file");
             
             return ResponseEntity.badRequest().body(response);
         }
     }
     
     /**
-     * Validate parsed data by comparing with original file
+     * Get the phase and progress of an import job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getImportJob(@PathVariable String jobId,
+                                                            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        ResponseEntity<Map<String, Object>> denied = checkAdmin(authHeader);
+        if (denied != null) {
+            return denied;
+        }
+        return mfmImportJobService.getJob(jobId)
+            .map(job -> ResponseEntity.ok(job.toMap()))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * List recent import jobs
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<?> getImportJobs(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        ResponseEntity<Map<String, Object>> denied = checkAdmin(authHeader);
+        if (denied != null) {
+            return denied;
+        }
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (MfmImportJobService.MfmImportJob job : mfmImportJobService.getJobs()) {
+            jobs.add(job.toMap());
+        }
+        return ResponseEntity.ok(jobs);
+    }
+    
+    /**
+     * List the game systems whose points lists can be imported
+     */
+    @GetMapping("/game-systems")
+    public ResponseEntity<Map<String, Object>> getSupportedGameSystems() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("gameSystems", pointsCatalogParserRegistry.getSupportedGameSystems());
+        response.put("defaultGameSystem", MfmRawTextParserService.GAME_SYSTEM);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 401 or 403 response when the caller is not an MFM administrator (mfm.admin.google-ids), otherwise null
+     */
+    private ResponseEntity<Map<String, Object>> checkAdmin(String authHeader) {
+        String googleUserId = extractUserIdFromAuth(authHeader);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        if (googleUserId == null) {
+            response.put("error", "Authentication required");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        if (!adminGoogleIds.contains(googleUserId)) {
+            logger.warn("User {} is not allowed to import MFM data", googleUserId);
+            response.put("error", "MFM administrator rights required");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+        return null;
+    }
+    
+    /**
+     * Extract Google user ID from Authorization header
+     */
+    private String extractUserIdFromAuth(String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            try {
+                Optional<Map<String, Object>> userInfo = jwtService.validateToken(token);
+                if (userInfo.isPresent()) {
+                    return (String) userInfo.get().get("googleId");
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to extract user ID from token: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+    
+    private Map<String, Object> jobAcceptedResponse(MfmImportJobService.MfmImportJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobId", job.getId());
+        response.put("phase", job.getPhase());
+        response.put("statusUrl", "/api/mfm/raw-parser/jobs/" + job.getId());
+        response.put("message", "MFM import queued");
+        return response;
+    }
+    
+    private ResponseEntity<Map<String, Object>> importsBusyResponse(RejectedExecutionException e) {
+        logger.warn("Rejected MFM import: {}", e.getMessage());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", e.getMessage());
+        response.put("message", "Too many MFM imports in progress, try again later");
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+    }
+    
+    /**
+     * Validate parsed and stored data against the original file. Differences carry their faction section
+     * and line numbers.
      */
     @PostMapping("/validate")
     public ResponseEntity<Map<String, Object>> validateMfmData(
@@ -124,6 +261,8 @@ public class MfmRawParserController {
             response.put("differencesCount", result.getDifferences().size());
             response.put("isPerfectMatch", result.isPerfectMatch());
             response.put("matchPercentage", result.getMatchPercentage());
+            response.put("durationMillis", result.getDurationMillis());
+            response.put("differencesBySection", result.getDifferencesBySection());
             response.put("differences", result.getDifferences());
             response.put("message", "Validation completed");
             
@@ -214,19 +353,25 @@ public class MfmRawParserController {
     }
     
     /**
-     * Get parsing statistics for a version
+     * Get per-faction statistics for a version: unit, variant, detachment and enhancement counts and points range
      */
     @GetMapping("/stats/{version}")
     public ResponseEntity<Map<String, Object>> getParsingStats(@PathVariable String version) {
         try {
             logger.info("Getting parsing stats for version: {}", version);
             
-            // This would require additional repository methods to get counts
-            // For now, return a placeholder response
+            MfmStatsService.MfmVersionStats stats = mfmStatsService.getStats(version);
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("version", version);
-            response.put("message", "Stats endpoint - implementation needed");
+            response.put("version", stats.getVersion());
+            response.put("source", stats.getSource());
+            response.put("factionsCount", stats.getFactions().size());
+            response.put("unitsCount", stats.getTotalUnits());
+            response.put("variantsCount", stats.getTotalVariants());
+            response.put("detachmentsCount", stats.getTotalDetachments());
+            response.put("enhancementsCount", stats.getTotalEnhancements());
+            response.put("factions", stats.getFactions());
             
             return ResponseEntity.ok(response);
             
@@ -1,12 +1,20 @@
 package com.warplay.controller;
 
 import com.warplay.dto.CreateUnitRequest;
+import com.warplay.dto.LeaderboardEntry;
+import com.warplay.dto.UnitAttributeCount;
 import com.warplay.dto.UnitResponse;
+import com.warplay.service.CrusadeService;
+import com.warplay.service.UnitAttributeService;
 import com.warplay.service.UnitService;
+import com.warplay.service.ColumnPatch;
 import com.warplay.service.JwtService;
+import com.warplay.service.LeaderboardService;
+import jakarta.validation.ValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +33,15 @@ public class UnitController {
     @Autowired
     private UnitService unitService;
     
+    @Autowired
+    private UnitAttributeService unitAttributeService;
+    
+    @Autowired
+    private CrusadeService crusadeService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
     @Autowired
     private JwtService jwtService;
     
@@ -93,6 +110,128 @@ public class UnitController {
         }
     }
     
+    /**
+     * Get the units of a club with an attribute, e.g. kind=BATTLE_TRAIT and name=Fleet Footed
+     */
+    @GetMapping("/club/{clubId}/with-attribute")
+    public ResponseEntity<?> getClubUnitsWithAttribute(@PathVariable Long clubId,
+                                                  @RequestParam String kind,
+                                                  @RequestParam String name) {
+        try {
+            logger.debug("API request to fetch units with {} '{}' in club: {}", kind, name, clubId);
+            List<UnitResponse> units = unitAttributeService.getClubUnitsWithAttribute(clubId, kind, name);
+            return ResponseEntity.ok(units);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching units with {} '{}' in club {}: {}", kind, name, clubId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to fetch units: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Count the attributes of one kind in a club, e.g. kind=RELIC for its relics
+     */
+    @GetMapping("/club/{clubId}/attribute-counts")
+    public ResponseEntity<?> getClubAttributeCounts(@PathVariable Long clubId, @RequestParam String kind) {
+        try {
+            logger.debug("API request to count {} in club: {}", kind, clubId);
+            List<UnitAttributeCount> counts = unitAttributeService.getClubAttributeCounts(clubId, kind);
+            return ResponseEntity.ok(counts);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error counting {} in club {}: {}", kind, clubId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to count attributes: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get the units of a crusade with an attribute, e.g. kind=BATTLE_TRAIT and name=Fleet Footed
+     */
+    @GetMapping("/crusade/{crusadeId}/with-attribute")
+    public ResponseEntity<?> getCrusadeUnitsWithAttribute(@PathVariable Long crusadeId,
+                                                  @RequestParam String kind,
+                                                  @RequestParam String name) {
+        try {
+            logger.debug("API request to fetch units with {} '{}' in crusade: {}", kind, name, crusadeId);
+            List<UnitResponse> units = unitAttributeService.getClubUnitsWithAttribute(crusadeService.getCrusadeClubId(crusadeId), kind, name);
+            return ResponseEntity.ok(units);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching units with {} '{}' in crusade {}: {}", kind, name, crusadeId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to fetch units: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Count the attributes of one kind in a crusade, e.g. kind=RELIC for its relics
+     */
+    @GetMapping("/crusade/{crusadeId}/attribute-counts")
+    public ResponseEntity<?> getCrusadeAttributeCounts(@PathVariable Long crusadeId, @RequestParam String kind) {
+        try {
+            logger.debug("API request to count {} in crusade: {}", kind, crusadeId);
+            List<UnitAttributeCount> counts = unitAttributeService.getClubAttributeCounts(crusadeService.getCrusadeClubId(crusadeId), kind);
+            return ResponseEntity.ok(counts);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error counting {} in crusade {}: {}", kind, crusadeId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to count attributes: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get the leaderboard of the units in a club; metric is kills, xp or battles
+     */
+    @GetMapping("/club/{clubId}/leaderboard")
+    public ResponseEntity<?> getClubLeaderboard(@PathVariable Long clubId,
+                                                 @RequestParam(required = false) String metric,
+                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            logger.debug("API request to fetch unit leaderboard ({}) for club: {}", metric, clubId);
+            List<LeaderboardEntry> board = leaderboardService.getUnitBoard(clubId, metric, limit);
+            return ResponseEntity.ok(board);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching unit leaderboard for club {}: {}", clubId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to fetch leaderboard: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get the leaderboard of the units in a crusade; metric is kills, xp or battles
+     */
+    @GetMapping("/crusade/{crusadeId}/leaderboard")
+    public ResponseEntity<?> getCrusadeLeaderboard(@PathVariable Long crusadeId,
+                                                 @RequestParam(required = false) String metric,
+                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            logger.debug("API request to fetch unit leaderboard ({}) for crusade: {}", metric, crusadeId);
+            List<LeaderboardEntry> board = leaderboardService.getUnitBoard(crusadeService.getCrusadeClubId(crusadeId), metric, limit);
+            return ResponseEntity.ok(board);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error fetching unit leaderboard for crusade {}: {}", crusadeId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to fetch leaderboard: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Get a unit by ID
      */
@@ -111,14 +250,22 @@ public class UnitController {
     }
     
     /**
-     * Get all units
+     * Get all units; one page at a time when a cursor or limit is given
      */
     @GetMapping
-    public ResponseEntity<?> getAllUnits() {
+    public ResponseEntity<?> getAllUnits(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit) {
         try {
+            if (cursor != null || limit != null) {
+                logger.debug("API request to fetch a page of units");
+                return ResponseEntity.ok(unitService.getUnitsPage(cursor, limit));
+            }
             logger.debug("API request to fetch all units");
             List<UnitResponse> units = unitService.getAllUnits();
             return ResponseEntity.ok(units);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error fetching all units: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -149,7 +296,11 @@ public class UnitController {
             UnitResponse unit = unitService.updateUnit(id, request, googleUserId);
             return ResponseEntity.ok(unit);
             
-        } catch (RuntimeException e) {
+        } catch (OptimisticLockingFailureException e) {
+            logger.info("Version conflict updating unit {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "Unit was changed by another request, reload it and try again"));
+        } catch (IllegalArgumentException | ValidationException e) {
             logger.warn("Error updating unit {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(Map.of("message", e.getMessage()));
@@ -160,6 +311,48 @@ public class UnitController {
         }
     }
     
+    /**
+     * Partially update a unit: only the fields in the body are written. Send the version from the ETag
+     * as If-Match to update without a pre-read; a stale version answers 409.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchUnit(
+            @PathVariable Long id,
+            @RequestBody CreateUnitRequest request,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        try {
+            logger.info("API request to patch unit: {}", id);
+            
+            // Extract Google user ID from Authorization header
+            String googleUserId = extractUserIdFromAuth(authHeader);
+            if (googleUserId == null) {
+                logger.warn("Unauthorized attempt to patch unit: {}", id);
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Authentication required"));
+            }
+            
+            UnitResponse unit = unitService.patchUnit(id, request, ColumnPatch.parseVersion(ifMatch), googleUserId);
+            return ResponseEntity.ok()
+                .eTag("\"" + unit.getVersion() + "\"")
+                .body(unit);
+            
+        } catch (OptimisticLockingFailureException e) {
+            logger.info("Version conflict patching unit {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", e.getMessage()));
+        } catch (IllegalArgumentException | ValidationException e) {
+            logger.warn("Error patching unit {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error patching unit {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to update unit: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Delete a unit (soft delete)
      */
@@ -182,7 +375,7 @@ public class UnitController {
             unitService.deleteUnit(id, googleUserId);
             return ResponseEntity.ok(Map.of("message", "Unit deleted successfully"));
             
-        } catch (RuntimeException e) {
+        } catch (IllegalArgumentException | ValidationException e) {
             logger.warn("Error deleting unit {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(Map.of("message", e.getMessage()));
@@ -28,12 +28,18 @@ public class UserController {
     @Autowired
     private LoggingService loggingService;
 
-    // Get all active users
+    // Get all active users; one page at a time when a cursor or limit is given
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit) {
         long startTime = System.currentTimeMillis();
 
         try {
+            if (cursor != null || limit != null) {
+                logger.debug("Fetching a page of active users");
+                return ResponseEntity.ok(userService.getActiveUsersPage(cursor, limit));
+            }
+
             logger.debug("Fetching all active users");
 
             List<User> users = userService.getAllActiveUsers();
@@ -45,6 +51,10 @@ public class UserController {
             logger.info("Successfully retrieved {} active users", users.size());
             return ResponseEntity.ok(users);
 
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid users page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+
         } catch (Exception e) {
             long duration = System.currentTimeMillis() - startTime;
             loggingService.logError("GET_ALL_USERS", e,
@@ -28,12 +28,18 @@ public class UserGameSystemController {
     @Autowired
     private LoggingService loggingService;
 
-    // Get all user-game system relationships
+    // Get all user-game system relationships; one page at a time when a cursor or limit is given
     @GetMapping
-    public ResponseEntity<List<UserGameSystem>> getAllUserGameSystems() {
+    public ResponseEntity<?> getAllUserGameSystems(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limit) {
         long startTime = System.currentTimeMillis();
 
         try {
+            if (cursor != null || limit != null) {
+                logger.debug("Fetching a page of user-game system relationships");
+                return ResponseEntity.ok(userGameSystemService.getUserGameSystemsPage(cursor, limit));
+            }
+
             logger.debug("Fetching all user-game system relationships");
 
             List<UserGameSystem> relationships = userGameSystemService.getAllUserGameSystems();
@@ -45,6 +51,10 @@ public class UserGameSystemController {
             logger.info("Successfully retrieved {} user-game system relationships", relationships.size());
             return ResponseEntity.ok(relationships);
 
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid user-game systems page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+
         } catch (Exception e) {
             long duration = System.currentTimeMillis() - startTime;
             loggingService.logError("GET_ALL_USER_GAME_SYSTEMS", e,
@@ -0,0 +1,78 @@
+package com.warplay.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progression of a force's units after a battle, as amounts to add to each unit
+ */
+public class BattleResultsRequest {
+    private List<UnitResult> units = new ArrayList<>();
+
+    // Constructors
+    public BattleResultsRequest() {
+    }
+
+    // Getters and Setters
+    public List<UnitResult> getUnits() {
+        return units;
+    }
+
+    public void setUnits(List<UnitResult> units) {
+        this.units = units;
+    }
+
+    /**
+     * What one unit gained in the battle; battles defaults to 1 and the others to 0
+     */
+    public static class UnitResult {
+        private Long unitId;
+        private Integer xp;
+        private Integer battles;
+        private Integer kills;
+        private Integer timesKilled;
+
+        public UnitResult() {
+        }
+
+        public Long getUnitId() {
+            return unitId;
+        }
+
+        public void setUnitId(Long unitId) {
+            this.unitId = unitId;
+        }
+
+        public Integer getXp() {
+            return xp;
+        }
+
+        public void setXp(Integer xp) {
+            this.xp = xp;
+        }
+
+        public Integer getBattles() {
+            return battles;
+        }
+
+        public void setBattles(Integer battles) {
+            this.battles = battles;
+        }
+
+        public Integer getKills() {
+            return kills;
+        }
+
+        public void setKills(Integer kills) {
+            this.kills = kills;
+        }
+
+        public Integer getTimesKilled() {
+            return timesKilled;
+        }
+
+        public void setTimesKilled(Integer timesKilled) {
+            this.timesKilled = timesKilled;
+        }
+    }
+}
@@ -24,6 +24,12 @@ public class ForceResponse {
     private String mfmVersion;
     private LocalDateTime createdTimestamp;
     private LocalDateTime updatedTimestamp;
+    private Integer version;
+    private Integer unitCount;
+    private Integer totalPoints;
+    private Integer totalCrusadePoints;
+    private Integer totalXp;
+    private Integer totalKills;
     
     // Constructor from Force entity
     public ForceResponse(Force force) {
@@ -42,6 +48,12 @@ public class ForceResponse {
         this.mfmVersion = force.getMfmVersion();
         this.createdTimestamp = force.getCreatedTimestamp();
         this.updatedTimestamp = force.getUpdatedTimestamp();
+        this.version = force.getVersion();
+        this.unitCount = force.getUnitCount();
+        this.totalPoints = force.getTotalPoints();
+        this.totalCrusadePoints = force.getTotalCrusadePoints();
+        this.totalXp = force.getTotalXp();
+        this.totalKills = force.getTotalKills();
     }
     
     // Constructor from Force and User
@@ -56,6 +68,13 @@ public class ForceResponse {
         this.clubName = club != null ? club.getName() : null;
     }
     
+    // Constructor for join projections (ForceRepository), names selected with the force
+    public ForceResponse(Force force, String playerName, String clubName) {
+        this(force);
+        this.playerName = playerName;
+        this.clubName = clubName;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -192,7 +211,52 @@ public class ForceResponse {
     public void setUpdatedTimestamp(LocalDateTime updatedTimestamp) {
         this.updatedTimestamp = updatedTimestamp;
     }
+    
+    public Integer getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+    
+    public Integer getUnitCount() {
+        return unitCount;
+    }
+    
+    public void setUnitCount(Integer unitCount) {
+        this.unitCount = unitCount;
+    }
+    
+    public Integer getTotalPoints() {
+        return totalPoints;
+    }
+    
+    public void setTotalPoints(Integer totalPoints) {
+        this.totalPoints = totalPoints;
+    }
+    
+    public Integer getTotalCrusadePoints() {
+        return totalCrusadePoints;
+    }
+    
+    public void setTotalCrusadePoints(Integer totalCrusadePoints) {
+        this.totalCrusadePoints = totalCrusadePoints;
+    }
+    
+    public Integer getTotalXp() {
+        return totalXp;
+    }
+    
+    public void setTotalXp(Integer totalXp) {
+        this.totalXp = totalXp;
+    }
+    
+    public Integer getTotalKills() {
+        return totalKills;
+    }
+    
+    public void setTotalKills(Integer totalKills) {
+        this.totalKills = totalKills;
+    }
 }
-
-
-
@@ -0,0 +1,145 @@
+package com.warplay.dto;
+
+import java.util.List;
+
+/**
+ * A force with its units and the roster totals, for the force page in one round trip
+ */
+public class ForceRosterResponse {
+    private ForceResponse force;
+    private List<UnitResponse> units;
+    private Integer unitCount;
+    private Integer totalPoints;
+    private Integer totalCrusadePoints;
+    private Integer totalXp;
+    private Integer totalKills;
+    private Integer totalTimesKilled;
+    private Integer supplyLimit;
+    private Integer supplyUsed;
+    private Integer supplyRemaining;
+
+    // Constructor from a force and its units; supply used is the units' points
+    public ForceRosterResponse(ForceResponse force, List<UnitResponse> units) {
+        this.force = force;
+        this.units = units;
+        this.unitCount = units.size();
+
+        int points = 0;
+        int crusadePoints = 0;
+        int xp = 0;
+        int kills = 0;
+        int timesKilled = 0;
+        for (UnitResponse unit : units) {
+            points += valueOf(unit.getPoints());
+            crusadePoints += valueOf(unit.getCrusadePoints());
+            xp += valueOf(unit.getXp());
+            kills += valueOf(unit.getKillCount());
+            timesKilled += valueOf(unit.getTimesKilled());
+        }
+        this.totalPoints = points;
+        this.totalCrusadePoints = crusadePoints;
+        this.totalXp = xp;
+        this.totalKills = kills;
+        this.totalTimesKilled = timesKilled;
+        this.supplyLimit = valueOf(force.getSupplyLimit());
+        this.supplyUsed = points;
+        this.supplyRemaining = supplyLimit - points;
+    }
+
+    // Default constructor
+    public ForceRosterResponse() {
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    // Getters and Setters
+    public ForceResponse getForce() {
+        return force;
+    }
+
+    public void setForce(ForceResponse force) {
+        this.force = force;
+    }
+
+    public List<UnitResponse> getUnits() {
+        return units;
+    }
+
+    public void setUnits(List<UnitResponse> units) {
+        this.units = units;
+    }
+
+    public Integer getUnitCount() {
+        return unitCount;
+    }
+
+    public void setUnitCount(Integer unitCount) {
+        this.unitCount = unitCount;
+    }
+
+    public Integer getTotalPoints() {
+        return totalPoints;
+    }
+
+    public void setTotalPoints(Integer totalPoints) {
+        this.totalPoints = totalPoints;
+    }
+
+    public Integer getTotalCrusadePoints() {
+        return totalCrusadePoints;
+    }
+
+    public void setTotalCrusadePoints(Integer totalCrusadePoints) {
+        this.totalCrusadePoints = totalCrusadePoints;
+    }
+
+    public Integer getTotalXp() {
+        return totalXp;
+    }
+
+    public void setTotalXp(Integer totalXp) {
+        this.totalXp = totalXp;
+    }
+
+    public Integer getTotalKills() {
+        return totalKills;
+    }
+
+    public void setTotalKills(Integer totalKills) {
+        this.totalKills = totalKills;
+    }
+
+    public Integer getTotalTimesKilled() {
+        return totalTimesKilled;
+    }
+
+    public void setTotalTimesKilled(Integer totalTimesKilled) {
+        this.totalTimesKilled = totalTimesKilled;
+    }
+
+    public Integer getSupplyLimit() {
+        return supplyLimit;
+    }
+
+    public void setSupplyLimit(Integer supplyLimit) {
+        this.supplyLimit = supplyLimit;
+    }
+
+    public Integer getSupplyUsed() {
+        return supplyUsed;
+    }
+
+    public void setSupplyUsed(Integer supplyUsed) {
+        this.supplyUsed = supplyUsed;
+    }
+
+    public Integer getSupplyRemaining() {
+        return supplyRemaining;
+    }
+
+    public void setSupplyRemaining(Integer supplyRemaining) {
+        this.supplyRemaining = supplyRemaining;
+    }
+}
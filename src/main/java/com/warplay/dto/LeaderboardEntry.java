@@ -0,0 +1,107 @@
+package com.warplay.dto;
+
+/**
+ * One place on a club leaderboard: a unit (with its force) or a force, and its score
+ */
+public class LeaderboardEntry {
+    private Integer rank;
+    private Integer score;
+    private Long id;
+    private String name;
+    private String playerName;
+    private Long forceId;
+    private String forceName;
+    private String faction;
+    
+    // Constructor for a unit board
+    public LeaderboardEntry(int rank, int score, UnitResponse unit) {
+        this.rank = rank;
+        this.score = score;
+        this.id = unit.getId();
+        this.name = unit.getName();
+        this.playerName = unit.getPlayerName();
+        this.forceId = unit.getForceId();
+        this.forceName = unit.getForceName();
+    }
+    
+    // Constructor for a force board
+    public LeaderboardEntry(int rank, int score, ForceResponse force) {
+        this.rank = rank;
+        this.score = score;
+        this.id = force.getId();
+        this.name = force.getName();
+        this.playerName = force.getPlayerName();
+        this.forceId = force.getId();
+        this.forceName = force.getName();
+        this.faction = force.getFaction();
+    }
+    
+    // Default constructor
+    public LeaderboardEntry() {
+    }
+    
+    // Getters and Setters
+    public Integer getRank() {
+        return rank;
+    }
+    
+    public void setRank(Integer rank) {
+        this.rank = rank;
+    }
+    
+    public Integer getScore() {
+        return score;
+    }
+    
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getPlayerName() {
+        return playerName;
+    }
+    
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+    
+    public Long getForceId() {
+        return forceId;
+    }
+    
+    public void setForceId(Long forceId) {
+        this.forceId = forceId;
+    }
+    
+    public String getForceName() {
+        return forceName;
+    }
+    
+    public void setForceName(String forceName) {
+        this.forceName = forceName;
+    }
+    
+    public String getFaction() {
+        return faction;
+    }
+    
+    public void setFaction(String faction) {
+        this.faction = faction;
+    }
+}
@@ -0,0 +1,113 @@
+package com.warplay.dto;
+
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.CatalogUnit;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Units of a faction in the compact shape used for binary encodings: no ids, faction and version once
+ * per payload, and variants as parallel model-count and points arrays like in the catalog
+ */
+public class MfmCompactUnitsResponse {
+    private String mfmVersion;
+    private String factionName;
+    private List<CompactUnit> units;
+
+    // Constructor from catalog
+    public MfmCompactUnitsResponse(MfmCatalog catalog, CatalogFaction faction, String factionName) {
+        this.mfmVersion = catalog.getVersion();
+        this.factionName = faction != null ? faction.getName() : factionName;
+        this.units = new ArrayList<>();
+        if (faction != null) {
+            for (CatalogUnit unit : faction.getUnits()) {
+                units.add(new CompactUnit(unit));
+            }
+        }
+    }
+
+    // Default constructor
+    public MfmCompactUnitsResponse() {
+    }
+
+    // Getters and Setters
+    public String getMfmVersion() {
+        return mfmVersion;
+    }
+
+    public void setMfmVersion(String mfmVersion) {
+        this.mfmVersion = mfmVersion;
+    }
+
+    public String getFactionName() {
+        return factionName;
+    }
+
+    public void setFactionName(String factionName) {
+        this.factionName = factionName;
+    }
+
+    public List<CompactUnit> getUnits() {
+        return units;
+    }
+
+    public void setUnits(List<CompactUnit> units) {
+        this.units = units;
+    }
+
+    public static class CompactUnit {
+        private String name;
+        private String unitType;
+        private int[] modelCounts;
+        private int[] points;
+
+        public CompactUnit(CatalogUnit unit) {
+            this.name = unit.getName();
+            this.unitType = unit.getUnitType();
+            int variants = unit.getVariantCount();
+            this.modelCounts = new int[variants];
+            this.points = new int[variants];
+            for (int i = 0; i < variants; i++) {
+                modelCounts[i] = unit.getModelCount(i);
+                points[i] = unit.getPoints(i);
+            }
+        }
+
+        public CompactUnit() {
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUnitType() {
+            return unitType;
+        }
+
+        public void setUnitType(String unitType) {
+            this.unitType = unitType;
+        }
+
+        public int[] getModelCounts() {
+            return modelCounts;
+        }
+
+        public void setModelCounts(int[] modelCounts) {
+            this.modelCounts = modelCounts;
+        }
+
+        public int[] getPoints() {
+            return points;
+        }
+
+        public void setPoints(int[] points) {
+            this.points = points;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.warplay.dto;
 
 import com.warplay.entity.MfmDetachment;
+import com.warplay.service.MfmCatalogService.CatalogDetachment;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,6 +24,18 @@ public class MfmDetachmentResponse {
             mfmDetachment.getEnhancements().stream().map(MfmEnhancementResponse::new).collect(Collectors.toList()) : null;
     }
     
+    // Constructor from catalog, for versions no longer in the database (no ids)
+    public MfmDetachmentResponse(CatalogDetachment detachment, String factionName, String mfmVersion) {
+        this.name = detachment.getName();
+        this.factionName = factionName;
+        this.mfmVersion = mfmVersion;
+        this.enhancements = new ArrayList<>();
+        for (int i = 0; i < detachment.getEnhancementCount(); i++) {
+            enhancements.add(new MfmEnhancementResponse(detachment.getEnhancementName(i), detachment.getEnhancementPoints(i),
+                detachment.getName(), factionName, mfmVersion));
+        }
+    }
+    
     // Default constructor
     public MfmDetachmentResponse() {
     }
@@ -23,6 +23,15 @@ public class MfmEnhancementResponse {
             mfmEnhancement.getDetachment().getFaction().getMfmVersion().getVersion() : null;
     }
     
+    // Constructor from catalog values, for versions no longer in the database (no id)
+    public MfmEnhancementResponse(String name, Integer points, String detachmentName, String factionName, String mfmVersion) {
+        this.name = name;
+        this.points = points;
+        this.detachmentName = detachmentName;
+        this.factionName = factionName;
+        this.mfmVersion = mfmVersion;
+    }
+    
     // Default constructor
     public MfmEnhancementResponse() {
     }
@@ -1,6 +1,7 @@
 package com.warplay.dto;
 
 import com.warplay.entity.MfmFaction;
+import com.warplay.service.MfmCatalogService.CatalogFaction;
 
 public class MfmFactionResponse {
     private Long id;
@@ -18,6 +19,14 @@ public class MfmFactionResponse {
         this.mfmVersion = mfmFaction.getMfmVersion() != null ? mfmFaction.getMfmVersion().getVersion() : null;
     }
     
+    // Constructor from catalog, for versions no longer in the database (no id)
+    public MfmFactionResponse(CatalogFaction faction, String mfmVersion) {
+        this.name = faction.getName();
+        this.supergroup = faction.getSupergroup();
+        this.allyTo = faction.getAllyTo();
+        this.mfmVersion = mfmVersion;
+    }
+    
     // Default constructor
     public MfmFactionResponse() {
     }
@@ -1,6 +1,8 @@
 package com.warplay.dto;
 
 import com.warplay.entity.MfmUnit;
+import com.warplay.service.MfmCatalogService.CatalogUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,6 +26,18 @@ public class MfmUnitResponse {
             mfmUnit.getVariants().stream().map(MfmUnitVariantResponse::new).collect(Collectors.toList()) : null;
     }
     
+    // Constructor from catalog, for versions no longer in the database (no ids)
+    public MfmUnitResponse(CatalogUnit unit, String factionName, String mfmVersion) {
+        this.name = unit.getName();
+        this.unitType = unit.getUnitType();
+        this.factionName = factionName;
+        this.mfmVersion = mfmVersion;
+        this.variants = new ArrayList<>();
+        for (int i = 0; i < unit.getVariantCount(); i++) {
+            variants.add(new MfmUnitVariantResponse(unit.getModelCount(i), unit.getPoints(i), unit.getName(), factionName, mfmVersion));
+        }
+    }
+    
     // Default constructor
     public MfmUnitResponse() {
     }
@@ -23,6 +23,15 @@ public class MfmUnitVariantResponse {
             mfmUnitVariant.getUnit().getFaction().getMfmVersion().getVersion() : null;
     }
     
+    // Constructor from catalog values, for versions no longer in the database (no id)
+    public MfmUnitVariantResponse(Integer modelCount, Integer points, String unitName, String factionName, String mfmVersion) {
+        this.modelCount = modelCount;
+        this.points = points;
+        this.unitName = unitName;
+        this.factionName = factionName;
+        this.mfmVersion = mfmVersion;
+    }
+    
     // Default constructor
     public MfmUnitVariantResponse() {
     }
@@ -7,6 +7,7 @@ public class MfmVersionResponse {
     private String version;
     private String date;
     private Boolean isLatest;
+    private Boolean isArchived;
     
     // Constructor from entity
     public MfmVersionResponse(MfmVersion mfmVersion) {
@@ -14,6 +15,7 @@ public class MfmVersionResponse {
         this.version = mfmVersion.getVersion();
         this.date = mfmVersion.getDate();
         this.isLatest = mfmVersion.getIsLatest();
+        this.isArchived = Boolean.TRUE.equals(mfmVersion.getIsArchived());
     }
     
     // Default constructor
@@ -52,4 +54,12 @@ public class MfmVersionResponse {
     public void setIsLatest(Boolean isLatest) {
         this.isLatest = isLatest;
     }
+    
+    public Boolean getIsArchived() {
+        return isArchived;
+    }
+    
+    public void setIsArchived(Boolean isArchived) {
+        this.isArchived = isArchived;
+    }
 }
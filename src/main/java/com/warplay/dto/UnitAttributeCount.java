@@ -0,0 +1,46 @@
+package com.warplay.dto;
+
+/**
+ * How many units carry an attribute (wargear, relic, trait, ...) and how many times it appears
+ */
+public class UnitAttributeCount {
+    private String name;
+    private Long unitCount;
+    private Long count;
+
+    // Constructor for the grouping query (UnitAttributeRepository)
+    public UnitAttributeCount(String name, Long unitCount, Long count) {
+        this.name = name;
+        this.unitCount = unitCount;
+        this.count = count;
+    }
+
+    // Default constructor
+    public UnitAttributeCount() {
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getUnitCount() {
+        return unitCount;
+    }
+
+    public void setUnitCount(Long unitCount) {
+        this.unitCount = unitCount;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,60 @@
+package com.warplay.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit changes to a force's roster, applied together in one transaction
+ */
+public class UnitBatchRequest {
+    private List<Operation> operations = new ArrayList<>();
+    
+    // Constructors
+    public UnitBatchRequest() {
+    }
+    
+    // Getters and Setters
+    public List<Operation> getOperations() {
+        return operations;
+    }
+    
+    public void setOperations(List<Operation> operations) {
+        this.operations = operations;
+    }
+    
+    /**
+     * One change: "create" with unit, "update" with unitId and the unit fields to change, or "delete" with unitId
+     */
+    public static class Operation {
+        private String action;
+        private Long unitId;
+        private CreateUnitRequest unit;
+        
+        public Operation() {
+        }
+        
+        public String getAction() {
+            return action;
+        }
+        
+        public void setAction(String action) {
+            this.action = action;
+        }
+        
+        public Long getUnitId() {
+            return unitId;
+        }
+        
+        public void setUnitId(Long unitId) {
+            this.unitId = unitId;
+        }
+        
+        public CreateUnitRequest getUnit() {
+            return unit;
+        }
+        
+        public void setUnit(CreateUnitRequest unit) {
+            this.unit = unit;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.warplay.dto;
+
+import java.util.List;
+
+/**
+ * Result of a unit batch: ids of the created units in request order and the roster after the batch
+ */
+public class UnitBatchResponse {
+    private List<Long> createdUnitIds;
+    private Integer updatedCount;
+    private Integer deletedCount;
+    private ForceRosterResponse roster;
+    
+    public UnitBatchResponse(List<Long> createdUnitIds, int updatedCount, int deletedCount, ForceRosterResponse roster) {
+        this.createdUnitIds = createdUnitIds;
+        this.updatedCount = updatedCount;
+        this.deletedCount = deletedCount;
+        this.roster = roster;
+    }
+    
+    // Default constructor
+    public UnitBatchResponse() {
+    }
+    
+    // Getters and Setters
+    public List<Long> getCreatedUnitIds() {
+        return createdUnitIds;
+    }
+    
+    public void setCreatedUnitIds(List<Long> createdUnitIds) {
+        this.createdUnitIds = createdUnitIds;
+    }
+    
+    public Integer getUpdatedCount() {
+        return updatedCount;
+    }
+    
+    public void setUpdatedCount(Integer updatedCount) {
+        this.updatedCount = updatedCount;
+    }
+    
+    public Integer getDeletedCount() {
+        return deletedCount;
+    }
+    
+    public void setDeletedCount(Integer deletedCount) {
+        this.deletedCount = deletedCount;
+    }
+    
+    public ForceRosterResponse getRoster() {
+        return roster;
+    }
+    
+    public void setRoster(ForceRosterResponse roster) {
+        this.roster = roster;
+    }
+}
@@ -14,6 +14,7 @@ public class UnitResponse {
     private String playerName;
     private String name;
     private String dataSheet;
+    private Long datasheetId;
     private Integer modelCount;
     private String unitType;
     private Integer points;
@@ -35,6 +36,7 @@ public class UnitResponse {
     private String imageUrl;
     private LocalDateTime createdTimestamp;
     private LocalDateTime updatedTimestamp;
+    private Integer version;
     
     // Constructor from Unit entity
     public UnitResponse(Unit unit) {
@@ -43,6 +45,7 @@ public class UnitResponse {
         this.userId = unit.getUserId();
         this.name = unit.getName();
         this.dataSheet = unit.getDataSheet();
+        this.datasheetId = unit.getDatasheetId();
         this.modelCount = unit.getModelCount();
         this.unitType = unit.getUnitType();
         this.points = unit.getPoints();
@@ -64,6 +67,7 @@ public class UnitResponse {
         this.imageUrl = unit.getImageUrl();
         this.createdTimestamp = unit.getCreatedTimestamp();
         this.updatedTimestamp = unit.getUpdatedTimestamp();
+        this.version = unit.getVersion();
     }
     
     // Constructor from Unit and User
@@ -78,6 +82,13 @@ public class UnitResponse {
         this.forceName = force != null ? force.getName() : null;
     }
     
+    // Constructor for join projections (UnitRepository), names selected with the unit
+    public UnitResponse(Unit unit, String playerName, String forceName) {
+        this(unit);
+        this.playerName = playerName;
+        this.forceName = forceName;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -135,6 +146,14 @@ public class UnitResponse {
         this.dataSheet = dataSheet;
     }
     
+    public Long getDatasheetId() {
+        return datasheetId;
+    }
+    
+    public void setDatasheetId(Long datasheetId) {
+        this.datasheetId = datasheetId;
+    }
+    
     public Integer getModelCount() {
         return modelCount;
     }
@@ -303,4 +322,12 @@ public class UnitResponse {
     public void setUpdatedTimestamp(LocalDateTime updatedTimestamp) {
         this.updatedTimestamp = updatedTimestamp;
     }
+    
+    public Integer getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
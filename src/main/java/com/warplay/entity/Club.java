@@ -7,7 +7,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "clubs")
+@Table(name = "clubs", indexes = @Index(name = "idx_clubs_created_id", columnList = "created_timestamp, id"))
 public class Club {
 
     @Id
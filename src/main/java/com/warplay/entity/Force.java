@@ -1,10 +1,15 @@
 package com.warplay.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "forces")
+@DynamicUpdate
+@Table(name = "forces", indexes = {
+    @Index(name = "idx_forces_created_id", columnList = "created_timestamp, id"),
+    @Index(name = "idx_forces_club_id", columnList = "club_id")
+})
 public class Force {
     
     @Id
@@ -56,6 +61,29 @@ public class Force {
     @Column(name = "deleted_timestamp")
     private LocalDateTime deletedTimestamp;
     
+    // Bumped on every write; the token for conditional partial updates (see ColumnPatch)
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "integer not null default 0")
+    private Integer version;
+    
+    // Totals over the force's non-deleted units, kept current by ForceAggregateService.
+    // Only written by its atomic update statements, never by saving the entity, so a force update
+    // cannot overwrite a concurrent unit change.
+    @Column(name = "unit_count", insertable = false, updatable = false, columnDefinition = "integer not null default 0")
+    private Integer unitCount = 0;
+    
+    @Column(name = "total_points", insertable = false, updatable = false, columnDefinition = "integer not null default 0")
+    private Integer totalPoints = 0;
+    
+    @Column(name = "total_crusade_points", insertable = false, updatable = false, columnDefinition = "integer not null default 0")
+    private Integer totalCrusadePoints = 0;
+    
+    @Column(name = "total_xp", insertable = false, updatable = false, columnDefinition = "integer not null default 0")
+    private Integer totalXp = 0;
+    
+    @Column(name = "total_kills", insertable = false, updatable = false, columnDefinition = "integer not null default 0")
+    private Integer totalKills = 0;
+    
     @PrePersist
     protected void onCreate() {
         createdTimestamp = LocalDateTime.now();
@@ -199,5 +227,29 @@ public class Force {
     public void setDeletedTimestamp(LocalDateTime deletedTimestamp) {
         this.deletedTimestamp = deletedTimestamp;
     }
+    
+    public Integer getVersion() {
+        return version;
+    }
+    
+    public Integer getUnitCount() {
+        return unitCount;
+    }
+    
+    public Integer getTotalPoints() {
+        return totalPoints;
+    }
+    
+    public Integer getTotalCrusadePoints() {
+        return totalCrusadePoints;
+    }
+    
+    public Integer getTotalXp() {
+        return totalXp;
+    }
+    
+    public Integer getTotalKills() {
+        return totalKills;
+    }
 }
 
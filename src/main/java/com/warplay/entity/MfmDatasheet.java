@@ -0,0 +1,110 @@
+package com.warplay.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A datasheet identity that stays the same across MFM versions, so units can refer to it by key
+ * instead of by name. Faction and name keys are the normalized (trimmed, upper-case) names.
+ */
+@Entity
+@Table(name = "mfm_datasheets",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"faction_key", "name_key"}))
+public class MfmDatasheet {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "game_system", nullable = false, length = 20)
+    private String gameSystem;
+
+    @Column(name = "faction_name", nullable = false, length = 100)
+    private String factionName;
+
+    @Column(name = "name", nullable = false, length = 200)
+    private String name;
+
+    @Column(name = "faction_key", nullable = false, length = 100)
+    private String factionKey;
+
+    @Column(name = "name_key", nullable = false, length = 200)
+    private String nameKey;
+
+    @Column(name = "created_timestamp", nullable = false, updatable = false)
+    private LocalDateTime createdTimestamp;
+
+    @PrePersist
+    protected void onCreate() {
+        createdTimestamp = LocalDateTime.now();
+    }
+
+    // Constructors
+    public MfmDatasheet() {
+    }
+
+    public MfmDatasheet(String gameSystem, String factionName, String name, String factionKey, String nameKey) {
+        this.gameSystem = gameSystem;
+        this.factionName = factionName;
+        this.name = name;
+        this.factionKey = factionKey;
+        this.nameKey = nameKey;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getGameSystem() {
+        return gameSystem;
+    }
+
+    public void setGameSystem(String gameSystem) {
+        this.gameSystem = gameSystem;
+    }
+
+    public String getFactionName() {
+        return factionName;
+    }
+
+    public void setFactionName(String factionName) {
+        this.factionName = factionName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getFactionKey() {
+        return factionKey;
+    }
+
+    public void setFactionKey(String factionKey) {
+        this.factionKey = factionKey;
+    }
+
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    public void setNameKey(String nameKey) {
+        this.nameKey = nameKey;
+    }
+
+    public LocalDateTime getCreatedTimestamp() {
+        return createdTimestamp;
+    }
+
+    public void setCreatedTimestamp(LocalDateTime createdTimestamp) {
+        this.createdTimestamp = createdTimestamp;
+    }
+}
@@ -0,0 +1,97 @@
+package com.warplay.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Another name for a datasheet, typically its name before or after a rename between MFM versions
+ */
+@Entity
+@Table(name = "mfm_datasheet_aliases",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"faction_key", "name_key"}))
+public class MfmDatasheetAlias {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "datasheet_id", nullable = false)
+    private Long datasheetId;
+
+    @Column(name = "alias_name", nullable = false, length = 200)
+    private String aliasName;
+
+    @Column(name = "faction_key", nullable = false, length = 100)
+    private String factionKey;
+
+    @Column(name = "name_key", nullable = false, length = 200)
+    private String nameKey;
+
+    @Column(name = "created_timestamp", nullable = false, updatable = false)
+    private LocalDateTime createdTimestamp;
+
+    @PrePersist
+    protected void onCreate() {
+        createdTimestamp = LocalDateTime.now();
+    }
+
+    // Constructors
+    public MfmDatasheetAlias() {
+    }
+
+    public MfmDatasheetAlias(Long datasheetId, String aliasName, String factionKey, String nameKey) {
+        this.datasheetId = datasheetId;
+        this.aliasName = aliasName;
+        this.factionKey = factionKey;
+        this.nameKey = nameKey;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDatasheetId() {
+        return datasheetId;
+    }
+
+    public void setDatasheetId(Long datasheetId) {
+        this.datasheetId = datasheetId;
+    }
+
+    public String getAliasName() {
+        return aliasName;
+    }
+
+    public void setAliasName(String aliasName) {
+        this.aliasName = aliasName;
+    }
+
+    public String getFactionKey() {
+        return factionKey;
+    }
+
+    public void setFactionKey(String factionKey) {
+        this.factionKey = factionKey;
+    }
+
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    public void setNameKey(String nameKey) {
+        this.nameKey = nameKey;
+    }
+
+    public LocalDateTime getCreatedTimestamp() {
+        return createdTimestamp;
+    }
+
+    public void setCreatedTimestamp(LocalDateTime createdTimestamp) {
+        this.createdTimestamp = createdTimestamp;
+    }
+}
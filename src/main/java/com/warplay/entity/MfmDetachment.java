@@ -5,17 +5,23 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "mfm_detachments")
+@Table(name = "mfm_detachments", indexes = @Index(name = "idx_mfm_detachments_mfm_version_id", columnList = "mfm_version_id"))
 public class MfmDetachment {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // No database constraint from the mapping: the partitioned schema links rows by (id, mfm_version_id),
+    // see sql-migrations/partition_mfm_by_version.sql; on unpartitioned tables MfmPartitionService adds the key
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "faction_id", nullable = false)
+    @JoinColumn(name = "faction_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private MfmFaction faction;
     
+    // Version of the row, copied from its faction so each version's rows can live in their own partition
+    @Column(name = "mfm_version_id")
+    private Long mfmVersionId;
+    
     @Column(name = "name", nullable = false, length = 100)
     private String name;
     
@@ -45,6 +51,7 @@ public class MfmDetachment {
     
     public MfmDetachment(MfmFaction faction, String name) {
         this.faction = faction;
+        this.mfmVersionId = faction.getMfmVersion().getId();
         this.name = name;
     }
     
@@ -63,6 +70,15 @@ public class MfmDetachment {
     
     public void setFaction(MfmFaction faction) {
         this.faction = faction;
+        this.mfmVersionId = faction != null ? faction.getMfmVersion().getId() : null;
+    }
+    
+    public Long getMfmVersionId() {
+        return mfmVersionId;
+    }
+    
+    public void setMfmVersionId(Long mfmVersionId) {
+        this.mfmVersionId = mfmVersionId;
     }
     
     public String getName() {
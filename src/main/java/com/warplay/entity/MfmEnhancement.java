@@ -4,17 +4,23 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "mfm_enhancements")
+@Table(name = "mfm_enhancements", indexes = @Index(name = "idx_mfm_enhancements_mfm_version_id", columnList = "mfm_version_id"))
 public class MfmEnhancement {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // No database constraint from the mapping: the partitioned schema links rows by (id, mfm_version_id),
+    // see sql-migrations/partition_mfm_by_version.sql; on unpartitioned tables MfmPartitionService adds the key
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "detachment_id", nullable = false)
+    @JoinColumn(name = "detachment_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private MfmDetachment detachment;
     
+    // Version of the row, copied from its detachment so each version's rows can live in their own partition
+    @Column(name = "mfm_version_id")
+    private Long mfmVersionId;
+    
     @Column(name = "name", nullable = false, length = 200)
     private String name;
     
@@ -44,6 +50,7 @@ public class MfmEnhancement {
     
     public MfmEnhancement(MfmDetachment detachment, String name, Integer points) {
         this.detachment = detachment;
+        this.mfmVersionId = detachment.getMfmVersionId();
         this.name = name;
         this.points = points;
     }
@@ -63,6 +70,15 @@ public class MfmEnhancement {
     
     public void setDetachment(MfmDetachment detachment) {
         this.detachment = detachment;
+        this.mfmVersionId = detachment != null ? detachment.getMfmVersionId() : null;
+    }
+    
+    public Long getMfmVersionId() {
+        return mfmVersionId;
+    }
+    
+    public void setMfmVersionId(Long mfmVersionId) {
+        this.mfmVersionId = mfmVersionId;
     }
     
     public String getName() {
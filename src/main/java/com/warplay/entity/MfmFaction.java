@@ -5,7 +5,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "mfm_factions")
+@Table(name = "mfm_factions", indexes = @Index(name = "idx_mfm_factions_mfm_version_id", columnList = "mfm_version_id"))
 public class MfmFaction {
     
     @Id
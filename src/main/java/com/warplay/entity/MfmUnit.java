@@ -5,23 +5,36 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "mfm_units")
+@Table(name = "mfm_units", indexes = {
+    @Index(name = "idx_mfm_units_mfm_version_id", columnList = "mfm_version_id"),
+    @Index(name = "idx_mfm_units_datasheet_id", columnList = "datasheet_id, mfm_version_id")
+})
 public class MfmUnit {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // No database constraint from the mapping: the partitioned schema links rows by (id, mfm_version_id),
+    // see sql-migrations/partition_mfm_by_version.sql; on unpartitioned tables MfmPartitionService adds the key
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "faction_id", nullable = false)
+    @JoinColumn(name = "faction_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private MfmFaction faction;
     
+    // Version of the row, copied from its faction so each version's rows can live in their own partition
+    @Column(name = "mfm_version_id")
+    private Long mfmVersionId;
+    
     @Column(name = "name", nullable = false, length = 200)
     private String name;
     
     @Column(name = "unit_type", length = 50)
     private String unitType;
     
+    // Stable datasheet key (MfmDatasheet), set on import; the same across versions and renames
+    @Column(name = "datasheet_id")
+    private Long datasheetId;
+    
     @Column(name = "created_timestamp", nullable = false, updatable = false)
     private LocalDateTime createdTimestamp;
     
@@ -48,6 +61,7 @@ public class MfmUnit {
     
     public MfmUnit(MfmFaction faction, String name, String unitType) {
         this.faction = faction;
+        this.mfmVersionId = faction.getMfmVersion().getId();
         this.name = name;
         this.unitType = unitType;
     }
@@ -67,6 +81,15 @@ public class MfmUnit {
     
     public void setFaction(MfmFaction faction) {
         this.faction = faction;
+        this.mfmVersionId = faction != null ? faction.getMfmVersion().getId() : null;
+    }
+    
+    public Long getMfmVersionId() {
+        return mfmVersionId;
+    }
+    
+    public void setMfmVersionId(Long mfmVersionId) {
+        this.mfmVersionId = mfmVersionId;
     }
     
     public String getName() {
@@ -85,6 +108,14 @@ public class MfmUnit {
         this.unitType = unitType;
     }
     
+    public Long getDatasheetId() {
+        return datasheetId;
+    }
+    
+    public void setDatasheetId(Long datasheetId) {
+        this.datasheetId = datasheetId;
+    }
+    
     public LocalDateTime getCreatedTimestamp() {
         return createdTimestamp;
     }
@@ -4,17 +4,23 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "mfm_unit_variants")
+@Table(name = "mfm_unit_variants", indexes = @Index(name = "idx_mfm_unit_variants_mfm_version_id", columnList = "mfm_version_id"))
 public class MfmUnitVariant {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // No database constraint from the mapping: the partitioned schema links rows by (id, mfm_version_id),
+    // see sql-migrations/partition_mfm_by_version.sql; on unpartitioned tables MfmPartitionService adds the key
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "unit_id", nullable = false)
+    @JoinColumn(name = "unit_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private MfmUnit unit;
     
+    // Version of the row, copied from its unit so each version's rows can live in their own partition
+    @Column(name = "mfm_version_id")
+    private Long mfmVersionId;
+    
     @Column(name = "model_count", nullable = false)
     private Integer modelCount;
     
@@ -44,6 +50,7 @@ public class MfmUnitVariant {
     
     public MfmUnitVariant(MfmUnit unit, Integer modelCount, Integer points) {
         this.unit = unit;
+        this.mfmVersionId = unit.getMfmVersionId();
         this.modelCount = modelCount;
         this.points = points;
     }
@@ -63,6 +70,15 @@ public class MfmUnitVariant {
     
     public void setUnit(MfmUnit unit) {
         this.unit = unit;
+        this.mfmVersionId = unit != null ? unit.getMfmVersionId() : null;
+    }
+    
+    public Long getMfmVersionId() {
+        return mfmVersionId;
+    }
+    
+    public void setMfmVersionId(Long mfmVersionId) {
+        this.mfmVersionId = mfmVersionId;
     }
     
     public Integer getModelCount() {
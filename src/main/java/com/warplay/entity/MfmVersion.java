@@ -17,12 +17,20 @@ public class MfmVersion {
     @Column(name = "date", length = 20)
     private String date;
     
+    // Short name of the game system the points list belongs to; null for rows imported before it was tracked (40K)
+    @Column(name = "game_system", length = 20)
+    private String gameSystem;
+    
     @Column(name = "is_latest", nullable = false)
     private Boolean isLatest = false;
     
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
     
+    // Archived versions have no rows in the MFM tables, their catalog is kept in an archive file; null for older rows
+    @Column(name = "is_archived")
+    private Boolean isArchived = false;
+    
     @Column(name = "created_timestamp", nullable = false, updatable = false)
     private LocalDateTime createdTimestamp;
     
@@ -83,6 +91,14 @@ public class MfmVersion {
         this.date = date;
     }
     
+    public String getGameSystem() {
+        return gameSystem;
+    }
+    
+    public void setGameSystem(String gameSystem) {
+        this.gameSystem = gameSystem;
+    }
+    
     public Boolean getIsLatest() {
         return isLatest;
     }
@@ -99,6 +115,14 @@ public class MfmVersion {
         this.isActive = isActive;
     }
     
+    public Boolean getIsArchived() {
+        return isArchived;
+    }
+    
+    public void setIsArchived(Boolean isArchived) {
+        this.isArchived = isArchived;
+    }
+    
     public LocalDateTime getCreatedTimestamp() {
         return createdTimestamp;
     }
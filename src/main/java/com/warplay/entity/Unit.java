@@ -3,8 +3,13 @@ package com.warplay.entity;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+// Entity updates write the whole row, so the updates of a unit batch share one statement and go to the
+// database as one JDBC batch; partial writes (PATCH) go through ColumnPatch instead
 @Entity
-@Table(name = "units")
+@Table(name = "units", indexes = {
+    @Index(name = "idx_units_datasheet_id", columnList = "datasheet_id"),
+    @Index(name = "idx_units_created_id", columnList = "created_timestamp, id")
+})
 public class Unit {
     
     @Id
@@ -23,6 +28,10 @@ public class Unit {
     @Column(name = "data_sheet", nullable = false, length = 200)
     private String dataSheet;
     
+    // Stable MFM datasheet key resolved from dataSheet on write; null for custom datasheets
+    @Column(name = "datasheet_id")
+    private Long datasheetId;
+    
     @Column(name = "model_count", nullable = false)
     private Integer modelCount;
     
@@ -90,6 +99,11 @@ public class Unit {
     @Column(name = "deleted_timestamp")
     private LocalDateTime deletedTimestamp;
     
+    // Bumped on every write; the token for conditional partial updates (see ColumnPatch)
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "integer not null default 0")
+    private Integer version;
+    
     @PrePersist
     protected void onCreate() {
         createdTimestamp = LocalDateTime.now();
@@ -146,6 +160,14 @@ public class Unit {
         this.dataSheet = dataSheet;
     }
     
+    public Long getDatasheetId() {
+        return datasheetId;
+    }
+    
+    public void setDatasheetId(Long datasheetId) {
+        this.datasheetId = datasheetId;
+    }
+    
     public Integer getModelCount() {
         return modelCount;
     }
@@ -322,4 +344,8 @@ public class Unit {
     public void setDeletedTimestamp(LocalDateTime deletedTimestamp) {
         this.deletedTimestamp = deletedTimestamp;
     }
+    
+    public Integer getVersion() {
+        return version;
+    }
 }
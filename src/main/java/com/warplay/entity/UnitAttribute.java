@@ -0,0 +1,97 @@
+package com.warplay.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * One entry of a unit's wargear, enhancements, relics, battle traits or battle scars. Derived from the
+ * unit's text fields (one row per comma, semicolon or line separated entry) by UnitAttributeService, so
+ * club-wide questions about them are index lookups instead of text scans.
+ */
+@Entity
+@Table(name = "unit_attributes", indexes = {
+    @Index(name = "idx_unit_attributes_kind_name", columnList = "kind, name_key, unit_id"),
+    @Index(name = "idx_unit_attributes_unit_kind", columnList = "unit_id, kind")
+})
+public class UnitAttribute {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "unit_id", nullable = false)
+    private Long unitId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 20)
+    private Kind kind;
+
+    @Column(name = "name", nullable = false, length = 500)
+    private String name;
+
+    // Name normalized as MfmDatasheetService.normalize does, for lookups
+    @Column(name = "name_key", nullable = false, length = 500)
+    private String nameKey;
+
+    // Position of the entry in the unit's text field, from 1
+    @Column(name = "position", nullable = false)
+    private Integer position;
+
+    // Constructors
+    public UnitAttribute() {
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUnitId() {
+        return unitId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    // Kinds of attributes, with the units column each one is read from
+    public enum Kind {
+        WARGEAR("wargear"),
+        ENHANCEMENT("enhancements"),
+        RELIC("relics"),
+        BATTLE_TRAIT("battle_traits"),
+        BATTLE_SCAR("battle_scars");
+
+        private final String column;
+
+        Kind(String column) {
+            this.column = column;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public static Kind fromString(String kind) {
+            if (kind == null) {
+                throw new IllegalArgumentException("Attribute kind is required");
+            }
+            try {
+                return valueOf(kind.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown attribute kind: " + kind);
+            }
+        }
+    }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "user_game_systems",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "game_system_id"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "game_system_id"}),
+        indexes = @Index(name = "idx_user_game_systems_created_id", columnList = "created_timestamp, id"))
 public class UserGameSystem {
 
     @Id
@@ -1,11 +1,13 @@
 package com.warplay.repository;
 
 import com.warplay.entity.Club;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +18,16 @@ public interface ClubRepository extends JpaRepository<Club, Long> {
     @Query("SELECT c FROM Club c WHERE c.deletedTimestamp IS NULL")
     List<Club> findByDeletedTimestampIsNull();
 
+    // Keyset pages of active clubs, newest first (see KeysetCursor)
+    @Query("SELECT c FROM Club c WHERE c.deletedTimestamp IS NULL ORDER BY c.createdTimestamp DESC, c.id DESC")
+    List<Club> findActivePage(Pageable pageable);
+
+    @Query("SELECT c FROM Club c WHERE c.deletedTimestamp IS NULL AND " +
+            "(c.createdTimestamp, c.id) < (:createdTimestamp, :id) " +
+            "ORDER BY c.createdTimestamp DESC, c.id DESC")
+    List<Club> findActivePageAfter(@Param("createdTimestamp") LocalDateTime createdTimestamp,
+                                   @Param("id") Long id, Pageable pageable);
+
     // Find active club by ID
     Optional<Club> findByIdAndDeletedTimestampIsNull(Long id);
 
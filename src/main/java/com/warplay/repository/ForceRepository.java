@@ -1,11 +1,15 @@
 package com.warplay.repository;
 
+import com.warplay.dto.ForceResponse;
 import com.warplay.entity.Force;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,5 +31,74 @@ public interface ForceRepository extends JpaRepository<Force, Long> {
     // Find all non-deleted forces
     @Query("SELECT f FROM Force f WHERE f.deletedTimestamp IS NULL ORDER BY f.createdTimestamp DESC")
     List<Force> findAllNonDeleted();
+    
+    // Responses with player and club names, joined in the same select instead of one lookup per force
+    String RESPONSE_SELECT = "SELECT new com.warplay.dto.ForceResponse(f, u.name, c.name) FROM Force f " +
+        "LEFT JOIN User u ON u.id = f.userId LEFT JOIN Club c ON c.id = f.clubId ";
+    
+    @Query(RESPONSE_SELECT + "WHERE f.clubId = :clubId AND f.deletedTimestamp IS NULL ORDER BY f.createdTimestamp DESC")
+    List<ForceResponse> findResponsesByClubId(@Param("clubId") Long clubId);
+    
+    @Query(RESPONSE_SELECT + "WHERE f.userId = :userId AND f.deletedTimestamp IS NULL ORDER BY f.createdTimestamp DESC")
+    List<ForceResponse> findResponsesByUserId(@Param("userId") Long userId);
+    
+    @Query(RESPONSE_SELECT + "WHERE f.id = :id AND f.deletedTimestamp IS NULL")
+    Optional<ForceResponse> findResponseById(@Param("id") Long id);
+    
+    @Query(RESPONSE_SELECT + "WHERE f.deletedTimestamp IS NULL ORDER BY f.createdTimestamp DESC")
+    List<ForceResponse> findAllResponses();
+    
+    // Non-deleted responses for a set of ids, in no particular order (e.g. a leaderboard's entries)
+    @Query(RESPONSE_SELECT + "WHERE f.id IN :ids AND f.deletedTimestamp IS NULL")
+    List<ForceResponse> findResponsesByIdIn(@Param("ids") List<Long> ids);
+    
+    // Keyset pages of all non-deleted forces (see KeysetCursor)
+    @Query(RESPONSE_SELECT + "WHERE f.deletedTimestamp IS NULL ORDER BY f.createdTimestamp DESC, f.id DESC")
+    List<ForceResponse> findResponsePage(Pageable pageable);
+    
+    @Query(RESPONSE_SELECT + "WHERE f.deletedTimestamp IS NULL AND " +
+           "(f.createdTimestamp, f.id) < (:createdTimestamp, :id) " +
+           "ORDER BY f.createdTimestamp DESC, f.id DESC")
+    List<ForceResponse> findResponsePageAfter(@Param("createdTimestamp") LocalDateTime createdTimestamp,
+                                              @Param("id") Long id, Pageable pageable);
+    
+    // Add a change in units to a force's aggregates in one atomic statement (see ForceAggregateService);
+    // pending unit writes are flushed first. The persistence context is not cleared: the caller refreshes
+    // the force when it was loaded
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Force f SET f.unitCount = f.unitCount + :units, f.totalPoints = f.totalPoints + :points, " +
+           "f.totalCrusadePoints = f.totalCrusadePoints + :crusadePoints, f.totalXp = f.totalXp + :xp, " +
+           "f.totalKills = f.totalKills + :kills WHERE f.id = :forceId")
+    int addToAggregates(@Param("forceId") Long forceId, @Param("units") int units, @Param("points") int points,
+                        @Param("crusadePoints") int crusadePoints, @Param("xp") int xp, @Param("kills") int kills);
+    
+    // Aggregates of forces computed from their units (forces to check: all, or one with :forceId)
+    String UNIT_AGGREGATES = "SELECT fo.id AS force_id, COUNT(u.id) AS unit_count, " +
+                             "COALESCE(SUM(u.points), 0) AS total_points, COALESCE(SUM(u.crusade_points), 0) AS total_crusade_points, " +
+                             "COALESCE(SUM(u.xp), 0) AS total_xp, COALESCE(SUM(u.kill_count), 0) AS total_kills " +
+                             "FROM forces fo LEFT JOIN units u ON u.force_id = fo.id AND u.deleted_timestamp IS NULL ";
+    
+    String DRIFTED = "(f.unit_count <> a.unit_count OR f.total_points <> a.total_points " +
+                     "OR f.total_crusade_points <> a.total_crusade_points OR f.total_xp <> a.total_xp " +
+                     "OR f.total_kills <> a.total_kills)";
+    
+    // Forces whose aggregates differ from their units, as of this statement
+    @Query(value = "SELECT f.id FROM forces f JOIN (" + UNIT_AGGREGATES + "GROUP BY fo.id) a ON a.force_id = f.id " +
+                   "WHERE " + DRIFTED,
+           nativeQuery = true)
+    List<Long> findDriftedForceIds();
+    
+    // Lock a force row until the transaction ends; unit writes take the same lock when they add to the aggregates
+    @Query(value = "SELECT id FROM forces WHERE id = :forceId FOR UPDATE", nativeQuery = true)
+    Long lockForAggregates(@Param("forceId") Long forceId);
+    
+    // Recompute one force's aggregates from its units when they drifted; call with the force locked
+    // (lockForAggregates), so no unit write is between its unit change and its increment
+    @Modifying
+    @Query(value = "UPDATE forces f SET unit_count = a.unit_count, total_points = a.total_points, " +
+                   "total_crusade_points = a.total_crusade_points, total_xp = a.total_xp, total_kills = a.total_kills " +
+                   "FROM (" + UNIT_AGGREGATES + "WHERE fo.id = :forceId GROUP BY fo.id) a " +
+                   "WHERE f.id = a.force_id AND " + DRIFTED,
+           nativeQuery = true)
+    int reconcileAggregates(@Param("forceId") Long forceId);
 }
-
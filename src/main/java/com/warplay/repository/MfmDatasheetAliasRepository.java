@@ -0,0 +1,28 @@
+package com.warplay.repository;
+
+import com.warplay.entity.MfmDatasheetAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MfmDatasheetAliasRepository extends JpaRepository<MfmDatasheetAlias, Long> {
+    
+    /**
+     * Find an alias by its normalized faction and name
+     */
+    Optional<MfmDatasheetAlias> findByFactionKeyAndNameKey(String factionKey, String nameKey);
+    
+    /**
+     * Find the aliases of a datasheet
+     */
+    List<MfmDatasheetAlias> findByDatasheetId(Long datasheetId);
+    
+    /**
+     * Find the aliases of several datasheets at once
+     */
+    List<MfmDatasheetAlias> findByDatasheetIdIn(Collection<Long> datasheetIds);
+}
@@ -0,0 +1,22 @@
+package com.warplay.repository;
+
+import com.warplay.entity.MfmDatasheet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MfmDatasheetRepository extends JpaRepository<MfmDatasheet, Long> {
+    
+    /**
+     * Find a datasheet by its normalized faction and name
+     */
+    Optional<MfmDatasheet> findByFactionKeyAndNameKey(String factionKey, String nameKey);
+    
+    /**
+     * Find datasheets of a faction by its normalized name
+     */
+    List<MfmDatasheet> findByFactionKeyOrderByNameAsc(String factionKey);
+}
@@ -2,7 +2,6 @@ package com.warplay.repository;
 
 import com.warplay.entity.MfmDetachment;
 import com.warplay.entity.MfmFaction;
-import com.warplay.entity.MfmVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -20,6 +19,12 @@ public interface MfmDetachmentRepository extends JpaRepository<MfmDetachment, Lo
      */
     List<MfmDetachment> findByFaction(MfmFaction faction);
     
+    /**
+     * Find all detachments of a version with their faction and enhancements in a single fetch-join query
+     */
+    @Query("SELECT DISTINCT d FROM MfmDetachment d JOIN FETCH d.faction f LEFT JOIN FETCH d.enhancements WHERE f.mfmVersion.version = :version ORDER BY d.id ASC")
+    List<MfmDetachment> findAllWithEnhancementsByVersion(@Param("version") String version);
+    
     /**
      * Find detachment by name and faction
      */
@@ -71,8 +76,8 @@ public interface MfmDetachmentRepository extends JpaRepository<MfmDetachment, Lo
      * Delete detachments by MFM version
      */
     @Modifying
-    @Query("DELETE FROM MfmDetachment d WHERE d.faction.mfmVersion = :mfmVersion")
-    void deleteByFactionMfmVersion(@Param("mfmVersion") MfmVersion mfmVersion);
+    @Query("DELETE FROM MfmDetachment d WHERE d.mfmVersionId = :mfmVersionId")
+    void deleteByMfmVersionId(@Param("mfmVersionId") Long mfmVersionId);
     
     /**
      * Count detachments by faction
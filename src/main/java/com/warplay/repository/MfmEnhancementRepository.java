@@ -3,7 +3,6 @@ package com.warplay.repository;
 import com.warplay.entity.MfmDetachment;
 import com.warplay.entity.MfmEnhancement;
 import com.warplay.entity.MfmFaction;
-import com.warplay.entity.MfmVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -79,8 +78,8 @@ public interface MfmEnhancementRepository extends JpaRepository<MfmEnhancement,
      * Delete enhancements by MFM version
      */
     @Modifying
-    @Query("DELETE FROM MfmEnhancement e WHERE e.detachment.faction.mfmVersion = :mfmVersion")
-    void deleteByDetachmentFactionMfmVersion(@Param("mfmVersion") MfmVersion mfmVersion);
+    @Query("DELETE FROM MfmEnhancement e WHERE e.mfmVersionId = :mfmVersionId")
+    void deleteByMfmVersionId(@Param("mfmVersionId") Long mfmVersionId);
     
     /**
      * Count enhancements by faction
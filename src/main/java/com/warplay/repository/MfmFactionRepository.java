@@ -60,6 +60,19 @@ public interface MfmFactionRepository extends JpaRepository<MfmFaction, Long> {
     @Query("SELECT COUNT(f) > 0 FROM MfmFaction f WHERE f.name = :name AND f.mfmVersion.version = :version")
     boolean existsByNameAndMfmVersionVersion(@Param("name") String name, @Param("version") String version);
     
+    /**
+     * Per-faction unit, variant, detachment and enhancement counts and variant points range for a version.
+     * Rows are name, supergroup, allyTo, units, variants, min points, max points, avg points, detachments, enhancements.
+     */
+    @Query("SELECT f.name, f.supergroup, f.allyTo, COUNT(DISTINCT u.id), COUNT(v.id), MIN(v.points), MAX(v.points), AVG(v.points), " +
+            "(SELECT COUNT(d) FROM MfmDetachment d WHERE d.faction = f), " +
+            "(SELECT COUNT(e) FROM MfmEnhancement e WHERE e.detachment.faction = f) " +
+            "FROM MfmFaction f LEFT JOIN f.units u LEFT JOIN u.variants v " +
+            "WHERE f.mfmVersion.version = :version " +
+            "GROUP BY f.id, f.name, f.supergroup, f.allyTo " +
+            "ORDER BY f.id")
+    List<Object[]> findFactionStatsByVersion(@Param("version") String version);
+    
     /**
      * Delete factions by MFM version
      */
@@ -2,7 +2,6 @@ package com.warplay.repository;
 
 import com.warplay.entity.MfmFaction;
 import com.warplay.entity.MfmUnit;
-import com.warplay.entity.MfmVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -20,6 +19,12 @@ public interface MfmUnitRepository extends JpaRepository<MfmUnit, Long> {
      */
     List<MfmUnit> findByFaction(MfmFaction faction);
     
+    /**
+     * Find all units of a version with their faction and variants in a single fetch-join query
+     */
+    @Query("SELECT DISTINCT u FROM MfmUnit u JOIN FETCH u.faction f LEFT JOIN FETCH u.variants WHERE f.mfmVersion.version = :version ORDER BY u.id ASC")
+    List<MfmUnit> findAllWithVariantsByVersion(@Param("version") String version);
+    
     /**
      * Find unit by name and faction
      */
@@ -67,12 +72,19 @@ public interface MfmUnitRepository extends JpaRepository<MfmUnit, Long> {
     @Query("SELECT COUNT(u) > 0 FROM MfmUnit u WHERE u.name = :unitName AND u.faction.name = :factionName AND u.faction.mfmVersion.version = :version")
     boolean existsByNameAndFactionAndVersion(@Param("unitName") String unitName, @Param("factionName") String factionName, @Param("version") String version);
     
+    /**
+     * Point units at another datasheet key, when two datasheets turn out to be the same one
+     */
+    @Modifying
+    @Query("UPDATE MfmUnit u SET u.datasheetId = :toDatasheetId WHERE u.datasheetId = :fromDatasheetId")
+    int reassignDatasheet(@Param("fromDatasheetId") Long fromDatasheetId, @Param("toDatasheetId") Long toDatasheetId);
+    
     /**
      * Delete units by MFM version
      */
     @Modifying
-    @Query("DELETE FROM MfmUnit u WHERE u.faction.mfmVersion = :mfmVersion")
-    void deleteByFactionMfmVersion(@Param("mfmVersion") MfmVersion mfmVersion);
+    @Query("DELETE FROM MfmUnit u WHERE u.mfmVersionId = :mfmVersionId")
+    void deleteByMfmVersionId(@Param("mfmVersionId") Long mfmVersionId);
     
     /**
      * Count units by faction
@@ -2,7 +2,6 @@ package com.warplay.repository;
 
 import com.warplay.entity.MfmUnit;
 import com.warplay.entity.MfmUnitVariant;
-import com.warplay.entity.MfmVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -38,33 +37,33 @@ public interface MfmUnitVariantRepository extends JpaRepository<MfmUnitVariant,
     Optional<MfmUnitVariant> findByUnitNameAndFactionInLatestVersionAndModelCount(@Param("unitName") String unitName, @Param("factionName") String factionName, @Param("modelCount") Integer modelCount);
     
     /**
-     * Get all model counts for a unit
+     * Get all model counts for a datasheet in a version
      */
-    @Query("SELECT v.modelCount FROM MfmUnitVariant v WHERE v.unit.name = :unitName AND v.unit.faction.name = :factionName AND v.unit.faction.mfmVersion.version = :version ORDER BY v.modelCount ASC")
-    List<Integer> findModelCountsByUnitNameAndFactionAndVersion(@Param("unitName") String unitName, @Param("factionName") String factionName, @Param("version") String version);
+    @Query("SELECT v.modelCount FROM MfmUnitVariant v WHERE v.unit.datasheetId = :datasheetId AND v.unit.faction.mfmVersion.version = :version ORDER BY v.modelCount ASC")
+    List<Integer> findModelCountsByDatasheetIdAndVersion(@Param("datasheetId") Long datasheetId, @Param("version") String version);
     
     /**
-     * Get all model counts for a unit in latest version
+     * Get all model counts for a datasheet in latest version
      */
-    @Query("SELECT v.modelCount FROM MfmUnitVariant v WHERE v.unit.name = :unitName AND v.unit.faction.name = :factionName AND v.unit.faction.mfmVersion.isLatest = true ORDER BY v.modelCount ASC")
-    List<Integer> findModelCountsByUnitNameAndFactionInLatestVersion(@Param("unitName") String unitName, @Param("factionName") String factionName);
+    @Query("SELECT v.modelCount FROM MfmUnitVariant v WHERE v.unit.datasheetId = :datasheetId AND v.unit.faction.mfmVersion.isLatest = true ORDER BY v.modelCount ASC")
+    List<Integer> findModelCountsByDatasheetIdInLatestVersion(@Param("datasheetId") Long datasheetId);
     
     /**
-     * Get points for a specific unit variant
+     * Get points for a datasheet variant in a version (a list: merged datasheets may have two units in one version)
      */
-    @Query("SELECT v.points FROM MfmUnitVariant v WHERE v.unit.name = :unitName AND v.unit.faction.name = :factionName AND v.unit.faction.mfmVersion.version = :version AND v.modelCount = :modelCount")
-    Optional<Integer> findPointsByUnitNameAndFactionAndVersionAndModelCount(@Param("unitName") String unitName, @Param("factionName") String factionName, @Param("version") String version, @Param("modelCount") Integer modelCount);
+    @Query("SELECT v.points FROM MfmUnitVariant v WHERE v.unit.datasheetId = :datasheetId AND v.unit.faction.mfmVersion.version = :version AND v.modelCount = :modelCount")
+    List<Integer> findPointsByDatasheetIdAndVersionAndModelCount(@Param("datasheetId") Long datasheetId, @Param("version") String version, @Param("modelCount") Integer modelCount);
     
     /**
-     * Get points for a specific unit variant in latest version
+     * Get points for a datasheet variant in latest version
      */
-    @Query("SELECT v.points FROM MfmUnitVariant v WHERE v.unit.name = :unitName AND v.unit.faction.name = :factionName AND v.unit.faction.mfmVersion.isLatest = true AND v.modelCount = :modelCount")
-    Optional<Integer> findPointsByUnitNameAndFactionInLatestVersionAndModelCount(@Param("unitName") String unitName, @Param("factionName") String factionName, @Param("modelCount") Integer modelCount);
+    @Query("SELECT v.points FROM MfmUnitVariant v WHERE v.unit.datasheetId = :datasheetId AND v.unit.faction.mfmVersion.isLatest = true AND v.modelCount = :modelCount")
+    List<Integer> findPointsByDatasheetIdInLatestVersionAndModelCount(@Param("datasheetId") Long datasheetId, @Param("modelCount") Integer modelCount);
     
     /**
      * Delete unit variants by MFM version
      */
     @Modifying
-    @Query("DELETE FROM MfmUnitVariant v WHERE v.unit.faction.mfmVersion = :mfmVersion")
-    void deleteByUnitFactionMfmVersion(@Param("mfmVersion") MfmVersion mfmVersion);
+    @Query("DELETE FROM MfmUnitVariant v WHERE v.mfmVersionId = :mfmVersionId")
+    void deleteByMfmVersionId(@Param("mfmVersionId") Long mfmVersionId);
 }
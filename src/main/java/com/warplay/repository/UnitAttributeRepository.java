@@ -0,0 +1,21 @@
+package com.warplay.repository;
+
+import com.warplay.dto.UnitAttributeCount;
+import com.warplay.entity.UnitAttribute;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UnitAttributeRepository extends JpaRepository<UnitAttribute, Long> {
+    
+    // Attributes of one kind across the non-deleted units of a club, most common first
+    @Query("SELECT new com.warplay.dto.UnitAttributeCount(MIN(a.name), COUNT(DISTINCT a.unitId), COUNT(a)) " +
+           "FROM UnitAttribute a JOIN Unit un ON un.id = a.unitId JOIN Force f ON f.id = un.forceId " +
+           "WHERE f.clubId = :clubId AND a.kind = :kind AND un.deletedTimestamp IS NULL AND f.deletedTimestamp IS NULL " +
+           "GROUP BY a.nameKey ORDER BY COUNT(a) DESC, MIN(a.name)")
+    List<UnitAttributeCount> countByClubIdAndKind(@Param("clubId") Long clubId, @Param("kind") UnitAttribute.Kind kind);
+}
@@ -1,11 +1,16 @@
 package com.warplay.repository;
 
+import com.warplay.dto.UnitResponse;
 import com.warplay.entity.Unit;
+import com.warplay.entity.UnitAttribute;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,4 +36,51 @@ public interface UnitRepository extends JpaRepository<Unit, Long> {
     // Find units by force ID and user ID (for authorization)
     @Query("SELECT u FROM Unit u WHERE u.forceId = :forceId AND u.userId = :userId AND u.deletedTimestamp IS NULL")
     List<Unit> findByForceIdAndUserIdAndDeletedTimestampIsNull(@Param("forceId") Long forceId, @Param("userId") Long userId);
+    
+    // Find non-deleted units whose datasheet has not been resolved to a key
+    @Query("SELECT u FROM Unit u WHERE u.datasheetId IS NULL AND u.deletedTimestamp IS NULL")
+    List<Unit> findUnresolvedDatasheets();
+    
+    // Point units at another datasheet key, when two datasheets turn out to be the same one
+    @Modifying
+    @Query("UPDATE Unit u SET u.datasheetId = :toDatasheetId WHERE u.datasheetId = :fromDatasheetId")
+    int reassignDatasheet(@Param("fromDatasheetId") Long fromDatasheetId, @Param("toDatasheetId") Long toDatasheetId);
+    
+    // Responses with player and force names, joined in the same select instead of two lookups per unit
+    String RESPONSE_SELECT = "SELECT new com.warplay.dto.UnitResponse(un, u.name, f.name) FROM Unit un " +
+        "LEFT JOIN User u ON u.id = un.userId LEFT JOIN Force f ON f.id = un.forceId ";
+    
+    @Query(RESPONSE_SELECT + "WHERE un.forceId = :forceId AND un.deletedTimestamp IS NULL ORDER BY un.createdTimestamp DESC")
+    List<UnitResponse> findResponsesByForceId(@Param("forceId") Long forceId);
+    
+    @Query(RESPONSE_SELECT + "WHERE un.userId = :userId AND un.deletedTimestamp IS NULL ORDER BY un.createdTimestamp DESC")
+    List<UnitResponse> findResponsesByUserId(@Param("userId") Long userId);
+    
+    @Query(RESPONSE_SELECT + "WHERE un.id = :id AND un.deletedTimestamp IS NULL")
+    Optional<UnitResponse> findResponseById(@Param("id") Long id);
+    
+    @Query(RESPONSE_SELECT + "WHERE un.deletedTimestamp IS NULL ORDER BY un.createdTimestamp DESC")
+    List<UnitResponse> findAllResponses();
+    
+    // Non-deleted responses for a set of ids, in no particular order (e.g. a leaderboard's entries)
+    @Query(RESPONSE_SELECT + "WHERE un.id IN :ids AND un.deletedTimestamp IS NULL")
+    List<UnitResponse> findResponsesByIdIn(@Param("ids") List<Long> ids);
+    
+    // Non-deleted units of a club that have an attribute (see UnitAttributeService)
+    @Query(RESPONSE_SELECT + "WHERE f.clubId = :clubId AND un.deletedTimestamp IS NULL AND f.deletedTimestamp IS NULL AND " +
+           "EXISTS (SELECT 1 FROM UnitAttribute a WHERE a.unitId = un.id AND a.kind = :kind AND a.nameKey = :nameKey) " +
+           "ORDER BY un.createdTimestamp DESC")
+    List<UnitResponse> findResponsesByClubIdAndAttribute(@Param("clubId") Long clubId,
+                                                         @Param("kind") UnitAttribute.Kind kind,
+                                                         @Param("nameKey") String nameKey);
+    
+    // Keyset pages of all non-deleted units (see KeysetCursor)
+    @Query(RESPONSE_SELECT + "WHERE un.deletedTimestamp IS NULL ORDER BY un.createdTimestamp DESC, un.id DESC")
+    List<UnitResponse> findResponsePage(Pageable pageable);
+    
+    @Query(RESPONSE_SELECT + "WHERE un.deletedTimestamp IS NULL AND " +
+           "(un.createdTimestamp, un.id) < (:createdTimestamp, :id) " +
+           "ORDER BY un.createdTimestamp DESC, un.id DESC")
+    List<UnitResponse> findResponsePageAfter(@Param("createdTimestamp") LocalDateTime createdTimestamp,
+                                             @Param("id") Long id, Pageable pageable);
 }
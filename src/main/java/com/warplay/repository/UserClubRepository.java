@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -95,6 +96,11 @@ public interface UserClubRepository extends JpaRepository<UserClub, Long> {
     @Query(value = "SELECT COUNT(*) FROM user_clubs WHERE club_id = :clubId AND is_active = true", nativeQuery = true)
     Long countActiveMembersByClubId(@Param("clubId") Long clubId);
 
+    // Count active members of several clubs as (club_id, count) rows; clubs without members have no row
+    @Query(value = "SELECT club_id, COUNT(*) FROM user_clubs WHERE club_id IN (:clubIds) AND is_active = true " +
+            "GROUP BY club_id", nativeQuery = true)
+    List<Object[]> countActiveMembersByClubIds(@Param("clubIds") Collection<Long> clubIds);
+
     // Count active members by role in club
     @Query("SELECT COUNT(uc) FROM UserClub uc " +
             "WHERE uc.club.id = :clubId " +
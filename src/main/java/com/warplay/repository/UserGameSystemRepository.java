@@ -3,16 +3,29 @@ package com.warplay.repository;
 import com.warplay.entity.UserGameSystem;
 import com.warplay.entity.User;
 import com.warplay.entity.GameSystem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserGameSystemRepository extends JpaRepository<UserGameSystem, Long> {
 
+    // Keyset pages of all relationships, newest first (see KeysetCursor)
+    @Query("SELECT ugs FROM UserGameSystem ugs ORDER BY ugs.createdTimestamp DESC, ugs.id DESC")
+    List<UserGameSystem> findPage(Pageable pageable);
+
+    @Query("SELECT ugs FROM UserGameSystem ugs WHERE " +
+            "(ugs.createdTimestamp, ugs.id) < (:createdTimestamp, :id) " +
+            "ORDER BY ugs.createdTimestamp DESC, ugs.id DESC")
+    List<UserGameSystem> findPageAfter(@Param("createdTimestamp") LocalDateTime createdTimestamp,
+                                       @Param("id") Long id, Pageable pageable);
+
     // Find by user and game system
     Optional<UserGameSystem> findByUserAndGameSystem(User user, GameSystem gameSystem);
 
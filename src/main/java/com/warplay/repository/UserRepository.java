@@ -1,11 +1,13 @@
 package com.warplay.repository;
 
 import com.warplay.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +24,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.deletedTimestamp IS NULL")
     List<User> findAllActive();
 
+    // Keyset pages of active users, newest first (see KeysetCursor)
+    @Query("SELECT u FROM User u WHERE u.deletedTimestamp IS NULL ORDER BY u.createdTimestamp DESC, u.id DESC")
+    List<User> findActivePage(Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.deletedTimestamp IS NULL AND " +
+            "(u.createdTimestamp, u.id) < (:createdTimestamp, :id) " +
+            "ORDER BY u.createdTimestamp DESC, u.id DESC")
+    List<User> findActivePageAfter(@Param("createdTimestamp") LocalDateTime createdTimestamp,
+                                   @Param("id") Long id, Pageable pageable);
+
     // Find by ID excluding deleted users
     @Query("SELECT u FROM User u WHERE u.id = ?1 AND u.deletedTimestamp IS NULL")
     Optional<User> findByIdActive(Long id);
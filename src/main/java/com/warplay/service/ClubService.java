@@ -2,6 +2,7 @@ package com.warplay.service;
 
 import com.warplay.dto.ClubUpdateDTO;
 import com.warplay.dto.ClubWithMemberCount;
+import com.warplay.dto.CursorPage;
 import com.warplay.entity.Club;
 import com.warplay.repository.ClubRepository;
 import com.warplay.repository.UserClubRepository;
@@ -90,6 +91,40 @@ public class ClubService {
         }
     }
 
+    public CursorPage<ClubWithMemberCount> getActiveClubsWithMemberCountPage(String cursor, Integer limit) {
+        try {
+            logger.debug("Fetching active clubs page after cursor: {}", cursor);
+
+            CursorPage<Club> clubs = KeysetCursor.fetch(cursor, limit,
+                    clubRepository::findActivePage, clubRepository::findActivePageAfter,
+                    Club::getCreatedTimestamp, Club::getId);
+            Map<Long, Long> memberCounts = countActiveMembers(clubs.getItems());
+            CursorPage<ClubWithMemberCount> page = clubs
+                .map(club -> new ClubWithMemberCount(club, memberCounts.getOrDefault(club.getId(), 0L)));
+
+            loggingService.logDatabaseOperation("clubs", "SELECT_ACTIVE_PAGE", true,
+                "Retrieved " + page.getItems().size() + " active clubs");
+            return page;
+
+        } catch (DataAccessException e) {
+            loggingService.logDatabaseOperation("clubs", "SELECT_ACTIVE_PAGE", false,
+                "Database error: " + e.getMessage());
+
+            logger.error("Failed to retrieve active clubs page from database", e);
+            throw new RuntimeException("Failed to retrieve clubs", e);
+        }
+    }
+
+    // Active member counts of the given clubs by club ID, from one grouped query
+    private Map<Long, Long> countActiveMembers(List<Club> clubs) {
+        if (clubs.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> clubIds = clubs.stream().map(Club::getId).collect(Collectors.toList());
+        return userClubRepository.countActiveMembersByClubIds(clubIds).stream()
+            .collect(Collectors.toMap(row -> ((Number) row[0]).longValue(), row -> ((Number) row[1]).longValue()));
+    }
+
     public Optional<Club> getActiveClubById(Long id) {
         long startTime = System.currentTimeMillis();
 
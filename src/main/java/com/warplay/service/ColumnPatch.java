@@ -0,0 +1,141 @@
+package com.warplay.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A partial update of one owned row: an UPDATE that sets only the given columns, guarded by the row's
+ * version so the row does not have to be loaded first.
+ *
+ * The statement matches on id, owner, version and not deleted, and bumps the version. When it matches
+ * nothing, the row is read to tell apart not found, not the owner and a stale version; the last throws
+ * OptimisticLockingFailureException.
+ */
+public final class ColumnPatch {
+
+    private final String table;
+    private final String label;
+    private final List<String> columns = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+
+    /**
+     * Patch of a row in table; label names the row in error messages (e.g. "Unit")
+     */
+    public ColumnPatch(String table, String label) {
+        this.table = table;
+        this.label = label;
+    }
+
+    /**
+     * Set a column, unless value is null (left out of the request)
+     */
+    public ColumnPatch set(String column, Object value) {
+        if (value != null) {
+            columns.add(column);
+            values.add(value);
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    public boolean sets(String column) {
+        return columns.contains(column);
+    }
+
+    /**
+     * Run the update as userId and map the returned row. Columns of the updated row are read as "t.",
+     * the row as it was before the update as "old.". Without a version the current one is read first,
+     * and if another write gets in before the update, the update is retried once against the version
+     * that write left; a patch that loses that race too is reported as a stale version.
+     */
+    public <T> T apply(JdbcTemplate jdbcTemplate, Long id, Long userId, Integer version,
+                       String returning, RowMapper<T> mapper) {
+        if (isEmpty()) {
+            throw new IllegalArgumentException("No fields to update");
+        }
+        Integer expected = version != null ? version : current(jdbcTemplate, id, userId).version;
+        List<T> rows = update(jdbcTemplate, id, userId, expected, returning, mapper);
+        if (!rows.isEmpty()) {
+            return rows.get(0);
+        }
+        Row row = current(jdbcTemplate, id, userId);
+        if (version == null) {
+            expected = row.version;
+            rows = update(jdbcTemplate, id, userId, expected, returning, mapper);
+            if (!rows.isEmpty()) {
+                return rows.get(0);
+            }
+            row = current(jdbcTemplate, id, userId);
+        }
+        throw new OptimisticLockingFailureException(label + " was changed by another request (now at version "
+            + row.version + ", expected " + expected + "); reload it and retry");
+    }
+
+    /**
+     * Version from an If-Match header value such as "3" or W/"3"; null when there is no header
+     */
+    public static Integer parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match version: " + ifMatch);
+        }
+    }
+
+    private <T> List<T> update(JdbcTemplate jdbcTemplate, Long id, Long userId, Integer expected,
+                               String returning, RowMapper<T> mapper) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" t SET ");
+        for (String column : columns) {
+            sql.append(column).append(" = ?, ");
+        }
+        sql.append("version = t.version + 1, updated_timestamp = ? FROM ").append(table)
+            .append(" old WHERE t.id = ? AND old.id = t.id AND t.user_id = ? AND t.version = ? ")
+            .append("AND t.deleted_timestamp IS NULL RETURNING ").append(returning);
+
+        List<Object> args = new ArrayList<>(values);
+        args.add(SqlTimestamps.now());
+        args.add(id);
+        args.add(userId);
+        args.add(expected);
+        return jdbcTemplate.query(sql.toString(), mapper, args.toArray());
+    }
+
+    private Row current(JdbcTemplate jdbcTemplate, Long id, Long userId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "SELECT user_id, version FROM " + table + " WHERE id = ? AND deleted_timestamp IS NULL", id);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException(label + " not found");
+        }
+        Row row = new Row(((Number) rows.get(0).get("user_id")).longValue(), ((Number) rows.get(0).get("version")).intValue());
+        if (!row.userId.equals(userId)) {
+            throw new IllegalArgumentException("You do not have permission to update this " + label.toLowerCase());
+        }
+        return row;
+    }
+
+    private static final class Row {
+        private final Long userId;
+        private final Integer version;
+
+        private Row(Long userId, Integer version) {
+            this.userId = userId;
+            this.version = version;
+        }
+    }
+}
@@ -277,6 +277,15 @@ public class CrusadeService {
         }
     }
 
+    /**
+     * Club a crusade is played in; forces belong to clubs, so crusade-wide unit queries are club queries
+     */
+    public Long getCrusadeClubId(Long crusadeId) {
+        return crusadeRepository.findByIdAndDeletedTimestampIsNull(crusadeId)
+            .map(Crusade::getClubId)
+            .orElseThrow(() -> new IllegalArgumentException("Crusade not found"));
+    }
+
     public boolean softDeleteCrusade(Long id) {
         long startTime = System.currentTimeMillis();
 
@@ -0,0 +1,203 @@
+package com.warplay.service;
+
+import com.warplay.entity.Force;
+import com.warplay.entity.Unit;
+import com.warplay.repository.ForceRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the unit totals on Force current. Unit writes apply their change to the force as an atomic
+ * increment in the writing transaction; a periodic reconciliation recomputes the totals from the units
+ * and corrects forces that drifted (e.g. units changed outside UnitService). Every change is also passed
+ * on to the club leaderboards.
+ */
+@Service
+public class ForceAggregateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForceAggregateService.class);
+
+    @Autowired
+    private ForceRepository forceRepository;
+
+    @Autowired
+    private LoggingService loggingService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * A unit's contribution to its force's totals
+     */
+    public static class UnitTotals {
+        private final Long forceId;
+        private final int points;
+        private final int crusadePoints;
+        private final int xp;
+        private final int kills;
+
+        private UnitTotals(Long forceId, int points, int crusadePoints, int xp, int kills) {
+            this.forceId = forceId;
+            this.points = points;
+            this.crusadePoints = crusadePoints;
+            this.xp = xp;
+            this.kills = kills;
+        }
+
+        public static UnitTotals of(Unit unit) {
+            return new UnitTotals(unit.getForceId(), valueOf(unit.getPoints()), valueOf(unit.getCrusadePoints()),
+                valueOf(unit.getXp()), valueOf(unit.getKillCount()));
+        }
+
+        private static int valueOf(Integer value) {
+            return value != null ? value : 0;
+        }
+    }
+
+    /**
+     * Net change to one force's totals from several unit writes, applied with a single statement
+     */
+    public static class Delta {
+        private int units;
+        private int points;
+        private int crusadePoints;
+        private int xp;
+        private int kills;
+
+        public void added(Unit unit) {
+            add(UnitTotals.of(unit), 1);
+        }
+
+        public void removed(Unit unit) {
+            add(UnitTotals.of(unit), -1);
+        }
+
+        /**
+         * A unit updated within the same force, given its totals from before the update
+         */
+        public void changed(UnitTotals before, Unit unit) {
+            add(before, -1);
+            add(UnitTotals.of(unit), 1);
+        }
+
+        /**
+         * XP and kills added to units in place, without their other totals changing
+         */
+        public void progressed(int xp, int kills) {
+            this.xp += xp;
+            this.kills += kills;
+        }
+
+        public boolean isEmpty() {
+            return units == 0 && points == 0 && crusadePoints == 0 && xp == 0 && kills == 0;
+        }
+
+        private void add(UnitTotals totals, int sign) {
+            units += sign;
+            points += sign * totals.points;
+            crusadePoints += sign * totals.crusadePoints;
+            xp += sign * totals.xp;
+            kills += sign * totals.kills;
+        }
+    }
+
+    public void unitAdded(Unit unit) {
+        UnitTotals totals = UnitTotals.of(unit);
+        addToAggregates(totals.forceId, 1, totals.points, totals.crusadePoints, totals.xp, totals.kills);
+        leaderboardService.forceChanged(totals.forceId);
+    }
+
+    public void unitRemoved(Unit unit) {
+        remove(UnitTotals.of(unit));
+    }
+
+    /**
+     * Apply a unit update, given the unit's totals from before the update; moves the unit between forces
+     * when its force changed
+     */
+    public void unitChanged(UnitTotals before, Unit unit) {
+        UnitTotals after = UnitTotals.of(unit);
+        if (!before.forceId.equals(after.forceId)) {
+            remove(before);
+            unitAdded(unit);
+            return;
+        }
+
+        int points = after.points - before.points;
+        int crusadePoints = after.crusadePoints - before.crusadePoints;
+        int xp = after.xp - before.xp;
+        int kills = after.kills - before.kills;
+        if (points != 0 || crusadePoints != 0 || xp != 0 || kills != 0) {
+            addToAggregates(after.forceId, 0, points, crusadePoints, xp, kills);
+        }
+        // Battle counts are not force totals but are on the boards
+        leaderboardService.forceChanged(after.forceId);
+    }
+
+    public void apply(Long forceId, Delta delta) {
+        if (!delta.isEmpty()) {
+            addToAggregates(forceId, delta.units, delta.points, delta.crusadePoints, delta.xp, delta.kills);
+        }
+        leaderboardService.forceChanged(forceId);
+    }
+
+    /**
+     * Recompute force totals from the units; returns the number of forces that had drifted.
+     *
+     * Drifted forces are corrected one at a time, each in its own short transaction that locks the force
+     * before recomputing. A unit write holds that lock from its increment to its commit, so the recompute
+     * either sees the write's units and its increment, or neither; a single set-based update could read
+     * the units before a concurrent write and then overwrite that write's increment.
+     */
+    @Scheduled(cron = "${forces.aggregates.reconcile-cron:0 15 4 * * *}")
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+        int corrected = 0;
+        for (Long forceId : forceRepository.findDriftedForceIds()) {
+            Integer updated = transactionTemplate.execute(status -> {
+                forceRepository.lockForAggregates(forceId);
+                return forceRepository.reconcileAggregates(forceId);
+            });
+            corrected += updated != null ? updated : 0;
+        }
+        loggingService.logDatabaseOperation("forces", "RECONCILE_AGGREGATES", true,
+            "Corrected aggregates of " + corrected + " forces");
+        if (corrected > 0) {
+            leaderboardService.rebuild();
+            logger.warn("Reconciled force aggregates: {} forces had drifted ({} ms)", corrected, System.currentTimeMillis() - start);
+        } else {
+            logger.info("Reconciled force aggregates: no drift ({} ms)", System.currentTimeMillis() - start);
+        }
+        return corrected;
+    }
+
+    private void remove(UnitTotals totals) {
+        addToAggregates(totals.forceId, -1, -totals.points, -totals.crusadePoints, -totals.xp, -totals.kills);
+        leaderboardService.forceChanged(totals.forceId);
+    }
+
+    /**
+     * The increment bypasses the persistence context, so a force this transaction already loaded is
+     * re-read to carry the new totals; other loaded entities are left alone
+     */
+    private void addToAggregates(Long forceId, int units, int points, int crusadePoints, int xp, int kills) {
+        forceRepository.addToAggregates(forceId, units, points, crusadePoints, xp, kills);
+        Force force = entityManager.getReference(Force.class, forceId);
+        if (Hibernate.isInitialized(force)) {
+            entityManager.refresh(force);
+        }
+    }
+}
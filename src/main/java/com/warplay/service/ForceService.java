@@ -1,23 +1,26 @@
 package com.warplay.service;
 
 import com.warplay.dto.CreateForceRequest;
+import com.warplay.dto.CursorPage;
 import com.warplay.dto.ForceResponse;
+import com.warplay.dto.ForceRosterResponse;
 import com.warplay.entity.Force;
 import com.warplay.entity.User;
 import com.warplay.entity.Club;
 import com.warplay.repository.ForceRepository;
 import com.warplay.repository.UserRepository;
 import com.warplay.repository.ClubRepository;
+import com.warplay.repository.UnitRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class ForceService {
@@ -33,12 +36,46 @@ public class ForceService {
     @Autowired
     private ClubRepository clubRepository;
     
+    @Autowired
+    private UnitRepository unitRepository;
+    
     @Autowired
     private LoggingService loggingService;
     
     @Autowired
     private UserClubService userClubService;
     
+    @Autowired
+    private UnitAttributeService unitAttributeService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    // Force names are stored in varchar(200)
+    private static final int MAX_NAME_LENGTH = 200;
+    private static final String COPY_SUFFIX = " (Copy)";
+    
+    // Copy of a force row without totals; they are set from the copied units afterwards
+    private static final String CLONE_FORCE_SQL = "INSERT INTO forces (club_id, user_id, name, faction, force_type, "
+        + "sub_faction, detachment, supply_limit, requisition_points, notes, logo_url, mfm_version, created_timestamp, "
+        + "updated_timestamp, unit_count, total_points, total_crusade_points, total_xp, total_kills) "
+        + "SELECT ?, ?, ?, f.faction, f.force_type, f.sub_faction, f.detachment, f.supply_limit, f.requisition_points, "
+        + "f.notes, f.logo_url, f.mfm_version, ?, ?, 0, 0, 0, 0, 0 "
+        + "FROM forces f WHERE f.id = ? AND f.deleted_timestamp IS NULL RETURNING id";
+    
+    // Copy of all non-deleted units of a force into another force
+    private static final String CLONE_UNITS_SQL = "INSERT INTO units (force_id, user_id, name, data_sheet, datasheet_id, "
+        + "model_count, unit_type, points, crusade_points, wargear, enhancements, relics, battle_traits, battle_scars, "
+        + "battle_count, xp, kill_count, times_killed, description, notes, notable_history, mfm_version, rank, image_url, "
+        + "created_timestamp, updated_timestamp) "
+        + "SELECT ?, ?, name, data_sheet, datasheet_id, model_count, unit_type, points, crusade_points, wargear, enhancements, "
+        + "relics, battle_traits, battle_scars, battle_count, xp, kill_count, times_killed, description, notes, notable_history, "
+        + "mfm_version, rank, image_url, ?, ? "
+        + "FROM units WHERE force_id = ? AND deleted_timestamp IS NULL ORDER BY id";
+    
     
     /**
      * Create a new force
@@ -49,7 +86,7 @@ public class ForceService {
         
         // Find user by Google ID
         User user = userRepository.findByGoogleId(googleUserId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
         // Validate required fields
         if (request.getClubId() == null) {
@@ -97,11 +134,9 @@ public class ForceService {
      */
     public List<ForceResponse> getForcesByClubId(Long clubId) {
         logger.debug("Fetching forces for club: {}", clubId);
-        List<Force> forces = forceRepository.findByClubIdAndDeletedTimestampIsNull(clubId);
+        List<ForceResponse> forces = forceRepository.findResponsesByClubId(clubId);
         logger.info("Retrieved {} forces for club: {}", forces.size(), clubId);
-        return forces.stream()
-            .map(this::toForceResponse)
-            .collect(Collectors.toList());
+        return forces;
     }
     
     /**
@@ -109,11 +144,9 @@ public class ForceService {
      */
     public List<ForceResponse> getForcesByUserId(Long userId) {
         logger.debug("Fetching forces for user: {}", userId);
-        List<Force> forces = forceRepository.findByUserIdAndDeletedTimestampIsNull(userId);
+        List<ForceResponse> forces = forceRepository.findResponsesByUserId(userId);
         logger.info("Retrieved {} forces for user: {}", forces.size(), userId);
-        return forces.stream()
-            .map(this::toForceResponse)
-            .collect(Collectors.toList());
+        return forces;
     }
     
     /**
@@ -121,8 +154,17 @@ public class ForceService {
      */
     public Optional<ForceResponse> getForceById(Long id) {
         logger.debug("Fetching force: {}", id);
-        return forceRepository.findByIdAndDeletedTimestampIsNull(id)
-            .map(this::toForceResponse);
+        return forceRepository.findResponseById(id);
+    }
+    
+    /**
+     * Get a force with its units and roster totals: one select for the force, one for the units
+     */
+    @Transactional(readOnly = true)
+    public Optional<ForceRosterResponse> getForceRoster(Long id) {
+        logger.debug("Fetching roster for force: {}", id);
+        return forceRepository.findResponseById(id)
+            .map(force -> new ForceRosterResponse(force, unitRepository.findResponsesByForceId(id)));
     }
     
     /**
@@ -130,11 +172,19 @@ public class ForceService {
      */
     public List<ForceResponse> getAllForces() {
         logger.debug("Fetching all forces");
-        List<Force> forces = forceRepository.findAllNonDeleted();
+        List<ForceResponse> forces = forceRepository.findAllResponses();
         logger.info("Retrieved {} total forces", forces.size());
-        return forces.stream()
-            .map(this::toForceResponse)
-            .collect(Collectors.toList());
+        return forces;
+    }
+    
+    /**
+     * Get one page of all forces, newest first
+     */
+    public CursorPage<ForceResponse> getForcesPage(String cursor, Integer limit) {
+        logger.debug("Fetching forces page after cursor: {}", cursor);
+        return KeysetCursor.fetch(cursor, limit,
+            forceRepository::findResponsePage, forceRepository::findResponsePageAfter,
+            ForceResponse::getCreatedTimestamp, ForceResponse::getId);
     }
     
     /**
@@ -156,16 +206,16 @@ public class ForceService {
         logger.info("Updating force: {}", id);
         
         Force force = forceRepository.findByIdAndDeletedTimestampIsNull(id)
-            .orElseThrow(() -> new RuntimeException("Force not found"));
+            .orElseThrow(() -> new IllegalArgumentException("Force not found"));
         
         // Find user by Google ID
         User user = userRepository.findByGoogleId(googleUserId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
         // Verify user owns this force
         if (!force.getUserId().equals(user.getId())) {
             logger.warn("User {} attempted to update force {} owned by user {}", user.getId(), id, force.getUserId());
-            throw new RuntimeException("You do not have permission to update this force");
+            throw new IllegalArgumentException("You do not have permission to update this force");
         }
         
         // Update fields
@@ -203,7 +253,8 @@ public class ForceService {
             force.setMfmVersion(request.getMfmVersion());
         }
         
-        Force updatedForce = forceRepository.save(force);
+        // Flushed so the response carries the version this write produced
+        Force updatedForce = forceRepository.saveAndFlush(force);
         loggingService.logDatabaseOperation("forces", "UPDATE", true, 
             "Force updated: " + id);
         logger.info("Force updated successfully: {}", id);
@@ -211,6 +262,112 @@ public class ForceService {
         return toForceResponse(updatedForce);
     }
     
+    /**
+     * Partially update a force: writes only the fields present in the request. With a version (from
+     * If-Match) the force is not loaded; a stale version throws OptimisticLockingFailureException.
+     */
+    @Transactional
+    public ForceResponse patchForce(Long id, CreateForceRequest request, Integer version, String googleUserId) {
+        logger.info("Patching force: {}", id);
+        
+        // Find user by Google ID
+        User user = userRepository.findByGoogleId(googleUserId)
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        
+        if (request.getName() != null && request.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Force name is required");
+        }
+        if (request.getFaction() != null && request.getFaction().trim().isEmpty()) {
+            throw new IllegalArgumentException("Faction is required");
+        }
+        
+        ColumnPatch patch = new ColumnPatch("forces", "Force")
+            .set("name", request.getName())
+            .set("faction", request.getFaction())
+            .set("force_type", request.getForceType())
+            .set("sub_faction", request.getSubFaction())
+            .set("detachment", request.getDetachment())
+            .set("supply_limit", request.getSupplyLimit())
+            .set("requisition_points", request.getRequisitionPoints())
+            .set("notes", request.getNotes())
+            .set("logo_url", request.getImageUrl())
+            .set("mfm_version", request.getMfmVersion());
+        
+        Integer newVersion = patch.apply(jdbcTemplate, id, user.getId(), version, "t.version",
+            (rs, rowNum) -> rs.getInt(1));
+        
+        loggingService.logDatabaseOperation("forces", "PATCH", true, 
+            "Force patched: " + id + " to version " + newVersion);
+        logger.info("Force patched successfully: {} (version {})", id, newVersion);
+        
+        return forceRepository.findResponseById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Force not found"));
+    }
+    
+    /**
+     * Copy a force with all its units, into the same club or another one the user belongs to. The rows are
+     * copied by two INSERT ... SELECT statements, so the cost does not grow with round trips per unit; the
+     * clone's totals are then computed from its own units.
+     */
+    @Transactional
+    public ForceResponse cloneForce(Long id, Long clubId, String name, String googleUserId) {
+        logger.info("Cloning force: {}", id);
+        
+        Force force = forceRepository.findByIdAndDeletedTimestampIsNull(id)
+            .orElseThrow(() -> new IllegalArgumentException("Force not found"));
+        
+        // Find user by Google ID
+        User user = userRepository.findByGoogleId(googleUserId)
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        
+        // Verify user owns this force
+        if (!force.getUserId().equals(user.getId())) {
+            logger.warn("User {} attempted to clone force {} owned by user {}", user.getId(), id, force.getUserId());
+            throw new IllegalArgumentException("You do not have permission to clone this force");
+        }
+        
+        Long targetClubId = clubId != null ? clubId : force.getClubId();
+        if (!userClubService.isUserMemberOfClub(user.getId(), targetClubId)) {
+            logger.warn("Unauthorized force clone attempt: User {} is not a member of club {}", user.getId(), targetClubId);
+            throw new IllegalArgumentException("User is not a member of this club. Only club members can create forces.");
+        }
+        
+        String cloneName = cloneName(force, name);
+        LocalDateTime now = SqlTimestamps.now();
+        Long cloneId = jdbcTemplate.queryForObject(CLONE_FORCE_SQL, Long.class,
+            targetClubId, user.getId(), cloneName, now, now, id);
+        int units = jdbcTemplate.update(CLONE_UNITS_SQL, cloneId, user.getId(), now, now, id);
+        // Totals from the clone's own units, so they match what was copied even when a unit write to the
+        // source commits between the two inserts; no one else can write the clone before this commits
+        forceRepository.reconcileAggregates(cloneId);
+        unitAttributeService.syncForce(cloneId);
+        leaderboardService.forceChanged(cloneId);
+        
+        loggingService.logDatabaseOperation("forces", "CLONE", true,
+            "Force " + id + " cloned to " + cloneId + " with " + units + " units for club: " + targetClubId);
+        logger.info("Force {} cloned successfully to {} with {} units", id, cloneId, units);
+        
+        return forceRepository.findResponseById(cloneId)
+            .orElseThrow(() -> new IllegalStateException("Cloned force not found: " + cloneId));
+    }
+    
+    /**
+     * Name of a clone: the requested one, or the source's name marked as a copy, shortened to fit
+     */
+    private static String cloneName(Force force, String name) {
+        if (name != null && !name.trim().isEmpty()) {
+            if (name.length() > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Force name must be at most " + MAX_NAME_LENGTH + " characters");
+            }
+            return name;
+        }
+        String source = force.getName();
+        if (source.length() + COPY_SUFFIX.length() > MAX_NAME_LENGTH) {
+            source = source.substring(0, MAX_NAME_LENGTH - COPY_SUFFIX.length());
+        }
+        return source + COPY_SUFFIX;
+    }
+    
     /**
      * Soft delete a force
      */
@@ -219,20 +376,21 @@ public class ForceService {
         logger.info("Deleting force: {}", id);
         
         Force force = forceRepository.findByIdAndDeletedTimestampIsNull(id)
-            .orElseThrow(() -> new RuntimeException("Force not found"));
+            .orElseThrow(() -> new IllegalArgumentException("Force not found"));
         
         // Find user by Google ID
         User user = userRepository.findByGoogleId(googleUserId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
         // Verify user owns this force
         if (!force.getUserId().equals(user.getId())) {
             logger.warn("User {} attempted to delete force {} owned by user {}", user.getId(), id, force.getUserId());
-            throw new RuntimeException("You do not have permission to delete this force");
+            throw new IllegalArgumentException("You do not have permission to delete this force");
         }
         
         force.setDeletedTimestamp(LocalDateTime.now());
         forceRepository.save(force);
+        leaderboardService.forceChanged(id);
         
         loggingService.logDatabaseOperation("forces", "DELETE", true, 
             "Force soft deleted: " + id);
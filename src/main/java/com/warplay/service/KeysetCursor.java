@@ -0,0 +1,105 @@
+package com.warplay.service;
+
+import com.warplay.dto.CursorPage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Position in a list sorted newest first on (created_timestamp, id), encoded as an opaque cursor.
+ *
+ * A page is read as "the next limit rows after this position", which the (created_timestamp, id) index
+ * answers at the same cost however deep the page is, unlike an offset.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    /**
+     * Query for the first page, newest first
+     */
+    public interface FirstPageQuery<T> {
+        List<T> find(Pageable pageable);
+    }
+
+    /**
+     * Query for the rows after a position, newest first
+     */
+    public interface NextPageQuery<T> {
+        List<T> find(LocalDateTime createdTimestamp, Long id, Pageable pageable);
+    }
+
+    private final LocalDateTime createdTimestamp;
+    private final Long id;
+
+    private KeysetCursor(LocalDateTime createdTimestamp, Long id) {
+        this.createdTimestamp = createdTimestamp;
+        this.id = id;
+    }
+
+    /**
+     * Read one page: the first page when cursor is null, otherwise the page after the cursor
+     */
+    public static <T> CursorPage<T> fetch(String cursor, Integer limit,
+                                          FirstPageQuery<T> firstPage, NextPageQuery<T> nextPage,
+                                          Function<T, LocalDateTime> createdTimestamp, Function<T, Long> id) {
+        int pageLimit = limit(limit);
+        KeysetCursor position = decode(cursor);
+        // One row more than the page tells whether there is a next page without a count query
+        Pageable fetch = PageRequest.of(0, pageLimit + 1);
+        List<T> rows = position == null
+            ? firstPage.find(fetch)
+            : nextPage.find(position.createdTimestamp, position.id, fetch);
+
+        if (rows.size() <= pageLimit) {
+            return new CursorPage<>(rows, null, pageLimit);
+        }
+        List<T> items = rows.subList(0, pageLimit);
+        T last = items.get(pageLimit - 1);
+        String nextCursor = new KeysetCursor(createdTimestamp.apply(last), id.apply(last)).encode();
+        return new CursorPage<>(items, nextCursor, pageLimit);
+    }
+
+    /**
+     * Page size for a requested limit: the default when none is given, at most MAX_LIMIT
+     */
+    public static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(LocalDateTime.parse(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException is an IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    String encode() {
+        String value = createdTimestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
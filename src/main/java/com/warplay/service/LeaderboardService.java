@@ -0,0 +1,501 @@
+package com.warplay.service;
+
+import com.warplay.dto.ForceResponse;
+import com.warplay.dto.LeaderboardEntry;
+import com.warplay.dto.UnitResponse;
+import com.warplay.repository.ForceRepository;
+import com.warplay.repository.UnitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Per-club unit and force leaderboards (most kills, highest XP, most battles).
+ *
+ * Each board keeps only the best entries of a club, sorted, so reading one costs O(K). Unit and force
+ * writes report their force once committed; the force's current scores are read back and moved into,
+ * within or out of its club's boards. A board holds twice the displayed size so that entries can fall
+ * off it without a reload; only when it gets shorter than the displayed size while the club has entries
+ * it does not hold is it reloaded from the database, on the next read. All boards are rebuilt on startup,
+ * after the force totals reconciliation and on a schedule.
+ *
+ * Refreshes are numbered when they start, before reading; a refresh that started later read every write
+ * committed before it started, so an earlier one that finishes after it is not applied to the same force.
+ * Forces without a club are on no board.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final String UNITS = "UNIT";
+    private static final String FORCES = "FORCE";
+
+    @Value("${leaderboards.size:10}")
+    private int boardSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Autowired
+    private ForceRepository forceRepository;
+
+    // Boards by scope, metric and club; guarded by this
+    private final Map<String, TopK> boards = new HashMap<>();
+
+    // Club of every unit or force held in a board, to take it off its old club's boards when it moves
+    private final Map<String, Long> clubs = new HashMap<>();
+
+    // Number of the last refresh, rebuild or board load started, and of the last refresh; guarded by this
+    private long tickets;
+    private long lastRefresh;
+
+    // Number of the last refresh applied to each force since the last rebuild; guarded by this
+    private final Map<Long, Long> forceRefreshes = new HashMap<>();
+
+    // Number of the rebuild the boards come from; refreshes started before it are not applied
+    private long rebuiltAt;
+
+    /**
+     * What a board ranks, with the units and forces columns it reads (forces have no battle total)
+     */
+    public enum Metric {
+        KILLS("kill_count", "total_kills"),
+        XP("xp", "total_xp"),
+        BATTLES("battle_count", null);
+
+        private final String unitColumn;
+        private final String forceColumn;
+
+        Metric(String unitColumn, String forceColumn) {
+            this.unitColumn = unitColumn;
+            this.forceColumn = forceColumn;
+        }
+
+        public static Metric fromString(String metric) {
+            if (metric == null) {
+                return KILLS;
+            }
+            try {
+                return valueOf(metric.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown leaderboard metric: " + metric);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final int score;
+
+        private Entry(long id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    // Highest score first, then oldest (lowest id)
+    private static final Comparator<Entry> RANKING =
+        Comparator.comparingInt((Entry entry) -> -entry.score).thenComparingLong(entry -> entry.id);
+
+    /**
+     * The best entries of one club for one metric. Every entry the club has but the board does not hold
+     * ranks after every entry the board holds.
+     */
+    private static final class TopK {
+        private final TreeSet<Entry> ranked = new TreeSet<>(RANKING);
+        private final Map<Long, Entry> members = new HashMap<>();
+        private final int capacity;
+        // Whether the club had more entries than the board holds
+        private boolean truncated;
+
+        private TopK(List<Entry> rows, int capacity) {
+            this.capacity = capacity;
+            for (Entry entry : rows.subList(0, Math.min(rows.size(), capacity))) {
+                ranked.add(entry);
+                members.put(entry.id, entry);
+            }
+            this.truncated = rows.size() > capacity;
+        }
+
+        /**
+         * Set an entry's score; a score of 0 (or a deleted entry) takes it off the board
+         */
+        private void update(long id, int score) {
+            Entry previous = members.remove(id);
+            if (previous != null) {
+                ranked.remove(previous);
+            }
+            if (score <= 0) {
+                return;
+            }
+            Entry entry = new Entry(id, score);
+            // Past the last held entry of a truncated board, entries not held may rank higher: let it go
+            if (truncated && (ranked.isEmpty() || RANKING.compare(entry, ranked.last()) > 0)) {
+                return;
+            }
+            ranked.add(entry);
+            members.put(id, entry);
+            if (ranked.size() > capacity) {
+                members.remove(ranked.pollLast().id);
+                truncated = true;
+            }
+        }
+
+        private boolean contains(long id) {
+            return members.containsKey(id);
+        }
+
+        private boolean needsReload(int size) {
+            return truncated && ranked.size() < size;
+        }
+
+        private List<Entry> top(int limit) {
+            List<Entry> top = new ArrayList<>(limit);
+            for (Entry entry : ranked) {
+                if (top.size() == limit) {
+                    break;
+                }
+                top.add(entry);
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Rebuild all boards once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // Boards then load club by club on first read
+            logger.error("Error rebuilding leaderboards on startup", e);
+        }
+    }
+
+    /**
+     * Rebuild all boards on a schedule, correcting any a refresh missed (e.g. after a failed query)
+     */
+    @Scheduled(cron = "${leaderboards.rebuild-cron:0 45 * * * *}")
+    public void rebuildOnSchedule() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error rebuilding leaderboards", e);
+        }
+    }
+
+    /**
+     * Rebuild every board from the database: one query per scope and metric, keeping each club's best
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long ticket = nextTicket();
+        Map<String, TopK> rebuilt = new HashMap<>();
+        Map<String, Long> rebuiltClubs = new HashMap<>();
+        for (Metric metric : Metric.values()) {
+            rebuildAll(UNITS, metric, unitScores(metric, null), rebuilt, rebuiltClubs);
+            if (metric.forceColumn != null) {
+                rebuildAll(FORCES, metric, forceScores(metric, null), rebuilt, rebuiltClubs);
+            }
+        }
+        // Forces refreshed while the rebuild was reading may be missing from its rows: refresh them again
+        List<Long> refreshedMeanwhile = new ArrayList<>();
+        synchronized (this) {
+            boards.clear();
+            boards.putAll(rebuilt);
+            clubs.clear();
+            clubs.putAll(rebuiltClubs);
+            for (Map.Entry<Long, Long> force : forceRefreshes.entrySet()) {
+                if (force.getValue() > ticket) {
+                    refreshedMeanwhile.add(force.getKey());
+                }
+            }
+            forceRefreshes.clear();
+            rebuiltAt = ticket;
+        }
+        for (Long forceId : refreshedMeanwhile) {
+            refresh(forceId);
+        }
+        logger.info("Rebuilt {} leaderboards in {} ms", rebuilt.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Report that a force's units or totals changed; its boards are updated once the current
+     * transaction commits (or right away outside of one)
+     */
+    public void forceChanged(Long forceId) {
+        if (forceId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(forceId);
+                }
+            });
+        } else {
+            refresh(forceId);
+        }
+    }
+
+    /**
+     * Best units of a club for a metric
+     */
+    public List<LeaderboardEntry> getUnitBoard(Long clubId, String metric, Integer limit) {
+        Metric boardMetric = Metric.fromString(metric);
+        List<Entry> top = top(UNITS, boardMetric, clubId, limit);
+        if (top.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UnitResponse> units = byId(unitRepository.findResponsesByIdIn(ids(top)), UnitResponse::getId);
+        List<LeaderboardEntry> board = new ArrayList<>();
+        for (Entry entry : top) {
+            UnitResponse unit = units.get(entry.id);
+            if (unit != null) {
+                board.add(new LeaderboardEntry(board.size() + 1, entry.score, unit));
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Best forces of a club for a metric (kills or XP)
+     */
+    public List<LeaderboardEntry> getForceBoard(Long clubId, String metric, Integer limit) {
+        Metric boardMetric = Metric.fromString(metric);
+        if (boardMetric.forceColumn == null) {
+            throw new IllegalArgumentException("Forces have no " + boardMetric.name().toLowerCase() + " leaderboard");
+        }
+        List<Entry> top = top(FORCES, boardMetric, clubId, limit);
+        if (top.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ForceResponse> forces = byId(forceRepository.findResponsesByIdIn(ids(top)), ForceResponse::getId);
+        List<LeaderboardEntry> board = new ArrayList<>();
+        for (Entry entry : top) {
+            ForceResponse force = forces.get(entry.id);
+            if (force != null) {
+                board.add(new LeaderboardEntry(board.size() + 1, entry.score, force));
+            }
+        }
+        return board;
+    }
+
+    private List<Entry> top(String scope, Metric metric, Long clubId, Integer limit) {
+        int size = limit != null ? Math.max(1, Math.min(limit, boardSize)) : boardSize;
+        String key = key(scope, metric, clubId);
+        synchronized (this) {
+            TopK board = boards.get(key);
+            if (board != null && !board.needsReload(boardSize)) {
+                return board.top(size);
+            }
+        }
+        // Load outside the lock; a refresh started meanwhile found no board to update and its write may
+        // be missing from the rows, so the board is then only used for this read
+        long ticket = nextTicket();
+        List<Object[]> rows = UNITS.equals(scope) ? unitScores(metric, clubId) : forceScores(metric, clubId);
+        TopK board = new TopK(entries(rows), capacity());
+        synchronized (this) {
+            if (lastRefresh > ticket) {
+                return board.top(size);
+            }
+            boards.put(key, board);
+            for (Entry entry : board.ranked) {
+                clubs.put(scope + ":" + entry.id, clubId);
+            }
+            return board.top(size);
+        }
+    }
+
+    private void refresh(Long forceId) {
+        long ticket;
+        synchronized (this) {
+            ticket = nextTicket();
+            lastRefresh = ticket;
+        }
+        try {
+            List<Object[]> units = jdbcTemplate.query(scoreSelect("u.id", "u.", false)
+                    + "FROM units u JOIN forces f ON f.id = u.force_id WHERE u.force_id = ?",
+                (rs, rowNum) -> row(rs, true), forceId);
+            List<Object[]> forces = jdbcTemplate.query(scoreSelect("f.id", "f.", true)
+                    + "FROM forces f WHERE f.id = ?",
+                (rs, rowNum) -> row(rs, false), forceId);
+            synchronized (this) {
+                Long applied = forceRefreshes.get(forceId);
+                if (ticket < rebuiltAt || (applied != null && applied > ticket)) {
+                    logger.debug("Skipping leaderboard refresh {} of force {}: a later one was applied", ticket, forceId);
+                    return;
+                }
+                forceRefreshes.put(forceId, ticket);
+                for (Object[] row : units) {
+                    apply(UNITS, row);
+                }
+                for (Object[] row : forces) {
+                    apply(FORCES, row);
+                }
+            }
+        } catch (Exception e) {
+            // Boards stay as they were; a wrong one is corrected by the next rebuild
+            logger.error("Error updating leaderboards for force {}: {}", forceId, e.getMessage(), e);
+        }
+    }
+
+    // Row: id, club id, live (not deleted), then one score per metric
+    private void apply(String scope, Object[] row) {
+        long id = (Long) row[0];
+        Long clubId = (Long) row[1];
+        boolean live = (Boolean) row[2];
+        String member = scope + ":" + id;
+
+        Long previousClub = clubs.get(member);
+        if (previousClub != null && !previousClub.equals(clubId)) {
+            for (Metric metric : Metric.values()) {
+                TopK board = boards.get(key(scope, metric, previousClub));
+                if (board != null) {
+                    board.update(id, 0);
+                }
+            }
+        }
+
+        boolean held = false;
+        Metric[] metrics = Metric.values();
+        for (int i = 0; clubId != null && i < metrics.length; i++) {
+            TopK board = boards.get(key(scope, metrics[i], clubId));
+            // Boards not loaded yet read the current scores when they are
+            if (board != null && row[3 + i] != null) {
+                board.update(id, live ? (Integer) row[3 + i] : 0);
+                held |= board.contains(id);
+            }
+        }
+        if (held) {
+            clubs.put(member, clubId);
+        } else {
+            clubs.remove(member);
+        }
+    }
+
+    private static Object[] row(ResultSet rs, boolean units) throws SQLException {
+        Metric[] metrics = Metric.values();
+        Object[] row = new Object[3 + metrics.length];
+        row[0] = rs.getLong(1);
+        row[1] = rs.getObject(2, Long.class);
+        row[2] = rs.getBoolean(3);
+        for (int i = 0; i < metrics.length; i++) {
+            if (units || metrics[i].forceColumn != null) {
+                row[3 + i] = rs.getInt(4 + i);
+            }
+        }
+        return row;
+    }
+
+    // SELECT id, club_id, live, one score per metric (0 where forces have none)
+    private static String scoreSelect(String id, String alias, boolean forces) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(id).append(", f.club_id, ")
+            .append(forces ? "f.deleted_timestamp IS NULL" : "u.deleted_timestamp IS NULL AND f.deleted_timestamp IS NULL");
+        for (Metric metric : Metric.values()) {
+            String column = forces ? metric.forceColumn : metric.unitColumn;
+            sql.append(", ").append(column != null ? "COALESCE(" + alias + column + ", 0)" : "0");
+        }
+        return sql.append(" ").toString();
+    }
+
+    // Rows (club id, id, score) of the best entries of one club, or of every club when clubId is null,
+    // up to one more than a board holds
+    private List<Object[]> unitScores(Metric metric, Long clubId) {
+        return scores("COALESCE(u." + metric.unitColumn + ", 0)", "u.id",
+            "units u JOIN forces f ON f.id = u.force_id WHERE u.deleted_timestamp IS NULL AND f.deleted_timestamp IS NULL",
+            clubId);
+    }
+
+    private List<Object[]> forceScores(Metric metric, Long clubId) {
+        return scores("COALESCE(f." + metric.forceColumn + ", 0)", "f.id",
+            "forces f WHERE f.deleted_timestamp IS NULL", clubId);
+    }
+
+    private List<Object[]> scores(String score, String id, String from, Long clubId) {
+        String sql = "SELECT club_id, id, score FROM (SELECT f.club_id, " + id + " AS id, " + score + " AS score, "
+            + "row_number() OVER (PARTITION BY f.club_id ORDER BY " + score + " DESC, " + id + ") AS position "
+            + "FROM " + from + " AND " + score + " > 0"
+            + (clubId != null ? " AND f.club_id = ?" : " AND f.club_id IS NOT NULL") + ") ranked "
+            + "WHERE position <= ? ORDER BY club_id, position";
+        Object[] args = clubId != null ? new Object[] {clubId, capacity() + 1} : new Object[] {capacity() + 1};
+        return jdbcTemplate.query(sql,
+            (rs, rowNum) -> new Object[] {rs.getObject(1, Long.class), rs.getLong(2), rs.getInt(3)}, args);
+    }
+
+    private void rebuildAll(String scope, Metric metric, List<Object[]> rows,
+                            Map<String, TopK> rebuilt, Map<String, Long> rebuiltClubs) {
+        Map<Long, List<Object[]>> byClub = new HashMap<>();
+        for (Object[] row : rows) {
+            byClub.computeIfAbsent((Long) row[0], club -> new ArrayList<>()).add(row);
+        }
+        for (Map.Entry<Long, List<Object[]>> club : byClub.entrySet()) {
+            TopK board = new TopK(entries(club.getValue()), capacity());
+            rebuilt.put(key(scope, metric, club.getKey()), board);
+            for (Entry entry : board.ranked) {
+                rebuiltClubs.put(scope + ":" + entry.id, club.getKey());
+            }
+        }
+    }
+
+    private static List<Entry> entries(List<Object[]> rows) {
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            entries.add(new Entry((Long) row[1], (Integer) row[2]));
+        }
+        return entries;
+    }
+
+    private static List<Long> ids(List<Entry> entries) {
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    private static <T> Map<Long, T> byId(List<T> items, Function<T, Long> id) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T item : items) {
+            byId.put(id.apply(item), item);
+        }
+        return byId;
+    }
+
+    private synchronized long nextTicket() {
+        return ++tickets;
+    }
+
+    private int capacity() {
+        return boardSize * 2;
+    }
+
+    private static String key(String scope, Metric metric, Long clubId) {
+        return scope + ":" + metric + ":" + clubId;
+    }
+}
@@ -0,0 +1,336 @@
+package com.warplay.service;
+
+import com.warplay.entity.MfmVersion;
+import com.warplay.repository.MfmVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Writes the parse output of any points catalog to the MFM tables. Every table is written with one batched
+ * INSERT; the ids come from the tables' sequences up front (IDENTITY ids stop Hibernate from batching), and
+ * child rows find their parent ids through the parsed names, which the parsers intern.
+ */
+@Service
+public class MfmBulkStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmBulkStoreService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    // Version strings of rows that are not published versions; both fit the 20 characters of the column
+    private static final String STAGING_PREFIX = "staging-";
+    private static final String REPLACED_PREFIX = "replaced-";
+
+    private static final String INSERT_FACTION_SQL = "INSERT INTO mfm_factions (id, mfm_version_id, name, supergroup, "
+        + "ally_to, created_timestamp, updated_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_DETACHMENT_SQL = "INSERT INTO mfm_detachments (id, faction_id, mfm_version_id, "
+        + "name, created_timestamp, updated_timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_UNIT_SQL = "INSERT INTO mfm_units (id, faction_id, mfm_version_id, name, "
+        + "unit_type, datasheet_id, created_timestamp, updated_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_VARIANT_SQL = "INSERT INTO mfm_unit_variants (id, unit_id, mfm_version_id, "
+        + "model_count, points, created_timestamp, updated_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ENHANCEMENT_SQL = "INSERT INTO mfm_enhancements (id, detachment_id, "
+        + "mfm_version_id, name, points, created_timestamp, updated_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private MfmVersionRepository mfmVersionRepository;
+
+    @Autowired
+    private MfmPartitionService mfmPartitionService;
+
+    @Autowired
+    private MfmDatasheetService mfmDatasheetService;
+
+    @Autowired
+    private MfmCatalogArchiveService mfmCatalogArchiveService;
+
+    @Autowired
+    private MfmStatsService mfmStatsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Store parse output as a version. Its rows are written under a staging version row, in a transaction
+     * of their own that locks nothing readers of the stored versions wait for, so a failed store leaves
+     * nothing behind. A short transaction then swaps the staging row in under the real version string.
+     *
+     * A stored version of the same string is refused unless replaceExisting is set. A replacement takes the
+     * latest and active flags of the version it replaces, whose rows are dropped once the swap is committed;
+     * a new MFM version becomes the latest.
+     */
+    public MfmVersion store(MfmParseData parseData, String date, boolean replaceExisting, MfmImportProgress progress) {
+        String version = parseData.getVersion();
+        String gameSystem = MfmRawTextParserService.effectiveGameSystem(parseData.getGameSystem());
+        mfmVersionRepository.findByVersion(version)
+            .ifPresent(existing -> checkReplaceable(existing, gameSystem, replaceExisting));
+
+        MfmVersion staged = transactionTemplate.execute(status -> {
+            MfmVersion stagingVersion = new MfmVersion(STAGING_PREFIX + UUID.randomUUID().toString().substring(0, 12),
+                date, false, false);
+            stagingVersion.setGameSystem(gameSystem);
+            return mfmVersionRepository.save(stagingVersion);
+        });
+        Promotion promotion;
+        try {
+            mfmPartitionService.ensurePartitions(staged.getId());
+            transactionTemplate.executeWithoutResult(status -> insertRows(parseData, staged, progress));
+            promotion = transactionTemplate.execute(status -> promote(staged.getId(), version, replaceExisting));
+        } catch (RuntimeException e) {
+            dropVersion(staged.getId());
+            throw e;
+        }
+
+        MfmVersion replaced = promotion.replaced();
+        if (replaced != null) {
+            dropVersion(replaced.getId());
+            if (Boolean.TRUE.equals(replaced.getIsArchived())) {
+                mfmCatalogArchiveService.deleteArchive(version);
+            }
+            mfmStatsService.evict(version);
+            logger.info("Replaced stored data of {} version {}", gameSystem, version);
+        }
+        return promotion.version();
+    }
+
+    /**
+     * Whether a version string names a row that is not a published version: a version still being stored,
+     * or a replaced one whose rows are being dropped
+     */
+    public static boolean isInternalVersion(String version) {
+        return version.startsWith(STAGING_PREFIX) || version.startsWith(REPLACED_PREFIX);
+    }
+
+    private static void checkReplaceable(MfmVersion existing, String gameSystem, boolean replaceExisting) {
+        if (!MfmRawTextParserService.isSameGameSystem(existing.getGameSystem(), gameSystem)) {
+            throw new IllegalArgumentException("Version " + existing.getVersion() + " already belongs to game system "
+                + MfmRawTextParserService.effectiveGameSystem(existing.getGameSystem()));
+        }
+        if (!replaceExisting) {
+            throw new IllegalArgumentException("Version " + existing.getVersion() + " is already stored, re-import it to replace it");
+        }
+    }
+
+    /**
+     * Give a staged version its real version string. A version it replaces is renamed out of the way and
+     * hands over its flags. The is_latest flag is only maintained for MFM versions, which the latest-version
+     * queries rely on; other game systems track their latest version in the catalog.
+     */
+    private Promotion promote(Long stagedId, String version, boolean replaceExisting) {
+        MfmVersion staged = mfmVersionRepository.findById(stagedId)
+            .orElseThrow(() -> new IllegalStateException("Staged version " + stagedId + " not found"));
+        MfmVersion replaced = mfmVersionRepository.findByVersion(version).orElse(null);
+        if (replaced != null) {
+            checkReplaceable(replaced, staged.getGameSystem(), replaceExisting);
+            staged.setIsLatest(replaced.getIsLatest());
+            staged.setIsActive(replaced.getIsActive());
+            replaced.setVersion(REPLACED_PREFIX + replaced.getId());
+            replaced.setIsLatest(false);
+            replaced.setIsActive(false);
+            // Renamed before the staged row takes the version string, which is unique
+            mfmVersionRepository.saveAndFlush(replaced);
+        } else {
+            boolean latest = MfmRawTextParserService.isSameGameSystem(staged.getGameSystem(), MfmRawTextParserService.GAME_SYSTEM);
+            if (latest) {
+                // Mark all other MFM versions as not latest
+                for (MfmVersion v : mfmVersionRepository.findAll()) {
+                    if (MfmRawTextParserService.isSameGameSystem(v.getGameSystem(), MfmRawTextParserService.GAME_SYSTEM)) {
+                        v.setIsLatest(false);
+                        mfmVersionRepository.save(v);
+                    }
+                }
+            }
+            staged.setIsLatest(latest);
+            staged.setIsActive(true);
+        }
+        staged.setVersion(version);
+        return new Promotion(mfmVersionRepository.save(staged), replaced);
+    }
+
+    /**
+     * Drop a staged or replaced version with its rows, outside any transaction so its partitions are
+     * detached concurrently. A version that cannot be dropped stays behind under its internal name.
+     */
+    private void dropVersion(Long mfmVersionId) {
+        try {
+            mfmPartitionService.dropVersionRows(mfmVersionId);
+            transactionTemplate.executeWithoutResult(status -> mfmVersionRepository.deleteById(mfmVersionId));
+        } catch (RuntimeException e) {
+            logger.error("Could not drop MFM version id {}", mfmVersionId, e);
+        }
+    }
+
+    private void insertRows(MfmParseData parseData, MfmVersion mfmVersion, MfmImportProgress progress) {
+        Long versionId = mfmVersion.getId();
+        String gameSystem = mfmVersion.getGameSystem();
+        LocalDateTime now = SqlTimestamps.now();
+        int rowsWritten = 0;
+
+        // Factions, by name
+        List<String> factions = new ArrayList<>(parseData.getFactions());
+        List<Long> factionIds = nextIds("mfm_factions", factions.size());
+        Map<String, Long> factionIdByName = new HashMap<>();
+        for (int i = 0; i < factions.size(); i++) {
+            factionIdByName.put(factions.get(i), factionIds.get(i));
+        }
+        jdbcTemplate.batchUpdate(INSERT_FACTION_SQL, factions, BATCH_SIZE, (ps, faction) -> {
+            ps.setLong(1, factionIdByName.get(faction));
+            ps.setLong(2, versionId);
+            ps.setString(3, faction);
+            ps.setString(4, MfmRawTextParserService.supergroupFor(gameSystem, faction));
+            ps.setString(5, MfmRawTextParserService.allyToFor(gameSystem, faction));
+            ps.setObject(6, now);
+            ps.setObject(7, now);
+        });
+        progress.rowsWritten(rowsWritten += factions.size());
+
+        // Detachments, by faction and name; a detachment listed twice is stored once
+        Map<String, Map<String, Long>> detachmentIds = new HashMap<>();
+        List<NamedRow> detachments = new ArrayList<>();
+        for (MfmDetachmentData detachment : parseData.getDetachments()) {
+            Long factionId = factionIdByName.get(detachment.getFaction());
+            Map<String, Long> byName = detachmentIds.computeIfAbsent(detachment.getFaction(), faction -> new HashMap<>());
+            if (factionId != null && !byName.containsKey(detachment.getName())) {
+                byName.put(detachment.getName(), null);
+                detachments.add(new NamedRow(factionId, detachment.getFaction(), detachment.getName()));
+            }
+        }
+        assignIds("mfm_detachments", detachments, detachmentIds);
+        jdbcTemplate.batchUpdate(INSERT_DETACHMENT_SQL, detachments, BATCH_SIZE, (ps, detachment) -> {
+            ps.setLong(1, detachment.id);
+            ps.setLong(2, detachment.parentId);
+            ps.setLong(3, versionId);
+            ps.setString(4, detachment.name);
+            ps.setObject(5, now);
+            ps.setObject(6, now);
+        });
+        progress.rowsWritten(rowsWritten += detachments.size());
+
+        // Units, by faction and name; each point value of a unit becomes a variant of the same unit row
+        Map<String, Map<String, Long>> unitIds = new HashMap<>();
+        List<NamedRow> units = new ArrayList<>();
+        for (MfmUnitData unit : parseData.getUnits()) {
+            Long factionId = factionIdByName.get(unit.getFaction());
+            Map<String, Long> byName = unitIds.computeIfAbsent(unit.getFaction(), faction -> new HashMap<>());
+            if (factionId != null && !byName.containsKey(unit.getName())) {
+                byName.put(unit.getName(), null);
+                NamedRow row = new NamedRow(factionId, unit.getFaction(), unit.getName());
+                row.unitType = unit.getUnitType();
+                row.datasheetId = mfmDatasheetService.register(gameSystem, unit.getFaction(), unit.getName());
+                units.add(row);
+            }
+        }
+        assignIds("mfm_units", units, unitIds);
+        jdbcTemplate.batchUpdate(INSERT_UNIT_SQL, units, BATCH_SIZE, (ps, unit) -> {
+            ps.setLong(1, unit.id);
+            ps.setLong(2, unit.parentId);
+            ps.setLong(3, versionId);
+            ps.setString(4, unit.name);
+            ps.setString(5, unit.unitType);
+            ps.setObject(6, unit.datasheetId);
+            ps.setObject(7, now);
+            ps.setObject(8, now);
+        });
+        progress.rowsWritten(rowsWritten += units.size());
+
+        List<MfmUnitData> variants = parseData.getUnits().stream()
+            .filter(unit -> parentId(unitIds, unit.getFaction(), unit.getName()) != null)
+            .toList();
+        List<Long> variantIds = nextIds("mfm_unit_variants", variants.size());
+        jdbcTemplate.batchUpdate(INSERT_VARIANT_SQL, positions(variants.size()), BATCH_SIZE, (ps, i) -> {
+            MfmUnitData variant = variants.get(i);
+            ps.setLong(1, variantIds.get(i));
+            ps.setLong(2, parentId(unitIds, variant.getFaction(), variant.getName()));
+            ps.setLong(3, versionId);
+            ps.setInt(4, variant.getModelCount());
+            ps.setInt(5, variant.getPoints());
+            ps.setObject(6, now);
+            ps.setObject(7, now);
+        });
+        progress.rowsWritten(rowsWritten += variants.size());
+
+        // Enhancements of detachments that were not stored are left out
+        List<MfmEnhancementData> enhancements = parseData.getEnhancements().stream()
+            .filter(enhancement -> parentId(detachmentIds, enhancement.getFaction(), enhancement.getDetachment()) != null)
+            .toList();
+        List<Long> enhancementIds = nextIds("mfm_enhancements", enhancements.size());
+        jdbcTemplate.batchUpdate(INSERT_ENHANCEMENT_SQL, positions(enhancements.size()), BATCH_SIZE, (ps, i) -> {
+            MfmEnhancementData enhancement = enhancements.get(i);
+            ps.setLong(1, enhancementIds.get(i));
+            ps.setLong(2, parentId(detachmentIds, enhancement.getFaction(), enhancement.getDetachment()));
+            ps.setLong(3, versionId);
+            ps.setString(4, enhancement.getName());
+            ps.setInt(5, enhancement.getPoints());
+            ps.setObject(6, now);
+            ps.setObject(7, now);
+        });
+        progress.rowsWritten(rowsWritten += enhancements.size());
+
+        logger.info("Stored {} rows of {} version {}", rowsWritten, gameSystem, parseData.getVersion());
+    }
+
+    /**
+     * Take ids for new rows of a table from its sequence, in one round trip
+     */
+    private List<Long> nextIds(String table, int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(
+            "SELECT nextval(pg_get_serial_sequence('" + table + "', 'id')) FROM generate_series(1, ?)", Long.class, count);
+    }
+
+    private void assignIds(String table, List<NamedRow> rows, Map<String, Map<String, Long>> idsByParent) {
+        List<Long> ids = nextIds(table, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            NamedRow row = rows.get(i);
+            row.id = ids.get(i);
+            idsByParent.get(row.parentName).put(row.name, row.id);
+        }
+    }
+
+    private static Long parentId(Map<String, Map<String, Long>> idsByParent, String parentName, String name) {
+        Map<String, Long> byName = idsByParent.get(parentName);
+        return byName != null ? byName.get(name) : null;
+    }
+
+    private record Promotion(MfmVersion version, MfmVersion replaced) {
+    }
+
+    private static List<Integer> positions(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    /**
+     * A detachment or unit row: its id, its faction's id and name, and its own name
+     */
+    private static class NamedRow {
+        private final Long parentId;
+        private final String parentName;
+        private final String name;
+        private Long id;
+        private String unitType;
+        private Long datasheetId;
+
+        NamedRow(Long parentId, String parentName, String name) {
+            this.parentId = parentId;
+            this.parentName = parentName;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.warplay.service;
+
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Cold archive files of retired MFM versions. An archived version has no rows in the MFM tables;
+ * its catalog is read back from the archive the first time it is requested, so lookups by
+ * old versions (for example a force pinned to one) keep working.
+ */
+@Service
+public class MfmCatalogArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmCatalogArchiveService.class);
+
+    @Value("${mfm.archive.dir:mfm-archive}")
+    private String archiveDir;
+
+    @Autowired
+    private MfmCatalogService mfmCatalogService;
+
+    @Autowired
+    private MfmCatalogSnapshotService mfmCatalogSnapshotService;
+
+    @PostConstruct
+    public void init() {
+        mfmCatalogService.setCatalogLoader(this::loadArchive);
+    }
+
+    /**
+     * Write the archive of a version and check that it reads back complete. Returns the archive size in bytes.
+     */
+    public long writeArchive(MfmCatalog catalog) throws IOException {
+        Path path = archivePath(catalog.getVersion());
+        long bytes = mfmCatalogSnapshotService.writeCompressed(catalog, path);
+
+        MfmCatalog readBack = mfmCatalogSnapshotService.readCompressed(path);
+        if (countEntries(readBack) != countEntries(catalog)) {
+            Files.deleteIfExists(path);
+            throw new IOException("Archive of MFM version " + catalog.getVersion() + " did not read back complete");
+        }
+
+        logger.info("Archived MFM version {} to {} ({} bytes)", catalog.getVersion(), path.toAbsolutePath(), bytes);
+        return bytes;
+    }
+
+    /**
+     * Read the archived catalog of a version, if there is one
+     */
+    public Optional<MfmCatalog> loadArchive(String version) {
+        Path path = archivePath(version);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        try {
+            MfmCatalog catalog = mfmCatalogSnapshotService.readCompressed(path);
+            if (!version.equals(catalog.getVersion())) {
+                logger.warn("MFM archive {} contains version {}, expected {}", path, catalog.getVersion(), version);
+                return Optional.empty();
+            }
+            logger.info("Rehydrated archived MFM version {} in {} ms", version, (System.nanoTime() - start) / 1_000_000);
+            return Optional.of(catalog);
+        } catch (IOException e) {
+            logger.warn("Could not load MFM archive {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public boolean hasArchive(String version) {
+        return Files.isRegularFile(archivePath(version));
+    }
+
+    /**
+     * Remove the archive of a version, when the version is deleted or re-imported
+     */
+    public void deleteArchive(String version) {
+        try {
+            if (Files.deleteIfExists(archivePath(version))) {
+                logger.info("Deleted archive of MFM version {}", version);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete archive of MFM version {}: {}", version, e.getMessage());
+        }
+    }
+
+    private Path archivePath(String version) {
+        return Paths.get(archiveDir, "mfm-" + version.replace(".", "_") + ".archive.gz");
+    }
+
+    private static long countEntries(MfmCatalog catalog) {
+        long entries = 0;
+        for (CatalogFaction faction : catalog.getFactions()) {
+            entries += 1 + faction.getUnits().size() + faction.getDetachments().size();
+        }
+        return entries;
+    }
+}
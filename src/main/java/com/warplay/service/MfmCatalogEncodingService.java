@@ -0,0 +1,66 @@
+package com.warplay.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.warplay.dto.MfmCompactUnitsResponse;
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary (CBOR, Smile) encodings of catalog responses. A catalog never changes once built, so each
+ * payload is encoded once and the bytes are kept for as long as the catalog itself is kept.
+ */
+@Service
+public class MfmCatalogEncodingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmCatalogEncodingService.class);
+
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    // Encoded payloads per catalog; entries go away with catalogs evicted from MfmCatalogService
+    private final Map<MfmCatalog, Map<String, byte[]>> encoded = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Units of a faction encoded in the given media type (CBOR or SMILE). Only factions of the catalog are
+     * cached, so the cache holds at most one payload per faction and media type; any other name gets an
+     * empty unit list, encoded on every request.
+     */
+    public byte[] encodeUnits(MfmCatalog catalog, String factionName, String mediaType) {
+        CatalogFaction faction = catalog.getFaction(factionName);
+        if (faction == null) {
+            return encode(new MfmCompactUnitsResponse(catalog, null, factionName), mediaType);
+        }
+
+        Map<String, byte[]> payloads = encoded.computeIfAbsent(catalog, key -> new ConcurrentHashMap<>());
+        return payloads.computeIfAbsent("units\u0000" + faction.getName() + "\u0000" + mediaType, key -> {
+            MfmCompactUnitsResponse response = new MfmCompactUnitsResponse(catalog, faction, faction.getName());
+            byte[] bytes = encode(response, mediaType);
+            logger.debug("Encoded {} units of {} in MFM version {} as {}: {} bytes",
+                response.getUnits().size(), faction.getName(), catalog.getVersion(), mediaType, bytes.length);
+            return bytes;
+        });
+    }
+
+    private byte[] encode(Object value, String mediaType) {
+        ObjectMapper mapper = SMILE.equals(mediaType) ? smileMapper : cborMapper;
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode catalog response as " + mediaType, e);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.warplay.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory, read-only view of each imported MFM version.
+ * Catalogs are built from parse output or loaded from a binary snapshot or cold archive,
+ * so lookups do not need to touch the database.
+ */
+@Service
+public class MfmCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmCatalogService.class);
+
+    private final Map<String, MfmCatalog> catalogs = new ConcurrentHashMap<>();
+
+    // Latest version per game system short name
+    private final Map<String, String> latestVersions = new ConcurrentHashMap<>();
+
+    // Consulted when a requested version is not registered, e.g. to rehydrate an archived version
+    private volatile Function<String, Optional<MfmCatalog>> catalogLoader;
+
+    /**
+     * Register a catalog, replacing any previous catalog for the same version
+     */
+    public void register(MfmCatalog catalog, boolean isLatest) {
+        catalogs.put(catalog.getVersion(), catalog);
+        if (isLatest) {
+            latestVersions.put(catalog.getGameSystem(), catalog.getVersion());
+        }
+        logger.info("Registered {} catalog for version {}: {} factions",
+                   catalog.getGameSystem(), catalog.getVersion(), catalog.getFactions().size());
+    }
+
+    /**
+     * Remove the catalog for a version
+     */
+    public void evict(String version) {
+        catalogs.remove(version);
+        latestVersions.values().remove(version);
+    }
+
+    /**
+     * Set the loader for versions that are not registered. A loaded catalog stays registered (not as latest).
+     */
+    public void setCatalogLoader(Function<String, Optional<MfmCatalog>> catalogLoader) {
+        this.catalogLoader = catalogLoader;
+    }
+
+    /**
+     * Catalog for a version, loaded on first request if it is not registered
+     */
+    public Optional<MfmCatalog> getCatalog(String version) {
+        if (version == null) {
+            return Optional.empty();
+        }
+        MfmCatalog catalog = catalogs.get(version);
+        Function<String, Optional<MfmCatalog>> loader = catalogLoader;
+        if (catalog == null && loader != null) {
+            // One load per version even when several requests miss at once
+            catalog = catalogs.computeIfAbsent(version, key -> loader.apply(key).orElse(null));
+        }
+        return Optional.ofNullable(catalog);
+    }
+
+    /**
+     * Latest MFM catalog
+     */
+    public Optional<MfmCatalog> getLatestCatalog() {
+        return getLatestCatalog(MfmRawTextParserService.GAME_SYSTEM);
+    }
+
+    /**
+     * Latest catalog for a game system short name
+     */
+    public Optional<MfmCatalog> getLatestCatalog(String gameSystem) {
+        String version = latestVersions.get(gameSystem.toUpperCase(Locale.ROOT));
+        return version != null ? getCatalog(version) : Optional.empty();
+    }
+
+    /**
+     * All registered catalogs for a game system short name
+     */
+    public List<MfmCatalog> getCatalogs(String gameSystem) {
+        List<MfmCatalog> result = new ArrayList<>();
+        for (MfmCatalog catalog : catalogs.values()) {
+            if (catalog.getGameSystem().equalsIgnoreCase(gameSystem)) {
+                result.add(catalog);
+            }
+        }
+        result.sort(Comparator.comparing(MfmCatalog::getVersion));
+        return result;
+    }
+
+    /**
+     * Find a registered catalog built from content with the given hash
+     */
+    public Optional<MfmCatalog> findByContentHash(String contentHash) {
+        return catalogs.values().stream()
+            .filter(catalog -> contentHash.equals(catalog.getContentHash()))
+            .findFirst();
+    }
+
+    public Optional<CatalogUnit> findUnit(String version, String factionName, String unitName) {
+        return getCatalog(version)
+            .map(catalog -> catalog.getFaction(factionName))
+            .map(faction -> faction.getUnit(unitName));
+    }
+
+    public Optional<CatalogUnit> findUnitInLatestVersion(String factionName, String unitName) {
+        return getLatestCatalog()
+            .map(catalog -> catalog.getFaction(factionName))
+            .map(faction -> faction.getUnit(unitName));
+    }
+
+    public Optional<CatalogDetachment> findDetachment(String version, String factionName, String detachmentName) {
+        return getCatalog(version)
+            .map(catalog -> catalog.getFaction(factionName))
+            .map(faction -> faction.getDetachment(detachmentName));
+    }
+
+    public Optional<CatalogDetachment> findDetachmentInLatestVersion(String factionName, String detachmentName) {
+        return getLatestCatalog()
+            .map(catalog -> catalog.getFaction(factionName))
+            .map(faction -> faction.getDetachment(detachmentName));
+    }
+
+    /**
+     * Build a catalog from parse output, mirroring how the parse data is stored in the database:
+     * one unit per faction and name with every parsed variant, and enhancements only under known detachments.
+     */
+    public static MfmCatalog fromParseData(MfmParseData parseData, String version, String date, String contentHash) {
+        Map<String, Map<String, List<int[]>>> variantsByFaction = new LinkedHashMap<>();
+        Map<String, Map<String, String>> unitTypesByFaction = new HashMap<>();
+        for (MfmUnitData unit : parseData.getUnits()) {
+            variantsByFaction.computeIfAbsent(unit.getFaction(), k -> new LinkedHashMap<>())
+                .computeIfAbsent(unit.getName(), k -> new ArrayList<>())
+                .add(new int[] { unit.getModelCount(), unit.getPoints() });
+            unitTypesByFaction.computeIfAbsent(unit.getFaction(), k -> new HashMap<>())
+                .putIfAbsent(unit.getName(), unit.getUnitType());
+        }
+
+        Map<String, Map<String, List<MfmEnhancementData>>> enhancementsByFaction = new LinkedHashMap<>();
+        for (MfmDetachmentData detachment : parseData.getDetachments()) {
+            enhancementsByFaction.computeIfAbsent(detachment.getFaction(), k -> new LinkedHashMap<>())
+                .computeIfAbsent(detachment.getName(), k -> new ArrayList<>());
+        }
+        for (MfmEnhancementData enhancement : parseData.getEnhancements()) {
+            if (enhancement.getDetachment() == null) {
+                continue;
+            }
+            enhancementsByFaction.computeIfAbsent(enhancement.getFaction(), k -> new LinkedHashMap<>())
+                .computeIfAbsent(enhancement.getDetachment(), k -> new ArrayList<>())
+                .add(enhancement);
+        }
+
+        Set<String> factionNames = new LinkedHashSet<>();
+        factionNames.addAll(variantsByFaction.keySet());
+        factionNames.addAll(enhancementsByFaction.keySet());
+        factionNames.addAll(parseData.getFactions());
+
+        List<CatalogFaction> factions = new ArrayList<>();
+        for (String factionName : factionNames) {
+            if (factionName == null) {
+                continue;
+            }
+            List<CatalogUnit> units = new ArrayList<>();
+            Map<String, String> unitTypes = unitTypesByFaction.getOrDefault(factionName, Collections.emptyMap());
+            variantsByFaction.getOrDefault(factionName, Collections.emptyMap()).forEach((unitName, variants) -> {
+                int[] modelCounts = new int[variants.size()];
+                int[] points = new int[variants.size()];
+                for (int i = 0; i < variants.size(); i++) {
+                    modelCounts[i] = variants.get(i)[0];
+                    points[i] = variants.get(i)[1];
+                }
+                units.add(new CatalogUnit(unitName, unitTypes.get(unitName), modelCounts, points));
+            });
+
+            List<CatalogDetachment> detachments = new ArrayList<>();
+            enhancementsByFaction.getOrDefault(factionName, Collections.emptyMap()).forEach((detachmentName, enhancements) -> {
+                String[] names = new String[enhancements.size()];
+                int[] points = new int[enhancements.size()];
+                for (int i = 0; i < enhancements.size(); i++) {
+                    names[i] = enhancements.get(i).getName();
+                    points[i] = enhancements.get(i).getPoints();
+                }
+                detachments.add(new CatalogDetachment(detachmentName, names, points));
+            });
+
+            factions.add(new CatalogFaction(factionName,
+                MfmRawTextParserService.supergroupFor(parseData.getGameSystem(), factionName),
+                MfmRawTextParserService.allyToFor(parseData.getGameSystem(), factionName),
+                units, detachments));
+        }
+
+        return new MfmCatalog(parseData.getGameSystem(), version, date, contentHash, factions);
+    }
+
+    // Catalog data structures
+
+    public static class MfmCatalog {
+        private final String gameSystem;
+        private final String version;
+        private final String date;
+        private final String contentHash;
+        private final List<CatalogFaction> factions;
+        private final Map<String, CatalogFaction> factionsByName;
+
+        public MfmCatalog(String gameSystem, String version, String date, String contentHash, List<CatalogFaction> factions) {
+            this.gameSystem = gameSystem != null ? gameSystem.toUpperCase(Locale.ROOT) : MfmRawTextParserService.GAME_SYSTEM;
+            this.version = version;
+            this.date = date;
+            this.contentHash = contentHash;
+            this.factions = Collections.unmodifiableList(factions);
+            this.factionsByName = new HashMap<>();
+            for (CatalogFaction faction : factions) {
+                factionsByName.put(faction.getName(), faction);
+            }
+        }
+
+        public CatalogFaction getFaction(String name) {
+            return factionsByName.get(name);
+        }
+
+        // Getters
+        public String getGameSystem() { return gameSystem; }
+        public String getVersion() { return version; }
+        public String getDate() { return date; }
+        public String getContentHash() { return contentHash; }
+        public List<CatalogFaction> getFactions() { return factions; }
+    }
+
+    public static class CatalogFaction {
+        private final String name;
+        private final String supergroup;
+        private final String allyTo;
+        private final List<CatalogUnit> units;
+        private final List<CatalogDetachment> detachments;
+        private final Map<String, CatalogUnit> unitsByName;
+        private final Map<String, CatalogDetachment> detachmentsByName;
+
+        public CatalogFaction(String name, String supergroup, String allyTo,
+                              List<CatalogUnit> units, List<CatalogDetachment> detachments) {
+            this.name = name;
+            this.supergroup = supergroup;
+            this.allyTo = allyTo;
+            this.units = Collections.unmodifiableList(units);
+            this.detachments = Collections.unmodifiableList(detachments);
+            this.unitsByName = new HashMap<>();
+            for (CatalogUnit unit : units) {
+                unitsByName.put(unit.getName(), unit);
+            }
+            this.detachmentsByName = new HashMap<>();
+            for (CatalogDetachment detachment : detachments) {
+                detachmentsByName.put(detachment.getName(), detachment);
+            }
+        }
+
+        public CatalogUnit getUnit(String name) {
+            return unitsByName.get(name);
+        }
+
+        public CatalogDetachment getDetachment(String name) {
+            return detachmentsByName.get(name);
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public String getSupergroup() { return supergroup; }
+        public String getAllyTo() { return allyTo; }
+        public List<CatalogUnit> getUnits() { return units; }
+        public List<CatalogDetachment> getDetachments() { return detachments; }
+    }
+
+    /**
+     * A unit with its variants packed into parallel model-count and points arrays
+     */
+    public static class CatalogUnit {
+        private final String name;
+        private final String unitType;
+        private final int[] modelCounts;
+        private final int[] points;
+
+        public CatalogUnit(String name, String unitType, int[] modelCounts, int[] points) {
+            this.name = name;
+            this.unitType = unitType;
+            this.modelCounts = modelCounts;
+            this.points = points;
+        }
+
+        public int getVariantCount() {
+            return modelCounts.length;
+        }
+
+        public int getModelCount(int index) {
+            return modelCounts[index];
+        }
+
+        public int getPoints(int index) {
+            return points[index];
+        }
+
+        /**
+         * Model counts in ascending order
+         */
+        public List<Integer> getSortedModelCounts() {
+            int[] sorted = modelCounts.clone();
+            Arrays.sort(sorted);
+            List<Integer> result = new ArrayList<>(sorted.length);
+            for (int modelCount : sorted) {
+                result.add(modelCount);
+            }
+            return result;
+        }
+
+        public Optional<Integer> getPointsForModelCount(int modelCount) {
+            for (int i = 0; i < modelCounts.length; i++) {
+                if (modelCounts[i] == modelCount) {
+                    return Optional.of(points[i]);
+                }
+            }
+            return Optional.empty();
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public String getUnitType() { return unitType; }
+    }
+
+    /**
+     * A detachment with its enhancements packed into parallel name and points arrays
+     */
+    public static class CatalogDetachment {
+        private final String name;
+        private final String[] enhancementNames;
+        private final int[] enhancementPoints;
+
+        public CatalogDetachment(String name, String[] enhancementNames, int[] enhancementPoints) {
+            this.name = name;
+            this.enhancementNames = enhancementNames;
+            this.enhancementPoints = enhancementPoints;
+        }
+
+        public int getEnhancementCount() {
+            return enhancementNames.length;
+        }
+
+        public String getEnhancementName(int index) {
+            return enhancementNames[index];
+        }
+
+        public int getEnhancementPoints(int index) {
+            return enhancementPoints[index];
+        }
+
+        public Optional<Integer> getPointsForEnhancement(String enhancementName) {
+            for (int i = 0; i < enhancementNames.length; i++) {
+                if (enhancementNames[i].equals(enhancementName)) {
+                    return Optional.of(enhancementPoints[i]);
+                }
+            }
+            return Optional.empty();
+        }
+
+        // Getters
+        public String getName() { return name; }
+    }
+}
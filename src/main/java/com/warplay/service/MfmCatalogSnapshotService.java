@@ -0,0 +1,298 @@
+package com.warplay.service;
+
+import com.warplay.service.MfmCatalogService.CatalogDetachment;
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.CatalogUnit;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes and loads compact binary snapshots of MFM catalogs.
+ *
+ * Layout (big-endian): magic, format version, content hash, game system, version, date, string table,
+ * then factions with their units (packed model-count/points pairs) and detachments
+ * (packed enhancement name-index/points pairs). All names are stored once in the string table
+ * and referenced by index, so a loaded catalog shares a single instance per distinct string.
+ */
+@Service
+public class MfmCatalogSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmCatalogSnapshotService.class);
+
+    private static final int MAGIC = 0x57504D46; // "WPMF"
+    private static final int FORMAT_VERSION = 2;
+    private static final int NO_STRING = -1;
+
+    @Value("${mfm.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${mfm.snapshot.dir:mfm-snapshots}")
+    private String snapshotDir;
+
+    /**
+     * Write a snapshot for the catalog, replacing any previous snapshot for the same version
+     */
+    public void writeSnapshot(MfmCatalog catalog) {
+        if (!snapshotEnabled) {
+            return;
+        }
+
+        Path target = snapshotPath(catalog.getVersion());
+        try {
+            Files.createDirectories(target.getParent());
+            Path tempFile = Files.createTempFile(target.getParent(), "mfm-", ".snapshot.tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                writeCatalog(out, catalog);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Wrote MFM catalog snapshot for version {} to {} ({} bytes)",
+                       catalog.getVersion(), target.toAbsolutePath(), Files.size(target));
+        } catch (IOException e) {
+            logger.warn("Could not write MFM catalog snapshot for version {}: {}", catalog.getVersion(), e.getMessage());
+        }
+    }
+
+    /**
+     * Load the snapshot for a version if it exists and was built from content with the given hash
+     */
+    public Optional<MfmCatalog> loadIfCurrent(String version, String contentHash) {
+        if (!snapshotEnabled) {
+            return Optional.empty();
+        }
+
+        Path path = snapshotPath(version);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                logger.info("Ignoring MFM snapshot {} with unknown format", path);
+                return Optional.empty();
+            }
+            String snapshotHash = readString(buffer);
+            if (!snapshotHash.equals(contentHash)) {
+                logger.info("MFM snapshot for version {} is stale, content hash changed", version);
+                return Optional.empty();
+            }
+
+            MfmCatalog catalog = readCatalog(buffer, snapshotHash);
+            if (!catalog.getVersion().equals(version)) {
+                logger.warn("MFM snapshot {} contains version {}, expected {}", path, catalog.getVersion(), version);
+                return Optional.empty();
+            }
+
+            logger.info("Loaded MFM catalog snapshot for version {} in {} ms", version, (System.nanoTime() - start) / 1_000_000);
+            return Optional.of(catalog);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            logger.warn("Could not load MFM catalog snapshot {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write a catalog as a gzip-compressed snapshot to the given file, replacing it atomically.
+     * Returns the compressed size. Used for cold archives, which are read far less often than snapshots.
+     */
+    public long writeCompressed(MfmCatalog catalog, Path target) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Path tempFile = Files.createTempFile(target.toAbsolutePath().getParent(), "mfm-", ".archive.tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                writeCatalog(out, catalog);
+            }
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return Files.size(target);
+    }
+
+    /**
+     * Read a catalog written by writeCompressed
+     */
+    public MfmCatalog readCompressed(Path path) throws IOException {
+        byte[] bytes;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            bytes = in.readAllBytes();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown MFM catalog format in " + path);
+            }
+            String contentHash = readString(buffer);
+            return readCatalog(buffer, contentHash.isEmpty() ? null : contentHash);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt MFM catalog in " + path, e);
+        }
+    }
+
+    private Path snapshotPath(String version) {
+        return Paths.get(snapshotDir, "mfm-" + version.replace(".", "_") + ".snapshot");
+    }
+
+    private void writeCatalog(DataOutputStream out, MfmCatalog catalog) throws IOException {
+        // Intern every name into a single string table
+        Map<String, Integer> stringIndex = new LinkedHashMap<>();
+        for (CatalogFaction faction : catalog.getFactions()) {
+            intern(stringIndex, faction.getName());
+            intern(stringIndex, faction.getSupergroup());
+            intern(stringIndex, faction.getAllyTo());
+            for (CatalogUnit unit : faction.getUnits()) {
+                intern(stringIndex, unit.getName());
+                intern(stringIndex, unit.getUnitType());
+            }
+            for (CatalogDetachment detachment : faction.getDetachments()) {
+                intern(stringIndex, detachment.getName());
+                for (int i = 0; i < detachment.getEnhancementCount(); i++) {
+                    intern(stringIndex, detachment.getEnhancementName(i));
+                }
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, catalog.getContentHash() != null ? catalog.getContentHash() : "");
+        writeString(out, catalog.getGameSystem());
+        writeString(out, catalog.getVersion());
+        writeString(out, catalog.getDate() != null ? catalog.getDate() : "");
+
+        out.writeInt(stringIndex.size());
+        for (String value : stringIndex.keySet()) {
+            writeString(out, value);
+        }
+
+        out.writeInt(catalog.getFactions().size());
+        for (CatalogFaction faction : catalog.getFactions()) {
+            out.writeInt(indexOf(stringIndex, faction.getName()));
+            out.writeInt(indexOf(stringIndex, faction.getSupergroup()));
+            out.writeInt(indexOf(stringIndex, faction.getAllyTo()));
+
+            out.writeInt(faction.getUnits().size());
+            for (CatalogUnit unit : faction.getUnits()) {
+                out.writeInt(indexOf(stringIndex, unit.getName()));
+                out.writeInt(indexOf(stringIndex, unit.getUnitType()));
+                out.writeInt(unit.getVariantCount());
+                for (int i = 0; i < unit.getVariantCount(); i++) {
+                    out.writeInt(unit.getModelCount(i));
+                    out.writeInt(unit.getPoints(i));
+                }
+            }
+
+            out.writeInt(faction.getDetachments().size());
+            for (CatalogDetachment detachment : faction.getDetachments()) {
+                out.writeInt(indexOf(stringIndex, detachment.getName()));
+                out.writeInt(detachment.getEnhancementCount());
+                for (int i = 0; i < detachment.getEnhancementCount(); i++) {
+                    out.writeInt(indexOf(stringIndex, detachment.getEnhancementName(i)));
+                    out.writeInt(detachment.getEnhancementPoints(i));
+                }
+            }
+        }
+    }
+
+    private MfmCatalog readCatalog(ByteBuffer buffer, String contentHash) {
+        String gameSystem = readString(buffer);
+        String version = readString(buffer);
+        String date = readString(buffer);
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buffer);
+        }
+
+        int factionCount = buffer.getInt();
+        List<CatalogFaction> factions = new ArrayList<>(factionCount);
+        for (int f = 0; f < factionCount; f++) {
+            String name = lookup(strings, buffer.getInt());
+            String supergroup = lookup(strings, buffer.getInt());
+            String allyTo = lookup(strings, buffer.getInt());
+
+            int unitCount = buffer.getInt();
+            List<CatalogUnit> units = new ArrayList<>(unitCount);
+            for (int u = 0; u < unitCount; u++) {
+                String unitName = lookup(strings, buffer.getInt());
+                String unitType = lookup(strings, buffer.getInt());
+                int variantCount = buffer.getInt();
+                int[] modelCounts = new int[variantCount];
+                int[] points = new int[variantCount];
+                for (int v = 0; v < variantCount; v++) {
+                    modelCounts[v] = buffer.getInt();
+                    points[v] = buffer.getInt();
+                }
+                units.add(new CatalogUnit(unitName, unitType, modelCounts, points));
+            }
+
+            int detachmentCount = buffer.getInt();
+            List<CatalogDetachment> detachments = new ArrayList<>(detachmentCount);
+            for (int d = 0; d < detachmentCount; d++) {
+                String detachmentName = lookup(strings, buffer.getInt());
+                int enhancementCount = buffer.getInt();
+                String[] enhancementNames = new String[enhancementCount];
+                int[] enhancementPoints = new int[enhancementCount];
+                for (int e = 0; e < enhancementCount; e++) {
+                    enhancementNames[e] = lookup(strings, buffer.getInt());
+                    enhancementPoints[e] = buffer.getInt();
+                }
+                detachments.add(new CatalogDetachment(detachmentName, enhancementNames, enhancementPoints));
+            }
+
+            factions.add(new CatalogFaction(name, supergroup, allyTo, units, detachments));
+        }
+
+        return new MfmCatalog(gameSystem, version, date.isEmpty() ? null : date, contentHash, factions);
+    }
+
+    private static void intern(Map<String, Integer> stringIndex, String value) {
+        if (value != null) {
+            stringIndex.putIfAbsent(value, stringIndex.size());
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> stringIndex, String value) {
+        return value != null ? stringIndex.get(value) : NO_STRING;
+    }
+
+    private static String lookup(String[] strings, int index) {
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -3,12 +3,15 @@ package com.warplay.service;
 import com.warplay.entity.*;
 import com.warplay.repository.*;
 import com.warplay.dto.*;
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -36,11 +39,20 @@ public class MfmDataService {
     @Autowired
     private MfmEnhancementRepository mfmEnhancementRepository;
     
+    @Autowired
+    private MfmCatalogService mfmCatalogService;
+    
+    @Autowired
+    private MfmDatasheetService mfmDatasheetService;
+    
     // Version operations
     public List<MfmVersionResponse> getAllVersions() {
         logger.debug("Getting all MFM versions");
         List<MfmVersion> versions = mfmVersionRepository.findAllByOrderByVersionAsc();
-        return versions.stream().map(MfmVersionResponse::new).collect(Collectors.toList());
+        return versions.stream()
+            .filter(version -> !MfmBulkStoreService.isInternalVersion(version.getVersion()))
+            .map(MfmVersionResponse::new)
+            .collect(Collectors.toList());
     }
     
     public Optional<MfmVersionResponse> getLatestVersion() {
@@ -58,6 +70,13 @@ public class MfmDataService {
     public List<MfmFactionResponse> getFactionsByVersion(String version) {
         logger.debug("Getting factions for version: {}", version);
         List<MfmFaction> factions = mfmFactionRepository.findByMfmVersionVersion(version);
+        if (factions.isEmpty()) {
+            return findArchivedCatalog(version)
+                .map(catalog -> catalog.getFactions().stream()
+                    .map(faction -> new MfmFactionResponse(faction, version))
+                    .collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+        }
         return factions.stream().map(MfmFactionResponse::new).collect(Collectors.toList());
     }
     
@@ -72,8 +91,12 @@ public class MfmDataService {
     @Transactional(readOnly = true)
     public Optional<MfmFactionResponse> getFactionByNameAndVersion(String factionName, String version) {
         logger.debug("Getting faction: {} for version: {}", factionName, version);
-        return mfmFactionRepository.findByNameAndMfmVersionVersion(factionName, version)
+        Optional<MfmFactionResponse> faction = mfmFactionRepository.findByNameAndMfmVersionVersion(factionName, version)
             .map(MfmFactionResponse::new);
+        if (faction.isEmpty()) {
+            return findArchivedFaction(version, factionName).map(archived -> new MfmFactionResponse(archived, version));
+        }
+        return faction;
     }
     
     @Transactional(readOnly = true)
@@ -88,6 +111,13 @@ public class MfmDataService {
     public List<MfmUnitResponse> getUnitsByFactionAndVersion(String factionName, String version) {
         logger.debug("Getting units for faction: {} and version: {}", factionName, version);
         List<MfmUnit> units = mfmUnitRepository.findByFactionNameAndVersion(factionName, version);
+        if (units.isEmpty()) {
+            return findArchivedFaction(version, factionName)
+                .map(faction -> faction.getUnits().stream()
+                    .map(unit -> new MfmUnitResponse(unit, faction.getName(), version))
+                    .collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+        }
         return units.stream().map(MfmUnitResponse::new).collect(Collectors.toList());
     }
     
@@ -100,8 +130,14 @@ public class MfmDataService {
     
     public Optional<MfmUnitResponse> getUnitByNameAndFactionAndVersion(String unitName, String factionName, String version) {
         logger.debug("Getting unit: {} for faction: {} and version: {}", unitName, factionName, version);
-        return mfmUnitRepository.findByNameAndFactionAndVersion(unitName, factionName, version)
+        Optional<MfmUnitResponse> unit = mfmUnitRepository.findByNameAndFactionAndVersion(unitName, factionName, version)
             .map(MfmUnitResponse::new);
+        if (unit.isEmpty()) {
+            return findArchivedFaction(version, factionName)
+                .flatMap(faction -> Optional.ofNullable(faction.getUnit(unitName))
+                    .map(archived -> new MfmUnitResponse(archived, faction.getName(), version)));
+        }
+        return unit;
     }
     
     public Optional<MfmUnitResponse> getUnitByNameAndFactionInLatestVersion(String unitName, String factionName) {
@@ -113,22 +149,57 @@ public class MfmDataService {
     // Unit variant operations
     public List<Integer> getModelCountsForUnit(String unitName, String factionName, String version) {
         logger.debug("Getting model counts for unit: {} in faction: {} and version: {}", unitName, factionName, version);
-        return mfmUnitVariantRepository.findModelCountsByUnitNameAndFactionAndVersion(unitName, factionName, version);
+        Optional<MfmCatalogService.CatalogUnit> cached = mfmCatalogService.findUnit(version, factionName, unitName);
+        if (cached.isPresent()) {
+            return cached.get().getSortedModelCounts();
+        }
+        // Not under this name in the catalog: look the unit up by datasheet key, which also finds renamed units
+        Long datasheetId = mfmDatasheetService.lookup(factionName, unitName);
+        if (datasheetId == null) {
+            return Collections.emptyList();
+        }
+        return mfmUnitVariantRepository.findModelCountsByDatasheetIdAndVersion(datasheetId, version);
     }
     
     public List<Integer> getModelCountsForUnitInLatestVersion(String unitName, String factionName) {
         logger.debug("Getting model counts for unit: {} in faction: {} in latest version", unitName, factionName);
-        return mfmUnitVariantRepository.findModelCountsByUnitNameAndFactionInLatestVersion(unitName, factionName);
+        Optional<MfmCatalogService.CatalogUnit> cached = mfmCatalogService.findUnitInLatestVersion(factionName, unitName);
+        if (cached.isPresent()) {
+            return cached.get().getSortedModelCounts();
+        }
+        Long datasheetId = mfmDatasheetService.lookup(factionName, unitName);
+        if (datasheetId == null) {
+            return Collections.emptyList();
+        }
+        return mfmUnitVariantRepository.findModelCountsByDatasheetIdInLatestVersion(datasheetId);
     }
     
     public Optional<Integer> getPointsForUnitVariant(String unitName, String factionName, String version, Integer modelCount) {
         logger.debug("Getting points for unit: {} in faction: {} and version: {} with model count: {}", unitName, factionName, version, modelCount);
-        return mfmUnitVariantRepository.findPointsByUnitNameAndFactionAndVersionAndModelCount(unitName, factionName, version, modelCount);
+        Optional<MfmCatalogService.CatalogUnit> cached = mfmCatalogService.findUnit(version, factionName, unitName);
+        if (cached.isPresent() && modelCount != null) {
+            return cached.get().getPointsForModelCount(modelCount);
+        }
+        Long datasheetId = mfmDatasheetService.lookup(factionName, unitName);
+        if (datasheetId == null) {
+            return Optional.empty();
+        }
+        return mfmUnitVariantRepository.findPointsByDatasheetIdAndVersionAndModelCount(datasheetId, version, modelCount)
+            .stream().findFirst();
     }
     
     public Optional<Integer> getPointsForUnitVariantInLatestVersion(String unitName, String factionName, Integer modelCount) {
         logger.debug("Getting points for unit: {} in faction: {} in latest version with model count: {}", unitName, factionName, modelCount);
-        return mfmUnitVariantRepository.findPointsByUnitNameAndFactionInLatestVersionAndModelCount(unitName, factionName, modelCount);
+        Optional<MfmCatalogService.CatalogUnit> cached = mfmCatalogService.findUnitInLatestVersion(factionName, unitName);
+        if (cached.isPresent() && modelCount != null) {
+            return cached.get().getPointsForModelCount(modelCount);
+        }
+        Long datasheetId = mfmDatasheetService.lookup(factionName, unitName);
+        if (datasheetId == null) {
+            return Optional.empty();
+        }
+        return mfmUnitVariantRepository.findPointsByDatasheetIdInLatestVersionAndModelCount(datasheetId, modelCount)
+            .stream().findFirst();
     }
     
     // Detachment operations
@@ -136,6 +207,13 @@ public class MfmDataService {
     public List<MfmDetachmentResponse> getDetachmentsByFactionAndVersion(String factionName, String version) {
         logger.debug("Getting detachments for faction: {} and version: {}", factionName, version);
         List<MfmDetachment> detachments = mfmDetachmentRepository.findByFactionNameAndVersion(factionName, version);
+        if (detachments.isEmpty()) {
+            return findArchivedFaction(version, factionName)
+                .map(faction -> faction.getDetachments().stream()
+                    .map(detachment -> new MfmDetachmentResponse(detachment, faction.getName(), version))
+                    .collect(Collectors.toList()))
+                .orElse(Collections.emptyList());
+        }
         return detachments.stream().map(MfmDetachmentResponse::new).collect(Collectors.toList());
     }
     
@@ -148,8 +226,14 @@ public class MfmDataService {
     
     public Optional<MfmDetachmentResponse> getDetachmentByNameAndFactionAndVersion(String detachmentName, String factionName, String version) {
         logger.debug("Getting detachment: {} for faction: {} and version: {}", detachmentName, factionName, version);
-        return mfmDetachmentRepository.findByNameAndFactionAndVersion(detachmentName, factionName, version)
+        Optional<MfmDetachmentResponse> detachment = mfmDetachmentRepository.findByNameAndFactionAndVersion(detachmentName, factionName, version)
             .map(MfmDetachmentResponse::new);
+        if (detachment.isEmpty()) {
+            return findArchivedFaction(version, factionName)
+                .flatMap(faction -> Optional.ofNullable(faction.getDetachment(detachmentName))
+                    .map(archived -> new MfmDetachmentResponse(archived, faction.getName(), version)));
+        }
+        return detachment;
     }
     
     public Optional<MfmDetachmentResponse> getDetachmentByNameAndFactionInLatestVersion(String detachmentName, String factionName) {
@@ -163,6 +247,12 @@ public class MfmDataService {
     public List<MfmEnhancementResponse> getEnhancementsByDetachmentAndFactionAndVersion(String detachmentName, String factionName, String version) {
         logger.debug("Getting enhancements for detachment: {} in faction: {} and version: {}", detachmentName, factionName, version);
         List<MfmEnhancement> enhancements = mfmEnhancementRepository.findByDetachmentNameAndFactionAndVersion(detachmentName, factionName, version);
+        if (enhancements.isEmpty()) {
+            return findArchivedFaction(version, factionName)
+                .flatMap(faction -> Optional.ofNullable(faction.getDetachment(detachmentName))
+                    .map(detachment -> new MfmDetachmentResponse(detachment, faction.getName(), version).getEnhancements()))
+                .orElse(Collections.emptyList());
+        }
         return enhancements.stream().map(MfmEnhancementResponse::new).collect(Collectors.toList());
     }
     
@@ -175,11 +265,33 @@ public class MfmDataService {
     
     public Optional<Integer> getPointsForEnhancement(String enhancementName, String detachmentName, String factionName, String version) {
         logger.debug("Getting points for enhancement: {} in detachment: {} in faction: {} and version: {}", enhancementName, detachmentName, factionName, version);
+        Optional<MfmCatalogService.CatalogDetachment> cached = mfmCatalogService.findDetachment(version, factionName, detachmentName);
+        if (cached.isPresent()) {
+            return cached.get().getPointsForEnhancement(enhancementName);
+        }
         return mfmEnhancementRepository.findPointsByNameAndDetachmentAndFactionAndVersion(enhancementName, detachmentName, factionName, version);
     }
     
     public Optional<Integer> getPointsForEnhancementInLatestVersion(String enhancementName, String detachmentName, String factionName) {
         logger.debug("Getting points for enhancement: {} in detachment: {} in faction: {} in latest version", enhancementName, detachmentName, factionName);
+        Optional<MfmCatalogService.CatalogDetachment> cached = mfmCatalogService.findDetachmentInLatestVersion(factionName, detachmentName);
+        if (cached.isPresent()) {
+            return cached.get().getPointsForEnhancement(enhancementName);
+        }
         return mfmEnhancementRepository.findPointsByNameAndDetachmentAndFactionInLatestVersion(enhancementName, detachmentName, factionName);
     }
+    
+    /**
+     * Catalog of an archived version; its rows are no longer in the MFM tables, so reads of it that find
+     * nothing there are answered from the catalog (loaded from the cold archive on first use)
+     */
+    private Optional<MfmCatalog> findArchivedCatalog(String version) {
+        return mfmVersionRepository.findByVersion(version)
+            .filter(mfmVersion -> Boolean.TRUE.equals(mfmVersion.getIsArchived()))
+            .flatMap(mfmVersion -> mfmCatalogService.getCatalog(version));
+    }
+    
+    private Optional<CatalogFaction> findArchivedFaction(String version, String factionName) {
+        return findArchivedCatalog(version).map(catalog -> catalog.getFaction(factionName));
+    }
 }
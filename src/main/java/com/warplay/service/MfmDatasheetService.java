@@ -0,0 +1,384 @@
+package com.warplay.service;
+
+import com.warplay.entity.Force;
+import com.warplay.entity.MfmDatasheet;
+import com.warplay.entity.MfmDatasheetAlias;
+import com.warplay.entity.Unit;
+import com.warplay.repository.ForceRepository;
+import com.warplay.repository.MfmDatasheetAliasRepository;
+import com.warplay.repository.MfmDatasheetRepository;
+import com.warplay.repository.MfmUnitRepository;
+import com.warplay.repository.UnitRepository;
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.CatalogUnit;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves free-text datasheet names to stable datasheet keys that survive MFM versions and renames.
+ *
+ * Every datasheet and alias is held in an in-memory index keyed by normalized faction and name.
+ * Every imported MFM unit gets a key (mfm_units.datasheet_id), and points and model counts are read
+ * through it. A name that is not indexed yet is looked up in the loaded MFM catalogs; custom datasheets
+ * resolve to null. Keys are created in the caller's transaction and
+ * only enter the index once it commits.
+ */
+@Service
+public class MfmDatasheetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmDatasheetService.class);
+
+    // Concurrent registrations of the same datasheet meet on the unique key; the loser reads the winner's row
+    private static final String INSERT_DATASHEET_SQL = "INSERT INTO mfm_datasheets "
+        + "(game_system, faction_name, name, faction_key, name_key, created_timestamp) VALUES (?, ?, ?, ?, ?, ?) "
+        + "ON CONFLICT (faction_key, name_key) DO NOTHING RETURNING id";
+
+    // Names found in no catalog are remembered up to this many, then forgotten all at once
+    private static final int MAX_MISSES = 10_000;
+
+    @Autowired
+    private MfmDatasheetRepository mfmDatasheetRepository;
+
+    @Autowired
+    private MfmDatasheetAliasRepository mfmDatasheetAliasRepository;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Autowired
+    private MfmUnitRepository mfmUnitRepository;
+
+    @Autowired
+    private ForceRepository forceRepository;
+
+    @Autowired
+    private MfmCatalogService mfmCatalogService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Normalized faction and name (see key) to datasheet id, aliases included; loaded on first use
+    private volatile Map<String, Long> index;
+
+    // Catalog units by normalized name for the currently loaded catalogs; rebuilt when they change
+    private volatile CatalogNames catalogNames;
+
+    /**
+     * Trimmed, upper-case name with single spaces, so spelling differences in case and spacing match
+     */
+    public static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Datasheet key for a datasheet name in a faction, or null for a custom datasheet
+     */
+    public Long resolve(String faction, String dataSheet) {
+        if (dataSheet == null || dataSheet.isBlank()) {
+            return null;
+        }
+
+        String factionKey = normalize(faction);
+        String nameKey = normalize(dataSheet);
+        Map<String, Long> currentIndex = index();
+        Long datasheetId = currentIndex.get(key(factionKey, nameKey));
+        if (datasheetId != null) {
+            return datasheetId;
+        }
+
+        Optional<CatalogMatch> match = findInCatalogs(factionKey, nameKey);
+        if (match.isEmpty()) {
+            return null;
+        }
+        datasheetId = register(match.get());
+        // The force faction may differ from the catalog faction; remember the lookup under both
+        remember(key(factionKey, nameKey), datasheetId);
+        return datasheetId;
+    }
+
+    /**
+     * Datasheet key for a datasheet name in a faction, or null when no datasheet is registered for it.
+     * Unlike resolve it never registers a datasheet, so reads do not write.
+     */
+    public Long lookup(String faction, String dataSheet) {
+        if (dataSheet == null || dataSheet.isBlank()) {
+            return null;
+        }
+
+        String factionKey = normalize(faction);
+        String nameKey = normalize(dataSheet);
+        Map<String, Long> currentIndex = index();
+        Long datasheetId = currentIndex.get(key(factionKey, nameKey));
+        if (datasheetId != null) {
+            return datasheetId;
+        }
+
+        // The force faction may differ from the catalog faction; look the unit up under the catalog one
+        return findInCatalogs(factionKey, nameKey)
+            .map(match -> currentIndex.get(key(normalize(match.factionName), normalize(match.unitName))))
+            .orElse(null);
+    }
+
+    /**
+     * Find or create the datasheet key of an imported unit, in the caller's transaction
+     */
+    public Long register(String gameSystem, String factionName, String unitName) {
+        return register(new CatalogMatch(gameSystem != null ? gameSystem : MfmRawTextParserService.GAME_SYSTEM,
+            factionName, unitName));
+    }
+
+    /**
+     * Datasheets of a faction, sorted by name
+     */
+    public List<MfmDatasheet> getDatasheets(String faction) {
+        return mfmDatasheetRepository.findByFactionKeyOrderByNameAsc(normalize(faction));
+    }
+
+    public List<MfmDatasheetAlias> getAliases(Long datasheetId) {
+        return mfmDatasheetAliasRepository.findByDatasheetId(datasheetId);
+    }
+
+    /**
+     * Aliases of several datasheets in one query, by datasheet id; datasheets without aliases are left out
+     */
+    public Map<Long, List<MfmDatasheetAlias>> getAliases(Collection<Long> datasheetIds) {
+        Map<Long, List<MfmDatasheetAlias>> aliases = new HashMap<>();
+        if (datasheetIds.isEmpty()) {
+            return aliases;
+        }
+        for (MfmDatasheetAlias alias : mfmDatasheetAliasRepository.findByDatasheetIdIn(datasheetIds)) {
+            aliases.computeIfAbsent(alias.getDatasheetId(), id -> new ArrayList<>()).add(alias);
+        }
+        return aliases;
+    }
+
+    /**
+     * Add another name for a datasheet, e.g. its name after a rename. If the name already has a datasheet
+     * of its own, that datasheet is merged into this one: its units and aliases move over and it is removed.
+     */
+    public MfmDatasheetAlias addAlias(Long datasheetId, String aliasName) {
+        if (aliasName == null || aliasName.isBlank()) {
+            throw new IllegalArgumentException("Alias name is required");
+        }
+
+        MfmDatasheetAlias alias = transactionTemplate.execute(status -> {
+            MfmDatasheet datasheet = mfmDatasheetRepository.findById(datasheetId)
+                .orElseThrow(() -> new IllegalArgumentException("Datasheet not found: " + datasheetId));
+            String nameKey = normalize(aliasName);
+            if (nameKey.equals(datasheet.getNameKey())) {
+                throw new IllegalArgumentException("Alias is the datasheet's own name");
+            }
+
+            Optional<MfmDatasheet> duplicate = mfmDatasheetRepository.findByFactionKeyAndNameKey(datasheet.getFactionKey(), nameKey);
+            if (duplicate.isPresent()) {
+                Long duplicateId = duplicate.get().getId();
+                int units = unitRepository.reassignDatasheet(duplicateId, datasheetId);
+                mfmUnitRepository.reassignDatasheet(duplicateId, datasheetId);
+                for (MfmDatasheetAlias movedAlias : mfmDatasheetAliasRepository.findByDatasheetId(duplicateId)) {
+                    movedAlias.setDatasheetId(datasheetId);
+                    mfmDatasheetAliasRepository.save(movedAlias);
+                }
+                mfmDatasheetRepository.delete(duplicate.get());
+                logger.info("Merged datasheet {} into {} ({} units moved)", duplicateId, datasheetId, units);
+            }
+
+            MfmDatasheetAlias existing = mfmDatasheetAliasRepository
+                .findByFactionKeyAndNameKey(datasheet.getFactionKey(), nameKey)
+                .orElseGet(() -> new MfmDatasheetAlias(datasheetId, aliasName.trim(), datasheet.getFactionKey(), nameKey));
+            existing.setDatasheetId(datasheetId);
+            return mfmDatasheetAliasRepository.save(existing);
+        });
+
+        // Rebuild on next use, so merged datasheets and moved aliases are picked up
+        index = null;
+        logger.info("Added alias '{}' for datasheet {}", aliasName, datasheetId);
+        return alias;
+    }
+
+    /**
+     * Resolve the datasheet key of units stored before keys existed or while their datasheet was unknown.
+     * Returns the number of units that got a key.
+     */
+    public int resolveUnresolvedUnits() {
+        Integer resolved = transactionTemplate.execute(status -> {
+            Map<Long, String> factionByForce = new HashMap<>();
+            int count = 0;
+            for (Unit unit : unitRepository.findUnresolvedDatasheets()) {
+                String faction = factionByForce.computeIfAbsent(unit.getForceId(),
+                    forceId -> forceRepository.findById(forceId).map(Force::getFaction).orElse(""));
+                Long datasheetId = resolve(faction, unit.getDataSheet());
+                if (datasheetId != null) {
+                    unit.setDatasheetId(datasheetId);
+                    unitRepository.save(unit);
+                    count++;
+                }
+            }
+            return count;
+        });
+        logger.info("Resolved datasheet keys of {} units", resolved);
+        return resolved != null ? resolved : 0;
+    }
+
+    private Map<String, Long> index() {
+        Map<String, Long> current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = new ConcurrentHashMap<>();
+                    for (MfmDatasheet datasheet : mfmDatasheetRepository.findAll()) {
+                        current.put(key(datasheet.getFactionKey(), datasheet.getNameKey()), datasheet.getId());
+                    }
+                    for (MfmDatasheetAlias alias : mfmDatasheetAliasRepository.findAll()) {
+                        current.put(key(alias.getFactionKey(), alias.getNameKey()), alias.getDatasheetId());
+                    }
+                    index = current;
+                    logger.info("Loaded datasheet index: {} names", current.size());
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Find or create the datasheet for a catalog unit, in the caller's transaction
+     */
+    private Long register(CatalogMatch match) {
+        String factionKey = normalize(match.factionName);
+        String nameKey = normalize(match.unitName);
+        Long datasheetId = index().get(key(factionKey, nameKey));
+        if (datasheetId != null) {
+            return datasheetId;
+        }
+
+        List<Long> inserted = jdbcTemplate.queryForList(INSERT_DATASHEET_SQL, Long.class, match.gameSystem,
+            match.factionName, match.unitName, factionKey, nameKey, SqlTimestamps.now());
+        if (inserted.isEmpty()) {
+            datasheetId = jdbcTemplate.queryForObject(
+                "SELECT id FROM mfm_datasheets WHERE faction_key = ? AND name_key = ?", Long.class, factionKey, nameKey);
+        } else {
+            datasheetId = inserted.get(0);
+            logger.info("Registered datasheet {} for {} / {}", datasheetId, match.factionName, match.unitName);
+        }
+
+        remember(key(factionKey, nameKey), datasheetId);
+        return datasheetId;
+    }
+
+    /**
+     * Add a name to the index once the current transaction commits, so a rolled back key is never handed out
+     */
+    private void remember(String key, Long datasheetId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index().put(key, datasheetId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index().put(key, datasheetId);
+            }
+        });
+    }
+
+    /**
+     * Find a unit in the loaded MFM catalogs, newest version first. A unit that is not in the given faction
+     * is accepted from another faction when exactly one faction has it (forces name their faction freely).
+     * Names that match nothing (custom datasheets) are remembered until the catalogs change.
+     */
+    private Optional<CatalogMatch> findInCatalogs(String factionKey, String nameKey) {
+        CatalogNames names = catalogNames();
+        String lookupKey = key(factionKey, nameKey);
+        if (names.misses.contains(lookupKey)) {
+            return Optional.empty();
+        }
+
+        CatalogMatch otherFaction = null;
+        boolean ambiguous = false;
+        for (CatalogMatch match : names.byName.getOrDefault(nameKey, Collections.emptyList())) {
+            if (match.factionKey.equals(factionKey)) {
+                return Optional.of(match);
+            }
+            if (otherFaction == null) {
+                otherFaction = match;
+            } else if (!otherFaction.factionName.equals(match.factionName)) {
+                ambiguous = true;
+            }
+        }
+        if (ambiguous || otherFaction == null) {
+            if (names.misses.size() >= MAX_MISSES) {
+                names.misses.clear();
+            }
+            names.misses.add(lookupKey);
+            return Optional.empty();
+        }
+        return Optional.of(otherFaction);
+    }
+
+    private CatalogNames catalogNames() {
+        List<MfmCatalog> catalogs = mfmCatalogService.getCatalogs(MfmRawTextParserService.GAME_SYSTEM);
+        CatalogNames current = catalogNames;
+        if (current == null || !current.catalogs.equals(catalogs)) {
+            current = new CatalogNames(catalogs);
+            catalogNames = current;
+            logger.debug("Indexed {} datasheet names of {} catalogs", current.byName.size(), catalogs.size());
+        }
+        return current;
+    }
+
+    private static String key(String factionKey, String nameKey) {
+        return factionKey + '\u0000' + nameKey;
+    }
+
+    private static class CatalogMatch {
+        private final String gameSystem;
+        private final String factionName;
+        private final String factionKey;
+        private final String unitName;
+
+        CatalogMatch(String gameSystem, String factionName, String unitName) {
+            this.gameSystem = gameSystem;
+            this.factionName = factionName;
+            this.factionKey = normalize(factionName);
+            this.unitName = unitName;
+        }
+    }
+
+    /**
+     * Units of a set of catalogs by normalized name, newest version first, and the names none of them has
+     */
+    private static class CatalogNames {
+        private final List<MfmCatalog> catalogs;
+        private final Map<String, List<CatalogMatch>> byName = new HashMap<>();
+        private final Set<String> misses = ConcurrentHashMap.newKeySet();
+
+        CatalogNames(List<MfmCatalog> catalogs) {
+            this.catalogs = catalogs;
+            for (int i = catalogs.size() - 1; i >= 0; i--) {
+                MfmCatalog catalog = catalogs.get(i);
+                for (CatalogFaction faction : catalog.getFactions()) {
+                    for (CatalogUnit unit : faction.getUnits()) {
+                        byName.computeIfAbsent(normalize(unit.getName()), name -> new ArrayList<>())
+                            .add(new CatalogMatch(catalog.getGameSystem(), faction.getName(), unit.getName()));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.warplay.service;
+
+/**
+ * A detachment of a faction, listed once per points list
+ */
+public class MfmDetachmentData {
+    private final String faction;
+    private final String name;
+    
+    public MfmDetachmentData(String faction, String name) {
+        this.faction = faction;
+        this.name = name;
+    }
+    
+    // Getters
+    public String getFaction() { return faction; }
+    public String getName() { return name; }
+}
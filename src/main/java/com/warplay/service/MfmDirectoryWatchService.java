@@ -0,0 +1,159 @@
+package com.warplay.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a directory for new or changed MFM text or PDF files and queues them as background imports,
+ * so new manuals can be loaded without a restart. Disabled unless mfm.watch.enabled is set.
+ */
+@Service
+public class MfmDirectoryWatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmDirectoryWatchService.class);
+
+    @Value("${mfm.watch.enabled:false}")
+    private boolean watchEnabled;
+
+    @Value("${mfm.watch.dir:mfm-inbox}")
+    private String watchDir;
+
+    @Value("${mfm.watch.debounce-ms:2000}")
+    private long debounceMillis;
+
+    @Autowired
+    private MfmImportJobService mfmImportJobService;
+
+    @Autowired
+    private MfmCatalogService mfmCatalogService;
+
+    // Files with pending changes and the time of their last change event
+    private final Map<Path, Long> pendingFiles = new HashMap<>();
+
+    private volatile WatchService watchService;
+
+    private Thread watchThread;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatching() {
+        if (!watchEnabled) {
+            return;
+        }
+
+        try {
+            Path directory = Paths.get(watchDir).toAbsolutePath();
+            Files.createDirectories(directory);
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            watchThread = new Thread(() -> watchLoop(directory), "mfm-directory-watch");
+            watchThread.setDaemon(true);
+            watchThread.start();
+
+            logger.info("Watching {} for MFM files (debounce {} ms)", directory, debounceMillis);
+        } catch (IOException e) {
+            logger.error("Could not watch MFM directory {}", watchDir, e);
+        }
+    }
+
+    @PreDestroy
+    public void stopWatching() {
+        WatchService service = watchService;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.warn("Error closing MFM directory watcher: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void watchLoop(Path directory) {
+        try {
+            while (true) {
+                // Wake up at least once per debounce interval to flush settled files
+                WatchKey key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            continue;
+                        }
+                        Path file = directory.resolve((Path) event.context());
+                        String fileName = file.getFileName().toString().toLowerCase();
+                        if (fileName.endsWith(".txt") || MfmPdfIngestionService.isPdf(fileName)) {
+                            pendingFiles.put(file, System.currentTimeMillis());
+                        }
+                    }
+                    if (!key.reset()) {
+                        logger.warn("MFM watch directory {} is no longer accessible", directory);
+                        return;
+                    }
+                }
+                submitSettledFiles();
+            }
+        } catch (ClosedWatchServiceException e) {
+            logger.info("Stopped watching MFM directory {}", directory);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submit files that have not changed for a full debounce interval, so a file is imported once
+     * after it has been completely written rather than on every write event
+     */
+    private void submitSettledFiles() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pendingFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() < debounceMillis) {
+                continue;
+            }
+
+            Path file = entry.getKey();
+            try {
+                if (!Files.isRegularFile(file)) {
+                    iterator.remove();
+                    continue;
+                }
+
+                String contentHash = MfmRawTextParserService.contentHash(file);
+                if (mfmCatalogService.findByContentHash(contentHash).isPresent()) {
+                    logger.info("MFM file {} is unchanged from a loaded catalog, skipping", file);
+                    iterator.remove();
+                    continue;
+                }
+
+                MfmImportJobService.MfmImportJob job = mfmImportJobService.submitFile(file.toString(), null, true);
+                logger.info("Queued hot reload of MFM file {} as job {}", file, job.getId());
+                iterator.remove();
+            } catch (RejectedExecutionException e) {
+                // Import queue is full, retry on a later pass
+                logger.warn("MFM import queue full, will retry {}", file);
+                entry.setValue(now);
+            } catch (IOException e) {
+                logger.warn("Could not read MFM file {}: {}", file, e.getMessage());
+                iterator.remove();
+            } catch (RuntimeException e) {
+                // Keep the watch thread alive; the file is picked up again on its next change
+                logger.error("Could not queue hot reload of MFM file {}", file, e);
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.warplay.service;
+
+/**
+ * One detachment enhancement read from a points list
+ */
+public class MfmEnhancementData {
+    private final String faction;
+    private final String detachment;
+    private final String name;
+    private final int points;
+    private final int lineNumber;
+    
+    public MfmEnhancementData(String faction, String detachment, String name, int points, int lineNumber) {
+        this.faction = faction;
+        this.detachment = detachment;
+        this.name = name;
+        this.points = points;
+        this.lineNumber = lineNumber;
+    }
+    
+    // Getters
+    public String getFaction() { return faction; }
+    public String getDetachment() { return detachment; }
+    public String getName() { return name; }
+    public int getPoints() { return points; }
+    public int getLineNumber() { return lineNumber; }
+}
@@ -28,19 +28,10 @@ public class MfmFeedbackService {
     private MfmVersionRepository mfmVersionRepository;
     
     @Autowired
-    private MfmFactionRepository mfmFactionRepository;
-    
-    @Autowired
-    private MfmUnitRepository mfmUnitRepository;
-    
-    @Autowired
-    private MfmDetachmentRepository mfmDetachmentRepository;
-    
-    @Autowired
-    private MfmEnhancementRepository mfmEnhancementRepository;
+    private MfmValidationService mfmValidationService;
     
     @Autowired
-    private MfmValidationService mfmValidationService;
+    private MfmStatsService mfmStatsService;
     
     /**
      * Generate comprehensive feedback report for parser debugging
@@ -142,10 +133,7 @@ public class MfmFeedbackService {
                     report.append("DIFFERENCES FOUND:\n");
                     report.append("------------------\n");
                     for (MfmValidationService.MfmValidationDifference diff : result.getDifferences()) {
-                        report.append("Line: ").append(diff.getLine()).append("\n");
-                        report.append("  Original Count: ").append(diff.getOriginalCount()).append("\n");
-                        report.append("  Regenerated Count: ").append(diff.getRegeneratedCount()).append("\n");
-                        report.append("  Issue: ").append(diff.getIssue()).append("\n\n");
+                        MfmValidationService.appendDifference(report, diff);
                     }
                 }
             } else {
@@ -218,25 +206,20 @@ public class MfmFeedbackService {
                 summary.append("  Created: ").append(mfmVersion.get().getCreatedTimestamp()).append("\n\n");
                 
                 // Get faction statistics
-                List<MfmFaction> factions = mfmFactionRepository.findByMfmVersion(mfmVersion.get());
+                MfmStatsService.MfmVersionStats stats = mfmStatsService.getStats(version);
                 summary.append("FACTION STATISTICS:\n");
                 summary.append("==================\n");
-                summary.append(String.format("Total Factions: %d\n\n", factions.size()));
+                summary.append(String.format("Total Factions: %d\n\n", stats.getFactions().size()));
                 
-                for (MfmFaction faction : factions) {
-                    // Count units for this faction
-                    long unitCount = mfmUnitRepository.countByFaction(faction);
-                    
-                    // Count detachments for this faction
-                    long detachmentCount = mfmDetachmentRepository.countByFaction(faction);
-                    
-                    // Count enhancements for this faction
-                    long enhancementCount = mfmEnhancementRepository.countByDetachmentFaction(faction);
-                    
+                for (MfmStatsService.FactionStats faction : stats.getFactions()) {
                     summary.append(String.format("Faction: %s\n", faction.getName()));
-                    summary.append(String.format("  Units: %d\n", unitCount));
-                    summary.append(String.format("  Detachments: %d\n", detachmentCount));
-                    summary.append(String.format("  Enhancements: %d\n", enhancementCount));
+                    summary.append(String.format("  Units: %d (%d variants)\n", faction.getUnits(), faction.getVariants()));
+                    summary.append(String.format("  Detachments: %d\n", faction.getDetachments()));
+                    summary.append(String.format("  Enhancements: %d\n", faction.getEnhancements()));
+                    if (faction.getMinPoints() != null) {
+                        summary.append(String.format("  Points: %d-%d (avg %.1f)\n",
+                                                     faction.getMinPoints(), faction.getMaxPoints(), faction.getAvgPoints()));
+                    }
                     summary.append(String.format("  Supergroup: %s\n", faction.getSupergroup()));
                     if (faction.getAllyTo() != null) {
                         summary.append(String.format("  Ally To: %s\n", faction.getAllyTo()));
@@ -0,0 +1,267 @@
+package com.warplay.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs MFM imports as background jobs on a bounded executor and tracks their progress,
+ * so HTTP requests only submit work and poll for the outcome.
+ */
+@Service
+public class MfmImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmImportJobService.class);
+
+    private static final int MAX_ERRORS_PER_JOB = 100;
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    @Autowired
+    private MfmRawTextParserService mfmRawTextParserService;
+
+    @Autowired
+    private MfmPdfIngestionService mfmPdfIngestionService;
+
+    @Autowired
+    private PointsCatalogParserRegistry pointsCatalogParserRegistry;
+
+    @Value("${mfm.import.max-concurrent:1}")
+    private int maxConcurrentImports;
+
+    @Value("${mfm.import.queue-capacity:4}")
+    private int queueCapacity;
+
+    private final Map<String, MfmImportJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrentImports, maxConcurrentImports, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "mfm-import-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        logger.info("MFM import executor started: {} concurrent imports, {} queued", maxConcurrentImports, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue an import of a server-side points list (text or PDF) for a game system (short name, null for
+     * the MFM). With replaceExisting, stored data for the same version is replaced, while the old catalog
+     * keeps serving lookups.
+     */
+    public MfmImportJob submitFile(String filePath, String gameSystem, boolean replaceExisting) {
+        PointsCatalogParser parser = pointsCatalogParserRegistry.getParser(gameSystem);
+        return submit(parser, Paths.get(filePath), filePath, Long.MAX_VALUE, false, replaceExisting);
+    }
+
+    /**
+     * Queue the import of an uploaded points list (text or PDF) for a game system (short name, null for
+     * the MFM); oversized uploads are refused with MfmSizeLimitExceededException before anything is read.
+     * The job runs after the request returns, when the upload is already cleaned up, so the upload is
+     * transferred to a spool file the job owns and deletes. A servlet container that kept the upload on
+     * disk moves its file there instead of copying it.
+     */
+    public MfmImportJob submitUpload(MultipartFile file, String sourceName, String gameSystem, long maxBytes) throws IOException {
+        PointsCatalogParser parser = pointsCatalogParserRegistry.getParser(gameSystem);
+        if (file.getSize() > maxBytes) {
+            throw new MfmRawTextParserService.MfmSizeLimitExceededException(maxBytes);
+        }
+        if (executor.getQueue().remainingCapacity() == 0 && executor.getActiveCount() >= maxConcurrentImports) {
+            throw new RejectedExecutionException("Too many MFM imports in progress");
+        }
+
+        Path spoolFile = Files.createTempFile("mfm-upload-", MfmPdfIngestionService.isPdf(sourceName) ? ".pdf" : ".txt");
+        try {
+            file.transferTo(spoolFile.toFile());
+            return submit(parser, spoolFile, sourceName, maxBytes, true, false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+    }
+
+    public Optional<MfmImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * All tracked jobs, most recently submitted first
+     */
+    public List<MfmImportJob> getJobs() {
+        List<MfmImportJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(MfmImportJob::getSubmittedAt).reversed());
+        return result;
+    }
+
+    private MfmImportJob submit(PointsCatalogParser parser, Path path, String sourceName, long maxBytes,
+                                boolean deleteAfter, boolean replaceExisting) {
+        pruneFinishedJobs();
+
+        MfmImportJob job = new MfmImportJob(UUID.randomUUID().toString(), sourceName, parser.getGameSystemShortName());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> runImport(job, parser, path, maxBytes, deleteAfter, replaceExisting));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+
+        logger.info("Queued {} import job {} for {}", job.getGameSystem(), job.getId(), sourceName);
+        return job;
+    }
+
+    private void runImport(MfmImportJob job, PointsCatalogParser parser, Path path, long maxBytes,
+                           boolean deleteAfter, boolean replaceExisting) {
+        job.startedAt = LocalDateTime.now();
+        try {
+            MfmParseData parseData;
+            if (MfmPdfIngestionService.isPdf(job.getSourceName())) {
+                parseData = mfmPdfIngestionService.parsePdf(path, parser, job);
+            } else {
+                try (InputStream in = Files.newInputStream(path)) {
+                    parseData = mfmRawTextParserService.parseCatalogStream(parser, in, maxBytes, job);
+                }
+            }
+            // A replacement is stored beside the previous data, which (with its catalog) stays until the
+            // replacement is swapped in. It keeps the latest flag, so re-dropping an older manual does not
+            // take the latest version's place
+            MfmRawTextParserService.MfmParseResult result = mfmRawTextParserService.storeAndPublish(
+                parseData, job.getSourceName(), job, replaceExisting);
+            job.result = result;
+            job.phase = MfmImportJob.PHASE_COMPLETED;
+            logger.info("MFM import job {} completed: version {}", job.getId(), result.getVersion());
+        } catch (Exception e) {
+            logger.error("MFM import job {} failed", job.getId(), e);
+            job.error(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            job.phase = MfmImportJob.PHASE_FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            if (deleteAfter) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete spooled MFM upload {}: {}", path, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    /**
+     * State of a single import job. Progress fields are written by the import thread and read by pollers.
+     */
+    public static class MfmImportJob implements MfmImportProgress {
+        public static final String PHASE_QUEUED = "QUEUED";
+        public static final String PHASE_COMPLETED = "COMPLETED";
+        public static final String PHASE_FAILED = "FAILED";
+
+        private final String id;
+        private final String sourceName;
+        private final String gameSystem;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile String phase = PHASE_QUEUED;
+        private volatile int linesParsed;
+        private volatile int rowsWritten;
+        private volatile int errorCount;
+        private volatile MfmRawTextParserService.MfmParseResult result;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+
+        public MfmImportJob(String id, String sourceName, String gameSystem) {
+            this.id = id;
+            this.sourceName = sourceName;
+            this.gameSystem = gameSystem;
+        }
+
+        @Override
+        public void phase(String phase) { this.phase = phase; }
+
+        @Override
+        public void linesParsed(int lines) { this.linesParsed = lines; }
+
+        @Override
+        public void rowsWritten(int rows) { this.rowsWritten = rows; }
+
+        @Override
+        public void error(String message) {
+            errorCount++;
+            if (errors.size() < MAX_ERRORS_PER_JOB) {
+                errors.add(message);
+            }
+        }
+
+        /**
+         * Snapshot of the job state for API responses
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("sourceName", sourceName);
+            map.put("gameSystem", gameSystem);
+            map.put("phase", phase);
+            map.put("linesParsed", linesParsed);
+            map.put("rowsWritten", rowsWritten);
+            map.put("errorCount", errorCount);
+            synchronized (errors) {
+                map.put("errors", new ArrayList<>(errors));
+            }
+            map.put("submittedAt", submittedAt);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+
+            MfmRawTextParserService.MfmParseResult parseResult = result;
+            if (parseResult != null) {
+                map.put("version", parseResult.getVersion());
+                map.put("unitsCount", parseResult.getUnitsCount());
+                map.put("enhancementsCount", parseResult.getEnhancementsCount());
+                map.put("factionsCount", parseResult.getFactionsCount());
+                map.put("detachmentsCount", parseResult.getDetachmentsCount());
+            }
+            return map;
+        }
+
+        // Getters
+        public String getId() { return id; }
+        public String getSourceName() { return sourceName; }
+        public String getGameSystem() { return gameSystem; }
+        public String getPhase() { return phase; }
+        public int getLinesParsed() { return linesParsed; }
+        public int getRowsWritten() { return rowsWritten; }
+        public int getErrorCount() { return errorCount; }
+        public MfmRawTextParserService.MfmParseResult getResult() { return result; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+    }
+}
@@ -0,0 +1,17 @@
+package com.warplay.service;
+
+/**
+ * Receives progress updates while a points list is parsed and stored
+ */
+public interface MfmImportProgress {
+    String PHASE_PARSING = "PARSING";
+    String PHASE_STORING = "STORING";
+    String PHASE_PUBLISHING = "PUBLISHING";
+    
+    MfmImportProgress NONE = new MfmImportProgress() {};
+    
+    default void phase(String phase) {}
+    default void linesParsed(int lines) {}
+    default void rowsWritten(int rows) {}
+    default void error(String message) {}
+}
@@ -0,0 +1,53 @@
+package com.warplay.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a points catalog parser reads from one points list: its version, factions, unit variants,
+ * detachments and enhancements, in source order
+ */
+public class MfmParseData {
+    private String gameSystem = MfmRawTextParserService.GAME_SYSTEM;
+    private String version;
+    private String contentHash;
+    private final Set<String> factions = new HashSet<>();
+    private final List<MfmUnitData> units = new ArrayList<>();
+    private final List<MfmEnhancementData> enhancements = new ArrayList<>();
+    private final List<MfmDetachmentData> detachments = new ArrayList<>();
+    // Detachment names already added, per faction, so each detachment is listed once
+    private final Map<String, Set<String>> detachmentNamesByFaction = new HashMap<>();
+    
+    public void addUnit(MfmUnitData unit) {
+        units.add(unit);
+        factions.add(unit.getFaction());
+        addDetachment(unit.getFaction(), unit.getDetachment());
+    }
+    
+    public void addEnhancement(MfmEnhancementData enhancement) {
+        enhancements.add(enhancement);
+        factions.add(enhancement.getFaction());
+        addDetachment(enhancement.getFaction(), enhancement.getDetachment());
+    }
+    
+    private void addDetachment(String faction, String name) {
+        if (name != null && detachmentNamesByFaction.computeIfAbsent(faction, k -> new HashSet<>()).add(name)) {
+            detachments.add(new MfmDetachmentData(faction, name));
+        }
+    }
+    
+    public String getGameSystem() { return gameSystem; }
+    public void setGameSystem(String gameSystem) { this.gameSystem = gameSystem; }
+    public String getVersion() { return version; }
+    public void setVersion(String version) { this.version = version; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public Set<String> getFactions() { return factions; }
+    public List<MfmUnitData> getUnits() { return units; }
+    public List<MfmEnhancementData> getEnhancements() { return enhancements; }
+    public List<MfmDetachmentData> getDetachments() { return detachments; }
+}
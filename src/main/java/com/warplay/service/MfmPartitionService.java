@@ -0,0 +1,216 @@
+package com.warplay.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps the rows of each MFM version in their own partition of every MFM table, keyed by mfm_version_id,
+ * so replacing or retiring a version detaches and drops its partitions instead of deleting rows across whole tables.
+ *
+ * The tables are partitioned by sql-migrations/partition_mfm_by_version.sql. On a database without the
+ * migration (for example one created by Hibernate) versions are deleted through the mfm_version_id key instead,
+ * and the foreign keys the entity mappings leave out (they cannot express the partitioned ones) are added here.
+ */
+@Service
+public class MfmPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmPartitionService.class);
+
+    // Referenced tables first; partitions are dropped in the reverse order
+    private static final List<String> TABLES = List.of(
+        "mfm_factions", "mfm_units", "mfm_detachments", "mfm_unit_variants", "mfm_enhancements");
+
+    // Foreign keys of the unpartitioned tables: table, constraint, column, referenced table
+    private static final String[][] FOREIGN_KEYS = {
+        {"mfm_units", "fk_mfm_units_faction", "faction_id", "mfm_factions"},
+        {"mfm_detachments", "fk_mfm_detachments_faction", "faction_id", "mfm_factions"},
+        {"mfm_unit_variants", "fk_mfm_unit_variants_unit", "unit_id", "mfm_units"},
+        {"mfm_enhancements", "fk_mfm_enhancements_detachment", "detachment_id", "mfm_detachments"}
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private volatile Boolean partitioned;
+
+    private volatile Boolean concurrentDetach;
+
+    /**
+     * Check the schema on startup, outside any transaction, so the one-off fixes below never run inside an import
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkSchema() {
+        isPartitioned();
+    }
+
+    /**
+     * Whether the MFM tables are partitioned by version. Checked once; on the first check of unpartitioned
+     * tables, rows stored before the version key existed get it filled in, so key-based deletes also find
+     * them, and missing foreign keys are added.
+     */
+    public boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            synchronized (this) {
+                if (partitioned == null) {
+                    partitioned = detectPartitioning();
+                    if (!partitioned) {
+                        backfillVersionKeys();
+                        addForeignKeys();
+                    }
+                }
+                result = partitioned;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create the partitions of a version before its rows are written. Each partition starts as an empty table
+     * that is then attached: attaching takes a lock that lets reads and writes of the other versions go on,
+     * where creating a partition in place locks the whole parent table.
+     */
+    public void ensurePartitions(Long mfmVersionId) {
+        if (!isPartitioned()) {
+            return;
+        }
+        for (String table : TABLES) {
+            String partition = partitionName(table, mfmVersionId);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, partition) != null) {
+                    return;
+                }
+                jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + table + " INCLUDING DEFAULTS)");
+                jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + partition
+                    + " FOR VALUES IN (" + mfmVersionId + ")");
+            });
+        }
+    }
+
+    /**
+     * Remove the rows of a version: detach and drop its partitions, or on unpartitioned tables delete them
+     * by their version key.
+     *
+     * A plain detach locks out every reader of the parent table until its transaction ends. Called outside
+     * a transaction on PostgreSQL 14 or later, the partitions are detached CONCURRENTLY instead, which only
+     * waits for the queries already running; callers that can should therefore call this after committing.
+     */
+    public void dropVersionRows(Long mfmVersionId) {
+        if (!isPartitioned()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = TABLES.size() - 1; i >= 0; i--) {
+                    jdbcTemplate.update("DELETE FROM " + TABLES.get(i) + " WHERE mfm_version_id = ?", mfmVersionId);
+                }
+            });
+            return;
+        }
+
+        boolean concurrently = supportsConcurrentDetach() && !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int i = TABLES.size() - 1; i >= 0; i--) {
+            String table = TABLES.get(i);
+            String partition = partitionName(table, mfmVersionId);
+            if (jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, partition) == null) {
+                continue;
+            }
+            // Detaching checks that no other partition still references the rows, then the drop is a file unlink.
+            // A concurrent detach that was interrupted leaves the partition pending, to be finalized.
+            List<Boolean> pending = jdbcTemplate.queryForList("SELECT "
+                + (supportsConcurrentDetach() ? "inhdetachpending" : "false")
+                + " FROM pg_inherits WHERE inhrelid = to_regclass(?)", Boolean.class, partition);
+            if (!pending.isEmpty()) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition
+                    + (pending.get(0) ? " FINALIZE" : concurrently ? " CONCURRENTLY" : ""));
+            }
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+        logger.info("Dropped MFM partitions of version id {}{}", mfmVersionId, concurrently ? ", detached concurrently" : "");
+    }
+
+    static String partitionName(String table, Long mfmVersionId) {
+        return table + "_v" + mfmVersionId;
+    }
+
+    /**
+     * Whether the server can detach partitions concurrently, which PostgreSQL 14 added
+     */
+    private boolean supportsConcurrentDetach() {
+        Boolean result = concurrentDetach;
+        if (result == null) {
+            Integer versionNumber = jdbcTemplate.queryForObject("SELECT current_setting('server_version_num')::int", Integer.class);
+            result = versionNumber != null && versionNumber >= 140000;
+            concurrentDetach = result;
+        }
+        return result;
+    }
+
+    private boolean detectPartitioning() {
+        try {
+            Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid "
+                + "WHERE c.relname IN ('" + String.join("', '", TABLES) + "') AND pg_table_is_visible(c.oid)",
+                Integer.class);
+            if (count != null && count == TABLES.size()) {
+                logger.info("MFM tables are partitioned by version");
+                return true;
+            }
+            if (count != null && count > 0) {
+                logger.warn("Only {} of {} MFM tables are partitioned, deleting versions by key", count, TABLES.size());
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not check MFM table partitioning, deleting versions by key: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private void backfillVersionKeys() {
+        try {
+            int rows = jdbcTemplate.update("UPDATE mfm_units u SET mfm_version_id = f.mfm_version_id FROM mfm_factions f "
+                + "WHERE u.faction_id = f.id AND u.mfm_version_id IS NULL");
+            rows += jdbcTemplate.update("UPDATE mfm_detachments d SET mfm_version_id = f.mfm_version_id FROM mfm_factions f "
+                + "WHERE d.faction_id = f.id AND d.mfm_version_id IS NULL");
+            rows += jdbcTemplate.update("UPDATE mfm_unit_variants v SET mfm_version_id = u.mfm_version_id FROM mfm_units u "
+                + "WHERE v.unit_id = u.id AND v.mfm_version_id IS NULL");
+            rows += jdbcTemplate.update("UPDATE mfm_enhancements e SET mfm_version_id = d.mfm_version_id FROM mfm_detachments d "
+                + "WHERE e.detachment_id = d.id AND e.mfm_version_id IS NULL");
+            if (rows > 0) {
+                logger.info("Filled in the version key of {} MFM rows", rows);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not fill in MFM version keys: {}", e.getMessage());
+        }
+    }
+
+    private void addForeignKeys() {
+        for (String[] foreignKey : FOREIGN_KEYS) {
+            try {
+                // Any foreign key on the column counts, e.g. one Hibernate created before the mappings dropped it
+                Integer existing = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_constraint c "
+                    + "JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey) "
+                    + "WHERE c.contype = 'f' AND c.conrelid = to_regclass(?) AND a.attname = ?",
+                    Integer.class, foreignKey[0], foreignKey[2]);
+                if (existing != null && existing > 0) {
+                    continue;
+                }
+                // NOT VALID: enforced for new rows without failing on orphans left by earlier deletes
+                jdbcTemplate.execute("ALTER TABLE " + foreignKey[0] + " ADD CONSTRAINT " + foreignKey[1]
+                    + " FOREIGN KEY (" + foreignKey[2] + ") REFERENCES " + foreignKey[3] + " (id) NOT VALID");
+                logger.info("Added foreign key {} to unpartitioned table {}", foreignKey[1], foreignKey[0]);
+            } catch (DataAccessException e) {
+                logger.warn("Could not add foreign key {}: {}", foreignKey[1], e.getMessage());
+            }
+        }
+    }
+}
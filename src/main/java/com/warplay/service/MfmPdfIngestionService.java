@@ -0,0 +1,214 @@
+package com.warplay.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Extracts the text of a Munitorum Field Manual PDF page by page and feeds it straight into the line parser.
+ *
+ * Pages are extracted in parallel by a small pool, each worker with its own document instance
+ * (PDFBox documents are not thread-safe). Only a sliding window of pages is extracted ahead of the parser,
+ * and documents cache their streams in temp files, so memory stays bounded regardless of the PDF size.
+ */
+@Service
+public class MfmPdfIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmPdfIngestionService.class);
+
+    // How long a finished or failed parse waits for extraction threads before closing their documents
+    private static final long EXTRACTOR_SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    @Autowired
+    private MfmRawTextParserService mfmRawTextParserService;
+
+    @Value("${mfm.pdf.extract-threads:4}")
+    private int extractThreads;
+
+    @Value("${mfm.pdf.page-window:16}")
+    private int pageWindow;
+
+    public static boolean isPdf(String fileName) {
+        return fileName != null && fileName.toLowerCase().endsWith(".pdf");
+    }
+
+    /**
+     * Parse an MFM PDF. The content hash is taken over the PDF bytes.
+     */
+    public MfmParseData parsePdf(Path pdf, MfmImportProgress progress) throws IOException {
+        return parsePdf(pdf, mfmRawTextParserService, progress);
+    }
+
+    /**
+     * Parse a points list PDF for any game system with the given parser
+     */
+    public MfmParseData parsePdf(Path pdf, PointsCatalogParser parser, MfmImportProgress progress) throws IOException {
+        long start = System.nanoTime();
+
+        int pageCount;
+        try (PDDocument document = load(pdf)) {
+            pageCount = document.getNumberOfPages();
+        }
+
+        int threads = Math.max(1, Math.min(extractThreads, pageCount));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mfm-pdf-extract-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<PageExtractor> extractors = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<PageExtractor> workerExtractor = ThreadLocal.withInitial(() -> {
+            try {
+                PageExtractor extractor = new PageExtractor(load(pdf));
+                extractors.add(extractor);
+                return extractor;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        MfmParseData parseData;
+        try (Reader reader = new PageTextReader(pageCount, Math.max(1, pageWindow),
+                page -> executor.submit(() -> workerExtractor.get().extract(page)))) {
+            parseData = mfmRawTextParserService.parseCatalogText(parser, reader, progress);
+        } finally {
+            executor.shutdownNow();
+            // A page still being extracted uses its thread's document; let it finish before closing
+            awaitTermination(executor);
+            synchronized (extractors) {
+                for (PageExtractor extractor : extractors) {
+                    extractor.close();
+                }
+            }
+        }
+
+        parseData.setContentHash(MfmRawTextParserService.contentHash(pdf));
+        logger.info("Parsed {} PDF {} ({} pages) in {} ms with {} extraction threads",
+                   parser.getGameSystemShortName(), pdf.getFileName(), pageCount, (System.nanoTime() - start) / 1_000_000, threads);
+        return parseData;
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(EXTRACTOR_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("PDF extraction threads still running after {} s, closing their documents anyway",
+                           EXTRACTOR_SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static PDDocument load(Path pdf) throws IOException {
+        return Loader.loadPDF(pdf.toFile(), IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    /**
+     * A document and text stripper owned by one extraction thread
+     */
+    private static class PageExtractor {
+        private final PDDocument document;
+        private final PDFTextStripper stripper;
+
+        PageExtractor(PDDocument document) throws IOException {
+            this.document = document;
+            this.stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            stripper.setLineSeparator("\n");
+        }
+
+        String extract(int page) throws IOException {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            String text = stripper.getText(document);
+            // Keep the last line of a page from running into the first line of the next
+            return text.endsWith("\n") ? text : text + "\n";
+        }
+
+        void close() {
+            try {
+                document.close();
+            } catch (IOException e) {
+                logger.warn("Error closing PDF document: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reader over the text of pages 1..pageCount in order. Keeps at most window pages submitted
+     * for extraction ahead of the page being read.
+     */
+    private static class PageTextReader extends Reader {
+        private final int pageCount;
+        private final int window;
+        private final IntFunction<Future<String>> submitPage;
+        private final Deque<Future<String>> inFlight = new ArrayDeque<>();
+        private int nextPageToSubmit = 1;
+        private String current = "";
+        private int position = 0;
+
+        PageTextReader(int pageCount, int window, IntFunction<Future<String>> submitPage) {
+            this.pageCount = pageCount;
+            this.window = window;
+            this.submitPage = submitPage;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            while (position >= current.length()) {
+                if (!nextPage()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, current.length() - position);
+            current.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        private boolean nextPage() throws IOException {
+            while (inFlight.size() < window && nextPageToSubmit <= pageCount) {
+                inFlight.addLast(submitPage.apply(nextPageToSubmit++));
+            }
+            Future<String> page = inFlight.pollFirst();
+            if (page == null) {
+                return false;
+            }
+            try {
+                current = page.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while extracting PDF text", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+                throw new IOException("Could not extract PDF page text: " + cause.getMessage(), cause);
+            }
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public void close() {
+            for (Future<String> page : inFlight) {
+                page.cancel(true);
+            }
+            inFlight.clear();
+        }
+    }
+}
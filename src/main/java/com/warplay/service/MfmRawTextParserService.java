@@ -1,57 +1,59 @@
 package com.warplay.service;
 
 import com.warplay.entity.*;
-import com.warplay.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
-public class MfmRawTextParserService {
+public class MfmRawTextParserService implements PointsCatalogParser {
     
     private static final Logger logger = LoggerFactory.getLogger(MfmRawTextParserService.class);
     
-    @Autowired
-    private MfmVersionRepository mfmVersionRepository;
-    
-    @Autowired
-    private MfmFactionRepository mfmFactionRepository;
-    
-    @Autowired
-    private MfmUnitRepository mfmUnitRepository;
+    /**
+     * Short name of the game system the Munitorum Field Manual belongs to
+     */
+    public static final String GAME_SYSTEM = "40K";
     
     @Autowired
-    private MfmUnitVariantRepository mfmUnitVariantRepository;
+    private MfmCatalogService mfmCatalogService;
     
     @Autowired
-    private MfmDetachmentRepository mfmDetachmentRepository;
+    private MfmCatalogSnapshotService mfmCatalogSnapshotService;
     
     @Autowired
-    private MfmEnhancementRepository mfmEnhancementRepository;
+    private MfmBulkStoreService mfmBulkStoreService;
     
     // Patterns for parsing
     private static final Pattern VERSION_PATTERN = Pattern.compile("VERSION\\s+(\\d+\\.\\d+)");
-    private static final Pattern FACTION_HEADER_PATTERN = Pattern.compile("CODEX:\\s*(.+)|INDEX:\\s*(.+)|CODEX SUPPLEMENT:");
     private static final Pattern UNIT_WITH_POINTS_PATTERN = Pattern.compile("^\\s*(.+?)\\s+(\\d+)\\s+models?\\s+[.\\s]+\\s*(?:\\([+-]\\d+\\)\\s+)?(\\d+)\\s+pts$");
     private static final Pattern MODEL_COUNT_POINTS_PATTERN = Pattern.compile("^\\s*(\\d+)\\s+models?\\s+[.\\s]+\\s*(?:\\([+-]\\d+\\)\\s+)?(\\d+)\\s+pts");
     private static final Pattern ENHANCEMENT_PATTERN = Pattern.compile("^(.+?)[.\\s]+\\s*(?:\\([+-]\\d+\\)\\s+)?(\\d+)\\s+pts$");
-    private static final Pattern FORGE_WORLD_PATTERN = Pattern.compile("FORGE WORLD POINTS VALUES");
-    private static final Pattern ENHANCEMENT_SECTION_PATTERN = Pattern.compile("DETACHMENT ENHANCEMENTS");
-    private static final Pattern IMPERIAL_AGENTS_PATTERN = Pattern.compile("CODEX: IMPERIAL AGENTS");
-    private static final Pattern AGENTS_OF_IMPERIUM_PATTERN = Pattern.compile("AGENTS OF THE IMPERIUM");
-    private static final Pattern EVERY_MODEL_HAS_PATTERN = Pattern.compile("EVERY MODEL HAS");
-    private static final Pattern IMPERIUM_KEYWORD_PATTERN = Pattern.compile("IMPERIUM KEYWORD");
+    
+    // Literal markers, matched with a plain substring search on the line view
+    private static final String[] FACTION_HEADER_PREFIXES = { "CODEX:", "INDEX:", "CODEX SUPPLEMENT:" };
+    private static final String CODEX_SUPPLEMENT = "CODEX SUPPLEMENT:";
+    private static final String FORGE_WORLD_MARKER = "FORGE WORLD POINTS VALUES";
+    private static final String ENHANCEMENT_SECTION_MARKER = "DETACHMENT ENHANCEMENTS";
+    private static final String IMPERIAL_AGENTS_MARKER = "CODEX: IMPERIAL AGENTS";
+    private static final String AGENTS_OF_IMPERIUM_MARKER = "AGENTS OF THE IMPERIUM";
+    private static final String EVERY_MODEL_HAS_MARKER = "EVERY MODEL HAS";
+    private static final String IMPERIUM_KEYWORD_MARKER = "IMPERIUM KEYWORD";
+    
+    private static final int PROGRESS_INTERVAL_LINES = 256;
     
     /**
      * Parse a raw MFM text file and store the data in the database
@@ -59,40 +61,167 @@ public class MfmRawTextParserService {
     public MfmParseResult parseAndStoreMfmFile(String filePath) throws IOException {
         logger.info("Starting to parse raw MFM file: {}", filePath);
         
-        Path path = Paths.get(filePath);
-        String content = Files.readString(path);
-        
-        // Extract version from file
-        String version = extractVersion(content);
+        try (InputStream in = Files.newInputStream(Paths.get(filePath))) {
+            return parseAndStoreMfmStream(in, filePath, Long.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * Parse raw MFM content, store it in the database and publish it to the in-memory catalog.
+     * The source name is only used to derive the version date (e.g. "RAW_MFM_3_2_Aug25.txt").
+     */
+    public MfmParseResult parseAndStoreMfmContent(String content, String sourceName) {
+        MfmParseData parseData = parseMfmContent(content);
+        parseData.setContentHash(contentHash(content));
+        return storeAndPublish(parseData, sourceName, MfmImportProgress.NONE);
+    }
+    
+    /**
+     * Parse raw MFM text straight from a stream and store it
+     */
+    public MfmParseResult parseAndStoreMfmStream(InputStream in, String sourceName, long maxBytes) throws IOException {
+        return parseAndStoreMfmStream(in, sourceName, maxBytes, MfmImportProgress.NONE);
+    }
+    
+    /**
+     * Parse raw MFM text straight from a stream and store it, reporting progress as it goes
+     */
+    public MfmParseResult parseAndStoreMfmStream(InputStream in, String sourceName, long maxBytes,
+                                                 MfmImportProgress progress) throws IOException {
+        MfmParseData parseData = parseMfmStream(in, maxBytes, progress);
+        return storeAndPublish(parseData, sourceName, progress);
+    }
+    
+    /**
+     * Parse raw MFM text straight from a stream, line by line, without buffering the whole file.
+     * Fails with {@link MfmSizeLimitExceededException} as soon as more than maxBytes have been read.
+     */
+    public MfmParseData parseMfmStream(InputStream in, long maxBytes, MfmImportProgress progress) throws IOException {
+        return parseCatalogStream(this, in, maxBytes, progress);
+    }
+    
+    /**
+     * Parse a points list for any game system straight from a stream with the given parser,
+     * hashing the content and enforcing the size limit as it is read
+     */
+    public MfmParseData parseCatalogStream(PointsCatalogParser parser, InputStream in, long maxBytes,
+                                           MfmImportProgress progress) throws IOException {
+        progress.phase(MfmImportProgress.PHASE_PARSING);
+        MessageDigest digest = newContentDigest();
+        MfmParseData parseData;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new DigestInputStream(new SizeLimitedInputStream(in, maxBytes), digest), StandardCharsets.UTF_8))) {
+            parseData = parser.parse(reader, progress);
+        }
+        parseData.setGameSystem(parser.getGameSystemShortName());
+        parseData.setContentHash(HexFormat.of().formatHex(digest.digest()));
+        return parseData;
+    }
+    
+    /**
+     * Parse MFM text from a reader, e.g. text extracted from a PDF. The caller sets the content hash.
+     */
+    public MfmParseData parseMfmText(Reader reader, MfmImportProgress progress) throws IOException {
+        return parseCatalogText(this, reader, progress);
+    }
+    
+    /**
+     * Parse a points list for any game system from a reader with the given parser. The caller sets the content hash.
+     */
+    public MfmParseData parseCatalogText(PointsCatalogParser parser, Reader reader, MfmImportProgress progress)
+            throws IOException {
+        progress.phase(MfmImportProgress.PHASE_PARSING);
+        MfmParseData parseData;
+        try (BufferedReader lines = new BufferedReader(reader)) {
+            parseData = parser.parse(lines, progress);
+        }
+        parseData.setGameSystem(parser.getGameSystemShortName());
+        return parseData;
+    }
+    
+    @Override
+    public String getGameSystemShortName() {
+        return GAME_SYSTEM;
+    }
+    
+    @Override
+    public MfmParseData parse(BufferedReader lines, MfmImportProgress progress) throws IOException {
+        return parseMfmLines(lines, progress);
+    }
+    
+    /**
+     * Store parse output as a new version and publish it to the in-memory catalog
+     */
+    public MfmParseResult storeAndPublish(MfmParseData parseData, String sourceName, MfmImportProgress progress) {
+        return storeAndPublish(parseData, sourceName, progress, false);
+    }
+    
+    /**
+     * Store parse output and publish it to the in-memory catalog. With replaceExisting, stored data of the
+     * same version is replaced, while the old catalog keeps serving lookups until the new one is published.
+     */
+    public MfmParseResult storeAndPublish(MfmParseData parseData, String sourceName, MfmImportProgress progress,
+                                         boolean replaceExisting) {
+        return publish(parseData, store(parseData, sourceName, progress, replaceExisting), progress);
+    }
+    
+    /**
+     * Store parse output under its version; see MfmBulkStoreService.store. Not to be called inside a transaction,
+     * which would hold the locks of every step until it ends.
+     */
+    public MfmVersion store(MfmParseData parseData, String sourceName, MfmImportProgress progress, boolean replaceExisting) {
+        String version = parseData.getVersion();
         if (version == null) {
-            throw new IllegalArgumentException("Could not extract version from MFM file");
+            throw new IllegalArgumentException("Could not extract version from " + parseData.getGameSystem() + " points list");
         }
         
-        // Create or get MFM version (small transaction)
-        MfmVersion mfmVersion = createOrGetMfmVersionInTransaction(version, extractDateFromFilename(filePath));
-        
-        // Parse the content (no database operations)
-        MfmParseData parseData = parseMfmContent(content, mfmVersion);
-        
-        // Store in database (separate transaction)
-        storeParseDataInTransaction(parseData, mfmVersion);
+        progress.phase(MfmImportProgress.PHASE_STORING);
+        return mfmBulkStoreService.store(parseData, extractDateFromFilename(sourceName), replaceExisting, progress);
+    }
+    
+    /**
+     * Publish stored parse output to the in-memory catalog and persist a snapshot for warm restarts
+     */
+    public MfmParseResult publish(MfmParseData parseData, MfmVersion mfmVersion, MfmImportProgress progress) {
+        String version = parseData.getVersion();
+        progress.phase(MfmImportProgress.PHASE_PUBLISHING);
+        MfmCatalogService.MfmCatalog catalog = MfmCatalogService.fromParseData(
+            parseData, version, mfmVersion.getDate(), parseData.getContentHash());
+        mfmCatalogService.register(catalog, Boolean.TRUE.equals(mfmVersion.getIsLatest()));
+        mfmCatalogSnapshotService.writeSnapshot(catalog);
         
-        logger.info("Successfully parsed and stored MFM file. Version: {}, Units: {}, Enhancements: {}", 
-                   version, parseData.getUnits().size(), parseData.getEnhancements().size());
+        logger.info("Successfully parsed and stored {} points list. Version: {}, Units: {}, Enhancements: {}", 
+                   parseData.getGameSystem(), version, parseData.getUnits().size(), parseData.getEnhancements().size());
         
         return new MfmParseResult(version, parseData.getUnits().size(), parseData.getEnhancements().size(), 
                                  parseData.getFactions().size(), parseData.getDetachments().size());
     }
     
     /**
-     * Extract version from file content
+     * SHA-256 hex digest of source text, the content hash that recognises a source that was imported before
+     * and tells whether a catalog snapshot is still current
      */
-    private String extractVersion(String content) {
-        Matcher matcher = VERSION_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
+    static String contentHash(String content) {
+        return HexFormat.of().formatHex(newContentDigest().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * SHA-256 hex digest of a file, hashed the same way as its text
+     */
+    static String contentHash(Path file) throws IOException {
+        MessageDigest digest = newContentDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return null;
     }
     
     /**
@@ -109,53 +238,56 @@ public class MfmRawTextParserService {
         return "Unknown";
     }
     
-    /**
-     * Create or get MFM version
-     */
-    private MfmVersion createOrGetMfmVersion(String version, String date) {
-        Optional<MfmVersion> existing = mfmVersionRepository.findByVersion(version);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
-        
-        // Mark all other versions as not latest
-        List<MfmVersion> allVersions = mfmVersionRepository.findAll();
-        for (MfmVersion v : allVersions) {
-            v.setIsLatest(false);
-            mfmVersionRepository.save(v);
-        }
-        
-        MfmVersion newVersion = new MfmVersion(version, date, true);
-        return mfmVersionRepository.save(newVersion);
+    static String effectiveGameSystem(String gameSystem) {
+        return gameSystem != null ? gameSystem : GAME_SYSTEM;
+    }
+    
+    static boolean isSameGameSystem(String a, String b) {
+        return effectiveGameSystem(a).equalsIgnoreCase(effectiveGameSystem(b));
     }
     
     /**
-     * Create or get MFM version in a separate transaction
+     * Parse MFM content into structured data
      */
-    @Transactional
-    private MfmVersion createOrGetMfmVersionInTransaction(String version, String date) {
-        return createOrGetMfmVersion(version, date);
+    private MfmParseData parseMfmContent(String content) {
+        try {
+            return parseMfmLines(new BufferedReader(new StringReader(content)), MfmImportProgress.NONE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
     
     /**
-     * Parse MFM content into structured data
+     * Parse MFM lines into structured data, reading each line exactly once
      */
-    private MfmParseData parseMfmContent(String content, MfmVersion mfmVersion) {
-        String[] lines = content.split("\n");
+    private MfmParseData parseMfmLines(BufferedReader reader, MfmImportProgress progress) throws IOException {
+        MfmLineReader lines = new MfmLineReader(reader);
         
         MfmParseData parseData = new MfmParseData();
-        MfmParseContext context = new MfmParseContext(mfmVersion);
+        MfmParseContext context = new MfmParseContext();
         
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
+        while (lines.next()) {
+            CharSequence line = lines.current();
+            context.lineNumber = lines.lineNumber();
+            if (context.lineNumber % PROGRESS_INTERVAL_LINES == 0) {
+                progress.linesParsed(context.lineNumber);
+            }
             
             if (line.isEmpty()) {
                 continue;
             }
             
+            // The first VERSION line identifies the manual
+            if (parseData.getVersion() == null) {
+                Matcher versionMatch = context.versionMatcher.reset(line);
+                if (versionMatch.find()) {
+                    parseData.setVersion(versionMatch.group(1));
+                }
+            }
+            
             // Check for faction headers
             if (isFactionHeader(line)) {
-                handleFactionHeader(line, i, lines, context, parseData);
+                handleFactionHeader(line, lines.peek(), context);
                 continue;
             }
             
@@ -170,13 +302,14 @@ public class MfmRawTextParserService {
             }
             
             if (context.isImperialAgents && isEveryModelHasImperiumSubsection(line)) {
-                if (i + 1 < lines.length && isImperiumKeywordLine(lines[i + 1].trim())) {
+                CharSequence nextLine = lines.peek();
+                if (nextLine != null && isImperiumKeywordLine(nextLine)) {
                     context.imperialAgentsSubsection = "EVERY_MODEL_HAS_IMPERIUM";
                     context.currentFaction = "IMPERIAL AGENTS (ALLIES)";
                     context.currentDetachment = null;
                     context.isForgeWorld = false;
                     context.isEnhancementSection = false;
-                    i++; // Skip the next line
+                    lines.next(); // Skip the next line
                     continue;
                 }
             }
@@ -196,7 +329,7 @@ public class MfmRawTextParserService {
             
             // Check for detachment headers
             if (isDetachmentHeader(line, context)) {
-                context.currentDetachment = line;
+                context.currentDetachment = context.names.intern(line);
                 continue;
             }
             
@@ -205,24 +338,29 @@ public class MfmRawTextParserService {
                 MfmEnhancementData enhancement = parseEnhancementEntry(line, context);
                 if (enhancement != null) {
                     parseData.addEnhancement(enhancement);
+                } else {
+                    progress.error("Line " + context.lineNumber + ": could not parse enhancement entry: " + line);
                 }
             }
             // Parse unit entries
             else if (isUnitEntry(line)) {
-                MfmUnitData unit = parseUnitEntry(line, i, lines, context);
+                MfmUnitData unit = parseUnitEntry(line, lines, context);
                 if (unit != null) {
                     parseData.addUnit(unit);
+                } else {
+                    progress.error("Line " + context.lineNumber + ": could not parse unit entry: " + line);
                 }
             }
         }
         
+        progress.linesParsed(lines.lineNumber());
         return parseData;
     }
     
     /**
      * Handle faction header parsing
      */
-    private void handleFactionHeader(String line, int lineIndex, String[] lines, MfmParseContext context, MfmParseData parseData) {
+    private void handleFactionHeader(CharSequence line, CharSequence nextLine, MfmParseContext context) {
         if (isImperialAgentsSection(line)) {
             context.isImperialAgents = true;
             context.imperialAgentsSubsection = null;
@@ -235,15 +373,14 @@ public class MfmRawTextParserService {
             context.imperialAgentsSubsection = null;
             
             // Check if this is a CODEX SUPPLEMENT: with faction name on next line
-            if (line.equals("CODEX SUPPLEMENT:") && lineIndex + 1 < lines.length) {
-                String nextLine = lines[lineIndex + 1].trim();
-                if (!nextLine.isEmpty() && !nextLine.contains(":") && !nextLine.contains("pts")) {
-                    context.currentFaction = nextLine;
+            if (CODEX_SUPPLEMENT.contentEquals(line) && nextLine != null) {
+                if (!nextLine.isEmpty() && !contains(nextLine, ":") && !contains(nextLine, "pts")) {
+                    context.currentFaction = context.names.intern(nextLine);
                 } else {
-                    context.currentFaction = extractFactionName(line);
+                    context.currentFaction = extractFactionName(line, context);
                 }
             } else {
-                context.currentFaction = extractFactionName(line);
+                context.currentFaction = extractFactionName(line, context);
             }
             
             context.currentDetachment = null;
@@ -253,66 +390,73 @@ public class MfmRawTextParserService {
     }
     
     /**
-     * Check if line is a faction header
+     * Check if line is a faction header: "CODEX:" or "INDEX:" followed by a name, or "CODEX SUPPLEMENT:"
      */
-    private boolean isFactionHeader(String line) {
-        return FACTION_HEADER_PATTERN.matcher(line).find();
+    private boolean isFactionHeader(CharSequence line) {
+        return hasTextAfter(line, "CODEX:") || hasTextAfter(line, "INDEX:") || contains(line, CODEX_SUPPLEMENT);
     }
     
     /**
      * Check if line indicates Imperial Agents section
      */
-    private boolean isImperialAgentsSection(String line) {
-        return IMPERIAL_AGENTS_PATTERN.matcher(line).find();
+    private boolean isImperialAgentsSection(CharSequence line) {
+        return contains(line, IMPERIAL_AGENTS_MARKER);
     }
     
     /**
      * Check if line indicates Agents of the Imperium subsection
      */
-    private boolean isAgentsOfTheImperiumSubsection(String line) {
-        return AGENTS_OF_IMPERIUM_PATTERN.matcher(line).find();
+    private boolean isAgentsOfTheImperiumSubsection(CharSequence line) {
+        return contains(line, AGENTS_OF_IMPERIUM_MARKER);
     }
     
     /**
      * Check if line indicates Every Model Has Imperium subsection
      */
-    private boolean isEveryModelHasImperiumSubsection(String line) {
-        return EVERY_MODEL_HAS_PATTERN.matcher(line).find();
+    private boolean isEveryModelHasImperiumSubsection(CharSequence line) {
+        return contains(line, EVERY_MODEL_HAS_MARKER);
     }
     
     /**
      * Check if line completes the Imperium keyword subsection
      */
-    private boolean isImperiumKeywordLine(String line) {
-        return IMPERIUM_KEYWORD_PATTERN.matcher(line).find();
+    private boolean isImperiumKeywordLine(CharSequence line) {
+        return contains(line, IMPERIUM_KEYWORD_MARKER);
     }
     
     /**
      * Extract faction name from header
      */
-    private String extractFactionName(String line) {
-        return line.replaceAll("^(CODEX:|INDEX:|CODEX SUPPLEMENT:)\\s*", "").trim();
+    private String extractFactionName(CharSequence line, MfmParseContext context) {
+        int start = 0;
+        for (String prefix : FACTION_HEADER_PREFIXES) {
+            if (startsWith(line, prefix)) {
+                start = prefix.length();
+                break;
+            }
+        }
+        return context.names.intern(line, start, line.length());
     }
     
     /**
      * Check if line indicates Forge World section
      */
-    private boolean isForgeWorldSection(String line) {
-        return FORGE_WORLD_PATTERN.matcher(line).find();
+    private boolean isForgeWorldSection(CharSequence line) {
+        return contains(line, FORGE_WORLD_MARKER);
     }
     
     /**
      * Check if line is enhancement section header
      */
-    private boolean isEnhancementSectionHeader(String line) {
-        return ENHANCEMENT_SECTION_PATTERN.matcher(line).find();
+    private boolean isEnhancementSectionHeader(CharSequence line) {
+        return contains(line, ENHANCEMENT_SECTION_MARKER);
     }
     
     /**
      * Check if line is a detachment header
      * Detachments appear after "DETACHMENT ENHANCEMENTS" and before enhancement entries
      */
-    private boolean isDetachmentHeader(String line, MfmParseContext context) {
+    private boolean isDetachmentHeader(CharSequence line, MfmParseContext context) {
         // Only consider detachment headers when we're in an enhancement section
         if (!context.isEnhancementSection) {
             return false;
@@ -327,55 +471,55 @@ public class MfmRawTextParserService {
         // 6. Are not just page numbers
         // 7. Are not enhancement entries (which have points)
         return !line.isEmpty() && 
-               !line.contains("pts") && 
-               !line.contains("models") && 
+               !contains(line, "pts") && 
+               !contains(line, "models") && 
                !isFactionHeader(line) && 
                !isForgeWorldSection(line) &&
                !isEnhancementSectionHeader(line) &&
-               !line.matches("^\\d+$") && // Not just a page number
+               !isAllDigits(line) && // Not just a page number
                !isEnhancementEntry(line); // Not an enhancement entry
     }
     
     /**
      * Check if line contains a unit entry
      */
-    private boolean isUnitEntry(String line) {
-        return line.contains("pts") && (line.contains("models") || line.contains("model"));
+    private boolean isUnitEntry(CharSequence line) {
+        return contains(line, "pts") && contains(line, "model");
     }
     
     /**
      * Check if line contains an enhancement entry
      */
-    private boolean isEnhancementEntry(String line) {
-        return line.contains("pts") && !line.contains("models") && !line.contains("model");
+    private boolean isEnhancementEntry(CharSequence line) {
+        return contains(line, "pts") && !contains(line, "model");
     }
     
     /**
      * Parse a unit entry
      */
-    private MfmUnitData parseUnitEntry(String line, int lineIndex, String[] lines, MfmParseContext context) {
+    private MfmUnitData parseUnitEntry(CharSequence line, MfmLineReader lines, MfmParseContext context) {
         String unitName;
-        Integer modelCount;
-        Integer points;
+        int modelCount;
+        int points;
         
         // Check if unit name and points are on the same line
-        Matcher sameLineMatch = UNIT_WITH_POINTS_PATTERN.matcher(line);
+        Matcher sameLineMatch = context.unitWithPointsMatcher.reset(line);
         if (sameLineMatch.find()) {
-            unitName = sameLineMatch.group(1).trim();
-            modelCount = Integer.parseInt(sameLineMatch.group(2));
-            points = Integer.parseInt(sameLineMatch.group(3));
+            unitName = context.names.intern(line, sameLineMatch.start(1), sameLineMatch.end(1));
+            modelCount = parseInt(line, sameLineMatch, 2);
+            points = parseInt(line, sameLineMatch, 3);
         } else {
             // Extract model count and points from points-only line
-            Matcher modelMatch = MODEL_COUNT_POINTS_PATTERN.matcher(line);
+            Matcher modelMatch = context.modelCountPointsMatcher.reset(line);
             if (!modelMatch.find()) {
                 return null;
             }
             
-            modelCount = Integer.parseInt(modelMatch.group(1));
-            points = Integer.parseInt(modelMatch.group(2));
+            modelCount = parseInt(line, modelMatch, 1);
+            points = parseInt(line, modelMatch, 2);
             
             // Look backwards to find the unit name
-            unitName = findUnitName(lineIndex, lines);
+            unitName = findUnitName(lines, context);
             if (unitName == null) {
                 return null;
             }
@@ -388,45 +532,43 @@ public class MfmRawTextParserService {
             modelCount,
             points,
             context.isForgeWorld,
-            lineIndex + 1
+            context.lineNumber
         );
     }
     
     /**
      * Find unit name by looking backwards from points line
      */
-    private String findUnitName(int lineIndex, String[] lines) {
+    private String findUnitName(MfmLineReader lines, MfmParseContext context) {
         // Look backwards up to 5 lines to find the unit name
-        for (int i = lineIndex - 1; i >= Math.max(0, lineIndex - 5); i--) {
-            String line = lines[i].trim();
+        for (int distance = 1; distance <= MfmLineReader.LOOKBACK; distance++) {
+            CharSequence line = lines.previous(distance);
+            if (line == null) {
+                break;
+            }
+            
+            // A unit named on its own first points line; checked before the skips below, which drop
+            // every other line with points
+            Matcher sameLineMatch = context.unitWithPointsMatcher.reset(line);
+            if (sameLineMatch.find()) {
+                return context.names.intern(line, sameLineMatch.start(1), sameLineMatch.end(1));
+            }
             
             // Skip empty lines, page numbers, and other non-unit lines
             if (line.isEmpty() || 
-                line.matches("^\\d+$") || 
-                line.contains("pts") || 
-                line.contains("models") ||
-                line.contains("DETACHMENT") ||
-                line.contains("FORGE WORLD") ||
-                line.startsWith("CODEX:") ||
-                line.startsWith("INDEX:")) {
+                isAllDigits(line) || 
+                contains(line, "pts") || 
+                contains(line, "models") ||
+                contains(line, "DETACHMENT") ||
+                contains(line, "FORGE WORLD") ||
+                startsWith(line, "CODEX:") ||
+                startsWith(line, "INDEX:")) {
                 continue;
             }
             
-            // Check if this line contains a unit name with points on the same line
-            Matcher sameLineMatch = UNIT_WITH_POINTS_PATTERN.matcher(line);
-            if (sameLineMatch.find()) {
-                return sameLineMatch.group(1).trim();
-            }
-            
             // Check if this line is just a unit name (no points)
-            if (!line.matches(".*\\d.*") && 
-                !line.contains("models") && 
-                !line.contains("pts") &&
-                !line.contains("DETACHMENT") &&
-                !line.contains("FORGE WORLD") &&
-                !line.startsWith("CODEX:") &&
-                !line.startsWith("INDEX:")) {
-                return line;
+            if (!containsDigit(line)) {
+                return context.names.intern(line);
             }
         }
         
@@ -436,14 +578,14 @@ public class MfmRawTextParserService {
     /**
      * Parse an enhancement entry
      */
-    private MfmEnhancementData parseEnhancementEntry(String line, MfmParseContext context) {
-        Matcher enhancementMatch = ENHANCEMENT_PATTERN.matcher(line);
+    private MfmEnhancementData parseEnhancementEntry(CharSequence line, MfmParseContext context) {
+        Matcher enhancementMatch = context.enhancementMatcher.reset(line);
         if (!enhancementMatch.find()) {
             return null;
         }
         
-        String enhancementName = enhancementMatch.group(1).trim();
-        Integer points = Integer.parseInt(enhancementMatch.group(2));
+        String enhancementName = context.names.intern(line, enhancementMatch.start(1), enhancementMatch.end(1));
+        int points = parseInt(line, enhancementMatch, 2);
         
         return new MfmEnhancementData(
             context.currentFaction,
@@ -454,124 +596,96 @@ public class MfmRawTextParserService {
         );
     }
     
-    /**
-     * Store parsed data in database
-     */
-    private void storeParseData(MfmParseData parseData, MfmVersion mfmVersion) {
-        // Store factions
-        Map<String, MfmFaction> factionMap = new HashMap<>();
-        for (String factionName : parseData.getFactions()) {
-            MfmFaction faction = createOrGetFaction(factionName, mfmVersion);
-            factionMap.put(factionName, faction);
-        }
-        
-        // Store detachments
-        Map<String, MfmDetachment> detachmentMap = new HashMap<>();
-        for (MfmDetachmentData detachmentData : parseData.getDetachments()) {
-            MfmFaction faction = factionMap.get(detachmentData.getFaction());
-            MfmDetachment detachment = createOrGetDetachment(detachmentData.getName(), faction);
-            detachmentMap.put(detachmentData.getFaction() + ":" + detachmentData.getName(), detachment);
-        }
-        
-        // Store units and variants
-        for (MfmUnitData unitData : parseData.getUnits()) {
-            MfmFaction faction = factionMap.get(unitData.getFaction());
-            MfmUnit unit = createOrGetUnit(unitData.getName(), faction, unitData.getUnitType());
-            
-            // Create unit variant
-            MfmUnitVariant variant = new MfmUnitVariant(unit, unitData.getModelCount(), unitData.getPoints());
-            mfmUnitVariantRepository.save(variant);
-        }
-        
-        // Store enhancements
-        for (MfmEnhancementData enhancementData : parseData.getEnhancements()) {
-            String detachmentKey = enhancementData.getFaction() + ":" + enhancementData.getDetachment();
-            MfmDetachment detachment = detachmentMap.get(detachmentKey);
-            if (detachment != null) {
-                MfmEnhancement enhancement = new MfmEnhancement(detachment, enhancementData.getName(), enhancementData.getPoints());
-                mfmEnhancementRepository.save(enhancement);
+    private static int parseInt(CharSequence line, Matcher matcher, int group) {
+        return Integer.parseInt(line, matcher.start(group), matcher.end(group), 10);
+    }
+    
+    private static int indexOf(CharSequence line, String text) {
+        int last = line.length() - text.length();
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < text.length(); j++) {
+                if (line.charAt(i + j) != text.charAt(j)) {
+                    continue outer;
+                }
             }
+            return i;
         }
+        return -1;
     }
     
-    /**
-     * Store parsed data in database in a separate transaction
-     */
-    @Transactional
-    private void storeParseDataInTransaction(MfmParseData parseData, MfmVersion mfmVersion) {
-        storeParseData(parseData, mfmVersion);
+    private static boolean contains(CharSequence line, String text) {
+        return indexOf(line, text) >= 0;
     }
     
-    /**
-     * Public method to create or get MFM version
-     */
-    @Transactional
-    public MfmVersion createOrGetMfmVersionPublic(String version, String date) {
-        return createOrGetMfmVersion(version, date);
+    private static boolean startsWith(CharSequence line, String prefix) {
+        if (line.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
-     * Public method to parse MFM content
+     * Check if text occurs in the line with at least one character after it
      */
-    public MfmParseData parseMfmContentPublic(String content, MfmVersion mfmVersion) {
-        return parseMfmContent(content, mfmVersion);
+    private static boolean hasTextAfter(CharSequence line, String text) {
+        int index = indexOf(line, text);
+        return index >= 0 && index + text.length() < line.length();
     }
     
-    /**
-     * Public method to store parsed data
-     */
-    @Transactional
-    public void storeParseDataPublic(MfmParseData parseData, MfmVersion mfmVersion) {
-        storeParseData(parseData, mfmVersion);
+    private static boolean isAllDigits(CharSequence line) {
+        if (line.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean containsDigit(CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
-     * Create or get faction
+     * Public method to parse MFM content
      */
-    private MfmFaction createOrGetFaction(String name, MfmVersion mfmVersion) {
-        Optional<MfmFaction> existing = mfmFactionRepository.findByNameAndMfmVersion(name, mfmVersion);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
-        
-        // Determine supergroup and allyTo based on faction name
-        String supergroup = determineSupergroup(name);
-        String allyTo = determineAllyTo(name);
-        
-        MfmFaction faction = new MfmFaction(mfmVersion, name, supergroup, allyTo);
-        return mfmFactionRepository.save(faction);
+    public MfmParseData parseMfmContentPublic(String content) {
+        return parseMfmContent(content);
     }
     
     /**
-     * Create or get detachment
+     * Supergroup of a faction; only MFM factions are grouped
      */
-    private MfmDetachment createOrGetDetachment(String name, MfmFaction faction) {
-        Optional<MfmDetachment> existing = mfmDetachmentRepository.findByNameAndFaction(name, faction);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
-        
-        MfmDetachment detachment = new MfmDetachment(faction, name);
-        return mfmDetachmentRepository.save(detachment);
+    static String supergroupFor(String gameSystem, String factionName) {
+        return isSameGameSystem(gameSystem, GAME_SYSTEM) ? determineSupergroup(factionName) : null;
     }
     
     /**
-     * Create or get unit
+     * Faction allyTo; only MFM factions ally to a supergroup
      */
-    private MfmUnit createOrGetUnit(String name, MfmFaction faction, String unitType) {
-        Optional<MfmUnit> existing = mfmUnitRepository.findByNameAndFaction(name, faction);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
-        
-        MfmUnit unit = new MfmUnit(faction, name, unitType);
-        return mfmUnitRepository.save(unit);
+    static String allyToFor(String gameSystem, String factionName) {
+        return isSameGameSystem(gameSystem, GAME_SYSTEM) ? determineAllyTo(factionName) : null;
     }
     
     /**
      * Determine supergroup based on faction name
      */
-    private String determineSupergroup(String factionName) {
+    static String determineSupergroup(String factionName) {
         if (factionName.contains("IMPERIUM") || factionName.contains("SPACE MARINES") || 
             factionName.contains("ADEPTA SORORITAS") || factionName.contains("ADEPTUS CUSTODES") ||
             factionName.contains("ADEPTUS MECHANICUS") || factionName.contains("ASTRA MILITARUM") ||
@@ -590,7 +704,7 @@ public class MfmRawTextParserService {
     /**
      * Determine allyTo based on faction name
      */
-    private String determineAllyTo(String factionName) {
+    static String determineAllyTo(String factionName) {
         if (factionName.contains("CHAOS DAEMONS") || factionName.contains("CHAOS KNIGHTS") ||
             factionName.contains("ADEPTUS TITANICUS") || factionName.contains("IMPERIAL KNIGHTS") ||
             factionName.contains("IMPERIAL AGENTS (ALLIES)")) {
@@ -602,7 +716,6 @@ public class MfmRawTextParserService {
     // Inner classes for data structures
     
     private static class MfmParseContext {
-        private final MfmVersion mfmVersion;
         private String currentFaction;
         private String currentDetachment;
         private boolean isForgeWorld = false;
@@ -611,107 +724,334 @@ public class MfmRawTextParserService {
         private String imperialAgentsSubsection = null;
         private int lineNumber = 0;
         
-        public MfmParseContext(MfmVersion mfmVersion) {
-            this.mfmVersion = mfmVersion;
-        }
+        private final NamePool names = new NamePool();
+        
+        // Matchers are reset onto each line instead of being allocated per match
+        private final Matcher versionMatcher = VERSION_PATTERN.matcher("");
+        private final Matcher unitWithPointsMatcher = UNIT_WITH_POINTS_PATTERN.matcher("");
+        private final Matcher modelCountPointsMatcher = MODEL_COUNT_POINTS_PATTERN.matcher("");
+        private final Matcher enhancementMatcher = ENHANCEMENT_PATTERN.matcher("");
     }
     
-    public static class MfmParseData {
-        private final Set<String> factions = new HashSet<>();
-        private final List<MfmUnitData> units = new ArrayList<>();
-        private final List<MfmEnhancementData> enhancements = new ArrayList<>();
-        private final List<MfmDetachmentData> detachments = new ArrayList<>();
+    /**
+     * Interns names sliced out of line views, so each distinct faction, detachment, unit and enhancement
+     * name is materialized once per parse and every entry refers to the same instance
+     */
+    private static class NamePool {
+        private String[] table = new String[512];
+        private int size = 0;
+        
+        String intern(CharSequence text) {
+            return intern(text, 0, text.length());
+        }
         
-        public void addUnit(MfmUnitData unit) {
-            units.add(unit);
-            factions.add(unit.getFaction());
-            if (unit.getDetachment() != null) {
-                detachments.add(new MfmDetachmentData(unit.getFaction(), unit.getDetachment()));
+        /**
+         * Intern the trimmed range [start, end) of the text
+         */
+        String intern(CharSequence text, int start, int end) {
+            while (start < end && text.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            
+            // Same hash as String.hashCode, so candidates are rejected without comparing characters
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
             }
+            
+            int mask = table.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            for (String candidate = table[slot]; candidate != null; candidate = table[slot]) {
+                if (candidate.hashCode() == hash && regionEquals(candidate, text, start, end)) {
+                    return candidate;
+                }
+                slot = (slot + 1) & mask;
+            }
+            
+            String name = text.subSequence(start, end).toString();
+            table[slot] = name;
+            if (++size * 2 > table.length) {
+                resize();
+            }
+            return name;
         }
         
-        public void addEnhancement(MfmEnhancementData enhancement) {
-            enhancements.add(enhancement);
-            factions.add(enhancement.getFaction());
-            if (enhancement.getDetachment() != null) {
-                detachments.add(new MfmDetachmentData(enhancement.getFaction(), enhancement.getDetachment()));
+        private static boolean regionEquals(String candidate, CharSequence text, int start, int end) {
+            if (candidate.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < candidate.length(); i++) {
+                if (candidate.charAt(i) != text.charAt(start + i)) {
+                    return false;
+                }
             }
+            return true;
         }
         
-        public Set<String> getFactions() { return factions; }
-        public List<MfmUnitData> getUnits() { return units; }
-        public List<MfmEnhancementData> getEnhancements() { return enhancements; }
-        public List<MfmDetachmentData> getDetachments() { return detachments; }
+        private void resize() {
+            String[] old = table;
+            table = new String[old.length * 2];
+            int mask = table.length - 1;
+            for (String name : old) {
+                if (name != null) {
+                    int hash = name.hashCode();
+                    int slot = (hash ^ (hash >>> 16)) & mask;
+                    while (table[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = name;
+                }
+            }
+        }
     }
     
-    public static class MfmUnitData {
-        private final String faction;
-        private final String detachment;
-        private final String name;
-        private final Integer modelCount;
-        private final Integer points;
-        private final boolean isForgeWorld;
-        private final int lineNumber;
-        private final String unitType;
+    /**
+     * Reads trimmed lines one at a time as views over a single character buffer, keeping the last few lines
+     * for unit-name lookback and a single line of lookahead for headers that continue on the next line.
+     *
+     * Lines are not copied into Strings: each view points into the buffer, and the buffer is only compacted
+     * past lines that can no longer be referenced. A view is reused once it falls out of the lookback window,
+     * so anything kept beyond that must be copied (see {@link NamePool}).
+     */
+    static class MfmLineReader {
+        private static final int LOOKBACK = 5;
+        private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+        
+        private final Reader reader;
+        private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+        private int limit = 0;
+        private int scan = 0;
+        private boolean eof = false;
+        private boolean skipLineFeed = false;
         
-        public MfmUnitData(String faction, String detachment, String name, Integer modelCount, 
-                          Integer points, boolean isForgeWorld, int lineNumber) {
-            this.faction = faction;
-            this.detachment = detachment;
-            this.name = name;
-            this.modelCount = modelCount;
-            this.points = points;
-            this.isForgeWorld = isForgeWorld;
-            this.lineNumber = lineNumber;
-            this.unitType = isForgeWorld ? "Forge World" : "Standard";
+        // Views for the lookback window, the current line and the lookahead, indexed by read sequence
+        private final LineView[] views = new LineView[LOOKBACK + 2];
+        private int readCount = 0;
+        
+        private final LineView[] history = new LineView[LOOKBACK];
+        private LineView current;
+        private LineView lookahead;
+        private boolean lookaheadLoaded = false;
+        private int lineNumber = 0;
+        
+        MfmLineReader(Reader reader) {
+            this.reader = reader;
+            for (int i = 0; i < views.length; i++) {
+                views[i] = new LineView();
+            }
         }
         
-        // Getters
-        public String getFaction() { return faction; }
-        public String getDetachment() { return detachment; }
-        public String getName() { return name; }
-        public Integer getModelCount() { return modelCount; }
-        public Integer getPoints() { return points; }
-        public boolean isForgeWorld() { return isForgeWorld; }
-        public int getLineNumber() { return lineNumber; }
-        public String getUnitType() { return unitType; }
-    }
-    
-    public static class MfmEnhancementData {
-        private final String faction;
-        private final String detachment;
-        private final String name;
-        private final Integer points;
-        private final int lineNumber;
-        
-        public MfmEnhancementData(String faction, String detachment, String name, Integer points, int lineNumber) {
-            this.faction = faction;
-            this.detachment = detachment;
-            this.name = name;
-            this.points = points;
-            this.lineNumber = lineNumber;
+        boolean next() throws IOException {
+            if (current != null) {
+                history[lineNumber % LOOKBACK] = current;
+            }
+            current = lookaheadLoaded ? lookahead : readLine();
+            lookaheadLoaded = false;
+            if (current == null) {
+                return false;
+            }
+            lineNumber++;
+            return true;
         }
         
-        // Getters
-        public String getFaction() { return faction; }
-        public String getDetachment() { return detachment; }
-        public String getName() { return name; }
-        public Integer getPoints() { return points; }
-        public int getLineNumber() { return lineNumber; }
+        CharSequence current() {
+            return current;
+        }
+        
+        /**
+         * 1-based line number of the current line
+         */
+        int lineNumber() {
+            return lineNumber;
+        }
+        
+        CharSequence peek() throws IOException {
+            if (!lookaheadLoaded) {
+                lookahead = readLine();
+                lookaheadLoaded = true;
+            }
+            return lookahead;
+        }
+        
+        /**
+         * Line read the given number of lines before the current one, or null before the start
+         */
+        CharSequence previous(int distance) {
+            if (distance < 1 || distance > LOOKBACK || distance >= lineNumber) {
+                return null;
+            }
+            return history[(lineNumber - distance) % LOOKBACK];
+        }
+        
+        /**
+         * Read the next line, ending at \n, \r or \r\n like BufferedReader.readLine, and trim it
+         */
+        private LineView readLine() throws IOException {
+            if (skipLineFeed) {
+                if (scan == limit && !eof) {
+                    fill();
+                }
+                if (scan < limit && buffer[scan] == '\n') {
+                    scan++;
+                }
+                skipLineFeed = false;
+            }
+            
+            int position = scan;
+            int lineEnd;
+            while (true) {
+                while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                    position++;
+                }
+                if (position < limit) {
+                    lineEnd = position;
+                    skipLineFeed = buffer[position] == '\r';
+                    position++;
+                    break;
+                }
+                if (eof) {
+                    if (scan == limit) {
+                        return null;
+                    }
+                    lineEnd = limit;
+                    break;
+                }
+                position -= fill();
+            }
+            
+            int start = scan;
+            int end = lineEnd;
+            while (start < end && buffer[start] <= ' ') {
+                start++;
+            }
+            while (end > start && buffer[end - 1] <= ' ') {
+                end--;
+            }
+            
+            LineView view = views[readCount % views.length];
+            view.sequence = readCount++;
+            view.rawStart = scan;
+            view.start = start;
+            view.end = end;
+            scan = position;
+            return view;
+        }
+        
+        /**
+         * Read more characters, first dropping buffered text before the oldest line that can still be referenced.
+         * Returns how far the buffer contents were shifted.
+         */
+        private int fill() throws IOException {
+            int keepFrom = scan;
+            for (LineView view : views) {
+                // The view about to be reused for the next line is no longer referenced
+                if (view.sequence >= 0 && view.sequence >= readCount - (views.length - 1) && view.sequence < readCount) {
+                    keepFrom = Math.min(keepFrom, view.rawStart);
+                }
+            }
+            
+            if (keepFrom > 0) {
+                System.arraycopy(buffer, keepFrom, buffer, 0, limit - keepFrom);
+                limit -= keepFrom;
+                scan -= keepFrom;
+                for (LineView view : views) {
+                    view.rawStart -= keepFrom;
+                    view.start -= keepFrom;
+                    view.end -= keepFrom;
+                }
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+            return keepFrom;
+        }
+        
+        /**
+         * View of one trimmed line in the buffer
+         */
+        private class LineView implements CharSequence {
+            private int sequence = -1;
+            private int rawStart;
+            private int start;
+            private int end;
+            
+            @Override
+            public int length() {
+                return end - start;
+            }
+            
+            @Override
+            public char charAt(int index) {
+                return buffer[start + index];
+            }
+            
+            @Override
+            public CharSequence subSequence(int from, int to) {
+                return new String(buffer, start + from, to - from);
+            }
+            
+            @Override
+            public String toString() {
+                return new String(buffer, start, end - start);
+            }
+        }
+    }
+    
+    /**
+     * Thrown when streamed MFM input exceeds the configured size limit
+     */
+    public static class MfmSizeLimitExceededException extends IOException {
+        public MfmSizeLimitExceededException(long maxBytes) {
+            super("MFM file exceeds the maximum size of " + maxBytes + " bytes");
+        }
     }
     
-    public static class MfmDetachmentData {
-        private final String faction;
-        private final String name;
+    /**
+     * Input stream that fails as soon as more than maxBytes have been read
+     */
+    static class SizeLimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long bytesRead = 0;
         
-        public MfmDetachmentData(String faction, String name) {
-            this.faction = faction;
-            this.name = name;
+        SizeLimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
         }
         
-        // Getters
-        public String getFaction() { return faction; }
-        public String getName() { return name; }
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+        
+        private void count(int n) throws MfmSizeLimitExceededException {
+            bytesRead += n;
+            if (bytesRead > maxBytes) {
+                throw new MfmSizeLimitExceededException(maxBytes);
+            }
+        }
     }
     
     public static class MfmParseResult {
@@ -2,7 +2,6 @@ package com.warplay.service;
 
 import com.warplay.entity.*;
 import com.warplay.repository.*;
-import com.warplay.service.MfmRawTextParserService.MfmParseData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,9 +13,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -32,6 +29,12 @@ public class MfmStartupService {
     @Value("${verify.mfm.files:}")
     private String verifyMfmFiles;
     
+    @Value("${verify.mfm.database:false}")
+    private boolean verifyMfmDatabase;
+    
+    @Value("${mfm.archive.retired-on-startup:false}")
+    private boolean archiveRetiredOnStartup;
+    
     @Autowired
     private MfmVersionRepository mfmVersionRepository;
     
@@ -62,6 +65,12 @@ public class MfmStartupService {
     @Autowired
     private MfmVersionManagementService mfmVersionManagementService;
     
+    @Autowired
+    private MfmCatalogService mfmCatalogService;
+    
+    @Autowired
+    private MfmCatalogSnapshotService mfmCatalogSnapshotService;
+    
     // Patterns for parsing
     private static final Pattern VERSION_PATTERN = Pattern.compile("VERSION\\s+(\\d+\\.\\d+)");
     
@@ -75,7 +84,12 @@ public class MfmStartupService {
                 processImportFiles();
             }
             
-            // Note: Verification replaced with regenerated file output in quick summary
+            if (archiveRetiredOnStartup) {
+                List<String> archived = mfmVersionManagementService.archiveRetiredVersions();
+                if (!archived.isEmpty()) {
+                    logger.info("Archived retired MFM versions: {}", archived);
+                }
+            }
             
             logger.info("MFM file processing completed successfully");
             
@@ -96,16 +110,16 @@ public class MfmStartupService {
         }
     }
     
-    private void processVerificationFiles() {
-        logger.info("Processing verification files: {}", verifyMfmFiles);
-        
-        String[] files = verifyMfmFiles.split(",");
-        for (String fileName : files) {
-            fileName = fileName.trim();
-            if (!fileName.isEmpty()) {
-                processVerificationFile(fileName);
+    private boolean isVerificationFile(String fileName) {
+        if (verifyMfmFiles == null) {
+            return false;
+        }
+        for (String verifyFile : verifyMfmFiles.split(",")) {
+            if (verifyFile.trim().equals(fileName)) {
+                return true;
             }
         }
+        return false;
     }
     
     private void processImportFile(String fileName) {
@@ -125,29 +139,49 @@ public class MfmStartupService {
             
             logger.info("Extracted version {} from file {}", version, fileName);
             
-            // Check if version already exists in database
+            // Archived versions are served from their archive, importing them again would undo the archive
             Optional<MfmVersion> existingVersion = mfmVersionRepository.findByVersion(version);
-            if (existingVersion.isPresent()) {
-                logger.info("Version {} already exists, dropping existing data and re-importing", version);
-                mfmVersionManagementService.deleteVersion(version);
+            if (existingVersion.map(MfmVersion::getIsArchived).orElse(false)) {
+                logger.info("Version {} is archived, skipping import of file {}", version, fileName);
+                return;
+            }
+            
+            // A current snapshot means the catalog can be served without re-parsing;
+            // the database only needs a re-import if it no longer holds this version
+            String contentHash = MfmRawTextParserService.contentHash(content);
+            Optional<MfmCatalogService.MfmCatalog> snapshot = mfmCatalogSnapshotService.loadIfCurrent(version, contentHash);
+            if (snapshot.isPresent()) {
+                // Latest only when the stored version is; a version missing from the database is
+                // registered again (with its latest flag) by the import below
+                mfmCatalogService.register(snapshot.get(),
+                    existingVersion.map(stored -> Boolean.TRUE.equals(stored.getIsLatest())).orElse(false));
+                if (existingVersion.isPresent()) {
+                    logger.info("Snapshot for version {} matches file {}, skipping re-import", version, fileName);
+                    return;
+                }
+                logger.info("Snapshot for version {} is current but version is missing from database, importing", version);
             }
             
-            // Parse and import the file - handle both development and production scenarios
-            MfmRawTextParserService.MfmParseResult result;
-            try {
-                // Try to get file path for development
-                String absolutePath = new ClassPathResource(filePath).getFile().getAbsolutePath();
-                result = mfmRawTextParserService.parseAndStoreMfmFile(absolutePath);
-            } catch (Exception e) {
-                // Fallback for production (JAR resources) - parse directly from content
-                logger.info("File not accessible as regular file, parsing directly from JAR resource content");
-                result = parseAndStoreMfmFileFromContent(filePath, content);
+            // A version already in the database is replaced once the re-import is stored
+            if (existingVersion.isPresent()) {
+                logger.info("Version {} already exists, re-importing it", version);
             }
             
+            // Parse and import the already loaded content
+            MfmParseData parseData = mfmRawTextParserService.parseMfmContentPublic(content);
+            parseData.setContentHash(contentHash);
+            MfmRawTextParserService.MfmParseResult result = mfmRawTextParserService.storeAndPublish(
+                parseData, filePath, MfmImportProgress.NONE, existingVersion.isPresent());
+            
             logger.info("Successfully imported {} from file {}: {} units, {} enhancements, {} factions, {} detachments",
                        version, fileName, result.getUnitsCount(), result.getEnhancementsCount(), 
                        result.getFactionsCount(), result.getDetachmentsCount());
             
+            // Check the parse output against the source while both are still in memory
+            if (isVerificationFile(fileName)) {
+                verifyParsedFile(fileName, version, content, parseData);
+            }
+            
             // Generate quick summary with faction statistics
             mfmFeedbackService.generateQuickSummary(version);
             
@@ -156,64 +190,32 @@ public class MfmStartupService {
         }
     }
     
-    private void processVerificationFile(String fileName) {
+    private void verifyParsedFile(String fileName, String version, String content, MfmParseData parseData) {
         try {
-            logger.info("Processing verification file: {}", fileName);
-            
-            // Load file content
-            String filePath = "mfm-files/" + fileName + ".txt";
-            String content = loadFileContent(filePath);
+            logger.info("Verifying file {} against parsed data for version {}", fileName, version);
             
-            // Extract version from file
-            String version = extractVersion(content);
-            if (version == null) {
-                logger.warn("Could not extract version from file: {}", fileName);
-                return;
-            }
+            MfmValidationService.MfmValidationResult result =
+                mfmValidationService.validateParseData(version, content, parseData, verifyMfmDatabase);
             
-            // Check if version exists in database
-            Optional<MfmVersion> existingVersion = mfmVersionRepository.findByVersion(version);
-            if (existingVersion.isEmpty()) {
-                logger.warn("Version {} not found in database, skipping verification", version);
-                return;
-            }
-            
-            // Run validation - handle both development and production scenarios
-            MfmValidationService.MfmValidationResult result;
-            try {
-                // Try to get file path for development
-                String originalFilePath = new ClassPathResource(filePath).getFile().getAbsolutePath();
-                result = mfmValidationService.validateMfmData(version, originalFilePath);
-            } catch (Exception e) {
-                // Fallback for production (JAR resources) - create temporary file
-                logger.info("File not accessible as regular file, creating temporary file for JAR resource validation");
-                Path tempFile = Files.createTempFile("mfm-validation-", ".txt");
-                try {
-                    Files.write(tempFile, content.getBytes());
-                    result = mfmValidationService.validateMfmData(version, tempFile.toString());
-                } finally {
-                    Files.deleteIfExists(tempFile);
-                }
-            }
-            
-            // Generate and save report
-            String reportPath = "mfm-validation-report-" + version + "-" + 
-                               LocalDateTime.now().toString().replace(":", "-") + ".txt";
-            mfmValidationService.saveValidationReport(result, reportPath);
-            
-            logger.info("Verification completed for version {}: {} matches, {} differences, {:.1f}% match rate",
-                       version, result.getMatches(), result.getDifferences().size(), result.getMatchPercentage());
+            logger.info("Verification completed for version {}: {} matches, {} differences, {}% match rate",
+                       version, result.getMatches(), result.getDifferences().size(),
+                       String.format("%.1f", result.getMatchPercentage()));
             
             if (result.isPerfectMatch()) {
                 logger.info("✓ Perfect match for version {}", version);
             } else {
                 logger.warn("⚠ Found {} differences for version {}", result.getDifferences().size(), version);
+                for (MfmValidationService.MfmValidationDifference diff : result.getDifferences()) {
+                    logger.warn("  {} in {} at line {}: {}", diff.getType(), diff.getSection(),
+                               diff.getSourceLine() != null ? diff.getSourceLine() : diff.getRegeneratedLine(),
+                               diff.getSourceText() != null ? diff.getSourceText() : diff.getRegeneratedText());
+                }
                 // Generate detailed feedback report for debugging
                 mfmFeedbackService.generateFeedbackReport(version);
             }
             
         } catch (Exception e) {
-            logger.error("Error processing verification file: {}", fileName, e);
+            logger.error("Error verifying file: {}", fileName, e);
         }
     }
     
@@ -230,33 +232,4 @@ public class MfmStartupService {
         return null;
     }
     
-    /**
-     * Parse and store MFM file directly from content without creating temporary file
-     */
-    private MfmRawTextParserService.MfmParseResult parseAndStoreMfmFileFromContent(String filePath, String content) throws IOException {
-        // Extract version from content
-        String version = extractVersion(content);
-        if (version == null) {
-            throw new IllegalArgumentException("Could not extract version from MFM content");
-        }
-        
-        // Extract date from original file path
-        String date = mfmRawTextParserService.extractDateFromFilename(filePath);
-        
-        // Create or get MFM version (small transaction)
-        MfmVersion mfmVersion = mfmRawTextParserService.createOrGetMfmVersionPublic(version, date);
-        
-        // Parse the content (no database operations)
-        MfmParseData parseData = mfmRawTextParserService.parseMfmContentPublic(content, mfmVersion);
-        
-        // Store in database (separate transaction)
-        mfmRawTextParserService.storeParseDataPublic(parseData, mfmVersion);
-        
-        logger.info("Successfully parsed and stored MFM content. Version: {}, Units: {}, Enhancements: {}", 
-                   version, parseData.getUnits().size(), parseData.getEnhancements().size());
-        
-        return new MfmRawTextParserService.MfmParseResult(version, parseData.getUnits().size(), parseData.getEnhancements().size(), 
-                                 parseData.getFactions().size(), parseData.getDetachments().size());
-    }
-    
 }
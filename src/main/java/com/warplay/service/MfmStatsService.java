@@ -0,0 +1,213 @@
+package com.warplay.service;
+
+import com.warplay.repository.MfmFactionRepository;
+import com.warplay.repository.MfmVersionRepository;
+import com.warplay.service.MfmCatalogService.CatalogDetachment;
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.CatalogUnit;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-faction statistics for an MFM version. Computed from the in-memory catalog when it is loaded,
+ * otherwise with a single aggregate query, and cached per version.
+ */
+@Service
+public class MfmStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmStatsService.class);
+
+    public static final String SOURCE_CATALOG = "catalog";
+    public static final String SOURCE_DATABASE = "database";
+
+    @Autowired
+    private MfmCatalogService mfmCatalogService;
+
+    @Autowired
+    private MfmFactionRepository mfmFactionRepository;
+
+    @Autowired
+    private MfmVersionRepository mfmVersionRepository;
+
+    private final Map<String, CachedStats> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Get statistics for a version
+     */
+    public MfmVersionStats getStats(String version) {
+        Optional<MfmCatalog> catalog = mfmCatalogService.getCatalog(version);
+        CachedStats cached = cache.get(version);
+
+        if (catalog.isPresent()) {
+            // A re-import registers a new catalog instance, which invalidates stats built from the old one
+            if (cached != null && cached.catalog == catalog.get()) {
+                return cached.stats;
+            }
+            MfmVersionStats stats = fromCatalog(catalog.get());
+            cache.put(version, new CachedStats(catalog.get(), stats));
+            return stats;
+        }
+
+        if (cached != null && cached.catalog == null) {
+            return cached.stats;
+        }
+
+        MfmVersionStats stats = fromDatabase(version);
+        cache.put(version, new CachedStats(null, stats));
+        return stats;
+    }
+
+    /**
+     * Drop cached statistics for a version
+     */
+    public void evict(String version) {
+        cache.remove(version);
+    }
+
+    private MfmVersionStats fromCatalog(MfmCatalog catalog) {
+        List<FactionStats> factions = new ArrayList<>();
+        for (CatalogFaction faction : catalog.getFactions()) {
+            int variantCount = 0;
+            int minPoints = Integer.MAX_VALUE;
+            int maxPoints = Integer.MIN_VALUE;
+            long totalPoints = 0;
+            for (CatalogUnit unit : faction.getUnits()) {
+                for (int i = 0; i < unit.getVariantCount(); i++) {
+                    int points = unit.getPoints(i);
+                    variantCount++;
+                    minPoints = Math.min(minPoints, points);
+                    maxPoints = Math.max(maxPoints, points);
+                    totalPoints += points;
+                }
+            }
+
+            int enhancementCount = 0;
+            for (CatalogDetachment detachment : faction.getDetachments()) {
+                enhancementCount += detachment.getEnhancementCount();
+            }
+
+            factions.add(new FactionStats(faction.getName(), faction.getSupergroup(), faction.getAllyTo(),
+                faction.getUnits().size(), variantCount, faction.getDetachments().size(), enhancementCount,
+                variantCount > 0 ? minPoints : null,
+                variantCount > 0 ? maxPoints : null,
+                variantCount > 0 ? (double) totalPoints / variantCount : null));
+        }
+        return new MfmVersionStats(catalog.getVersion(), SOURCE_CATALOG, factions);
+    }
+
+    private MfmVersionStats fromDatabase(String version) {
+        long start = System.nanoTime();
+        List<Object[]> rows = mfmFactionRepository.findFactionStatsByVersion(version);
+        if (rows.isEmpty() && !mfmVersionRepository.existsByVersion(version)) {
+            throw new IllegalArgumentException("MFM version not found: " + version);
+        }
+
+        List<FactionStats> factions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            factions.add(new FactionStats(
+                (String) row[0],
+                (String) row[1],
+                (String) row[2],
+                ((Number) row[3]).intValue(),
+                ((Number) row[4]).intValue(),
+                ((Number) row[8]).intValue(),
+                ((Number) row[9]).intValue(),
+                row[5] != null ? ((Number) row[5]).intValue() : null,
+                row[6] != null ? ((Number) row[6]).intValue() : null,
+                row[7] != null ? ((Number) row[7]).doubleValue() : null));
+        }
+
+        logger.info("Computed MFM stats for version {} from database in {} ms", version, (System.nanoTime() - start) / 1_000_000);
+        return new MfmVersionStats(version, SOURCE_DATABASE, factions);
+    }
+
+    private static class CachedStats {
+        private final MfmCatalog catalog;
+        private final MfmVersionStats stats;
+
+        CachedStats(MfmCatalog catalog, MfmVersionStats stats) {
+            this.catalog = catalog;
+            this.stats = stats;
+        }
+    }
+
+    // Data classes for statistics
+
+    public static class MfmVersionStats {
+        private final String version;
+        private final String source;
+        private final List<FactionStats> factions;
+
+        public MfmVersionStats(String version, String source, List<FactionStats> factions) {
+            this.version = version;
+            this.source = source;
+            this.factions = Collections.unmodifiableList(factions);
+        }
+
+        public int getTotalUnits() {
+            return factions.stream().mapToInt(FactionStats::getUnits).sum();
+        }
+
+        public int getTotalVariants() {
+            return factions.stream().mapToInt(FactionStats::getVariants).sum();
+        }
+
+        public int getTotalDetachments() {
+            return factions.stream().mapToInt(FactionStats::getDetachments).sum();
+        }
+
+        public int getTotalEnhancements() {
+            return factions.stream().mapToInt(FactionStats::getEnhancements).sum();
+        }
+
+        // Getters
+        public String getVersion() { return version; }
+        public String getSource() { return source; }
+        public List<FactionStats> getFactions() { return factions; }
+    }
+
+    public static class FactionStats {
+        private final String name;
+        private final String supergroup;
+        private final String allyTo;
+        private final int units;
+        private final int variants;
+        private final int detachments;
+        private final int enhancements;
+        private final Integer minPoints;
+        private final Integer maxPoints;
+        private final Double avgPoints;
+
+        public FactionStats(String name, String supergroup, String allyTo, int units, int variants,
+                            int detachments, int enhancements, Integer minPoints, Integer maxPoints, Double avgPoints) {
+            this.name = name;
+            this.supergroup = supergroup;
+            this.allyTo = allyTo;
+            this.units = units;
+            this.variants = variants;
+            this.detachments = detachments;
+            this.enhancements = enhancements;
+            this.minPoints = minPoints;
+            this.maxPoints = maxPoints;
+            this.avgPoints = avgPoints;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public String getSupergroup() { return supergroup; }
+        public String getAllyTo() { return allyTo; }
+        public int getUnits() { return units; }
+        public int getVariants() { return variants; }
+        public int getDetachments() { return detachments; }
+        public int getEnhancements() { return enhancements; }
+        public Integer getMinPoints() { return minPoints; }
+        public Integer getMaxPoints() { return maxPoints; }
+        public Double getAvgPoints() { return avgPoints; }
+    }
+}
@@ -0,0 +1,37 @@
+package com.warplay.service;
+
+/**
+ * One unit variant (model count and points) read from a points list
+ */
+public class MfmUnitData {
+    private final String faction;
+    private final String detachment;
+    private final String name;
+    private final int modelCount;
+    private final int points;
+    private final boolean isForgeWorld;
+    private final int lineNumber;
+    private final String unitType;
+    
+    public MfmUnitData(String faction, String detachment, String name, int modelCount, 
+                      int points, boolean isForgeWorld, int lineNumber) {
+        this.faction = faction;
+        this.detachment = detachment;
+        this.name = name;
+        this.modelCount = modelCount;
+        this.points = points;
+        this.isForgeWorld = isForgeWorld;
+        this.lineNumber = lineNumber;
+        this.unitType = isForgeWorld ? "Forge World" : "Standard";
+    }
+    
+    // Getters
+    public String getFaction() { return faction; }
+    public String getDetachment() { return detachment; }
+    public String getName() { return name; }
+    public int getModelCount() { return modelCount; }
+    public int getPoints() { return points; }
+    public boolean isForgeWorld() { return isForgeWorld; }
+    public int getLineNumber() { return lineNumber; }
+    public String getUnitType() { return unitType; }
+}
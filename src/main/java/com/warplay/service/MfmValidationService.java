@@ -2,6 +2,10 @@ package com.warplay.service;
 
 import com.warplay.entity.*;
 import com.warplay.repository.*;
+import com.warplay.service.MfmCatalogService.CatalogDetachment;
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.CatalogUnit;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,35 +26,30 @@ public class MfmValidationService {
     @Autowired
     private MfmVersionRepository mfmVersionRepository;
     
-    @Autowired
-    private MfmFactionRepository mfmFactionRepository;
-    
     @Autowired
     private MfmUnitRepository mfmUnitRepository;
     
-    @Autowired
-    private MfmUnitVariantRepository mfmUnitVariantRepository;
-    
     @Autowired
     private MfmDetachmentRepository mfmDetachmentRepository;
     
     @Autowired
-    private MfmEnhancementRepository mfmEnhancementRepository;
+    private MfmRawTextParserService mfmRawTextParserService;
+    
+    private static final String DOTS = " ............................................................ ";
+    private static final String CODEX_PREFIX = "CODEX: ";
     
     /**
-     * Validate parsed data by regenerating the file and comparing with original
+     * Validate the stored data for a version: parse the original file in memory, check the parse output
+     * against the source text, then diff the database against the source.
      */
     public MfmValidationResult validateMfmData(String version, String originalFilePath) throws IOException {
         logger.info("Starting validation for MFM version: {}", version);
         
         // Get the original file content
         String originalContent = Files.readString(Paths.get(originalFilePath));
+        MfmParseData parseData = mfmRawTextParserService.parseMfmContentPublic(originalContent);
         
-        // Regenerate the file from database
-        String regeneratedContent = regenerateMfmFile(version);
-        
-        // Compare the files
-        MfmValidationResult result = compareMfmFiles(originalContent, regeneratedContent, version);
+        MfmValidationResult result = validateParseData(version, originalContent, parseData, true);
         
         logger.info("Validation completed. Matches: {}, Differences: {}", 
                    result.getMatches(), result.getDifferences().size());
@@ -58,58 +57,130 @@ public class MfmValidationService {
         return result;
     }
     
+    /**
+     * Validate parse output against the source text it was parsed from, entirely in memory.
+     * Every points line in the source must be covered by a parsed unit variant or enhancement
+     * with the same points, and every parsed entry must point at such a line.
+     * When verifyDatabase is set, the stored version is also regenerated and diffed against the source.
+     */
+    public MfmValidationResult validateParseData(String version, String sourceContent, MfmParseData parseData,
+                                                 boolean verifyDatabase) {
+        long start = System.nanoTime();
+        SourceText source = new SourceText(sourceContent, parseData);
+        
+        // Index parsed entries by the source line they were read from
+        Map<Integer, Integer> parsedPointsByLine = new HashMap<>();
+        Map<Integer, String> parsedNameByLine = new HashMap<>();
+        for (MfmUnitData unit : parseData.getUnits()) {
+            parsedPointsByLine.put(unit.getLineNumber(), unit.getPoints());
+            parsedNameByLine.put(unit.getLineNumber(), unit.getName());
+        }
+        for (MfmEnhancementData enhancement : parseData.getEnhancements()) {
+            parsedPointsByLine.put(enhancement.getLineNumber(), enhancement.getPoints());
+            parsedNameByLine.put(enhancement.getLineNumber(), enhancement.getName());
+        }
+        
+        List<MfmValidationDifference> differences = new ArrayList<>();
+        int matches = 0;
+        
+        for (int lineNumber = 1; lineNumber <= source.lineCount(); lineNumber++) {
+            int sourcePoints = source.points(lineNumber);
+            Integer parsedPoints = parsedPointsByLine.remove(lineNumber);
+            if (sourcePoints >= 0) {
+                if (parsedPoints == null) {
+                    differences.add(new MfmValidationDifference(source.section(lineNumber), DifferenceType.NOT_PARSED,
+                        lineNumber, source.text(lineNumber), null, null, "Points line was not parsed"));
+                } else if (parsedPoints != sourcePoints) {
+                    differences.add(new MfmValidationDifference(source.section(lineNumber), DifferenceType.POINTS_MISMATCH,
+                        lineNumber, source.text(lineNumber), null, null,
+                        "Parsed " + parsedNameByLine.get(lineNumber) + " with " + parsedPoints + " pts instead of " + sourcePoints));
+                } else {
+                    matches++;
+                }
+            } else if (parsedPoints != null) {
+                differences.add(new MfmValidationDifference(source.section(lineNumber), DifferenceType.NO_SOURCE_POINTS,
+                    lineNumber, source.text(lineNumber), null, null,
+                    "Parsed " + parsedNameByLine.get(lineNumber) + " from a line without points"));
+            }
+        }
+        
+        // Entries whose line number is past the end of the source
+        for (Map.Entry<Integer, Integer> entry : parsedPointsByLine.entrySet()) {
+            differences.add(new MfmValidationDifference(null, DifferenceType.NO_SOURCE_POINTS,
+                entry.getKey(), null, null, null,
+                "Parsed " + parsedNameByLine.get(entry.getKey()) + " from a line outside the source"));
+        }
+        
+        if (verifyDatabase) {
+            differences.addAll(diffAgainstSource(source, regenerateMfmFile(version)));
+        }
+        
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Validated MFM version {} in {} ms: {} matches, {} differences",
+                   version, durationMillis, matches, differences.size());
+        
+        return new MfmValidationResult(version, matches, differences, durationMillis);
+    }
+    
+    /**
+     * Diff regenerated MFM text against the source it should reproduce. Only points lines take part;
+     * they are normalized without regexes, grouped by faction section and diffed per section in parallel,
+     * so each difference carries its section and the line numbers on both sides.
+     */
+    public List<MfmValidationDifference> diffAgainstSource(String sourceContent, MfmParseData parseData,
+                                                           String regeneratedContent) {
+        return diffAgainstSource(new SourceText(sourceContent, parseData), regeneratedContent);
+    }
+    
+    private List<MfmValidationDifference> diffAgainstSource(SourceText source, String regeneratedContent) {
+        Map<String, List<NormalizedLine>> sourceSections = source.pointsLinesBySection();
+        Map<String, List<NormalizedLine>> regeneratedSections = sectionsOfRegeneratedText(regeneratedContent);
+        
+        Set<String> sections = new LinkedHashSet<>(sourceSections.keySet());
+        sections.addAll(regeneratedSections.keySet());
+        
+        return sections.parallelStream()
+            .map(section -> diffSection(section,
+                sourceSections.getOrDefault(section, Collections.emptyList()),
+                regeneratedSections.getOrDefault(section, Collections.emptyList())))
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    }
+    
     /**
      * Regenerate MFM file from database data
      */
     public String regenerateMfmFile(String version) {
         logger.info("Regenerating MFM file for version: {}", version);
         
-        Optional<MfmVersion> mfmVersionOpt = mfmVersionRepository.findByVersion(version);
-        if (mfmVersionOpt.isEmpty()) {
-            throw new IllegalArgumentException("MFM version not found: " + version);
-        }
-        
-        MfmVersion mfmVersion = mfmVersionOpt.get();
+        return renderCatalog(loadCatalogFromDatabase(version));
+    }
+    
+    /**
+     * Render a catalog in the raw MFM layout, factions in catalog order
+     */
+    static String renderCatalog(MfmCatalog catalog) {
         StringBuilder content = new StringBuilder();
         
         // Add header
         content.append("MUNITORUM\n");
         content.append("FIELD MANUAL\n");
-        content.append(" VERSION ").append(version).append("\n\n");
+        content.append(" VERSION ").append(catalog.getVersion()).append("\n\n");
         
-        // Get factions in the original order from the raw file
-        List<MfmFaction> factions = getFactionsInOriginalOrder(version);
-        
-        for (MfmFaction faction : factions) {
+        for (CatalogFaction faction : catalog.getFactions()) {
             // Add faction header
-            content.append("CODEX: ").append(faction.getName()).append("\n");
-            
-            // Get units for this faction
-            List<MfmUnit> units = mfmUnitRepository.findByFaction(faction);
+            content.append(CODEX_PREFIX).append(faction.getName()).append("\n");
             
-            // Group units by detachment
-            Map<String, List<MfmUnit>> unitsByDetachment = new HashMap<>();
-            List<MfmUnit> unitsWithoutDetachment = new ArrayList<>();
-            
-            for (MfmUnit unit : units) {
-                // For now, we'll treat all units as having no detachment
-                // In a real implementation, you'd need to track detachment relationships
-                unitsWithoutDetachment.add(unit);
-            }
-            
-            // Add units without detachment
-            for (MfmUnit unit : unitsWithoutDetachment) {
+            for (CatalogUnit unit : faction.getUnits()) {
                 addUnitToContent(content, unit);
             }
             
             // Add detachment enhancements
-            List<MfmDetachment> detachments = mfmDetachmentRepository.findByFaction(faction);
-            for (MfmDetachment detachment : detachments) {
+            for (CatalogDetachment detachment : faction.getDetachments()) {
                 content.append("\n").append(detachment.getName()).append("\n");
-                
-                List<MfmEnhancement> enhancements = mfmEnhancementRepository.findByDetachment(detachment);
-                for (MfmEnhancement enhancement : enhancements) {
-                    addEnhancementToContent(content, enhancement);
+                for (int i = 0; i < detachment.getEnhancementCount(); i++) {
+                    content.append(detachment.getEnhancementName(i)).append(DOTS)
+                        .append(detachment.getEnhancementPoints(i)).append(" pts\n");
                 }
             }
             
@@ -120,159 +191,309 @@ public class MfmValidationService {
     }
     
     /**
-     * Get factions in the original order from the raw file
+     * Load a stored version into a catalog with two fetch-join queries instead of per-unit lookups.
+     * Factions come out in the order they were imported, which is the order of the raw file.
      */
-    private List<MfmFaction> getFactionsInOriginalOrder(String version) {
-        // Define the original faction order from the raw file
-        List<String> originalFactionOrder = Arrays.asList(
-            "ADEPTA SORORITAS",
-            "ADEPTUS CUSTODES", 
-            "ADEPTUS MECHANICUS",
-            "AELDARI",
-            "ASTRA MILITARUM",
-            "BLACK TEMPLARS",
-            "CHAOS KNIGHTS",
-            "CHAOS SPACE MARINES",
-            "DEATH GUARD",
-            "EMPEROR'S CHILDREN",
-            "GENESTEALER CULTS",
-            "GREY KNIGHTS",
-            "IMPERIAL AGENTS",
-            "LEAGUES OF VOTANN",
-            "NECRONS",
-            "ORKS",
-            "SPACE MARINES",
-            "SPACE WOLVES",
-            "T'AU EMPIRE",
-            "THOUSAND SONS",
-            "TYRANIDS",
-            "WORLD EATERS"
-        );
-        
-        // Get all factions for this version
-        List<MfmFaction> allFactions = mfmFactionRepository.findByMfmVersion(
-            mfmVersionRepository.findByVersion(version).orElseThrow()
-        );
-        
-        // Create a map for quick lookup
-        Map<String, MfmFaction> factionMap = allFactions.stream()
-            .collect(Collectors.toMap(MfmFaction::getName, f -> f));
-        
-        // Return factions in original order
-        return originalFactionOrder.stream()
-            .map(factionMap::get)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+    public MfmCatalog loadCatalogFromDatabase(String version) {
+        MfmVersion mfmVersion = mfmVersionRepository.findByVersion(version)
+            .orElseThrow(() -> new IllegalArgumentException("MFM version not found: " + version));
+        
+        Map<String, List<CatalogUnit>> unitsByFaction = new LinkedHashMap<>();
+        for (MfmUnit unit : mfmUnitRepository.findAllWithVariantsByVersion(version)) {
+            List<MfmUnitVariant> variants = new ArrayList<>(unit.getVariants());
+            if (variants.isEmpty()) {
+                continue;
+            }
+            variants.sort(Comparator.comparing(MfmUnitVariant::getId));
+            int[] modelCounts = new int[variants.size()];
+            int[] points = new int[variants.size()];
+            for (int i = 0; i < variants.size(); i++) {
+                modelCounts[i] = variants.get(i).getModelCount();
+                points[i] = variants.get(i).getPoints();
+            }
+            unitsByFaction.computeIfAbsent(unit.getFaction().getName(), k -> new ArrayList<>())
+                .add(new CatalogUnit(unit.getName(), unit.getUnitType(), modelCounts, points));
+        }
+        
+        Map<String, List<CatalogDetachment>> detachmentsByFaction = new LinkedHashMap<>();
+        for (MfmDetachment detachment : mfmDetachmentRepository.findAllWithEnhancementsByVersion(version)) {
+            List<MfmEnhancement> enhancements = new ArrayList<>(detachment.getEnhancements());
+            enhancements.sort(Comparator.comparing(MfmEnhancement::getId));
+            String[] names = new String[enhancements.size()];
+            int[] points = new int[enhancements.size()];
+            for (int i = 0; i < enhancements.size(); i++) {
+                names[i] = enhancements.get(i).getName();
+                points[i] = enhancements.get(i).getPoints();
+            }
+            detachmentsByFaction.computeIfAbsent(detachment.getFaction().getName(), k -> new ArrayList<>())
+                .add(new CatalogDetachment(detachment.getName(), names, points));
+        }
+        
+        Set<String> factionNames = new LinkedHashSet<>(unitsByFaction.keySet());
+        factionNames.addAll(detachmentsByFaction.keySet());
+        List<CatalogFaction> factions = new ArrayList<>();
+        for (String factionName : factionNames) {
+            factions.add(new CatalogFaction(factionName,
+                MfmRawTextParserService.determineSupergroup(factionName),
+                MfmRawTextParserService.determineAllyTo(factionName),
+                unitsByFaction.getOrDefault(factionName, Collections.emptyList()),
+                detachmentsByFaction.getOrDefault(factionName, Collections.emptyList())));
+        }
+        
+        return new MfmCatalog(mfmVersion.getGameSystem(), version, mfmVersion.getDate(), null, factions);
     }
     
     /**
      * Add unit to content
      */
-    private void addUnitToContent(StringBuilder content, MfmUnit unit) {
-        List<MfmUnitVariant> variants = mfmUnitVariantRepository.findByUnit(unit);
-        
-        if (variants.isEmpty()) {
-            return;
-        }
-        
+    private static void addUnitToContent(StringBuilder content, CatalogUnit unit) {
         // Add unit name
         content.append(" ").append(unit.getName()).append("\n");
         
         // Add variants
-        for (MfmUnitVariant variant : variants) {
-            content.append(String.format("%d models ............................................................ %d pts\n", 
-                                       variant.getModelCount(), variant.getPoints()));
+        for (int i = 0; i < unit.getVariantCount(); i++) {
+            int modelCount = unit.getModelCount(i);
+            content.append(modelCount).append(modelCount == 1 ? " model" : " models").append(DOTS)
+                .append(unit.getPoints(i)).append(" pts\n");
         }
     }
     
     /**
-     * Add enhancement to content
+     * Points lines of regenerated text, grouped by the "CODEX: " header they follow
      */
-    private void addEnhancementToContent(StringBuilder content, MfmEnhancement enhancement) {
-        content.append(String.format("%s ..................................... %d pts\n", 
-                                   enhancement.getName(), enhancement.getPoints()));
+    private static Map<String, List<NormalizedLine>> sectionsOfRegeneratedText(String content) {
+        Map<String, List<NormalizedLine>> sections = new LinkedHashMap<>();
+        String section = "";
+        int lineNumber = 0;
+        int lineStart = 0;
+        while (lineStart < content.length()) {
+            int lineEnd = content.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = content.length();
+            }
+            lineNumber++;
+            
+            if (content.startsWith(CODEX_PREFIX, lineStart)) {
+                section = content.substring(lineStart + CODEX_PREFIX.length(), lineEnd).trim();
+            } else {
+                String normalized = normalizePointsLine(content, lineStart, lineEnd);
+                if (normalized != null) {
+                    sections.computeIfAbsent(section, k -> new ArrayList<>())
+                        .add(new NormalizedLine(lineNumber, normalized, content.substring(lineStart, lineEnd).trim()));
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return sections;
     }
     
     /**
-     * Compare original and regenerated files
+     * Diff one faction section with Myers' algorithm. A deletion followed by an insertion of the same
+     * entry with other points is reported as a single points difference.
      */
-    private MfmValidationResult compareMfmFiles(String originalContent, String regeneratedContent, String version) {
-        String[] originalLines = originalContent.split("\n");
-        String[] regeneratedLines = regeneratedContent.split("\n");
+    private static List<MfmValidationDifference> diffSection(String section, List<NormalizedLine> source,
+                                                             List<NormalizedLine> regenerated) {
+        // Intern normalized lines so the diff compares ints
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = new int[source.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = ids.computeIfAbsent(source.get(i).normalized, k -> ids.size());
+        }
+        int[] b = new int[regenerated.size()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = ids.computeIfAbsent(regenerated.get(i).normalized, k -> ids.size());
+        }
         
         List<MfmValidationDifference> differences = new ArrayList<>();
-        int matches = 0;
-        
-        // Normalize and compare lines
-        Map<String, Integer> originalNormalized = normalizeAndCountLines(originalLines);
-        Map<String, Integer> regeneratedNormalized = normalizeAndCountLines(regeneratedLines);
-        
-        // Find differences
-        Set<String> allKeys = new HashSet<>();
-        allKeys.addAll(originalNormalized.keySet());
-        allKeys.addAll(regeneratedNormalized.keySet());
-        
-        for (String key : allKeys) {
-            int originalCount = originalNormalized.getOrDefault(key, 0);
-            int regeneratedCount = regeneratedNormalized.getOrDefault(key, 0);
+        List<int[]> edits = myersDiff(a, b);
+        int i = 0;
+        while (i < edits.size()) {
+            int[] edit = edits.get(i);
+            if (edit[0] == EDIT_EQUAL) {
+                i++;
+                continue;
+            }
             
-            if (originalCount != regeneratedCount) {
-                differences.add(new MfmValidationDifference(
-                    key, originalCount, regeneratedCount, 
-                    originalCount > regeneratedCount ? "Missing in regenerated" : "Extra in regenerated"
-                ));
-            } else {
-                matches += originalCount;
+            // Collect a run of deletions and insertions and pair them up in order
+            List<NormalizedLine> deleted = new ArrayList<>();
+            List<NormalizedLine> inserted = new ArrayList<>();
+            while (i < edits.size() && edits.get(i)[0] != EDIT_EQUAL) {
+                if (edits.get(i)[0] == EDIT_DELETE) {
+                    deleted.add(source.get(edits.get(i)[1]));
+                } else {
+                    inserted.add(regenerated.get(edits.get(i)[2]));
+                }
+                i++;
+            }
+            
+            int paired = 0;
+            while (paired < deleted.size() && paired < inserted.size()
+                    && deleted.get(paired).label().equals(inserted.get(paired).label())) {
+                NormalizedLine from = deleted.get(paired);
+                NormalizedLine to = inserted.get(paired);
+                differences.add(new MfmValidationDifference(section, DifferenceType.POINTS_MISMATCH,
+                    from.lineNumber, from.text, to.lineNumber, to.text, "Points differ"));
+                paired++;
+            }
+            for (int d = paired; d < deleted.size(); d++) {
+                NormalizedLine line = deleted.get(d);
+                differences.add(new MfmValidationDifference(section, DifferenceType.MISSING_IN_REGENERATED,
+                    line.lineNumber, line.text, null, null, "Missing in regenerated"));
+            }
+            for (int n = paired; n < inserted.size(); n++) {
+                NormalizedLine line = inserted.get(n);
+                differences.add(new MfmValidationDifference(section, DifferenceType.EXTRA_IN_REGENERATED,
+                    null, null, line.lineNumber, line.text, "Extra in regenerated"));
             }
         }
-        
-        return new MfmValidationResult(version, matches, differences);
+        return differences;
     }
     
+    static final int EDIT_EQUAL = 0;
+    static final int EDIT_DELETE = 1;
+    static final int EDIT_INSERT = 2;
+    
     /**
-     * Normalize lines for comparison (remove dots, normalize spacing, etc.)
+     * Shortest edit script between a and b (Myers, O((N+M)D)). Each edit is {type, index in a, index in b}.
      */
-    private Map<String, Integer> normalizeAndCountLines(String[] lines) {
-        Map<String, Integer> normalized = new HashMap<>();
-        
-        for (String line : lines) {
-            String normalizedLine = normalizeLine(line);
-            if (!normalizedLine.isEmpty()) {
-                normalized.put(normalizedLine, normalized.getOrDefault(normalizedLine, 0) + 1);
+    static List<int[]> myersDiff(int[] a, int[] b) {
+        int n = a.length;
+        int m = b.length;
+        int max = n + m;
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        
+        int distance = -1;
+        for (int d = 0; d <= max && distance < 0; d++) {
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                    ? v[offset + k + 1]
+                    : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    distance = d;
+                    break;
+                }
             }
         }
         
-        return normalized;
+        // Walk the trace backwards to recover the edits
+        LinkedList<int[]> edits = new LinkedList<>();
+        int x = n;
+        int y = m;
+        for (int d = distance; d >= 0; d--) {
+            int[] vd = trace.get(d);
+            int k = x - y;
+            int prevK = (k == -d || (k != d && vd[offset + k - 1] < vd[offset + k + 1])) ? k + 1 : k - 1;
+            int prevX = vd[offset + prevK];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                x--;
+                y--;
+                edits.addFirst(new int[] { EDIT_EQUAL, x, y });
+            }
+            if (d > 0) {
+                if (x == prevX) {
+                    y--;
+                    edits.addFirst(new int[] { EDIT_INSERT, x, y });
+                } else {
+                    x--;
+                    edits.addFirst(new int[] { EDIT_DELETE, x, y });
+                }
+            }
+        }
+        return edits;
     }
     
     /**
-     * Normalize a single line for comparison
+     * Normalize a points line to "label points pts": dot leaders, points adjustments such as "(-10)",
+     * "+" signs and repeated whitespace are dropped. Returns null for lines without points.
      */
-    private String normalizeLine(String line) {
-        if (line == null || line.trim().isEmpty()) {
-            return "";
+    static String normalizePointsLine(CharSequence text, int start, int end) {
+        int points = trailingPoints(text, start, end);
+        if (points < 0) {
+            return null;
         }
         
-        String normalized = line.trim();
-        
-        // Remove page numbers (just digits)
-        if (normalized.matches("^\\d+$")) {
-            return "";
+        StringBuilder normalized = new StringBuilder();
+        boolean pendingSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && i + 1 < end && text.charAt(i + 1) == '.') {
+                break; // start of the dot leader
+            }
+            if (c == '(' || c == '+' || (Character.isDigit(c) && isPointsTail(text, i, end))) {
+                break; // adjustment or points without a dot leader
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
         }
         
-        // Normalize dots to a consistent pattern
-        normalized = normalized.replaceAll("\\.+", ".");
-        
-        // Normalize multiple spaces to single space
-        normalized = normalized.replaceAll("\\s+", " ");
-        
-        // Remove point adjustments like "(-15)" or "(+10)"
-        normalized = normalized.replaceAll("\\([+-]\\d+\\)", "");
-        
-        // Normalize "pts" to consistent format
-        normalized = normalized.replaceAll("\\s+pts", " pts");
-        
-        return normalized;
+        int labelEnd = normalized.length();
+        while (labelEnd > 0 && normalized.charAt(labelEnd - 1) == '.') {
+            labelEnd--;
+        }
+        normalized.setLength(labelEnd);
+        return normalized.append(' ').append(points).append(" pts").toString();
+    }
+    
+    /**
+     * Whether the text from index i to the end is only the trailing "N pts"
+     */
+    private static boolean isPointsTail(CharSequence text, int i, int end) {
+        int j = i;
+        while (j < end && Character.isDigit(text.charAt(j))) {
+            j++;
+        }
+        while (j < end && text.charAt(j) == ' ') {
+            j++;
+        }
+        if (j + 3 > end || text.charAt(j) != 'p' || text.charAt(j + 1) != 't' || text.charAt(j + 2) != 's') {
+            return false;
+        }
+        j += 3;
+        while (j < end && Character.isWhitespace(text.charAt(j))) {
+            j++;
+        }
+        return j == end;
+    }
+    
+    /**
+     * Points value at the end of a line such as "5 models ....... (-10) 105 pts", or -1 if the line has none
+     */
+    static int trailingPoints(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start < 3 || text.charAt(end - 3) != 'p' || text.charAt(end - 2) != 't' || text.charAt(end - 1) != 's') {
+            return -1;
+        }
+        end -= 3;
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int digitsEnd = end;
+        while (end > start && Character.isDigit(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end == digitsEnd) {
+            return -1;
+        }
+        return Integer.parseInt(text, end, digitsEnd, 10);
     }
     
     /**
@@ -292,10 +513,7 @@ public class MfmValidationService {
             report.append("-----------------\n");
             
             for (MfmValidationDifference diff : result.getDifferences()) {
-                report.append("Line: ").append(diff.getLine()).append("\n");
-                report.append("  Original Count: ").append(diff.getOriginalCount()).append("\n");
-                report.append("  Regenerated Count: ").append(diff.getRegeneratedCount()).append("\n");
-                report.append("  Issue: ").append(diff.getIssue()).append("\n\n");
+                appendDifference(report, diff);
             }
         } else {
             report.append("✓ All data matches perfectly!\n");
@@ -304,6 +522,20 @@ public class MfmValidationService {
         return report.toString();
     }
     
+    /**
+     * Append one difference to a text report
+     */
+    public static void appendDifference(StringBuilder report, MfmValidationDifference diff) {
+        report.append(diff.getType()).append(" in ").append(diff.getSection() != null ? diff.getSection() : "(no section)").append("\n");
+        if (diff.getSourceLine() != null) {
+            report.append("  Source line ").append(diff.getSourceLine()).append(": ").append(diff.getSourceText()).append("\n");
+        }
+        if (diff.getRegeneratedLine() != null) {
+            report.append("  Regenerated line ").append(diff.getRegeneratedLine()).append(": ").append(diff.getRegeneratedText()).append("\n");
+        }
+        report.append("  Issue: ").append(diff.getIssue()).append("\n\n");
+    }
+    
     /**
      * Save validation report to file
      */
@@ -315,23 +547,134 @@ public class MfmValidationService {
         logger.info("Validation report saved to: {}", reportPath.toAbsolutePath());
     }
     
+    /**
+     * Source text split into lines, with each line assigned to the faction of the parsed entries around it
+     */
+    private static class SourceText {
+        private final String content;
+        private final int[] lineStarts;
+        private final String[] sections;
+        
+        SourceText(String content, MfmParseData parseData) {
+            this.content = content;
+            
+            List<Integer> starts = new ArrayList<>();
+            int lineStart = 0;
+            while (lineStart < content.length()) {
+                starts.add(lineStart);
+                int lineEnd = content.indexOf('\n', lineStart);
+                lineStart = lineEnd < 0 ? content.length() : lineEnd + 1;
+            }
+            this.lineStarts = new int[starts.size() + 1];
+            for (int i = 0; i < starts.size(); i++) {
+                lineStarts[i] = starts.get(i);
+            }
+            lineStarts[starts.size()] = content.length() + 1;
+            
+            // Lines take the faction of the nearest parsed entry at or before them
+            String[] factionAtLine = new String[starts.size() + 1];
+            for (MfmUnitData unit : parseData.getUnits()) {
+                if (unit.getLineNumber() > 0 && unit.getLineNumber() < factionAtLine.length) {
+                    factionAtLine[unit.getLineNumber()] = unit.getFaction();
+                }
+            }
+            for (MfmEnhancementData enhancement : parseData.getEnhancements()) {
+                if (enhancement.getLineNumber() > 0 && enhancement.getLineNumber() < factionAtLine.length) {
+                    factionAtLine[enhancement.getLineNumber()] = enhancement.getFaction();
+                }
+            }
+            this.sections = new String[factionAtLine.length];
+            String current = "";
+            for (int line = 1; line < factionAtLine.length; line++) {
+                if (factionAtLine[line] != null) {
+                    current = factionAtLine[line];
+                }
+                sections[line] = current;
+            }
+        }
+        
+        int lineCount() {
+            return lineStarts.length - 1;
+        }
+        
+        private int lineEnd(int lineNumber) {
+            int end = lineStarts[lineNumber] - 1;
+            return Math.min(end, content.length());
+        }
+        
+        String text(int lineNumber) {
+            return content.substring(lineStarts[lineNumber - 1], lineEnd(lineNumber)).trim();
+        }
+        
+        String section(int lineNumber) {
+            return sections[lineNumber];
+        }
+        
+        int points(int lineNumber) {
+            return trailingPoints(content, lineStarts[lineNumber - 1], lineEnd(lineNumber));
+        }
+        
+        Map<String, List<NormalizedLine>> pointsLinesBySection() {
+            Map<String, List<NormalizedLine>> bySection = new LinkedHashMap<>();
+            for (int lineNumber = 1; lineNumber <= lineCount(); lineNumber++) {
+                String normalized = normalizePointsLine(content, lineStarts[lineNumber - 1], lineEnd(lineNumber));
+                if (normalized != null) {
+                    bySection.computeIfAbsent(sections[lineNumber], k -> new ArrayList<>())
+                        .add(new NormalizedLine(lineNumber, normalized, text(lineNumber)));
+                }
+            }
+            return bySection;
+        }
+    }
+    
+    private static class NormalizedLine {
+        private final int lineNumber;
+        private final String normalized;
+        private final String text;
+        
+        NormalizedLine(int lineNumber, String normalized, String text) {
+            this.lineNumber = lineNumber;
+            this.normalized = normalized;
+            this.text = text;
+        }
+        
+        /**
+         * Normalized line without its points, identifying the entry
+         */
+        String label() {
+            int pointsStart = normalized.lastIndexOf(' ', normalized.length() - 5);
+            return pointsStart > 0 ? normalized.substring(0, pointsStart) : "";
+        }
+    }
+    
     // Data classes for validation results
     
+    public enum DifferenceType {
+        NOT_PARSED,
+        NO_SOURCE_POINTS,
+        POINTS_MISMATCH,
+        MISSING_IN_REGENERATED,
+        EXTRA_IN_REGENERATED
+    }
+    
     public static class MfmValidationResult {
         private final String version;
         private final int matches;
         private final List<MfmValidationDifference> differences;
+        private final long durationMillis;
         
-        public MfmValidationResult(String version, int matches, List<MfmValidationDifference> differences) {
+        public MfmValidationResult(String version, int matches, List<MfmValidationDifference> differences, long durationMillis) {
             this.version = version;
             this.matches = matches;
             this.differences = differences;
+            this.durationMillis = durationMillis;
         }
         
         // Getters
         public String getVersion() { return version; }
         public int getMatches() { return matches; }
         public List<MfmValidationDifference> getDifferences() { return differences; }
+        public long getDurationMillis() { return durationMillis; }
         
         public boolean isPerfectMatch() {
             return differences.isEmpty();
@@ -341,25 +684,46 @@ public class MfmValidationService {
             int total = matches + differences.size();
             return total > 0 ? (double) matches / total * 100 : 100.0;
         }
+        
+        /**
+         * Number of differences per faction section, in order of first appearance
+         */
+        public Map<String, Integer> getDifferencesBySection() {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (MfmValidationDifference difference : differences) {
+                counts.merge(difference.getSection() != null ? difference.getSection() : "", 1, Integer::sum);
+            }
+            return counts;
+        }
     }
     
     public static class MfmValidationDifference {
-        private final String line;
-        private final int originalCount;
-        private final int regeneratedCount;
+        private final String section;
+        private final DifferenceType type;
+        private final Integer sourceLine;
+        private final String sourceText;
+        private final Integer regeneratedLine;
+        private final String regeneratedText;
         private final String issue;
         
-        public MfmValidationDifference(String line, int originalCount, int regeneratedCount, String issue) {
-            this.line = line;
-            this.originalCount = originalCount;
-            this.regeneratedCount = regeneratedCount;
+        public MfmValidationDifference(String section, DifferenceType type, Integer sourceLine, String sourceText,
+                                       Integer regeneratedLine, String regeneratedText, String issue) {
+            this.section = section;
+            this.type = type;
+            this.sourceLine = sourceLine;
+            this.sourceText = sourceText;
+            this.regeneratedLine = regeneratedLine;
+            this.regeneratedText = regeneratedText;
             this.issue = issue;
         }
         
         // Getters
-        public String getLine() { return line; }
-        public int getOriginalCount() { return originalCount; }
-        public int getRegeneratedCount() { return regeneratedCount; }
+        public String getSection() { return section; }
+        public DifferenceType getType() { return type; }
+        public Integer getSourceLine() { return sourceLine; }
+        public String getSourceText() { return sourceText; }
+        public Integer getRegeneratedLine() { return regeneratedLine; }
+        public String getRegeneratedText() { return regeneratedText; }
         public String getIssue() { return issue; }
     }
 }
@@ -7,7 +7,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,19 +26,22 @@ public class MfmVersionManagementService {
     private MfmVersionRepository mfmVersionRepository;
     
     @Autowired
-    private MfmFactionRepository mfmFactionRepository;
+    private MfmCatalogService mfmCatalogService;
     
     @Autowired
-    private MfmUnitRepository mfmUnitRepository;
+    private MfmStatsService mfmStatsService;
     
     @Autowired
-    private MfmUnitVariantRepository mfmUnitVariantRepository;
+    private MfmPartitionService mfmPartitionService;
     
     @Autowired
-    private MfmDetachmentRepository mfmDetachmentRepository;
+    private MfmCatalogArchiveService mfmCatalogArchiveService;
     
     @Autowired
-    private MfmEnhancementRepository mfmEnhancementRepository;
+    private MfmValidationService mfmValidationService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
     
     /**
      * Deactivate a specific MFM version
@@ -116,19 +125,9 @@ public class MfmVersionManagementService {
      */
     @Transactional
     public void deleteVersion(String version) {
-        Optional<MfmVersion> versionOpt = mfmVersionRepository.findByVersion(version);
-        if (versionOpt.isPresent()) {
-            MfmVersion mfmVersion = versionOpt.get();
-            
-            // Delete in correct order to respect foreign key constraints
-            mfmEnhancementRepository.deleteByDetachmentFactionMfmVersion(mfmVersion);
-            mfmUnitVariantRepository.deleteByUnitFactionMfmVersion(mfmVersion);
-            mfmDetachmentRepository.deleteByFactionMfmVersion(mfmVersion);
-            mfmUnitRepository.deleteByFactionMfmVersion(mfmVersion);
-            mfmFactionRepository.deleteByMfmVersion(mfmVersion);
-            
-            // Finally delete the version itself
-            mfmVersionRepository.delete(mfmVersion);
+        if (deleteVersionRows(version)) {
+            mfmCatalogService.evict(version);
+            mfmStatsService.evict(version);
             
             logger.info("Successfully deleted MFM version: {}", version);
         } else {
@@ -136,6 +135,125 @@ public class MfmVersionManagementService {
         }
     }
     
+    /**
+     * Move a retired version to a cold archive file and remove its rows from the MFM tables.
+     * The version row stays, flagged as archived; its catalog is rehydrated from the archive when requested.
+     * Returns the archive size in bytes.
+     */
+    @Transactional
+    public long archiveVersion(String version) {
+        MfmVersion mfmVersion = mfmVersionRepository.findByVersion(version)
+            .orElseThrow(() -> new IllegalArgumentException("MFM version not found: " + version));
+        if (Boolean.TRUE.equals(mfmVersion.getIsArchived())) {
+            throw new IllegalStateException("MFM version " + version + " is already archived");
+        }
+        if (mfmVersion.getIsActive() || mfmVersion.getIsLatest()) {
+            throw new IllegalStateException("MFM version " + version + " is still in use, deactivate it before archiving");
+        }
+        
+        // The registered catalog mirrors the stored rows; build it from the database if it is not loaded
+        MfmCatalogService.MfmCatalog catalog = mfmCatalogService.getCatalog(version)
+            .orElseGet(() -> mfmValidationService.loadCatalogFromDatabase(version));
+        long bytes;
+        try {
+            bytes = mfmCatalogArchiveService.writeArchive(catalog);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive MFM version " + version, e);
+        }
+        evictOrDiscardArchiveOnCompletion(version);
+        
+        deleteVersionData(mfmVersion);
+        mfmVersion.setIsArchived(true);
+        mfmVersionRepository.save(mfmVersion);
+        
+        logger.info("Archived MFM version {}", version);
+        return bytes;
+    }
+    
+    /**
+     * Archive every inactive version that is not the latest, each in its own transaction.
+     * Returns the archived versions.
+     */
+    public List<String> archiveRetiredVersions() {
+        List<String> archived = new ArrayList<>();
+        for (MfmVersion version : mfmVersionRepository.findAllByOrderByVersionAsc()) {
+            if (version.getIsActive() || version.getIsLatest() || Boolean.TRUE.equals(version.getIsArchived())
+                || MfmBulkStoreService.isInternalVersion(version.getVersion())) {
+                continue;
+            }
+            try {
+                transactionTemplate.execute(status -> archiveVersion(version.getVersion()));
+                archived.add(version.getVersion());
+            } catch (RuntimeException e) {
+                logger.error("Could not archive MFM version {}", version.getVersion(), e);
+            }
+        }
+        return archived;
+    }
+    
+    private boolean deleteVersionRows(String version) {
+        Optional<MfmVersion> versionOpt = mfmVersionRepository.findByVersion(version);
+        if (versionOpt.isEmpty()) {
+            return false;
+        }
+        MfmVersion mfmVersion = versionOpt.get();
+        
+        deleteVersionData(mfmVersion);
+        deleteArchiveAfterCommit(version);
+        
+        // Finally delete the version itself
+        mfmVersionRepository.delete(mfmVersion);
+        return true;
+    }
+    
+    /**
+     * Delete a version's archive file once the current transaction commits, so a rolled back delete
+     * keeps the archive its version row still points to
+     */
+    private void deleteArchiveAfterCommit(String version) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            mfmCatalogArchiveService.deleteArchive(version);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                mfmCatalogArchiveService.deleteArchive(version);
+            }
+        });
+    }
+    
+    /**
+     * Once the archiving transaction commits, free the version's catalog and stats until someone asks
+     * for the version again. If it rolls back, the version keeps its rows, so the archive file just
+     * written is deleted and the catalog stays loaded.
+     */
+    private void evictOrDiscardArchiveOnCompletion(String version) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            mfmCatalogService.evict(version);
+            mfmStatsService.evict(version);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                mfmCatalogService.evict(version);
+                mfmStatsService.evict(version);
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    mfmCatalogArchiveService.deleteArchive(version);
+                }
+            }
+        });
+    }
+    
+    private void deleteVersionData(MfmVersion mfmVersion) {
+        mfmPartitionService.dropVersionRows(mfmVersion.getId());
+    }
+    
     /**
      * Get version status summary
      */
@@ -149,7 +267,8 @@ public class MfmVersionManagementService {
         for (MfmVersion version : allVersions) {
             String status = version.getIsActive() ? "ACTIVE" : "INACTIVE";
             String latest = version.getIsLatest() ? " (LATEST)" : "";
-            summary.append(String.format("%s: %s%s\n", version.getVersion(), status, latest));
+            String archived = Boolean.TRUE.equals(version.getIsArchived()) ? " (ARCHIVED)" : "";
+            summary.append(String.format("%s: %s%s%s\n", version.getVersion(), status, latest, archived));
         }
         
         return summary.toString();
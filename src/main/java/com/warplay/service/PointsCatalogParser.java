@@ -0,0 +1,25 @@
+package com.warplay.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Parser for one game system's points list. Implementations only turn lines into parse data;
+ * streaming, hashing, bulk storage and the in-memory catalog are shared by every game system.
+ *
+ * Implementations are Spring beans and are picked up by {@link PointsCatalogParserRegistry}.
+ * Version identifiers are unique across game systems, so a parser should produce versions
+ * that cannot clash with another system's (e.g. by prefixing them).
+ */
+public interface PointsCatalogParser {
+
+    /**
+     * Short name of the game system this parser handles, matched against GameSystem.shortName
+     */
+    String getGameSystemShortName();
+
+    /**
+     * Parse a points list read line by line. The version must be set on the returned data.
+     */
+    MfmParseData parse(BufferedReader lines, MfmImportProgress progress) throws IOException;
+}
@@ -0,0 +1,61 @@
+package com.warplay.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Looks up the points catalog parser for a game system
+ */
+@Service
+public class PointsCatalogParserRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(PointsCatalogParserRegistry.class);
+
+    @Autowired
+    private List<PointsCatalogParser> parsers;
+
+    private final Map<String, PointsCatalogParser> parsersByGameSystem = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (PointsCatalogParser parser : parsers) {
+            String key = normalize(parser.getGameSystemShortName());
+            PointsCatalogParser previous = parsersByGameSystem.putIfAbsent(key, parser);
+            if (previous != null) {
+                throw new IllegalStateException("Two points catalog parsers for game system " + key + ": "
+                    + previous.getClass().getSimpleName() + " and " + parser.getClass().getSimpleName());
+            }
+        }
+        logger.info("Points catalog parsers registered for game systems {}", parsersByGameSystem.keySet());
+    }
+
+    /**
+     * Get the parser for a game system short name, or the MFM parser when none is given
+     */
+    public PointsCatalogParser getParser(String gameSystemShortName) {
+        if (gameSystemShortName == null || gameSystemShortName.isBlank()) {
+            gameSystemShortName = MfmRawTextParserService.GAME_SYSTEM;
+        }
+        PointsCatalogParser parser = parsersByGameSystem.get(normalize(gameSystemShortName));
+        if (parser == null) {
+            throw new IllegalArgumentException("No points catalog parser for game system: " + gameSystemShortName);
+        }
+        return parser;
+    }
+
+    /**
+     * Short names of all game systems with a parser
+     */
+    public Set<String> getSupportedGameSystems() {
+        return Collections.unmodifiableSet(parsersByGameSystem.keySet());
+    }
+
+    private static String normalize(String gameSystemShortName) {
+        return gameSystemShortName.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,18 @@
+package com.warplay.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Time source for timestamps written with plain SQL. They are stored in UTC, as Hibernate writes
+ * entity timestamps (hibernate.jdbc.time_zone), whatever the JVM time zone is.
+ */
+final class SqlTimestamps {
+
+    private SqlTimestamps() {
+    }
+
+    static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,114 @@
+package com.warplay.service;
+
+import com.warplay.dto.CreateUnitRequest;
+import com.warplay.dto.UnitAttributeCount;
+import com.warplay.dto.UnitResponse;
+import com.warplay.entity.UnitAttribute;
+import com.warplay.repository.UnitAttributeRepository;
+import com.warplay.repository.UnitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structured copies of the units' wargear, enhancements, relics, battle traits and battle scars.
+ *
+ * The text fields stay what the API reads and writes; every unit write that changes one of them rebuilds
+ * the unit's UnitAttribute rows by splitting the text in the database, one set-based statement for any
+ * number of units. Club and crusade queries then go through the (kind, name_key) index.
+ */
+@Service
+public class UnitAttributeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnitAttributeService.class);
+
+    private static final String INSERT_SELECT;
+
+    static {
+        StringBuilder kinds = new StringBuilder();
+        for (UnitAttribute.Kind kind : UnitAttribute.Kind.values()) {
+            kinds.append(kinds.length() == 0 ? "" : ", ")
+                .append("('").append(kind.name()).append("', u.").append(kind.getColumn()).append(")");
+        }
+        // Entries are separated by commas, semicolons or line breaks; keys are normalized as in
+        // MfmDatasheetService.normalize
+        INSERT_SELECT = "INSERT INTO unit_attributes (unit_id, kind, name, name_key, position) "
+            + "SELECT u.id, a.kind, left(btrim(p.name), 500), "
+            + "left(upper(regexp_replace(btrim(p.name), '\\s+', ' ', 'g')), 500), p.position "
+            + "FROM units u CROSS JOIN LATERAL (VALUES " + kinds + ") AS a(kind, text) "
+            + "CROSS JOIN LATERAL regexp_split_to_table(a.text, '[\\r\\n,;]+') WITH ORDINALITY AS p(name, position) "
+            + "WHERE btrim(p.name) <> '' AND ";
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Autowired
+    private UnitAttributeRepository unitAttributeRepository;
+
+    /**
+     * Whether a unit update request changes any text field attributes are read from
+     */
+    public static boolean changesAttributes(CreateUnitRequest request) {
+        return request.getWargear() != null || request.getEnhancements() != null || request.getRelics() != null
+            || request.getBattleTraits() != null || request.getBattleScars() != null;
+    }
+
+    /**
+     * Rebuild the attributes of units from their text fields. Reads the units table, so pending entity
+     * changes must be flushed first.
+     */
+    public void syncUnits(Collection<Long> unitIds) {
+        if (unitIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(unitIds.size(), "?"));
+        sync("u.id IN (" + placeholders + ")", unitIds.toArray());
+    }
+
+    /**
+     * Rebuild the attributes of all units of a force
+     */
+    public void syncForce(Long forceId) {
+        sync("u.force_id = ?", forceId);
+    }
+
+    /**
+     * Non-deleted units in a club with an attribute, e.g. BATTLE_TRAIT "Fleet Footed"
+     */
+    @Transactional(readOnly = true)
+    public List<UnitResponse> getClubUnitsWithAttribute(Long clubId, String kind, String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Attribute name is required");
+        }
+        List<UnitResponse> units = unitRepository.findResponsesByClubIdAndAttribute(
+            clubId, UnitAttribute.Kind.fromString(kind), MfmDatasheetService.normalize(name));
+        logger.debug("Found {} units with {} '{}' in club {}", units.size(), kind, name, clubId);
+        return units;
+    }
+
+    /**
+     * Attributes of one kind in a club with how often each appears, most common first
+     */
+    @Transactional(readOnly = true)
+    public List<UnitAttributeCount> getClubAttributeCounts(Long clubId, String kind) {
+        return unitAttributeRepository.countByClubIdAndKind(clubId, UnitAttribute.Kind.fromString(kind));
+    }
+
+    private void sync(String unitFilter, Object... args) {
+        int deleted = jdbcTemplate.update(
+            "DELETE FROM unit_attributes WHERE unit_id IN (SELECT u.id FROM units u WHERE " + unitFilter + ")", args);
+        int inserted = jdbcTemplate.update(INSERT_SELECT + unitFilter, args);
+        logger.debug("Rebuilt unit attributes ({}): {} removed, {} added", unitFilter, deleted, inserted);
+    }
+}
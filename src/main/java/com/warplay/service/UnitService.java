@@ -1,6 +1,11 @@
 package com.warplay.service;
 
 import com.warplay.dto.CreateUnitRequest;
+import com.warplay.dto.BattleResultsRequest;
+import com.warplay.dto.CursorPage;
+import com.warplay.dto.ForceRosterResponse;
+import com.warplay.dto.UnitBatchRequest;
+import com.warplay.dto.UnitBatchResponse;
 import com.warplay.dto.UnitResponse;
 import com.warplay.entity.Unit;
 import com.warplay.entity.User;
@@ -11,19 +16,38 @@ import com.warplay.repository.ForceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class UnitService {
     
     private static final Logger logger = LoggerFactory.getLogger(UnitService.class);
     
+    public static final int MAX_BATCH_OPERATIONS = 100;
+    
+    public static final int MAX_BATTLE_RESULTS = 100;
+    
+    // Crusade ranks by the XP needed to reach them, highest first
+    private static final int[] RANK_XP = {51, 31, 16, 6};
+    private static final String[] RANK_NAMES = {"Legendary", "Heroic", "Battle-hardened", "Blooded"};
+    private static final String DEFAULT_RANK = "Battle-ready";
+    
+    private static final String INSERT_UNIT_SQL = "INSERT INTO units (id, force_id, user_id, name, data_sheet, datasheet_id, "
+        + "model_count, unit_type, points, crusade_points, wargear, enhancements, relics, battle_traits, battle_scars, "
+        + "battle_count, xp, kill_count, times_killed, description, notes, notable_history, mfm_version, rank, image_url, "
+        + "created_timestamp, updated_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
     @Autowired
     private UnitRepository unitRepository;
     
@@ -36,6 +60,18 @@ public class UnitService {
     @Autowired
     private LoggingService loggingService;
     
+    @Autowired
+    private MfmDatasheetService mfmDatasheetService;
+    
+    @Autowired
+    private ForceAggregateService forceAggregateService;
+    
+    @Autowired
+    private UnitAttributeService unitAttributeService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
     /**
      * Create a new unit
      */
@@ -45,7 +81,7 @@ public class UnitService {
         
         // Find user by Google ID
         User user = userRepository.findByGoogleId(googleUserId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
         // Validate required fields
         if (request.getForceId() == null) {
@@ -61,46 +97,12 @@ public class UnitService {
             throw new IllegalArgumentException("You do not have permission to add units to this force. Only the force owner can add units.");
         }
         
-        if (request.getName() == null || request.getName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Unit name is required");
-        }
-        
-        if (request.getDataSheet() == null || request.getDataSheet().trim().isEmpty()) {
-            throw new IllegalArgumentException("Data sheet is required");
-        }
-        
-        if (request.getModelCount() == null || request.getModelCount() < 1) {
-            throw new IllegalArgumentException("Model count must be at least 1");
-        }
-        
-        // Unit type is optional - no validation needed
-        
-        Unit unit = new Unit();
-        unit.setForceId(request.getForceId());
-        unit.setUserId(user.getId());
-        unit.setName(request.getName());
-        unit.setDataSheet(request.getDataSheet());
-        unit.setModelCount(request.getModelCount());
-        unit.setUnitType(request.getUnitType());
-        unit.setPoints(request.getPoints() != null ? request.getPoints() : 0);
-        unit.setCrusadePoints(request.getCrusadePoints() != null ? request.getCrusadePoints() : 0);
-        unit.setWargear(request.getWargear());
-        unit.setEnhancements(request.getEnhancements());
-        unit.setRelics(request.getRelics());
-        unit.setBattleTraits(request.getBattleTraits());
-        unit.setBattleScars(request.getBattleScars());
-        unit.setBattleCount(request.getBattleCount() != null ? request.getBattleCount() : 0);
-        unit.setXp(request.getXp() != null ? request.getXp() : 0);
-        unit.setKillCount(request.getKillCount() != null ? request.getKillCount() : 0);
-        unit.setTimesKilled(request.getTimesKilled() != null ? request.getTimesKilled() : 0);
-        unit.setDescription(request.getDescription());
-        unit.setNotes(request.getNotes());
-        unit.setNotableHistory(request.getNotableHistory());
-        unit.setMfmVersion(request.getMfmVersion());
-        unit.setRank(request.getRank() != null ? request.getRank() : "Battle-ready");
-        unit.setImageUrl(request.getImageUrl());
+        validateNewUnit(request);
+        Unit unit = newUnit(request, force, user.getId());
         
         Unit savedUnit = unitRepository.save(unit);
+        unitAttributeService.syncUnits(List.of(savedUnit.getId()));
+        forceAggregateService.unitAdded(savedUnit);
         loggingService.logDatabaseOperation("units", "INSERT", true, 
             "Unit created with ID: " + savedUnit.getId() + " for force: " + request.getForceId());
         logger.info("Unit created successfully with ID: {}", savedUnit.getId());
@@ -113,11 +115,9 @@ public class UnitService {
      */
     public List<UnitResponse> getUnitsByForceId(Long forceId) {
         logger.debug("Fetching units for force: {}", forceId);
-        List<Unit> units = unitRepository.findByForceIdAndDeletedTimestampIsNull(forceId);
+        List<UnitResponse> units = unitRepository.findResponsesByForceId(forceId);
         logger.info("Retrieved {} units for force: {}", units.size(), forceId);
-        return units.stream()
-            .map(this::toUnitResponse)
-            .collect(Collectors.toList());
+        return units;
     }
     
     /**
@@ -125,11 +125,9 @@ public class UnitService {
      */
     public List<UnitResponse> getUnitsByUserId(Long userId) {
         logger.debug("Fetching units for user: {}", userId);
-        List<Unit> units = unitRepository.findByUserIdAndDeletedTimestampIsNull(userId);
+        List<UnitResponse> units = unitRepository.findResponsesByUserId(userId);
         logger.info("Retrieved {} units for user: {}", units.size(), userId);
-        return units.stream()
-            .map(this::toUnitResponse)
-            .collect(Collectors.toList());
+        return units;
     }
     
     /**
@@ -137,8 +135,7 @@ public class UnitService {
      */
     public Optional<UnitResponse> getUnitById(Long id) {
         logger.debug("Fetching unit: {}", id);
-        return unitRepository.findByIdAndDeletedTimestampIsNull(id)
-            .map(this::toUnitResponse);
+        return unitRepository.findResponseById(id);
     }
     
     /**
@@ -146,11 +143,19 @@ public class UnitService {
      */
     public List<UnitResponse> getAllUnits() {
         logger.debug("Fetching all units");
-        List<Unit> units = unitRepository.findAllNonDeleted();
+        List<UnitResponse> units = unitRepository.findAllResponses();
         logger.info("Retrieved {} total units", units.size());
-        return units.stream()
-            .map(this::toUnitResponse)
-            .collect(Collectors.toList());
+        return units;
+    }
+    
+    /**
+     * Get one page of all units, newest first
+     */
+    public CursorPage<UnitResponse> getUnitsPage(String cursor, Integer limit) {
+        logger.debug("Fetching units page after cursor: {}", cursor);
+        return KeysetCursor.fetch(cursor, limit,
+            unitRepository::findResponsePage, unitRepository::findResponsePageAfter,
+            UnitResponse::getCreatedTimestamp, UnitResponse::getId);
     }
     
     /**
@@ -172,26 +177,29 @@ public class UnitService {
         logger.info("Updating unit: {}", id);
         
         Unit unit = unitRepository.findByIdAndDeletedTimestampIsNull(id)
-            .orElseThrow(() -> new RuntimeException("Unit not found"));
+            .orElseThrow(() -> new IllegalArgumentException("Unit not found"));
         
         // Find user by Google ID
         User user = userRepository.findByGoogleId(googleUserId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
         // Verify user owns this unit
         if (!unit.getUserId().equals(user.getId())) {
             logger.warn("User {} attempted to update unit {} owned by user {}", user.getId(), id, unit.getUserId());
-            throw new RuntimeException("You do not have permission to update this unit");
+            throw new IllegalArgumentException("You do not have permission to update this unit");
         }
         
+        // Totals before the update, to apply the difference to the force aggregates
+        ForceAggregateService.UnitTotals totalsBefore = ForceAggregateService.UnitTotals.of(unit);
+        
         // If force ID is being changed, verify user owns the new force
         if (request.getForceId() != null && !request.getForceId().equals(unit.getForceId())) {
             Force newForce = forceRepository.findByIdAndDeletedTimestampIsNull(request.getForceId())
-                .orElseThrow(() -> new RuntimeException("Target force not found"));
+                .orElseThrow(() -> new IllegalArgumentException("Target force not found"));
             
             if (!newForce.getUserId().equals(user.getId())) {
                 logger.warn("User {} attempted to move unit {} to force {} they don't own", user.getId(), id, request.getForceId());
-                throw new RuntimeException("You do not have permission to move this unit to the specified force");
+                throw new IllegalArgumentException("You do not have permission to move this unit to the specified force");
             }
         }
         
@@ -199,6 +207,168 @@ public class UnitService {
         if (request.getForceId() != null) {
             unit.setForceId(request.getForceId());
         }
+        applyChanges(unit, request);
+        // Re-resolve the datasheet key when the datasheet or the force (and so the faction) changes
+        if (request.getDataSheet() != null || request.getForceId() != null) {
+            forceRepository.findById(unit.getForceId()).ifPresent(force ->
+                unit.setDatasheetId(mfmDatasheetService.resolve(force.getFaction(), unit.getDataSheet())));
+        }
+        
+        // Flushed so the response carries the version this write produced
+        Unit updatedUnit = unitRepository.saveAndFlush(unit);
+        if (UnitAttributeService.changesAttributes(request)) {
+            unitAttributeService.syncUnits(List.of(id));
+        }
+        forceAggregateService.unitChanged(totalsBefore, updatedUnit);
+        loggingService.logDatabaseOperation("units", "UPDATE", true, 
+            "Unit updated: " + id);
+        logger.info("Unit updated successfully: {}", id);
+        
+        return toUnitResponse(updatedUnit);
+    }
+    
+    /**
+     * Partially update a unit: writes only the fields present in the request, and moves its points, XP and
+     * kills into the force totals. With a version (from If-Match) the unit is not loaded; a stale version
+     * throws OptimisticLockingFailureException. Moving a unit to another force goes through updateUnit.
+     */
+    @Transactional
+    public UnitResponse patchUnit(Long id, CreateUnitRequest request, Integer version, String googleUserId) {
+        logger.info("Patching unit: {}", id);
+        
+        // Find user by Google ID
+        User user = userRepository.findByGoogleId(googleUserId)
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        
+        if (request.getForceId() != null) {
+            throw new IllegalArgumentException("Units cannot be moved to another force with a partial update");
+        }
+        if (request.getName() != null && request.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Unit name is required");
+        }
+        if (request.getDataSheet() != null && request.getDataSheet().trim().isEmpty()) {
+            throw new IllegalArgumentException("Data sheet is required");
+        }
+        if (request.getModelCount() != null && request.getModelCount() < 1) {
+            throw new IllegalArgumentException("Model count must be at least 1");
+        }
+        
+        ColumnPatch patch = new ColumnPatch("units", "Unit")
+            .set("name", request.getName())
+            .set("data_sheet", request.getDataSheet())
+            .set("model_count", request.getModelCount())
+            .set("unit_type", request.getUnitType())
+            .set("points", request.getPoints())
+            .set("crusade_points", request.getCrusadePoints())
+            .set("wargear", request.getWargear())
+            .set("enhancements", request.getEnhancements())
+            .set("relics", request.getRelics())
+            .set("battle_traits", request.getBattleTraits())
+            .set("battle_scars", request.getBattleScars())
+            .set("battle_count", request.getBattleCount())
+            .set("xp", request.getXp())
+            .set("kill_count", request.getKillCount())
+            .set("times_killed", request.getTimesKilled())
+            .set("description", request.getDescription())
+            .set("notes", request.getNotes())
+            .set("notable_history", request.getNotableHistory())
+            .set("mfm_version", request.getMfmVersion())
+            .set("rank", request.getRank())
+            .set("image_url", request.getImageUrl());
+        
+        // The unit's totals before and after the update, for the force totals
+        Unit[] change = patch.apply(jdbcTemplate, id, user.getId(), version,
+            "t.force_id, t.version, old.points, old.crusade_points, old.xp, old.kill_count, "
+                + "t.points, t.crusade_points, t.xp, t.kill_count",
+            (rs, rowNum) -> {
+                Unit before = new Unit();
+                before.setForceId(rs.getLong(1));
+                before.setPoints(rs.getInt(3));
+                before.setCrusadePoints(rs.getInt(4));
+                before.setXp(rs.getInt(5));
+                before.setKillCount(rs.getInt(6));
+                Unit after = new Unit();
+                after.setForceId(rs.getLong(1));
+                after.setPoints(rs.getInt(7));
+                after.setCrusadePoints(rs.getInt(8));
+                after.setXp(rs.getInt(9));
+                after.setKillCount(rs.getInt(10));
+                return new Unit[] {before, after};
+            });
+        forceAggregateService.unitChanged(ForceAggregateService.UnitTotals.of(change[0]), change[1]);
+        
+        if (UnitAttributeService.changesAttributes(request)) {
+            unitAttributeService.syncUnits(List.of(id));
+        }
+        if (patch.sets("data_sheet")) {
+            forceRepository.findById(change[1].getForceId()).ifPresent(force ->
+                jdbcTemplate.update("UPDATE units SET datasheet_id = ? WHERE id = ?",
+                    mfmDatasheetService.resolve(force.getFaction(), request.getDataSheet()), id));
+        }
+        
+        loggingService.logDatabaseOperation("units", "PATCH", true, 
+            "Unit patched: " + id);
+        logger.info("Unit patched successfully: {}", id);
+        
+        return unitRepository.findResponseById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Unit not found"));
+    }
+    
+    /**
+     * Check the fields a new unit needs
+     */
+    private void validateNewUnit(CreateUnitRequest request) {
+        if (request.getName() == null || request.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Unit name is required");
+        }
+        
+        if (request.getDataSheet() == null || request.getDataSheet().trim().isEmpty()) {
+            throw new IllegalArgumentException("Data sheet is required");
+        }
+        
+        if (request.getModelCount() == null || request.getModelCount() < 1) {
+            throw new IllegalArgumentException("Model count must be at least 1");
+        }
+        
+        // Unit type is optional - no validation needed
+    }
+    
+    /**
+     * New unit in a force from a create request, with defaults for the fields left out
+     */
+    private Unit newUnit(CreateUnitRequest request, Force force, Long userId) {
+        Unit unit = new Unit();
+        unit.setForceId(force.getId());
+        unit.setUserId(userId);
+        unit.setName(request.getName());
+        unit.setDataSheet(request.getDataSheet());
+        unit.setDatasheetId(mfmDatasheetService.resolve(force.getFaction(), request.getDataSheet()));
+        unit.setModelCount(request.getModelCount());
+        unit.setUnitType(request.getUnitType());
+        unit.setPoints(request.getPoints() != null ? request.getPoints() : 0);
+        unit.setCrusadePoints(request.getCrusadePoints() != null ? request.getCrusadePoints() : 0);
+        unit.setWargear(request.getWargear());
+        unit.setEnhancements(request.getEnhancements());
+        unit.setRelics(request.getRelics());
+        unit.setBattleTraits(request.getBattleTraits());
+        unit.setBattleScars(request.getBattleScars());
+        unit.setBattleCount(request.getBattleCount() != null ? request.getBattleCount() : 0);
+        unit.setXp(request.getXp() != null ? request.getXp() : 0);
+        unit.setKillCount(request.getKillCount() != null ? request.getKillCount() : 0);
+        unit.setTimesKilled(request.getTimesKilled() != null ? request.getTimesKilled() : 0);
+        unit.setDescription(request.getDescription());
+        unit.setNotes(request.getNotes());
+        unit.setNotableHistory(request.getNotableHistory());
+        unit.setMfmVersion(request.getMfmVersion());
+        unit.setRank(request.getRank() != null ? request.getRank() : DEFAULT_RANK);
+        unit.setImageUrl(request.getImageUrl());
+        return unit;
+    }
+    
+    /**
+     * Copy the fields present in an update request onto a unit (everything but the force)
+     */
+    private void applyChanges(Unit unit, CreateUnitRequest request) {
         if (request.getName() != null) {
             unit.setName(request.getName());
         }
@@ -262,13 +432,6 @@ public class UnitService {
         if (request.getImageUrl() != null) {
             unit.setImageUrl(request.getImageUrl());
         }
-        
-        Unit updatedUnit = unitRepository.save(unit);
-        loggingService.logDatabaseOperation("units", "UPDATE", true, 
-            "Unit updated: " + id);
-        logger.info("Unit updated successfully: {}", id);
-        
-        return toUnitResponse(updatedUnit);
     }
     
     /**
@@ -279,23 +442,304 @@ public class UnitService {
         logger.info("Deleting unit: {}", id);
         
         Unit unit = unitRepository.findByIdAndDeletedTimestampIsNull(id)
-            .orElseThrow(() -> new RuntimeException("Unit not found"));
+            .orElseThrow(() -> new IllegalArgumentException("Unit not found"));
         
         // Find user by Google ID
         User user = userRepository.findByGoogleId(googleUserId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
         // Verify user owns this unit
         if (!unit.getUserId().equals(user.getId())) {
             logger.warn("User {} attempted to delete unit {} owned by user {}", user.getId(), id, unit.getUserId());
-            throw new RuntimeException("You do not have permission to delete this unit");
+            throw new IllegalArgumentException("You do not have permission to delete this unit");
         }
         
         unit.setDeletedTimestamp(LocalDateTime.now());
         unitRepository.save(unit);
+        forceAggregateService.unitRemoved(unit);
         
         loggingService.logDatabaseOperation("units", "DELETE", true, 
             "Unit soft deleted: " + id);
         logger.info("Unit deleted successfully: {}", id);
     }
+    
+    /**
+     * Apply several unit creates, updates and deletes to one force in a single transaction, and return the
+     * resulting roster. Either every operation applies or none does.
+     */
+    @Transactional
+    public UnitBatchResponse applyBatch(Long forceId, UnitBatchRequest request, String googleUserId) {
+        List<UnitBatchRequest.Operation> operations = request.getOperations();
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one operation is required");
+        }
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_OPERATIONS + " operations are allowed per batch");
+        }
+        logger.info("Applying {} unit operations to force: {}", operations.size(), forceId);
+        
+        User user = userRepository.findByGoogleId(googleUserId)
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        
+        Force force = forceRepository.findByIdAndDeletedTimestampIsNull(forceId)
+            .orElseThrow(() -> new IllegalArgumentException("Force not found"));
+        
+        // Ownership of the force is checked once for the whole batch
+        if (!force.getUserId().equals(user.getId())) {
+            logger.warn("User {} attempted to change units of force {} owned by user {}", user.getId(), forceId, force.getUserId());
+            throw new IllegalArgumentException("You do not have permission to change units of this force. Only the force owner can change units.");
+        }
+        
+        // Validate every operation before writing anything
+        List<CreateUnitRequest> creates = new ArrayList<>();
+        Set<Long> unitIds = new HashSet<>();
+        for (UnitBatchRequest.Operation operation : operations) {
+            String action = operation.getAction();
+            if ("create".equals(action)) {
+                if (operation.getUnit() == null) {
+                    throw new IllegalArgumentException("A create operation needs a unit");
+                }
+                validateNewUnit(operation.getUnit());
+                creates.add(operation.getUnit());
+            } else if ("update".equals(action) || "delete".equals(action)) {
+                if (operation.getUnitId() == null) {
+                    throw new IllegalArgumentException("An " + action + " operation needs a unitId");
+                }
+                if (!unitIds.add(operation.getUnitId())) {
+                    throw new IllegalArgumentException("Unit " + operation.getUnitId() + " appears in more than one operation");
+                }
+                if ("update".equals(action)) {
+                    if (operation.getUnit() == null) {
+                        throw new IllegalArgumentException("An update operation needs a unit");
+                    }
+                    if (operation.getUnit().getForceId() != null && !operation.getUnit().getForceId().equals(forceId)) {
+                        throw new IllegalArgumentException("Units cannot be moved to another force in a batch");
+                    }
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown operation: " + action);
+            }
+        }
+        
+        // Load all units to update or delete with one query
+        Map<Long, Unit> units = new HashMap<>();
+        for (Unit unit : unitRepository.findAllById(unitIds)) {
+            units.put(unit.getId(), unit);
+        }
+        for (Long unitId : unitIds) {
+            Unit unit = units.get(unitId);
+            if (unit == null || unit.getDeletedTimestamp() != null || !forceId.equals(unit.getForceId())) {
+                throw new IllegalArgumentException("Unit " + unitId + " not found in this force");
+            }
+            if (!unit.getUserId().equals(user.getId())) {
+                throw new IllegalArgumentException("You do not have permission to change unit " + unitId);
+            }
+        }
+        
+        // Updates and deletes change managed units; Hibernate writes them in JDBC batches at flush
+        ForceAggregateService.Delta delta = new ForceAggregateService.Delta();
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        List<Long> attributesChanged = new ArrayList<>();
+        int deleted = 0;
+        for (UnitBatchRequest.Operation operation : operations) {
+            if ("update".equals(operation.getAction())) {
+                Unit unit = units.get(operation.getUnitId());
+                ForceAggregateService.UnitTotals before = ForceAggregateService.UnitTotals.of(unit);
+                applyChanges(unit, operation.getUnit());
+                if (operation.getUnit().getDataSheet() != null) {
+                    unit.setDatasheetId(mfmDatasheetService.resolve(force.getFaction(), unit.getDataSheet()));
+                }
+                delta.changed(before, unit);
+                if (UnitAttributeService.changesAttributes(operation.getUnit())) {
+                    attributesChanged.add(unit.getId());
+                }
+                updated++;
+            } else if ("delete".equals(operation.getAction())) {
+                Unit unit = units.get(operation.getUnitId());
+                unit.setDeletedTimestamp(now);
+                delta.removed(unit);
+                deleted++;
+            }
+        }
+        
+        List<Long> createdIds = insertUnits(creates, force, user.getId(), delta);
+        
+        attributesChanged.addAll(createdIds);
+        if (!attributesChanged.isEmpty()) {
+            unitRepository.flush();
+            unitAttributeService.syncUnits(attributesChanged);
+        }
+        
+        // One statement for the force totals; it flushes the pending unit writes first
+        forceAggregateService.apply(forceId, delta);
+        
+        loggingService.logDatabaseOperation("units", "BATCH", true,
+            "Force " + forceId + ": " + createdIds.size() + " created, " + updated + " updated, " + deleted + " deleted");
+        logger.info("Applied unit batch to force {}: {} created, {} updated, {} deleted", forceId, createdIds.size(), updated, deleted);
+        
+        ForceRosterResponse roster = new ForceRosterResponse(
+            forceRepository.findResponseById(forceId).orElseThrow(() -> new IllegalArgumentException("Force not found")),
+            unitRepository.findResponsesByForceId(forceId));
+        return new UnitBatchResponse(createdIds, updated, deleted, roster);
+    }
+    
+    /**
+     * Add a battle's XP, battles, kills and deaths to units of a force, and return the resulting roster.
+     * All units are changed by one UPDATE that adds to the stored values and recomputes the rank from the
+     * new XP, so nothing is read first and concurrent results for the same units all count.
+     */
+    @Transactional
+    public ForceRosterResponse applyBattleResults(Long forceId, BattleResultsRequest request, String googleUserId) {
+        List<BattleResultsRequest.UnitResult> results = request.getUnits();
+        if (results == null || results.isEmpty()) {
+            throw new IllegalArgumentException("At least one unit result is required");
+        }
+        if (results.size() > MAX_BATTLE_RESULTS) {
+            throw new IllegalArgumentException("At most " + MAX_BATTLE_RESULTS + " unit results are allowed");
+        }
+        logger.info("Applying battle results for {} units of force: {}", results.size(), forceId);
+        
+        User user = userRepository.findByGoogleId(googleUserId)
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        
+        Force force = forceRepository.findByIdAndDeletedTimestampIsNull(forceId)
+            .orElseThrow(() -> new IllegalArgumentException("Force not found"));
+        
+        if (!force.getUserId().equals(user.getId())) {
+            logger.warn("User {} attempted to record battle results for force {} owned by user {}", user.getId(), forceId, force.getUserId());
+            throw new IllegalArgumentException("You do not have permission to change units of this force. Only the force owner can change units.");
+        }
+        
+        // One VALUES row per unit: (unit_id, xp, battles, kills, times_killed)
+        StringBuilder values = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        args.add(SqlTimestamps.now());
+        Set<Long> unitIds = new HashSet<>();
+        ForceAggregateService.Delta delta = new ForceAggregateService.Delta();
+        for (BattleResultsRequest.UnitResult result : results) {
+            if (result.getUnitId() == null) {
+                throw new IllegalArgumentException("Every unit result needs a unitId");
+            }
+            if (!unitIds.add(result.getUnitId())) {
+                throw new IllegalArgumentException("Unit " + result.getUnitId() + " appears more than once");
+            }
+            int xp = gained(result.getXp(), 0, "XP");
+            int battles = gained(result.getBattles(), 1, "Battles");
+            int kills = gained(result.getKills(), 0, "Kills");
+            int timesKilled = gained(result.getTimesKilled(), 0, "Times killed");
+            
+            values.append(values.length() == 0
+                ? "(CAST(? AS bigint), CAST(? AS integer), CAST(? AS integer), CAST(? AS integer), CAST(? AS integer))"
+                : ", (?, ?, ?, ?, ?)");
+            args.add(result.getUnitId());
+            args.add(xp);
+            args.add(battles);
+            args.add(kills);
+            args.add(timesKilled);
+            delta.progressed(xp, kills);
+        }
+        args.add(forceId);
+        args.add(user.getId());
+        
+        String sql = "UPDATE units u SET xp = COALESCE(u.xp, 0) + d.xp, "
+            + "battle_count = COALESCE(u.battle_count, 0) + d.battles, "
+            + "kill_count = COALESCE(u.kill_count, 0) + d.kills, "
+            + "times_killed = COALESCE(u.times_killed, 0) + d.times_killed, "
+            + "rank = " + rankCase("COALESCE(u.xp, 0) + d.xp") + ", "
+            + "version = u.version + 1, updated_timestamp = ? "
+            + "FROM (VALUES " + values + ") AS d(unit_id, xp, battles, kills, times_killed) "
+            + "WHERE u.id = d.unit_id AND u.force_id = ? AND u.user_id = ? AND u.deleted_timestamp IS NULL "
+            + "RETURNING u.id";
+        List<Long> updated = jdbcTemplate.queryForList(sql, Long.class, args.toArray());
+        if (updated.size() != unitIds.size()) {
+            // Rolls back the whole update
+            unitIds.removeAll(updated);
+            throw new IllegalArgumentException("Units not found in this force: " + unitIds);
+        }
+        
+        forceAggregateService.apply(forceId, delta);
+        
+        loggingService.logDatabaseOperation("units", "BATTLE_RESULTS", true,
+            "Force " + forceId + ": " + updated.size() + " units progressed");
+        logger.info("Applied battle results to {} units of force {}", updated.size(), forceId);
+        
+        return new ForceRosterResponse(
+            forceRepository.findResponseById(forceId).orElseThrow(() -> new IllegalArgumentException("Force not found")),
+            unitRepository.findResponsesByForceId(forceId));
+    }
+    
+    /**
+     * Rank for an XP amount, as the SQL CASE over the rank thresholds
+     */
+    private static String rankCase(String xp) {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int i = 0; i < RANK_XP.length; i++) {
+            sql.append(" WHEN ").append(xp).append(" >= ").append(RANK_XP[i])
+                .append(" THEN '").append(RANK_NAMES[i]).append("'");
+        }
+        return sql.append(" ELSE '").append(DEFAULT_RANK).append("' END").toString();
+    }
+    
+    private static int gained(Integer value, int defaultValue, String field) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException(field + " cannot be negative");
+        }
+        return value;
+    }
+    
+    /**
+     * Insert new units with one batched statement. Unit ids come from an IDENTITY column, which stops
+     * Hibernate from batching inserts, so the ids are taken from the column's sequence up front instead.
+     */
+    private List<Long> insertUnits(List<CreateUnitRequest> requests, Force force, Long userId, ForceAggregateService.Delta delta) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT nextval(pg_get_serial_sequence('units', 'id')) FROM generate_series(1, ?)", Long.class, requests.size());
+        
+        LocalDateTime now = SqlTimestamps.now();
+        List<Unit> units = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Unit unit = newUnit(requests.get(i), force, userId);
+            unit.setId(ids.get(i));
+            units.add(unit);
+            delta.added(unit);
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_UNIT_SQL, units, units.size(), (ps, unit) -> {
+            ps.setLong(1, unit.getId());
+            ps.setLong(2, unit.getForceId());
+            ps.setLong(3, unit.getUserId());
+            ps.setString(4, unit.getName());
+            ps.setString(5, unit.getDataSheet());
+            ps.setObject(6, unit.getDatasheetId());
+            ps.setObject(7, unit.getModelCount());
+            ps.setString(8, unit.getUnitType());
+            ps.setObject(9, unit.getPoints());
+            ps.setObject(10, unit.getCrusadePoints());
+            ps.setString(11, unit.getWargear());
+            ps.setString(12, unit.getEnhancements());
+            ps.setString(13, unit.getRelics());
+            ps.setString(14, unit.getBattleTraits());
+            ps.setString(15, unit.getBattleScars());
+            ps.setObject(16, unit.getBattleCount());
+            ps.setObject(17, unit.getXp());
+            ps.setObject(18, unit.getKillCount());
+            ps.setObject(19, unit.getTimesKilled());
+            ps.setString(20, unit.getDescription());
+            ps.setString(21, unit.getNotes());
+            ps.setString(22, unit.getNotableHistory());
+            ps.setString(23, unit.getMfmVersion());
+            ps.setString(24, unit.getRank());
+            ps.setString(25, unit.getImageUrl());
+            ps.setObject(26, now);
+            ps.setObject(27, now);
+        });
+        return ids;
+    }
 }
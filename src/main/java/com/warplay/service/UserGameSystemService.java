@@ -1,5 +1,6 @@
 package com.warplay.service;
 
+import com.warplay.dto.CursorPage;
 import com.warplay.entity.UserGameSystem;
 import com.warplay.entity.User;
 import com.warplay.entity.GameSystem;
@@ -64,6 +65,27 @@ public class UserGameSystemService {
         }
     }
 
+    public CursorPage<UserGameSystem> getUserGameSystemsPage(String cursor, Integer limit) {
+        try {
+            logger.debug("Fetching user-game system relationships page after cursor: {}", cursor);
+
+            CursorPage<UserGameSystem> page = KeysetCursor.fetch(cursor, limit,
+                    userGameSystemRepository::findPage, userGameSystemRepository::findPageAfter,
+                    UserGameSystem::getCreatedTimestamp, UserGameSystem::getId);
+
+            loggingService.logDatabaseOperation("user_game_systems", "SELECT_PAGE", true,
+                    "Retrieved " + page.getItems().size() + " user-game system relationships");
+            return page;
+
+        } catch (DataAccessException e) {
+            loggingService.logDatabaseOperation("user_game_systems", "SELECT_PAGE", false,
+                    "Database error: " + e.getMessage());
+
+            logger.error("Failed to retrieve user-game system relationships page", e);
+            throw new RuntimeException("Failed to retrieve user-game system relationships", e);
+        }
+    }
+
     public List<UserGameSystem> getUserGameSystemsByUserId(Long userId) {
         logger.debug("Fetching user-game systems by user ID: {}", userId);
         return userGameSystemRepository.findByUserId(userId);
@@ -1,5 +1,6 @@
 package com.warplay.service;
 
+import com.warplay.dto.CursorPage;
 import com.warplay.dto.UserUpdateDTO;
 import com.warplay.entity.User;
 import com.warplay.repository.UserRepository;
@@ -55,6 +56,27 @@ public class UserService {
         }
     }
 
+    public CursorPage<User> getActiveUsersPage(String cursor, Integer limit) {
+        try {
+            logger.debug("Fetching active users page after cursor: {}", cursor);
+
+            CursorPage<User> page = KeysetCursor.fetch(cursor, limit,
+                    userRepository::findActivePage, userRepository::findActivePageAfter,
+                    User::getCreatedTimestamp, User::getId);
+
+            loggingService.logDatabaseOperation("users", "SELECT_ACTIVE_PAGE", true,
+                    "Retrieved " + page.getItems().size() + " active users");
+            return page;
+
+        } catch (DataAccessException e) {
+            loggingService.logDatabaseOperation("users", "SELECT_ACTIVE_PAGE", false,
+                    "Database error: " + e.getMessage());
+
+            logger.error("Failed to retrieve active users page from database", e);
+            throw new RuntimeException("Failed to retrieve users", e);
+        }
+    }
+
     public Optional<User> getActiveUserById(Long id) {
         long startTime = System.currentTimeMillis();
 
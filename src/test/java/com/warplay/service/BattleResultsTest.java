@@ -0,0 +1,157 @@
+package com.warplay.service;
+
+import com.warplay.dto.BattleResultsRequest;
+import com.warplay.dto.CreateUnitRequest;
+import com.warplay.dto.ForceRosterResponse;
+import com.warplay.dto.UnitResponse;
+import com.warplay.entity.Force;
+import com.warplay.entity.User;
+import com.warplay.repository.UnitRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BattleResultsTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private UnitService unitService;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Test
+    void ranksUnitsByTheirNewXp() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Necrons");
+        List<Long> ids = new ArrayList<>();
+        for (int xp : new int[] {5, 6, 15, 16, 30, 31, 50, 51}) {
+            ids.add(unitService.createUnit(unitRequest(force.getId(), "Warriors " + xp, 100), owner.getGoogleId()).getId());
+        }
+
+        List<BattleResultsRequest.UnitResult> results = new ArrayList<>();
+        int[] gained = {5, 6, 15, 16, 30, 31, 50, 51};
+        for (int i = 0; i < ids.size(); i++) {
+            results.add(result(ids.get(i), gained[i], null, null, null));
+        }
+        ForceRosterResponse roster = unitService.applyBattleResults(force.getId(), request(results), owner.getGoogleId());
+
+        Map<Long, String> ranks = roster.getUnits().stream()
+            .collect(Collectors.toMap(UnitResponse::getId, UnitResponse::getRank));
+        assertEquals(List.of("Battle-ready", "Blooded", "Blooded", "Battle-hardened", "Battle-hardened",
+            "Heroic", "Heroic", "Legendary"), ids.stream().map(ranks::get).toList());
+    }
+
+    @Test
+    void addsResultsToTheStoredProgress() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Necrons");
+        CreateUnitRequest veteran = unitRequest(force.getId(), "Lychguard", 130);
+        veteran.setXp(4);
+        UnitResponse lychguard = unitService.createUnit(veteran, owner.getGoogleId());
+        UnitResponse warriors = unitService.createUnit(unitRequest(force.getId(), "Warriors", 100), owner.getGoogleId());
+
+        unitService.applyBattleResults(force.getId(), request(List.of(
+            result(lychguard.getId(), 2, null, 3, 1),
+            result(warriors.getId(), 1, null, null, 2))), owner.getGoogleId());
+        ForceRosterResponse roster = unitService.applyBattleResults(force.getId(), request(List.of(
+            result(lychguard.getId(), 10, 2, 1, null))), owner.getGoogleId());
+
+        Map<Long, UnitResponse> units = roster.getUnits().stream()
+            .collect(Collectors.toMap(UnitResponse::getId, unit -> unit));
+        UnitResponse progressed = units.get(lychguard.getId());
+        assertEquals(16, progressed.getXp());
+        assertEquals(3, progressed.getBattleCount());
+        assertEquals(4, progressed.getKillCount());
+        assertEquals(1, progressed.getTimesKilled());
+        assertEquals("Battle-hardened", progressed.getRank());
+        assertEquals(lychguard.getVersion() + 2, progressed.getVersion());
+
+        UnitResponse fallen = units.get(warriors.getId());
+        assertEquals(1, fallen.getXp());
+        assertEquals(1, fallen.getBattleCount());
+        assertEquals(0, fallen.getKillCount());
+        assertEquals(2, fallen.getTimesKilled());
+        assertEquals("Battle-ready", fallen.getRank());
+
+        Force totals = reload(force);
+        assertEquals(17, totals.getTotalXp());
+        assertEquals(4, totals.getTotalKills());
+    }
+
+    @Test
+    void appliesNothingWhenAUnitIsMissing() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Necrons");
+        UnitResponse warriors = unitService.createUnit(unitRequest(force.getId(), "Warriors", 100), owner.getGoogleId());
+        UnitResponse removed = unitService.createUnit(unitRequest(force.getId(), "Scarabs", 40), owner.getGoogleId());
+        unitService.deleteUnit(removed.getId(), owner.getGoogleId());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> unitService.applyBattleResults(force.getId(),
+            request(List.of(result(warriors.getId(), 20, null, 5, null), result(Long.MAX_VALUE, 1, null, null, null))),
+            owner.getGoogleId()));
+        assertEquals("Units not found in this force: [" + Long.MAX_VALUE + "]", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> unitService.applyBattleResults(force.getId(),
+            request(List.of(result(warriors.getId(), 20, null, 5, null), result(removed.getId(), 1, null, null, null))),
+            owner.getGoogleId()));
+
+        UnitResponse unchanged = unitRepository.findResponsesByForceId(force.getId()).get(0);
+        assertEquals(warriors.getId(), unchanged.getId());
+        assertEquals(warriors.getXp(), unchanged.getXp());
+        assertEquals(warriors.getKillCount(), unchanged.getKillCount());
+        assertEquals(warriors.getVersion(), unchanged.getVersion());
+
+        Force totals = reload(force);
+        assertEquals(0, totals.getTotalXp());
+        assertEquals(0, totals.getTotalKills());
+    }
+
+    @Test
+    void refusesAnotherPlayersUnits() {
+        User owner = user();
+        User intruder = user();
+        Force force = force(owner, club(owner), "Necrons");
+        UnitResponse warriors = unitService.createUnit(unitRequest(force.getId(), "Warriors", 100), owner.getGoogleId());
+        Force otherForce = force(intruder, club(intruder), "Necrons");
+
+        assertThrows(IllegalArgumentException.class, () -> unitService.applyBattleResults(force.getId(),
+            request(List.of(result(warriors.getId(), 20, null, null, null))), intruder.getGoogleId()));
+        assertThrows(IllegalArgumentException.class, () -> unitService.applyBattleResults(otherForce.getId(),
+            request(List.of(result(warriors.getId(), 20, null, null, null))), intruder.getGoogleId()));
+
+        assertEquals(warriors.getVersion(), unitRepository.findResponsesByForceId(force.getId()).get(0).getVersion());
+    }
+
+    @Test
+    void refusesNegativeResults() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Necrons");
+        UnitResponse warriors = unitService.createUnit(unitRequest(force.getId(), "Warriors", 100), owner.getGoogleId());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> unitService.applyBattleResults(force.getId(),
+            request(List.of(result(warriors.getId(), null, null, -1, null))), owner.getGoogleId()));
+        assertEquals("Kills cannot be negative", e.getMessage());
+    }
+
+    private static BattleResultsRequest request(List<BattleResultsRequest.UnitResult> results) {
+        BattleResultsRequest request = new BattleResultsRequest();
+        request.setUnits(results);
+        return request;
+    }
+
+    private static BattleResultsRequest.UnitResult result(Long unitId, Integer xp, Integer battles, Integer kills, Integer timesKilled) {
+        BattleResultsRequest.UnitResult result = new BattleResultsRequest.UnitResult();
+        result.setUnitId(unitId);
+        result.setXp(xp);
+        result.setBattles(battles);
+        result.setKills(kills);
+        result.setTimesKilled(timesKilled);
+        return result;
+    }
+}
@@ -0,0 +1,145 @@
+package com.warplay.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnPatchTest {
+
+    private static final RowMapper<Long> ID = (rs, rowNum) -> rs.getLong("id");
+
+    @Test
+    void parsesIfMatchVersions() {
+        assertNull(ColumnPatch.parseVersion(null));
+        assertNull(ColumnPatch.parseVersion("  "));
+        assertEquals(3, ColumnPatch.parseVersion("3"));
+        assertEquals(3, ColumnPatch.parseVersion("\"3\""));
+        assertEquals(12, ColumnPatch.parseVersion(" W/\"12\" "));
+        assertThrows(IllegalArgumentException.class, () -> ColumnPatch.parseVersion("W/\"abc\""));
+    }
+
+    @Test
+    void leavesOutNullValues() {
+        ColumnPatch patch = new ColumnPatch("units", "Unit");
+        assertTrue(patch.isEmpty());
+        patch.set("name", null).set("xp", 5);
+        assertFalse(patch.isEmpty());
+        assertTrue(patch.sets("xp"));
+        assertFalse(patch.sets("name"));
+    }
+
+    @Test
+    void refusesAnEmptyPatch() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate(List.of(1L), List.of());
+        assertThrows(IllegalArgumentException.class,
+            () -> new ColumnPatch("units", "Unit").set("name", null).apply(jdbcTemplate, 1L, 2L, 3, "t.id", ID));
+        assertTrue(jdbcTemplate.statements.isEmpty());
+    }
+
+    @Test
+    void updatesOnlyTheSetColumnsAtTheGivenVersion() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate(List.of(7L), List.of());
+        Long id = new ColumnPatch("units", "Unit").set("name", "Canoness").set("xp", 12)
+            .apply(jdbcTemplate, 7L, 2L, 3, "t.id", ID);
+
+        assertEquals(7L, id);
+        assertEquals(List.of("UPDATE units t SET name = ?, xp = ?, version = t.version + 1, updated_timestamp = ? "
+            + "FROM units old WHERE t.id = ? AND old.id = t.id AND t.user_id = ? AND t.version = ? "
+            + "AND t.deleted_timestamp IS NULL RETURNING t.id"), jdbcTemplate.statements);
+        Object[] args = jdbcTemplate.args.get(0);
+        assertEquals(List.of("Canoness", 12), Arrays.asList(args).subList(0, 2));
+        assertTrue(args[2] instanceof LocalDateTime);
+        assertEquals(List.of(7L, 2L, 3), Arrays.asList(args).subList(3, 6));
+    }
+
+    @Test
+    void readsTheCurrentVersionWhenNoneIsGiven() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate(List.of(7L), List.of(row(2L, 5)));
+        new ColumnPatch("units", "Unit").set("xp", 12).apply(jdbcTemplate, 7L, 2L, null, "t.id", ID);
+
+        assertEquals(2, jdbcTemplate.statements.size());
+        assertTrue(jdbcTemplate.statements.get(0).startsWith("SELECT user_id, version FROM units"));
+        assertEquals(5, jdbcTemplate.args.get(1)[4]);
+    }
+
+    @Test
+    void reportsAStaleVersion() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate(List.of(), List.of(row(2L, 4)));
+        OptimisticLockingFailureException e = assertThrows(OptimisticLockingFailureException.class,
+            () -> new ColumnPatch("units", "Unit").set("xp", 12).apply(jdbcTemplate, 7L, 2L, 3, "t.id", ID));
+        assertTrue(e.getMessage().contains("now at version 4, expected 3"), e.getMessage());
+    }
+
+    @Test
+    void retriesOnceWhenAWriteGetsInWithoutAVersion() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate(List.of(), List.of(row(2L, 5)));
+        OptimisticLockingFailureException e = assertThrows(OptimisticLockingFailureException.class,
+            () -> new ColumnPatch("units", "Unit").set("xp", 12).apply(jdbcTemplate, 7L, 2L, null, "t.id", ID));
+
+        assertEquals(5, jdbcTemplate.statements.size());
+        assertTrue(jdbcTemplate.statements.get(1).startsWith("UPDATE units"));
+        assertTrue(jdbcTemplate.statements.get(3).startsWith("UPDATE units"));
+        assertTrue(e.getMessage().contains("now at version 5, expected 5"), e.getMessage());
+    }
+
+    @Test
+    void reportsAMissingRowAndAnotherOwner() {
+        RuntimeException missing = assertThrows(RuntimeException.class, () -> new ColumnPatch("units", "Unit")
+            .set("xp", 12).apply(new RecordingJdbcTemplate(List.of(), List.of()), 7L, 2L, 3, "t.id", ID));
+        assertEquals("Unit not found", missing.getMessage());
+
+        RuntimeException notOwner = assertThrows(RuntimeException.class, () -> new ColumnPatch("units", "Unit")
+            .set("xp", 12).apply(new RecordingJdbcTemplate(List.of(), List.of(row(9L, 3))), 7L, 2L, 3, "t.id", ID));
+        assertEquals("You do not have permission to update this unit", notOwner.getMessage());
+    }
+
+    private static Map<String, Object> row(Long userId, Integer version) {
+        return Map.of("user_id", userId, "version", version);
+    }
+
+    /**
+     * Records the statements run and answers the update with updated and the version read with current
+     */
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+        private final List<?> updated;
+        private final List<Map<String, Object>> current;
+        private final List<String> statements = new ArrayList<>();
+        private final List<Object[]> args = new ArrayList<>();
+
+        private RecordingJdbcTemplate(List<?> updated, List<Map<String, Object>> current) {
+            this.updated = updated;
+            this.current = current;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            record(sql, args);
+            return (List<T>) updated;
+        }
+
+        @Override
+        public List<Map<String, Object>> queryForList(String sql, Object... args) {
+            record(sql, args);
+            return current;
+        }
+
+        private void record(String sql, Object[] args) {
+            statements.add(sql);
+            this.args.add(args);
+        }
+    }
+}
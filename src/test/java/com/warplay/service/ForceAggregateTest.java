@@ -0,0 +1,141 @@
+package com.warplay.service;
+
+import com.warplay.dto.CreateUnitRequest;
+import com.warplay.dto.UnitResponse;
+import com.warplay.entity.Club;
+import com.warplay.entity.Force;
+import com.warplay.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ForceAggregateTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private UnitService unitService;
+
+    @Autowired
+    private ForceAggregateService forceAggregateService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void movesTheTotalsWithEveryUnitWrite() {
+        User owner = user();
+        Club club = club(owner);
+        Force force = force(owner, club, "Orks");
+        Force otherForce = force(owner, club, "Orks");
+
+        CreateUnitRequest boyz = unitRequest(force.getId(), "Boyz", 85);
+        boyz.setCrusadePoints(2);
+        boyz.setXp(7);
+        boyz.setKillCount(3);
+        UnitResponse mob = unitService.createUnit(boyz, owner.getGoogleId());
+        UnitResponse warboss = unitService.createUnit(unitRequest(force.getId(), "Warboss", 70), owner.getGoogleId());
+        assertTotals(force, 2, 155, 2, 7, 3);
+
+        CreateUnitRequest change = new CreateUnitRequest();
+        change.setPoints(90);
+        change.setXp(12);
+        change.setKillCount(5);
+        unitService.updateUnit(mob.getId(), change, owner.getGoogleId());
+        assertTotals(force, 2, 160, 2, 12, 5);
+
+        CreateUnitRequest patch = new CreateUnitRequest();
+        patch.setCrusadePoints(4);
+        unitService.patchUnit(mob.getId(), patch, null, owner.getGoogleId());
+        assertTotals(force, 2, 160, 4, 12, 5);
+
+        CreateUnitRequest move = new CreateUnitRequest();
+        move.setForceId(otherForce.getId());
+        unitService.updateUnit(mob.getId(), move, owner.getGoogleId());
+        assertTotals(force, 1, 70, 0, 0, 0);
+        assertTotals(otherForce, 1, 90, 4, 12, 5);
+
+        unitService.deleteUnit(warboss.getId(), owner.getGoogleId());
+        assertTotals(force, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    void keepsOtherEntitiesOfTheTransactionManaged() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Orks");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Force loaded = forceRepository.findById(force.getId()).orElseThrow();
+            User player = userRepository.findById(owner.getId()).orElseThrow();
+            unitService.createUnit(unitRequest(force.getId(), "Boyz", 85), owner.getGoogleId());
+
+            // The loaded force carries the new totals, and a later change to another entity is still written
+            assertEquals(1, loaded.getUnitCount());
+            assertEquals(85, loaded.getTotalPoints());
+            player.setName("Renamed " + owner.getGoogleId());
+        });
+
+        assertEquals("Renamed " + owner.getGoogleId(), userRepository.findById(owner.getId()).orElseThrow().getName());
+        assertTotals(force, 1, 85, 0, 0, 0);
+    }
+
+    @Test
+    void reconcileCorrectsDriftedForces() {
+        User owner = user();
+        Club club = club(owner);
+        Force force = force(owner, club, "Orks");
+        Force otherForce = force(owner, club, "Orks");
+        Force emptyForce = force(owner, club, "Orks");
+        unitService.createUnit(unitRequest(force.getId(), "Boyz", 85), owner.getGoogleId());
+        unitService.createUnit(unitRequest(force.getId(), "Warboss", 70), owner.getGoogleId());
+        UnitResponse deffDread = unitService.createUnit(unitRequest(otherForce.getId(), "Deff Dread", 130), owner.getGoogleId());
+        unitService.deleteUnit(deffDread.getId(), owner.getGoogleId());
+
+        jdbcTemplate.update("UPDATE forces SET unit_count = 5, total_points = 999 WHERE id = ?", force.getId());
+        jdbcTemplate.update("UPDATE forces SET total_kills = 4 WHERE id = ?", otherForce.getId());
+        jdbcTemplate.update("UPDATE forces SET total_xp = 1 WHERE id = ?", emptyForce.getId());
+
+        assertEquals(3, forceAggregateService.reconcile());
+        assertTotals(force, 2, 155, 0, 0, 0);
+        assertTotals(otherForce, 0, 0, 0, 0, 0);
+        assertTotals(emptyForce, 0, 0, 0, 0, 0);
+        assertEquals(0, forceAggregateService.reconcile());
+    }
+
+    @Test
+    void reconcileWaitsForAUnitWriteInProgress() throws Exception {
+        User owner = user();
+        Force force = force(owner, club(owner), "Orks");
+        unitService.createUnit(unitRequest(force.getId(), "Boyz", 85), owner.getGoogleId());
+        jdbcTemplate.update("UPDATE forces SET total_points = 999 WHERE id = ?", force.getId());
+
+        CompletableFuture<Integer> reconciled = transactionTemplate.execute(status -> {
+            // The unit write adds to the force totals, and so holds the force row until it commits
+            unitService.createUnit(unitRequest(force.getId(), "Warboss", 70), owner.getGoogleId());
+            CompletableFuture<Integer> running = CompletableFuture.supplyAsync(forceAggregateService::reconcile);
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertFalse(running.isDone());
+            return running;
+        });
+
+        assertEquals(1, reconciled.get(10, TimeUnit.SECONDS));
+        assertTotals(force, 2, 155, 0, 0, 0);
+    }
+
+    private void assertTotals(Force force, int units, int points, int crusadePoints, int xp, int kills) {
+        Force totals = reload(force);
+        assertEquals(units, totals.getUnitCount());
+        assertEquals(points, totals.getTotalPoints());
+        assertEquals(crusadePoints, totals.getTotalCrusadePoints());
+        assertEquals(xp, totals.getTotalXp());
+        assertEquals(kills, totals.getTotalKills());
+    }
+}
@@ -0,0 +1,117 @@
+package com.warplay.service;
+
+import com.warplay.dto.CreateUnitRequest;
+import com.warplay.dto.ForceResponse;
+import com.warplay.dto.UnitResponse;
+import com.warplay.entity.Club;
+import com.warplay.entity.Force;
+import com.warplay.entity.User;
+import com.warplay.entity.UserClub;
+import com.warplay.repository.UserClubRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ForceCloneTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ForceService forceService;
+
+    @Autowired
+    private UnitService unitService;
+
+    @Autowired
+    private UserClubRepository userClubRepository;
+
+    @Test
+    void clonesIntoTheSameClubWithoutDeletedUnits() {
+        User owner = user();
+        Club club = member(owner, club(owner));
+        Force force = force(owner, club, "Orks");
+        CreateUnitRequest boyz = unitRequest(force.getId(), "Boyz", 85);
+        boyz.setCrusadePoints(2);
+        boyz.setXp(7);
+        boyz.setKillCount(3);
+        boyz.setBattleTraits("Fleet Footed, Grizzled");
+        UnitResponse mob = unitService.createUnit(boyz, owner.getGoogleId());
+        unitService.createUnit(unitRequest(force.getId(), "Warboss", 70), owner.getGoogleId());
+        UnitResponse deffDread = unitService.createUnit(unitRequest(force.getId(), "Deff Dread", 130), owner.getGoogleId());
+        unitService.deleteUnit(deffDread.getId(), owner.getGoogleId());
+
+        ForceResponse clone = forceService.cloneForce(force.getId(), null, null, owner.getGoogleId());
+
+        assertNotEquals(force.getId(), clone.getId());
+        assertEquals(club.getId(), clone.getClubId());
+        assertEquals(force.getName() + " (Copy)", clone.getName());
+        assertEquals("Orks", clone.getFaction());
+        assertTotals(clone, 2, 155, 2, 7, 3);
+
+        List<UnitResponse> units = unitService.getUnitsByForceId(clone.getId());
+        assertEquals(List.of("Boyz", "Warboss"), units.stream().map(UnitResponse::getName).sorted().toList());
+        UnitResponse copiedMob = units.stream().filter(unit -> unit.getName().equals("Boyz")).findFirst().orElseThrow();
+        assertNotEquals(mob.getId(), copiedMob.getId());
+        assertEquals(attributes(mob.getId()), attributes(copiedMob.getId()));
+        assertEquals(List.of("BATTLE_TRAIT|FLEET FOOTED", "BATTLE_TRAIT|GRIZZLED"), attributes(copiedMob.getId()));
+
+        // The source keeps its units and totals
+        assertEquals(2, unitService.getUnitsByForceId(force.getId()).size());
+        assertEquals(2, reload(force).getUnitCount());
+    }
+
+    @Test
+    void clonesIntoAnotherClubOfTheOwner() {
+        User owner = user();
+        Force force = force(owner, member(owner, club(owner)), "Orks");
+        unitService.createUnit(unitRequest(force.getId(), "Warboss", 70), owner.getGoogleId());
+        Club otherClub = member(owner, club(user()));
+
+        ForceResponse clone = forceService.cloneForce(force.getId(), otherClub.getId(), "Waaagh! Ghazghkull", owner.getGoogleId());
+
+        assertEquals(otherClub.getId(), clone.getClubId());
+        assertEquals("Waaagh! Ghazghkull", clone.getName());
+        assertTotals(clone, 1, 70, 0, 0, 0);
+        assertEquals(List.of("Warboss"), unitService.getUnitsByForceId(clone.getId()).stream().map(UnitResponse::getName).toList());
+
+        Club strangersClub = club(user());
+        assertThrows(IllegalArgumentException.class,
+            () -> forceService.cloneForce(force.getId(), strangersClub.getId(), null, owner.getGoogleId()));
+    }
+
+    @Test
+    void keepsCloneNamesWithinTheNameColumn() {
+        User owner = user();
+        Force force = force(owner, member(owner, club(owner)), "Orks");
+        force.setName("W".repeat(200));
+        forceRepository.save(force);
+
+        ForceResponse clone = forceService.cloneForce(force.getId(), null, null, owner.getGoogleId());
+        assertEquals("W".repeat(193) + " (Copy)", clone.getName());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> forceService.cloneForce(force.getId(), null, "N".repeat(201), owner.getGoogleId()));
+    }
+
+    private Club member(User user, Club club) {
+        userClubRepository.save(new UserClub(user, club));
+        return club;
+    }
+
+    private void assertTotals(ForceResponse force, int units, int points, int crusadePoints, int xp, int kills) {
+        assertEquals(units, force.getUnitCount());
+        assertEquals(points, force.getTotalPoints());
+        assertEquals(crusadePoints, force.getTotalCrusadePoints());
+        assertEquals(xp, force.getTotalXp());
+        assertEquals(kills, force.getTotalKills());
+    }
+
+    // Attributes of a unit as "kind|name key", by kind and position
+    private List<String> attributes(Long unitId) {
+        return jdbcTemplate.query("SELECT kind, name_key FROM unit_attributes WHERE unit_id = ? ORDER BY kind, position",
+            (rs, rowNum) -> rs.getString(1) + "|" + rs.getString(2), unitId);
+    }
+}
@@ -0,0 +1,119 @@
+package com.warplay.service;
+
+import com.warplay.dto.CursorPage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000);
+
+    @Test
+    void cursorRoundTrips() {
+        String cursor = page(rows(3), null, 2).getNextCursor();
+        assertEquals(cursor, KeysetCursor.decode(cursor).encode());
+    }
+
+    @Test
+    void emptyCursorIsTheFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(""));
+    }
+
+    @Test
+    void rejectsInvalidCursors() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("2026-03-14T15:09:26")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("yesterday|12")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("2026-03-14T15:09:26|twelve")));
+    }
+
+    @Test
+    void limitDefaultsAndIsCapped() {
+        assertEquals(KeysetCursor.DEFAULT_LIMIT, KeysetCursor.limit(null));
+        assertEquals(1, KeysetCursor.limit(1));
+        assertEquals(KeysetCursor.MAX_LIMIT, KeysetCursor.limit(KeysetCursor.MAX_LIMIT + 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.limit(0));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<Row> page = page(rows(2), null, 2);
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void pagesContinueAfterTheLastRowOfThePreviousPage() {
+        List<Row> rows = rows(5);
+        List<Row> read = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Row> page = page(rows, cursor, 2);
+            read.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(rows, read);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void rowsWithTheSameTimestampAreOrderedById() {
+        List<Row> rows = List.of(new Row(START, 9L), new Row(START, 7L), new Row(START, 4L), new Row(START.minusDays(1), 8L));
+        CursorPage<Row> first = page(rows, null, 2);
+        assertEquals(List.of(rows.get(0), rows.get(1)), first.getItems());
+        assertEquals(List.of(rows.get(2), rows.get(3)), page(rows, first.getNextCursor(), 2).getItems());
+    }
+
+    /**
+     * Page over rows sorted newest first, the way the repository queries do
+     */
+    private static CursorPage<Row> page(List<Row> rows, String cursor, int limit) {
+        return KeysetCursor.fetch(cursor, limit,
+            pageable -> rows.subList(0, Math.min(rows.size(), limit + 1)),
+            (createdTimestamp, id, pageable) -> {
+                List<Row> after = new ArrayList<>();
+                for (Row row : rows) {
+                    int compare = row.createdTimestamp.compareTo(createdTimestamp);
+                    if ((compare < 0 || (compare == 0 && row.id < id)) && after.size() <= limit) {
+                        after.add(row);
+                    }
+                }
+                return after;
+            },
+            row -> row.createdTimestamp, row -> row.id);
+    }
+
+    private static List<Row> rows(int count) {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Row(START.minusMinutes(i), (long) (100 - i)));
+        }
+        return rows;
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Row {
+        private final LocalDateTime createdTimestamp;
+        private final long id;
+
+        private Row(LocalDateTime createdTimestamp, long id) {
+            this.createdTimestamp = createdTimestamp;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.warplay.service;
+
+import com.warplay.dto.LeaderboardEntry;
+import com.warplay.dto.UnitResponse;
+import com.warplay.entity.Unit;
+import com.warplay.repository.ForceRepository;
+import com.warplay.repository.UnitRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeaderboardServiceTest {
+
+    private final ScoreJdbcTemplate database = new ScoreJdbcTemplate();
+
+    @Test
+    void ranksUnitsByScoreThenByAge() {
+        database.force(10L, 1L);
+        database.force(20L, 2L);
+        database.unit(1L, 10L, 5, 40);
+        database.unit(2L, 10L, 9, 10);
+        database.unit(3L, 10L, 5, 20);
+        database.unit(4L, 10L, 0, 0);
+        database.unit(5L, 20L, 30, 90);
+        LeaderboardService leaderboards = leaderboards(10);
+        leaderboards.rebuild();
+
+        List<LeaderboardEntry> kills = leaderboards.getUnitBoard(1L, "kills", null);
+        assertEquals(List.of(2L, 1L, 3L), ids(kills));
+        assertEquals(List.of(9, 5, 5), scores(kills));
+        assertEquals(List.of(1, 2, 3), kills.stream().map(LeaderboardEntry::getRank).toList());
+
+        assertEquals(List.of(1L, 3L, 2L), ids(leaderboards.getUnitBoard(1L, "xp", null)));
+        assertEquals(List.of(5L), ids(leaderboards.getUnitBoard(2L, "kills", null)));
+        assertEquals(List.of(), leaderboards.getUnitBoard(3L, "kills", null));
+    }
+
+    @Test
+    void showsAtMostTheBoardSize() {
+        database.force(10L, 1L);
+        for (long id = 1; id <= 6; id++) {
+            database.unit(id, 10L, (int) id, 0);
+        }
+        LeaderboardService leaderboards = leaderboards(3);
+
+        assertEquals(List.of(6L, 5L, 4L), ids(leaderboards.getUnitBoard(1L, "kills", null)));
+        assertEquals(List.of(6L, 5L), ids(leaderboards.getUnitBoard(1L, "kills", 2)));
+        assertEquals(List.of(6L, 5L, 4L), ids(leaderboards.getUnitBoard(1L, "kills", 50)));
+    }
+
+    @Test
+    void reloadsABoardThatRanShortOfEntries() {
+        database.force(10L, 1L);
+        for (long id = 1; id <= 5; id++) {
+            database.unit(id, 10L, (int) id * 10, 0);
+        }
+        LeaderboardService leaderboards = leaderboards(1);
+        leaderboards.rebuild();
+        assertEquals(List.of(5L), ids(leaderboards.getUnitBoard(1L, "kills", null)));
+
+        // The board holds units 5 and 4; once both drop out, the rest is only known to the database
+        database.setKills(5L, 0);
+        database.setKills(4L, 0);
+        leaderboards.forceChanged(10L);
+        assertEquals(List.of(3L), ids(leaderboards.getUnitBoard(1L, "kills", null)));
+    }
+
+    @Test
+    void refreshesAForceOnlyAfterItsTransactionCommits() {
+        database.force(10L, 1L);
+        database.unit(1L, 10L, 5, 0);
+        database.unit(2L, 10L, 9, 0);
+        LeaderboardService leaderboards = leaderboards(10);
+        leaderboards.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            database.setKills(1L, 12);
+            leaderboards.forceChanged(10L);
+            assertEquals(List.of(2L, 1L), ids(leaderboards.getUnitBoard(1L, "kills", null)));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(1L, 2L), ids(leaderboards.getUnitBoard(1L, "kills", null)));
+        assertEquals(List.of(12, 9), scores(leaderboards.getUnitBoard(1L, "kills", null)));
+    }
+
+    @Test
+    void keepsTheBoardsOfARolledBackTransaction() {
+        database.force(10L, 1L);
+        database.unit(1L, 10L, 5, 0);
+        database.unit(2L, 10L, 9, 0);
+        LeaderboardService leaderboards = leaderboards(10);
+        leaderboards.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            leaderboards.forceChanged(10L);
+            database.setKills(1L, 12);
+        } finally {
+            // Rolled back: no afterCommit
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(2L, 1L), ids(leaderboards.getUnitBoard(1L, "kills", null)));
+    }
+
+    @Test
+    void takesDeletedAndMovedUnitsOffTheirBoards() {
+        database.force(10L, 1L);
+        database.force(20L, 2L);
+        database.unit(1L, 10L, 5, 0);
+        database.unit(2L, 10L, 9, 0);
+        database.unit(3L, 20L, 7, 0);
+        LeaderboardService leaderboards = leaderboards(10);
+        leaderboards.rebuild();
+
+        database.delete(2L);
+        leaderboards.forceChanged(10L);
+        assertEquals(List.of(1L), ids(leaderboards.getUnitBoard(1L, "kills", null)));
+
+        database.move(1L, 20L);
+        leaderboards.forceChanged(20L);
+        assertEquals(List.of(), ids(leaderboards.getUnitBoard(1L, "kills", null)));
+        assertEquals(List.of(3L, 1L), ids(leaderboards.getUnitBoard(2L, "kills", null)));
+    }
+
+    @Test
+    void refusesABattleBoardForForces() {
+        LeaderboardService leaderboards = leaderboards(10);
+        assertThrows(IllegalArgumentException.class, () -> leaderboards.getForceBoard(1L, "battles", null));
+        assertThrows(IllegalArgumentException.class, () -> leaderboards.getUnitBoard(1L, "wins", null));
+    }
+
+    private LeaderboardService leaderboards(int boardSize) {
+        UnitRepository unitRepository = mock(UnitRepository.class);
+        when(unitRepository.findResponsesByIdIn(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(LeaderboardServiceTest::unitResponse).toList();
+        });
+
+        LeaderboardService leaderboards = new LeaderboardService();
+        ReflectionTestUtils.setField(leaderboards, "boardSize", boardSize);
+        ReflectionTestUtils.setField(leaderboards, "jdbcTemplate", database);
+        ReflectionTestUtils.setField(leaderboards, "unitRepository", unitRepository);
+        ReflectionTestUtils.setField(leaderboards, "forceRepository", mock(ForceRepository.class));
+        return leaderboards;
+    }
+
+    private static UnitResponse unitResponse(Long id) {
+        Unit unit = new Unit();
+        unit.setId(id);
+        unit.setName("Unit " + id);
+        return new UnitResponse(unit);
+    }
+
+    private static List<Long> ids(List<LeaderboardEntry> board) {
+        return board.stream().map(LeaderboardEntry::getId).toList();
+    }
+
+    private static List<Integer> scores(List<LeaderboardEntry> board) {
+        return board.stream().map(LeaderboardEntry::getScore).toList();
+    }
+
+    /**
+     * Units and forces in memory, answering the leaderboard queries with the rows their mappers would build
+     */
+    private static final class ScoreJdbcTemplate extends JdbcTemplate {
+        private final Map<Long, Long> forceClubs = new HashMap<>();
+        private final Map<Long, long[]> units = new HashMap<>();
+
+        // Unit columns: force id, kills, xp, battles, deleted (1)
+        private void unit(long id, long forceId, int kills, int xp) {
+            units.put(id, new long[] {forceId, kills, xp, 0, 0});
+        }
+
+        private void force(long id, long clubId) {
+            forceClubs.put(id, clubId);
+        }
+
+        private void setKills(long unitId, int kills) {
+            units.get(unitId)[1] = kills;
+        }
+
+        private void delete(long unitId) {
+            units.get(unitId)[4] = 1;
+        }
+
+        private void move(long unitId, long forceId) {
+            units.get(unitId)[0] = forceId;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            if (sql.contains("row_number()")) {
+                return (List<T>) (sql.contains("FROM units u") ? ranking(sql, args) : List.of());
+            }
+            if (sql.contains("FROM units u")) {
+                return (List<T>) unitRows((Long) args[0]);
+            }
+            return (List<T>) List.of();
+        }
+
+        // Rows (club id, id, score), best first per club, up to the requested count per club
+        private List<Object[]> ranking(String sql, Object[] args) {
+            int column = sql.contains("u.kill_count") ? 1 : sql.contains("u.xp") ? 2 : 3;
+            Long clubId = args.length == 2 ? (Long) args[0] : null;
+            int perClub = (Integer) args[args.length - 1];
+
+            List<Object[]> rows = new ArrayList<>();
+            units.forEach((id, unit) -> {
+                Long club = forceClubs.get(unit[0]);
+                if (unit[4] == 0 && unit[column] > 0 && club != null && (clubId == null || clubId.equals(club))) {
+                    rows.add(new Object[] {club, id, (int) unit[column]});
+                }
+            });
+            rows.sort(Comparator.comparing((Object[] row) -> (Long) row[0])
+                .thenComparing(row -> -(Integer) row[2])
+                .thenComparing(row -> (Long) row[1]));
+
+            List<Object[]> limited = new ArrayList<>();
+            Map<Long, Integer> counts = new HashMap<>();
+            for (Object[] row : rows) {
+                if (counts.merge((Long) row[0], 1, Integer::sum) <= perClub) {
+                    limited.add(row);
+                }
+            }
+            return limited;
+        }
+
+        // Rows (id, club id, live, kills, xp, battles) of a force's units
+        private List<Object[]> unitRows(Long forceId) {
+            List<Object[]> rows = new ArrayList<>();
+            units.forEach((id, unit) -> {
+                if (unit[0] == forceId) {
+                    rows.add(new Object[] {id, forceClubs.get(forceId), unit[4] == 0,
+                        (int) unit[1], (int) unit[2], (int) unit[3]});
+                }
+            });
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.warplay.service;
+
+import com.warplay.entity.MfmVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MfmBulkStoreTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MfmBulkStoreService mfmBulkStoreService;
+
+    @Test
+    void storesEveryTableUnderTheVersion() {
+        MfmParseData parseData = parseData();
+
+        MfmVersion mfmVersion = mfmBulkStoreService.store(parseData, "Aug 25", false, MfmImportProgress.NONE);
+
+        assertFalse(mfmVersion.getIsLatest());
+        assertEquals(List.of("ORKS|Boyz|10|85", "ORKS|Boyz|20|170", "ORKS|Warboss|1|70"),
+            jdbcTemplate.query("SELECT f.name, u.name, v.model_count, v.points FROM mfm_unit_variants v "
+                + "JOIN mfm_units u ON u.id = v.unit_id JOIN mfm_factions f ON f.id = u.faction_id "
+                + "WHERE v.mfm_version_id = ? AND u.mfm_version_id = ? AND f.mfm_version_id = ? ORDER BY 2, 3",
+                (rs, rowNum) -> rs.getString(1) + "|" + rs.getString(2) + "|" + rs.getInt(3) + "|" + rs.getInt(4),
+                mfmVersion.getId(), mfmVersion.getId(), mfmVersion.getId()));
+        assertEquals(List.of("War Horde|Follow Me Ladz|25"),
+            jdbcTemplate.query("SELECT d.name, e.name, e.points FROM mfm_enhancements e "
+                + "JOIN mfm_detachments d ON d.id = e.detachment_id WHERE e.mfm_version_id = ?",
+                (rs, rowNum) -> rs.getString(1) + "|" + rs.getString(2) + "|" + rs.getInt(3), mfmVersion.getId()));
+        assertEquals(2, count("mfm_units", mfmVersion.getId()));
+    }
+
+    @Test
+    void refusesAVersionThatIsAlreadyStored() {
+        MfmParseData parseData = parseData();
+        MfmVersion mfmVersion = mfmBulkStoreService.store(parseData, "Aug 25", false, MfmImportProgress.NONE);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> mfmBulkStoreService.store(parseData, "Aug 25", false, MfmImportProgress.NONE));
+        assertEquals(3, count("mfm_unit_variants", mfmVersion.getId()));
+    }
+
+    @Test
+    void replacesAVersionWithoutChangingItsFlags() {
+        MfmParseData parseData = parseData();
+        MfmVersion original = mfmBulkStoreService.store(parseData, "Aug 25", false, MfmImportProgress.NONE);
+        jdbcTemplate.update("UPDATE mfm_versions SET is_active = false WHERE id = ?", original.getId());
+
+        parseData.addUnit(new MfmUnitData("ORKS", null, "Nob", 1, 20, false, 5));
+        MfmVersion replacement = mfmBulkStoreService.store(parseData, "Sep 25", true, MfmImportProgress.NONE);
+
+        assertNotEquals(original.getId(), replacement.getId());
+        assertEquals(parseData.getVersion(), replacement.getVersion());
+        assertEquals("Sep 25", replacement.getDate());
+        assertFalse(replacement.getIsActive());
+        assertEquals(4, count("mfm_unit_variants", replacement.getId()));
+        assertEquals(0, count("mfm_unit_variants", original.getId()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM mfm_versions WHERE id = ? "
+            + "OR version LIKE 'staging-%' OR version LIKE 'replaced-%'", Integer.class, original.getId()));
+    }
+
+    private int count(String table, Long mfmVersionId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE mfm_version_id = ?",
+            Integer.class, mfmVersionId);
+    }
+
+    // A small points list of a game system other than the MFM, so the latest MFM version is left alone
+    private static MfmParseData parseData() {
+        MfmParseData parseData = new MfmParseData();
+        parseData.setGameSystem("KT");
+        parseData.setVersion(UUID.randomUUID().toString().substring(0, 8));
+        parseData.addUnit(new MfmUnitData("ORKS", null, "Boyz", 10, 85, false, 1));
+        parseData.addUnit(new MfmUnitData("ORKS", null, "Boyz", 20, 170, false, 2));
+        parseData.addUnit(new MfmUnitData("ORKS", null, "Warboss", 1, 70, false, 3));
+        parseData.addEnhancement(new MfmEnhancementData("ORKS", "War Horde", "Follow Me Ladz", 25, 4));
+        return parseData;
+    }
+}
@@ -0,0 +1,102 @@
+package com.warplay.service;
+
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MfmCatalogSnapshotServiceTest {
+
+    // Snapshot file of the synthetic manual's version
+    private static final String SNAPSHOT_FILE = "mfm-" + MfmSyntheticCorpus.SYNTHETIC_VERSION.replace(".", "_") + ".snapshot";
+
+    @TempDir
+    Path snapshotDir;
+
+    @Test
+    void readsBackTheCatalogItWrote() throws IOException {
+        MfmCatalogSnapshotService snapshots = snapshotService();
+        String content = syntheticManual();
+        MfmCatalog catalog = catalog(content);
+
+        snapshots.writeSnapshot(catalog);
+        assertTrue(Files.isRegularFile(snapshotDir.resolve(SNAPSHOT_FILE)));
+
+        Optional<MfmCatalog> loaded = snapshots.loadIfCurrent(catalog.getVersion(), MfmRawTextParserService.contentHash(content));
+        assertTrue(loaded.isPresent());
+        assertEquals(catalog.getVersion(), loaded.get().getVersion());
+        assertEquals(catalog.getDate(), loaded.get().getDate());
+        assertEquals(catalog.getContentHash(), loaded.get().getContentHash());
+        assertEquals(MfmValidationService.renderCatalog(catalog), MfmValidationService.renderCatalog(loaded.get()));
+    }
+
+    @Test
+    void ignoresASnapshotOfOtherContent() throws IOException {
+        MfmCatalogSnapshotService snapshots = snapshotService();
+        String content = syntheticManual();
+        MfmCatalog catalog = catalog(content);
+        snapshots.writeSnapshot(catalog);
+
+        assertFalse(snapshots.loadIfCurrent(catalog.getVersion(), MfmRawTextParserService.contentHash(content + "\n")).isPresent());
+        assertFalse(snapshots.loadIfCurrent("1.0", catalog.getContentHash()).isPresent());
+    }
+
+    @Test
+    void ignoresACorruptSnapshot() throws IOException {
+        MfmCatalogSnapshotService snapshots = snapshotService();
+        String content = syntheticManual();
+        MfmCatalog catalog = catalog(content);
+        snapshots.writeSnapshot(catalog);
+
+        Path snapshot = snapshotDir.resolve(SNAPSHOT_FILE);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertFalse(snapshots.loadIfCurrent(catalog.getVersion(), catalog.getContentHash()).isPresent());
+    }
+
+    @Test
+    void readsBackACompressedArchive() throws IOException {
+        MfmCatalogSnapshotService snapshots = snapshotService();
+        MfmCatalog catalog = catalog(syntheticManual());
+        Path archive = snapshotDir.resolve("mfm-0_1.archive.gz");
+
+        long bytes = snapshots.writeCompressed(catalog, archive);
+        assertEquals(Files.size(archive), bytes);
+
+        MfmCatalog loaded = snapshots.readCompressed(archive);
+        assertEquals(catalog.getContentHash(), loaded.getContentHash());
+        assertEquals(MfmValidationService.renderCatalog(catalog), MfmValidationService.renderCatalog(loaded));
+    }
+
+    private MfmCatalogSnapshotService snapshotService() {
+        MfmCatalogSnapshotService snapshots = new MfmCatalogSnapshotService();
+        ReflectionTestUtils.setField(snapshots, "snapshotEnabled", true);
+        ReflectionTestUtils.setField(snapshots, "snapshotDir", snapshotDir.toString());
+        return snapshots;
+    }
+
+    private static String syntheticManual() throws IOException {
+        StringWriter corpus = new StringWriter();
+        MfmSyntheticCorpus.generate(corpus, 1, 26_000L);
+        return corpus.toString();
+    }
+
+    private static MfmCatalog catalog(String content) throws IOException {
+        MfmParseData parseData = new MfmRawTextParserService().parseMfmText(new StringReader(content), MfmImportProgress.NONE);
+        return MfmCatalogService.fromParseData(parseData, parseData.getVersion(), "Oct 26",
+            MfmRawTextParserService.contentHash(content));
+    }
+}
@@ -0,0 +1,146 @@
+package com.warplay.service;
+
+import com.warplay.dto.UnitResponse;
+import com.warplay.entity.Force;
+import com.warplay.entity.MfmDatasheet;
+import com.warplay.entity.MfmDatasheetAlias;
+import com.warplay.entity.User;
+import com.warplay.repository.MfmDatasheetRepository;
+import com.warplay.repository.UnitRepository;
+import com.warplay.service.MfmCatalogService.CatalogFaction;
+import com.warplay.service.MfmCatalogService.CatalogUnit;
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MfmDatasheetServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MfmDatasheetService mfmDatasheetService;
+
+    @Autowired
+    private MfmDatasheetRepository mfmDatasheetRepository;
+
+    @Autowired
+    private MfmCatalogService mfmCatalogService;
+
+    @Autowired
+    private UnitService unitService;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Test
+    void resolvesCatalogUnitsUnderAnySpelling() {
+        String faction = "Faction " + UUID.randomUUID();
+        MfmCatalog catalog = registerCatalog(faction, "Battle Sisters Squad");
+        try {
+            Long datasheetId = mfmDatasheetService.resolve(faction, "Battle Sisters Squad");
+            assertNotNull(datasheetId);
+            assertEquals(datasheetId, mfmDatasheetService.resolve(faction.toLowerCase(), "  battle   SISTERS squad "));
+            assertEquals(datasheetId, mfmDatasheetService.lookup(faction, "battle sisters squad"));
+            assertEquals(List.of("Battle Sisters Squad"),
+                mfmDatasheetService.getDatasheets(faction).stream().map(MfmDatasheet::getName).toList());
+
+            // Custom datasheets have no key and are never stored
+            assertNull(mfmDatasheetService.resolve(faction, "Sister Superior's Own Squad"));
+            assertEquals(1, mfmDatasheetService.getDatasheets(faction).size());
+        } finally {
+            mfmCatalogService.evict(catalog.getVersion());
+        }
+    }
+
+    @Test
+    void lookupNeverRegistersADatasheet() {
+        String faction = "Faction " + UUID.randomUUID();
+        MfmCatalog catalog = registerCatalog(faction, "Battle Sisters Squad");
+        try {
+            assertNull(mfmDatasheetService.lookup(faction, "Battle Sisters Squad"));
+            assertEquals(List.of(), mfmDatasheetService.getDatasheets(faction));
+
+            Long datasheetId = mfmDatasheetService.resolve(faction, "Battle Sisters Squad");
+            assertEquals(datasheetId, mfmDatasheetService.lookup(faction, "Battle Sisters Squad"));
+        } finally {
+            mfmCatalogService.evict(catalog.getVersion());
+        }
+    }
+
+    @Test
+    void resolvesUnderTheCatalogFactionOfAFreelyNamedForce() {
+        String faction = "Faction " + UUID.randomUUID();
+        String forceFaction = "Order of " + UUID.randomUUID();
+        MfmCatalog catalog = registerCatalog(faction, "Battle Sisters Squad");
+        try {
+            Long datasheetId = mfmDatasheetService.resolve(forceFaction, "Battle Sisters Squad");
+            assertNotNull(datasheetId);
+            assertEquals(datasheetId, mfmDatasheetService.resolve(faction, "Battle Sisters Squad"));
+            assertEquals(datasheetId, mfmDatasheetService.lookup(forceFaction, "Battle Sisters Squad"));
+            assertEquals(List.of(), mfmDatasheetService.getDatasheets(forceFaction));
+        } finally {
+            mfmCatalogService.evict(catalog.getVersion());
+        }
+    }
+
+    @Test
+    void addAliasMergesTheDatasheetOfTheAliasName() {
+        String faction = "Faction " + UUID.randomUUID();
+        Long renamedId = mfmDatasheetService.register(MfmRawTextParserService.GAME_SYSTEM, faction, "Sisters Novitiate Squad");
+        Long currentId = mfmDatasheetService.register(MfmRawTextParserService.GAME_SYSTEM, faction, "Novitiate Squad");
+        mfmDatasheetService.addAlias(renamedId, "Novitiates");
+
+        User owner = user();
+        Force force = force(owner, club(owner), faction);
+        UnitResponse novitiates = unitService.createUnit(unitRequest(force.getId(), "Sisters Novitiate Squad", 100), owner.getGoogleId());
+        assertEquals(renamedId, unitRepository.findById(novitiates.getId()).orElseThrow().getDatasheetId());
+
+        MfmDatasheetAlias alias = mfmDatasheetService.addAlias(currentId, " sisters novitiate  squad");
+        assertEquals(currentId, alias.getDatasheetId());
+        assertEquals("sisters novitiate  squad", alias.getAliasName());
+
+        assertFalse(mfmDatasheetRepository.findById(renamedId).isPresent());
+        assertEquals(currentId, unitRepository.findById(novitiates.getId()).orElseThrow().getDatasheetId());
+        assertEquals(List.of("NOVITIATES", "SISTERS NOVITIATE SQUAD"),
+            mfmDatasheetService.getAliases(currentId).stream().map(MfmDatasheetAlias::getNameKey).sorted().toList());
+        assertTrue(mfmDatasheetService.getAliases(renamedId).isEmpty());
+        Map<Long, List<MfmDatasheetAlias>> aliases = mfmDatasheetService.getAliases(List.of(currentId, renamedId));
+        assertEquals(Set.of(currentId), aliases.keySet());
+        assertEquals(2, aliases.get(currentId).size());
+
+        assertEquals(currentId, mfmDatasheetService.resolve(faction, "Sisters Novitiate Squad"));
+        assertEquals(currentId, mfmDatasheetService.resolve(faction, "novitiates"));
+        assertEquals(currentId, mfmDatasheetService.lookup(faction, "Novitiate Squad"));
+    }
+
+    @Test
+    void refusesInvalidAliases() {
+        String faction = "Faction " + UUID.randomUUID();
+        Long datasheetId = mfmDatasheetService.register(MfmRawTextParserService.GAME_SYSTEM, faction, "Canoness");
+
+        assertThrows(IllegalArgumentException.class, () -> mfmDatasheetService.addAlias(datasheetId, " "));
+        assertThrows(IllegalArgumentException.class, () -> mfmDatasheetService.addAlias(datasheetId, "CANONESS "));
+        assertThrows(IllegalArgumentException.class, () -> mfmDatasheetService.addAlias(Long.MAX_VALUE, "Palatine"));
+        assertTrue(mfmDatasheetService.getAliases(datasheetId).isEmpty());
+    }
+
+    // A catalog of one faction and unit under a version of its own, so tests do not see each other's catalogs
+    private MfmCatalog registerCatalog(String faction, String unitName) {
+        String version = "test-" + UUID.randomUUID();
+        CatalogUnit unit = new CatalogUnit(unitName, "Battleline", new int[] {10}, new int[] {100});
+        MfmCatalog catalog = new MfmCatalog(MfmRawTextParserService.GAME_SYSTEM, version, "Oct 26", version,
+            List.of(new CatalogFaction(faction, null, null, List.of(unit), List.of())));
+        mfmCatalogService.register(catalog, false);
+        return catalog;
+    }
+}
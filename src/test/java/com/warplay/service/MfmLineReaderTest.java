@@ -0,0 +1,151 @@
+package com.warplay.service;
+
+import com.warplay.service.MfmRawTextParserService.MfmLineReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MfmLineReaderTest {
+
+    @Test
+    void readsTrimmedLinesEndingInAnyLineBreak() throws IOException {
+        assertEquals(List.of("CODEX: ADEPTA SORORITAS", "Arco-flagellants", "", "10 models ..... 140 pts", "last"),
+            readAll(new StringReader("  CODEX: ADEPTA SORORITAS \r\nArco-flagellants\r\n\t\n10 models ..... 140 pts\rlast")));
+    }
+
+    @Test
+    void readsNothingFromEmptyInput() throws IOException {
+        MfmLineReader lines = new MfmLineReader(new StringReader(""));
+        assertFalse(lines.next());
+        assertEquals(0, lines.lineNumber());
+    }
+
+    @Test
+    void numbersLinesFromOne() throws IOException {
+        MfmLineReader lines = new MfmLineReader(new StringReader("a\nb\n"));
+        assertTrue(lines.next());
+        assertEquals(1, lines.lineNumber());
+        assertTrue(lines.next());
+        assertEquals(2, lines.lineNumber());
+        assertFalse(lines.next());
+    }
+
+    @Test
+    void peekReturnsTheNextLineWithoutMovingOn() throws IOException {
+        MfmLineReader lines = new MfmLineReader(new StringReader("CODEX SUPPLEMENT:\nBLOOD ANGELS\n"));
+        assertTrue(lines.next());
+        assertEquals("BLOOD ANGELS", lines.peek().toString());
+        assertEquals("CODEX SUPPLEMENT:", lines.current().toString());
+        assertTrue(lines.next());
+        assertEquals("BLOOD ANGELS", lines.current().toString());
+        assertEquals(2, lines.lineNumber());
+        assertNull(lines.peek());
+        assertFalse(lines.next());
+    }
+
+    @Test
+    void keepsTheLastFiveLinesForLookback() throws IOException {
+        MfmLineReader lines = new MfmLineReader(new StringReader("1\n2\n3\n4\n5\n6\n7\n8\n"));
+        for (int i = 0; i < 7; i++) {
+            assertTrue(lines.next());
+        }
+        lines.peek();
+        assertEquals("7", lines.current().toString());
+        for (int distance = 1; distance <= 5; distance++) {
+            assertEquals(String.valueOf(7 - distance), lines.previous(distance).toString());
+        }
+        assertNull(lines.previous(0));
+        assertNull(lines.previous(6));
+    }
+
+    @Test
+    void hasNoLookbackBeforeTheFirstLine() throws IOException {
+        MfmLineReader lines = new MfmLineReader(new StringReader("1\n2\n"));
+        lines.next();
+        lines.next();
+        assertEquals("1", lines.previous(1).toString());
+        assertNull(lines.previous(2));
+    }
+
+    @Test
+    void keepsLinesIntactAcrossBufferRefills() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            text.append("  Unit ").append(i).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\r" : "\n");
+        }
+        // Longer than the initial buffer, so the buffer has to grow
+        String longLine = "x".repeat(100_000);
+        text.append(longLine).append("\r\n").append("after");
+
+        List<String> expected = readAll(new StringReader(text.toString()));
+        assertEquals(2_002, expected.size());
+        assertEquals("Unit 1999", expected.get(1_999));
+        assertEquals(longLine, expected.get(2_000));
+        assertEquals("after", expected.get(2_001));
+        // One character per read makes every line (and every \r\n) straddle a refill
+        assertEquals(expected, readAll(new TrickleReader(text.toString())));
+    }
+
+    @Test
+    void lookbackSurvivesBufferRefills() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 50; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        MfmLineReader lines = new MfmLineReader(new TrickleReader(text.toString()));
+        while (lines.next()) {
+            int lineNumber = lines.lineNumber();
+            CharSequence next = lines.peek();
+            for (int distance = 1; distance <= Math.min(5, lineNumber - 1); distance++) {
+                assertEquals("line " + (lineNumber - distance), lines.previous(distance).toString());
+            }
+            assertEquals(lineNumber < 50 ? "line " + (lineNumber + 1) : null, next == null ? null : next.toString());
+        }
+    }
+
+    private static List<String> readAll(Reader reader) throws IOException {
+        MfmLineReader lines = new MfmLineReader(reader);
+        List<String> read = new ArrayList<>();
+        while (lines.next()) {
+            read.add(lines.current().toString());
+        }
+        return read;
+    }
+
+    /**
+     * Hands out one character per read
+     */
+    private static final class TrickleReader extends Reader {
+        private final String text;
+        private int position;
+
+        private TrickleReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            buffer[offset] = text.charAt(position++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
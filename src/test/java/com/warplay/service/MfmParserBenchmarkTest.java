@@ -0,0 +1,140 @@
+package com.warplay.service;
+
+import com.warplay.service.MfmCatalogService.MfmCatalog;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parse, catalog mapping and validation throughput on a synthetic manual, with the parse stage checked
+ * against regression thresholds for lines per second and bytes allocated per line.
+ *
+ * Tagged benchmark, so it only runs with the benchmark profile (mvn test -Pbenchmark), which CI runs as
+ * a separate gate; the measurements are logged. The scale, iterations and thresholds can be changed
+ * with -Dmfm.benchmark.scale, -Dmfm.benchmark.iterations,
+ * -Dmfm.benchmark.min-lines-per-second and -Dmfm.benchmark.max-allocated-bytes-per-line.
+ */
+@Tag("benchmark")
+class MfmParserBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MfmParserBenchmarkTest.class);
+
+    private static final long CORPUS_SEED = 40_000L;
+    // Small manuals get more warm-up passes so every stage is measured with compiled code
+    private static final long WARMUP_LINES = 200_000L;
+    private static final int MAX_WARMUP_PASSES = 50;
+    // Validation needs the whole source in memory, so it only runs up to this scale
+    private static final int MAX_VALIDATION_SCALE = 10;
+
+    private final int scale = Integer.getInteger("mfm.benchmark.scale", 10);
+    private final int iterations = Integer.getInteger("mfm.benchmark.iterations", 5);
+    private final long minLinesPerSecond = Long.getLong("mfm.benchmark.min-lines-per-second", 100_000L);
+    private final long maxAllocatedBytesPerLine = Long.getLong("mfm.benchmark.max-allocated-bytes-per-line", 400L);
+
+    private final MfmRawTextParserService parser = new MfmRawTextParserService();
+    private final MfmValidationService validation = new MfmValidationService();
+
+    @Test
+    void parsesSyntheticManualWithinThresholds() throws IOException {
+        Path corpus = Files.createTempFile("mfm-benchmark-", ".txt");
+        try {
+            long lines;
+            try (Writer out = Files.newBufferedWriter(corpus, StandardCharsets.UTF_8)) {
+                lines = MfmSyntheticCorpus.generate(out, scale, CORPUS_SEED);
+            }
+            int warmups = (int) Math.min(MAX_WARMUP_PASSES, Math.max(1, WARMUP_LINES / lines));
+            logger.info("Benchmarking a synthetic manual: scale {}, {} lines, {} bytes, {} iterations",
+                scale, lines, Files.size(corpus), iterations);
+
+            MfmParseData parseData = parse(corpus);
+            Stage parse = measure("parse", lines, warmups, () -> parse(corpus));
+
+            int entries = parseData.getUnits().size() + parseData.getEnhancements().size();
+            MfmCatalog catalog = toCatalog(parseData);
+            measure("catalog", entries, warmups, () -> toCatalog(parseData));
+
+            if (scale <= MAX_VALIDATION_SCALE) {
+                String content = Files.readString(corpus, StandardCharsets.UTF_8);
+                String regenerated = MfmValidationService.renderCatalog(catalog);
+                measure("validation", lines, warmups, () -> {
+                    validation.validateParseData(parseData.getVersion(), content, parseData, false);
+                    return validation.diffAgainstSource(content, parseData, regenerated);
+                });
+            }
+
+            assertTrue(parse.itemsPerSecond >= minLinesPerSecond,
+                "Parsed " + parse.itemsPerSecond + " lines/s, minimum is " + minLinesPerSecond);
+            assertTrue(parse.allocatedBytesPerItem <= maxAllocatedBytesPerLine,
+                "Allocated " + parse.allocatedBytesPerItem + " bytes/line, maximum is " + maxAllocatedBytesPerLine);
+        } finally {
+            Files.deleteIfExists(corpus);
+        }
+    }
+
+    private MfmParseData parse(Path corpus) throws IOException {
+        try (InputStream in = Files.newInputStream(corpus)) {
+            return parser.parseMfmStream(in, Long.MAX_VALUE, MfmImportProgress.NONE);
+        }
+    }
+
+    private static MfmCatalog toCatalog(MfmParseData parseData) {
+        return MfmCatalogService.fromParseData(parseData, parseData.getVersion(), null, parseData.getContentHash());
+    }
+
+    /**
+     * Run a task repeatedly and report its median time and allocation. Allocation is measured for the
+     * calling thread only, so work handed to other threads (parallel validation) is not counted.
+     */
+    private Stage measure(String name, long items, int warmups, BenchmarkTask task) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] nanos = new long[iterations];
+        long[] allocated = new long[iterations];
+
+        Object sink = null;
+        for (int i = 0; i < warmups; i++) {
+            sink = task.run();
+        }
+        for (int i = 0; i < iterations; i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            sink = task.run();
+            nanos[i] = System.nanoTime() - start;
+            allocated[i] = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        assertTrue(sink != null, "Benchmark stage " + name + " produced no result");
+
+        Arrays.sort(nanos);
+        Arrays.sort(allocated);
+        long medianNanos = Math.max(1, nanos[iterations / 2]);
+        Stage stage = new Stage(items * 1_000_000_000L / medianNanos, items > 0 ? allocated[iterations / 2] / items : 0);
+        logger.info("MFM benchmark stage {}: {} items in {} ms, {}/s, {} bytes/item",
+            name, items, String.format("%.2f", medianNanos / 1_000_000.0), stage.itemsPerSecond, stage.allocatedBytesPerItem);
+        return stage;
+    }
+
+    private interface BenchmarkTask {
+        Object run() throws IOException;
+    }
+
+    private static final class Stage {
+        private final long itemsPerSecond;
+        private final long allocatedBytesPerItem;
+
+        private Stage(long itemsPerSecond, long allocatedBytesPerItem) {
+            this.itemsPerSecond = itemsPerSecond;
+            this.allocatedBytesPerItem = allocatedBytesPerItem;
+        }
+    }
+}
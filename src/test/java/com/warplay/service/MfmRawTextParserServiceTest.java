@@ -0,0 +1,85 @@
+package com.warplay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MfmRawTextParserServiceTest {
+
+    @Test
+    void unitNamedOnItsFirstPointsLineKeepsItsOtherPointsLines() throws IOException {
+        String manual = String.join("\n",
+            " MUNITORUM FIELD MANUAL",
+            " VERSION 1.4",
+            "CODEX: ADEPTA SORORITAS",
+            " Arco-flagellants",
+            " 3 models ........................ 45 pts",
+            " 10 models ...................... 150 pts",
+            " Ember Walker 10 models ......... 130 pts",
+            " 20 models ...................... 260 pts",
+            "40 models ................ (-15) 520 pts",
+            " Grim Walker",
+            " 1 model ......................... 60 pts");
+
+        MfmParseData parseData = new MfmRawTextParserService().parseMfmText(new StringReader(manual), MfmImportProgress.NONE);
+
+        assertEquals(List.of(
+            "Arco-flagellants 3 45", "Arco-flagellants 10 150",
+            "Ember Walker 10 130", "Ember Walker 20 260", "Ember Walker 40 520",
+            "Grim Walker 1 60"), describe(parseData.getUnits()));
+    }
+
+    /**
+     * The bundled manuals must parse to exactly the entries they did before the name lookback matched
+     * units named on their first points line. The digest covers every field of every unit and
+     * enhancement, in parse order.
+     */
+    @Test
+    void bundledManualsParseUnchanged() throws IOException, NoSuchAlgorithmException {
+        assertBundledManual("RAW_MFM_3_2_Aug25.txt", "3.2", 1281, 646,
+            "9505904e25d049329bf83eaf13be2c2de149dab29fb0af9244f109ff2e7ff443");
+        assertBundledManual("RAW_MFM_3_3_Sep25.txt", "3.3", 1283, 666,
+            "f3e9a926cfc622a52c697b83204f8027e80387368761c5d13466eadc62f65310");
+    }
+
+    private void assertBundledManual(String fileName, String version, int units, int enhancements, String digest)
+            throws IOException, NoSuchAlgorithmException {
+        MfmParseData parseData;
+        try (InputStream in = getClass().getResourceAsStream("/mfm-files/" + fileName);
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            parseData = new MfmRawTextParserService().parseMfmText(reader, MfmImportProgress.NONE);
+        }
+
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        for (MfmUnitData unit : parseData.getUnits()) {
+            sha.update((unit.getFaction() + "|" + unit.getDetachment() + "|" + unit.getName() + "|" + unit.getModelCount()
+                + "|" + unit.getPoints() + "|" + unit.getUnitType() + "|" + unit.getLineNumber() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        }
+        for (MfmEnhancementData enhancement : parseData.getEnhancements()) {
+            sha.update((enhancement.getFaction() + "|" + enhancement.getDetachment() + "|" + enhancement.getName()
+                + "|" + enhancement.getPoints() + "|" + enhancement.getLineNumber() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(version, parseData.getVersion(), fileName);
+        assertEquals(units, parseData.getUnits().size(), fileName);
+        assertEquals(enhancements, parseData.getEnhancements().size(), fileName);
+        assertEquals(digest, HexFormat.of().formatHex(sha.digest()), fileName);
+    }
+
+    private static List<String> describe(List<MfmUnitData> units) {
+        return units.stream().map(unit -> unit.getName() + " " + unit.getModelCount() + " " + unit.getPoints()).toList();
+    }
+}
@@ -0,0 +1,220 @@
+package com.warplay.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Generates synthetic Munitorum Field Manuals for the parser tests and benchmark.
+ *
+ * The output reproduces the layout quirks of the real text exports: unit names on their own line
+ * followed by one or more points lines, occasional names wrapped over two lines or on the points line,
+ * (-15)/(+5) adjustments, dot leaders of varying length (sometimes touching the points), page numbers,
+ * CODEX SUPPLEMENT headers with the name on the next line, detachment enhancement sections,
+ * Forge World blocks and the Imperial Agents subsections. Scale 1 is roughly one real manual (~3,000 lines).
+ */
+final class MfmSyntheticCorpus {
+
+    static final String SYNTHETIC_VERSION = "0.1";
+
+    private static final int FACTIONS_PER_SCALE = 28;
+
+    private static final String[] FACTION_WORDS = {
+        "ADEPTA", "ASTRA", "CHAOS", "DEATH", "GREY", "IRON", "BLOOD", "DARK", "STAR", "VOID",
+        "EMBER", "ASHEN", "STORM", "SILENT", "CRIMSON", "HOLLOW"
+    };
+    private static final String[] FACTION_NOUNS = {
+        "SORORITAS", "MILITARUM", "KNIGHTS", "GUARD", "HOSTS", "LEGION", "COVEN", "CLANS", "SENTINELS", "WARDENS"
+    };
+    private static final String[] UNIT_WORDS = {
+        "Assault", "Battle", "Heavy", "Veteran", "Scout", "Command", "Storm", "Iron", "Sacred", "Bone",
+        "Void", "Ember", "Grim", "Silent", "Raging", "Gilded"
+    };
+    private static final String[] UNIT_NOUNS = {
+        "Squad", "Guard", "Walker", "Engine", "Riders", "Host", "Dreadnought", "Tank", "Warband", "Sisters",
+        "Terminators", "Outriders", "Gunship", "Champion", "Priest", "Assassin"
+    };
+    private static final String[] DETACHMENT_NOUNS = {
+        "Host", "Crusade", "Spearhead", "Covenant", "Vanguard"
+    };
+    private static final String[] ENHANCEMENT_WORDS = {
+        "Blade", "Mantle", "Relic", "Sigil", "Crown", "Litany", "Phial", "Censer", "Aspect", "Icon"
+    };
+    private static final String[] ENHANCEMENT_NOUNS = {
+        "of Fury", "of the Abyss", "of Faith", "of Ruin", "Eternal", "of Saint Ellynor", "of Wrath", "Unbound"
+    };
+    private static final int[] SQUAD_SIZES = { 1, 2, 3, 5, 6, 10, 20 };
+
+    private MfmSyntheticCorpus() {
+    }
+
+    /**
+     * Write a synthetic manual at the given scale. The same seed always produces the same text.
+     * Returns the number of lines written.
+     */
+    static long generate(Writer out, int scale, long seed) throws IOException {
+        if (scale < 1) {
+            throw new IllegalArgumentException("Scale must be at least 1");
+        }
+
+        CorpusWriter corpus = new CorpusWriter(out, new Random(seed));
+        corpus.line("MUNITORUM  ");
+        corpus.line("FIELD MANUAL");
+        corpus.line(" VERSION " + SYNTHETIC_VERSION);
+        corpus.line("");
+
+        int factionCount = scale * FACTIONS_PER_SCALE;
+        for (int faction = 0; faction < factionCount; faction++) {
+            // One Imperial Agents block per manual's worth of factions, halfway through like the real files
+            if (faction % FACTIONS_PER_SCALE == FACTIONS_PER_SCALE / 2) {
+                corpus.imperialAgents(faction / FACTIONS_PER_SCALE);
+            }
+            corpus.faction(faction);
+        }
+        out.flush();
+        return corpus.lines;
+    }
+
+    private static class CorpusWriter {
+        private final Writer out;
+        private final Random random;
+        private long lines = 0;
+        private int page = 1;
+
+        CorpusWriter(Writer out, Random random) {
+            this.out = out;
+            this.random = random;
+        }
+
+        void faction(int index) throws IOException {
+            String name = FACTION_WORDS[index % FACTION_WORDS.length] + " "
+                + FACTION_NOUNS[(index / FACTION_WORDS.length) % FACTION_NOUNS.length] + " " + (index + 1);
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                line("CODEX SUPPLEMENT: ");
+                line(name);
+            } else if (kind == 1) {
+                line("INDEX: " + name);
+            } else {
+                line("CODEX: " + name);
+            }
+
+            int unitCount = 22 + random.nextInt(16);
+            for (int unit = 0; unit < unitCount; unit++) {
+                unit(index, unit);
+            }
+
+            line(" DETACHMENT ENHANCEMENTS");
+            int detachmentCount = 3 + random.nextInt(3);
+            for (int detachment = 0; detachment < detachmentCount; detachment++) {
+                line(" " + UNIT_WORDS[(index + detachment) % UNIT_WORDS.length] + " " + DETACHMENT_NOUNS[detachment]);
+                int enhancementCount = 3 + random.nextInt(2);
+                for (int enhancement = 0; enhancement < enhancementCount; enhancement++) {
+                    String enhancementName = ENHANCEMENT_WORDS[random.nextInt(ENHANCEMENT_WORDS.length)] + " "
+                        + ENHANCEMENT_NOUNS[random.nextInt(ENHANCEMENT_NOUNS.length)];
+                    int points = 5 + 5 * random.nextInt(8);
+                    // Short names are sometimes glued to the dot leader
+                    String separator = random.nextInt(6) == 0 ? "" : " ";
+                    String adjustment = adjustment(8);
+                    line(" " + enhancementName + separator + dots(45 - enhancementName.length())
+                        + (adjustment.isEmpty() ? " " : adjustment) + points + " pts");
+                }
+            }
+
+            if (random.nextBoolean()) {
+                line(" FORGE WORLD POINTS VALUES");
+                int forgeWorldUnits = 2 + random.nextInt(5);
+                for (int unit = 0; unit < forgeWorldUnits; unit++) {
+                    unit(index, unitCount + unit);
+                }
+            }
+            pageNumber();
+        }
+
+        void unit(int faction, int index) throws IOException {
+            // Unit names never contain digits, which the parser relies on to tell names from points lines
+            String name = UNIT_WORDS[index % UNIT_WORDS.length] + " "
+                + UNIT_NOUNS[(index / UNIT_WORDS.length + faction) % UNIT_NOUNS.length];
+            int variants = 1 + (random.nextInt(10) < 4 ? 1 + random.nextInt(2) : 0);
+            int size = SQUAD_SIZES[random.nextInt(SQUAD_SIZES.length)];
+            int pointsPerModel = 10 + random.nextInt(40);
+
+            int layout = random.nextInt(20);
+            if (layout == 0) {
+                // Name and first points value on the same line
+                String adjustment = adjustment(4);
+                line(" " + name + " " + modelsText(size) + " " + dots(20) + (adjustment.isEmpty() ? " " : adjustment)
+                    + size * pointsPerModel + " pts");
+                variants--;
+                size *= 2;
+            } else if (layout == 1) {
+                // Name wrapped over two lines
+                line(" " + name + " with Adrasite  ");
+                line("and Pyrithite Spears");
+            } else {
+                // Trailing spaces and leading space on the points line vary like the PDF export
+                line(random.nextBoolean() ? " " + name + " " : " " + name);
+            }
+
+            for (int variant = 0; variant < variants; variant++) {
+                String models = modelsText(size);
+                int points = size * pointsPerModel;
+                String leader = dots(60 - models.length() - String.valueOf(points).length());
+                // Three-digit points usually touch the dot leader
+                String adjustment = adjustment(6);
+                String gap = points >= 100 && random.nextInt(4) != 0 ? "" : " ";
+                line((random.nextBoolean() ? " " : "") + models + " " + leader + (adjustment.isEmpty() ? gap : adjustment)
+                    + points + " pts");
+                size *= 2;
+            }
+        }
+
+        void imperialAgents(int copy) throws IOException {
+            line("CODEX: IMPERIAL AGENTS");
+            line(" If your Army Faction is not Agents of the Imperium, but every model in your army has the Imperium keyword, you can ");
+            line("include Agents of the Imperium units in your army even if they do not have the Faction keyword you selected in the Select ");
+            line("Army Faction step. When doing so, use the points values shown on the following page.");
+            line(" ARMY FACTION:  ");
+            line("AGENTS OF THE IMPERIUM");
+            for (int unit = 0; unit < 12; unit++) {
+                unit(copy, unit);
+            }
+            pageNumber();
+            line("EVERY MODEL HAS  ");
+            line("IMPERIUM KEYWORD");
+            for (int unit = 0; unit < 12; unit++) {
+                unit(copy, unit);
+            }
+            pageNumber();
+        }
+
+        private void pageNumber() throws IOException {
+            line(" " + page++);
+        }
+
+        private String modelsText(int size) {
+            return size == 1 ? "1 model" : size + " models";
+        }
+
+        /**
+         * A points adjustment like " (-15) " or "(+5) " on roughly one line in the given number, otherwise empty
+         */
+        private String adjustment(int oneIn) {
+            if (random.nextInt(oneIn) != 0) {
+                return "";
+            }
+            int amount = 5 * (1 + random.nextInt(3));
+            return (random.nextBoolean() ? " " : "") + (random.nextBoolean() ? "(-" : "(+") + amount + ") ";
+        }
+
+        private static String dots(int count) {
+            return ".".repeat(Math.max(3, count));
+        }
+
+        void line(String text) throws IOException {
+            out.write(text);
+            out.write('\n');
+            lines++;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.warplay.service;
+
+import com.warplay.service.MfmValidationService.MfmValidationDifference;
+import com.warplay.service.MfmValidationService.MfmValidationResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.warplay.service.MfmValidationService.EDIT_DELETE;
+import static com.warplay.service.MfmValidationService.EDIT_EQUAL;
+import static com.warplay.service.MfmValidationService.EDIT_INSERT;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MfmValidationServiceTest {
+
+    @Test
+    void diffOfEqualSequencesIsAllEqual() {
+        int[] a = { 1, 2, 3, 4 };
+        List<int[]> edits = MfmValidationService.myersDiff(a, a.clone());
+        assertEquals(4, edits.size());
+        assertEquals(0, changes(edits));
+        assertReplays(a, a, edits);
+    }
+
+    @Test
+    void diffAgainstEmptySequenceInsertsOrDeletesEverything() {
+        int[] a = { 5, 6, 7 };
+        List<int[]> inserts = MfmValidationService.myersDiff(new int[0], a);
+        assertEquals(3, inserts.size());
+        assertTrue(inserts.stream().allMatch(edit -> edit[0] == EDIT_INSERT));
+        assertReplays(new int[0], a, inserts);
+
+        List<int[]> deletes = MfmValidationService.myersDiff(a, new int[0]);
+        assertEquals(3, deletes.size());
+        assertTrue(deletes.stream().allMatch(edit -> edit[0] == EDIT_DELETE));
+        assertReplays(a, new int[0], deletes);
+
+        assertTrue(MfmValidationService.myersDiff(new int[0], new int[0]).isEmpty());
+    }
+
+    @Test
+    void diffIsAShortestEditScript() {
+        // ABCABBA against CBABAC: the longest common subsequence has 4 elements, so 13 - 2 * 4 edits
+        int[] a = { 'A', 'B', 'C', 'A', 'B', 'B', 'A' };
+        int[] b = { 'C', 'B', 'A', 'B', 'A', 'C' };
+        List<int[]> edits = MfmValidationService.myersDiff(a, b);
+        assertEquals(5, changes(edits));
+        assertReplays(a, b, edits);
+    }
+
+    @Test
+    void diffOfOneChangedLineIsOneDeleteAndOneInsert() {
+        int[] a = { 1, 2, 3, 4, 5 };
+        int[] b = { 1, 2, 9, 4, 5 };
+        List<int[]> edits = MfmValidationService.myersDiff(a, b);
+        assertEquals(2, changes(edits));
+        assertReplays(a, b, edits);
+    }
+
+    @Test
+    void reportsPointsLinesThatWereNotParsedOrParsedWrong() {
+        String source = String.join("\n",
+            "CODEX: ADEPTA SORORITAS",
+            "Arco-flagellants",
+            "3 models ........ 45 pts",
+            "10 models ...... 150 pts",
+            "Canoness",
+            "1 model ......... 60 pts",
+            "Repentia Squad");
+        MfmParseData parseData = new MfmParseData();
+        parseData.setVersion("1.4");
+        parseData.addUnit(new MfmUnitData("ADEPTA SORORITAS", null, "Arco-flagellants", 3, 45, false, 3));
+        parseData.addUnit(new MfmUnitData("ADEPTA SORORITAS", null, "Canoness", 1, 65, false, 6));
+        parseData.addUnit(new MfmUnitData("ADEPTA SORORITAS", null, "Repentia Squad", 5, 80, false, 7));
+
+        MfmValidationResult result = new MfmValidationService().validateParseData("1.4", source, parseData, false);
+
+        assertEquals(1, result.getMatches());
+        assertEquals(List.of("NOT_PARSED 4", "POINTS_MISMATCH 6", "NO_SOURCE_POINTS 7"), result.getDifferences().stream()
+            .map(difference -> difference.getType() + " " + difference.getSourceLine()).toList());
+        assertFalse(result.isPerfectMatch());
+    }
+
+    @Test
+    void syntheticManualParsesWithoutDifferences() throws IOException {
+        StringWriter corpus = new StringWriter();
+        MfmSyntheticCorpus.generate(corpus, 1, 40_000L);
+        String content = corpus.toString();
+
+        MfmParseData parseData = new MfmRawTextParserService().parseMfmText(new StringReader(content), MfmImportProgress.NONE);
+        assertEquals(MfmSyntheticCorpus.SYNTHETIC_VERSION, parseData.getVersion());
+        assertFalse(parseData.getUnits().isEmpty());
+        assertFalse(parseData.getEnhancements().isEmpty());
+
+        MfmValidationResult result = new MfmValidationService().validateParseData(parseData.getVersion(), content, parseData, false);
+        assertEquals(List.of(), result.getDifferences().stream().map(MfmValidationDifference::getIssue).toList());
+        assertTrue(result.isPerfectMatch());
+        assertEquals(parseData.getUnits().size() + parseData.getEnhancements().size(), result.getMatches());
+    }
+
+    private static long changes(List<int[]> edits) {
+        return edits.stream().filter(edit -> edit[0] != EDIT_EQUAL).count();
+    }
+
+    /**
+     * Check that the edits, in order, turn a into b: equal and deleted elements walk a, equal and inserted
+     * ones walk b
+     */
+    private static void assertReplays(int[] a, int[] b, List<int[]> edits) {
+        List<Integer> fromA = new ArrayList<>();
+        List<Integer> fromB = new ArrayList<>();
+        for (int[] edit : edits) {
+            if (edit[0] == EDIT_EQUAL) {
+                assertEquals(a[edit[1]], b[edit[2]]);
+            }
+            if (edit[0] != EDIT_INSERT) {
+                assertEquals(fromA.size(), edit[1]);
+                fromA.add(a[edit[1]]);
+            }
+            if (edit[0] != EDIT_DELETE) {
+                assertEquals(fromB.size(), edit[2]);
+                fromB.add(b[edit[2]]);
+            }
+        }
+        assertArrayEquals(a, fromA.stream().mapToInt(Integer::intValue).toArray());
+        assertArrayEquals(b, fromB.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
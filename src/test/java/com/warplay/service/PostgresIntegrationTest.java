@@ -0,0 +1,96 @@
+package com.warplay.service;
+
+import com.warplay.dto.CreateUnitRequest;
+import com.warplay.entity.Club;
+import com.warplay.entity.Force;
+import com.warplay.entity.User;
+import com.warplay.repository.ClubRepository;
+import com.warplay.repository.ForceRepository;
+import com.warplay.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+/**
+ * Base of the service tests that run their SQL against PostgreSQL in a container. The schema is created
+ * from the entities; startup imports, snapshots and scheduled jobs are off. Skipped without Docker.
+ *
+ * The container is shared by every test class (and so by the cached application context); each test
+ * creates its own users, so tests do not see each other's forces.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+abstract class PostgresIntegrationTest {
+
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+        registry.add("jwt.secret", () -> "test-secret-that-is-at-least-32-characters-long");
+        registry.add("import.mfm.files", () -> "");
+        registry.add("verify.mfm.files", () -> "");
+        registry.add("generate.mfm.feedback", () -> "false");
+        registry.add("mfm.snapshot.enabled", () -> "false");
+        registry.add("forces.aggregates.reconcile-cron", () -> "-");
+        registry.add("leaderboards.rebuild-cron", () -> "-");
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected ClubRepository clubRepository;
+
+    @Autowired
+    protected ForceRepository forceRepository;
+
+    /**
+     * A new user with a unique Google ID
+     */
+    protected User user() {
+        String googleId = UUID.randomUUID().toString();
+        return userRepository.save(new User(googleId, googleId + "@example.com", "Player " + googleId, null));
+    }
+
+    protected Club club(User owner) {
+        Club club = new Club("Club " + UUID.randomUUID(), "40K", owner.getId(), null, null, "NZ", null, "Wellington", null);
+        return clubRepository.save(club);
+    }
+
+    protected Force force(User owner, Club club, String faction) {
+        Force force = new Force();
+        force.setClubId(club.getId());
+        force.setUserId(owner.getId());
+        force.setName("Force of " + owner.getName());
+        force.setFaction(faction);
+        return forceRepository.save(force);
+    }
+
+    protected static CreateUnitRequest unitRequest(Long forceId, String name, int points) {
+        CreateUnitRequest request = new CreateUnitRequest();
+        request.setForceId(forceId);
+        request.setName(name);
+        request.setDataSheet(name);
+        request.setModelCount(1);
+        request.setPoints(points);
+        return request;
+    }
+
+    protected Force reload(Force force) {
+        return forceRepository.findById(force.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,108 @@
+package com.warplay.service;
+
+import com.warplay.dto.CreateUnitRequest;
+import com.warplay.dto.UnitAttributeCount;
+import com.warplay.dto.UnitResponse;
+import com.warplay.entity.Club;
+import com.warplay.entity.Force;
+import com.warplay.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UnitAttributeServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private UnitService unitService;
+
+    @Autowired
+    private UnitAttributeService unitAttributeService;
+
+    @Test
+    void splitsTextFieldsIntoOrderedAttributes() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Space Marines");
+        CreateUnitRequest request = unitRequest(force.getId(), "Intercessors", 80);
+        request.setWargear("Bolt rifle, Chainsword;Frag grenades\nKrak  grenades");
+        request.setEnhancements("Artificer Armour");
+        request.setBattleTraits("Fleet Footed;\r\n;  Grizzled ");
+        request.setBattleScars("  ");
+        UnitResponse unit = unitService.createUnit(request, owner.getGoogleId());
+
+        assertEquals(List.of(
+            "BATTLE_TRAIT|Fleet Footed|FLEET FOOTED|1",
+            "BATTLE_TRAIT|Grizzled|GRIZZLED|2",
+            "ENHANCEMENT|Artificer Armour|ARTIFICER ARMOUR|1",
+            "WARGEAR|Bolt rifle|BOLT RIFLE|1",
+            "WARGEAR|Chainsword|CHAINSWORD|2",
+            "WARGEAR|Frag grenades|FRAG GRENADES|3",
+            "WARGEAR|Krak  grenades|KRAK GRENADES|4"), attributes(unit.getId()));
+    }
+
+    @Test
+    void rebuildsAttributesWhenTheTextChanges() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Space Marines");
+        CreateUnitRequest request = unitRequest(force.getId(), "Intercessors", 80);
+        request.setWargear("Bolt rifle, Chainsword");
+        UnitResponse unit = unitService.createUnit(request, owner.getGoogleId());
+
+        CreateUnitRequest update = new CreateUnitRequest();
+        update.setWargear("Auto bolt rifle");
+        update.setRelics("Teeth of Terra");
+        unitService.updateUnit(unit.getId(), update, owner.getGoogleId());
+        assertEquals(List.of(
+            "RELIC|Teeth of Terra|TEETH OF TERRA|1",
+            "WARGEAR|Auto bolt rifle|AUTO BOLT RIFLE|1"), attributes(unit.getId()));
+
+        CreateUnitRequest patch = new CreateUnitRequest();
+        patch.setRelics("");
+        unitService.patchUnit(unit.getId(), patch, null, owner.getGoogleId());
+        assertEquals(List.of("WARGEAR|Auto bolt rifle|AUTO BOLT RIFLE|1"), attributes(unit.getId()));
+
+        // Writes that leave the text fields alone keep the attributes
+        CreateUnitRequest points = new CreateUnitRequest();
+        points.setPoints(90);
+        unitService.patchUnit(unit.getId(), points, null, owner.getGoogleId());
+        assertEquals(List.of("WARGEAR|Auto bolt rifle|AUTO BOLT RIFLE|1"), attributes(unit.getId()));
+    }
+
+    @Test
+    void findsAndCountsClubUnitsByAttribute() {
+        User owner = user();
+        Club club = club(owner);
+        Force force = force(owner, club, "Space Marines");
+        CreateUnitRequest veterans = unitRequest(force.getId(), "Sternguard Veterans", 100);
+        veterans.setBattleTraits("Fleet Footed, Grizzled");
+        UnitResponse sternguard = unitService.createUnit(veterans, owner.getGoogleId());
+        CreateUnitRequest scouts = unitRequest(force.getId(), "Scouts", 70);
+        scouts.setBattleTraits("fleet  footed");
+        UnitResponse scoutSquad = unitService.createUnit(scouts, owner.getGoogleId());
+        CreateUnitRequest removed = unitRequest(force.getId(), "Bladeguard", 80);
+        removed.setBattleTraits("Fleet Footed");
+        unitService.deleteUnit(unitService.createUnit(removed, owner.getGoogleId()).getId(), owner.getGoogleId());
+
+        List<UnitResponse> fleet = unitAttributeService.getClubUnitsWithAttribute(club.getId(), "battle-trait", " FLEET footed ");
+        assertEquals(List.of(sternguard.getId(), scoutSquad.getId()),
+            fleet.stream().map(UnitResponse::getId).sorted().toList());
+
+        List<UnitAttributeCount> counts = unitAttributeService.getClubAttributeCounts(club.getId(), "BATTLE_TRAIT");
+        // Spellings of a name are counted together, under one of them
+        assertEquals(List.of("FLEET FOOTED|2|2", "GRIZZLED|1|1"), counts.stream()
+            .map(count -> MfmDatasheetService.normalize(count.getName()) + "|" + count.getUnitCount() + "|" + count.getCount())
+            .toList());
+
+        assertThrows(IllegalArgumentException.class, () -> unitAttributeService.getClubAttributeCounts(club.getId(), "weapon"));
+        assertThrows(IllegalArgumentException.class, () -> unitAttributeService.getClubUnitsWithAttribute(club.getId(), "wargear", " "));
+    }
+
+    // Attributes of a unit as "kind|name|name key|position", by kind and position
+    private List<String> attributes(Long unitId) {
+        return jdbcTemplate.query("SELECT kind, name, name_key, position FROM unit_attributes WHERE unit_id = ? ORDER BY kind, position",
+            (rs, rowNum) -> rs.getString(1) + "|" + rs.getString(2) + "|" + rs.getString(3) + "|" + rs.getInt(4), unitId);
+    }
+}
@@ -0,0 +1,141 @@
+package com.warplay.service;
+
+import com.warplay.dto.CreateUnitRequest;
+import com.warplay.dto.UnitBatchRequest;
+import com.warplay.dto.UnitBatchResponse;
+import com.warplay.dto.UnitResponse;
+import com.warplay.entity.Club;
+import com.warplay.entity.Force;
+import com.warplay.entity.User;
+import com.warplay.repository.UnitRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnitBatchTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private UnitService unitService;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Test
+    void appliesCreatesUpdatesAndDeletesTogether() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Adepta Sororitas");
+        UnitResponse canoness = unitService.createUnit(unitRequest(force.getId(), "Canoness", 60), owner.getGoogleId());
+        UnitResponse repentia = unitService.createUnit(unitRequest(force.getId(), "Repentia Squad", 80), owner.getGoogleId());
+
+        CreateUnitRequest change = new CreateUnitRequest();
+        change.setPoints(75);
+        change.setXp(4);
+        UnitBatchResponse response = unitService.applyBatch(force.getId(), batch(
+            operation("create", null, unitRequest(null, "Arco-flagellants", 45)),
+            operation("create", null, unitRequest(null, "Penitent Engines", 150)),
+            operation("update", canoness.getId(), change),
+            operation("delete", repentia.getId(), null)), owner.getGoogleId());
+
+        assertEquals(2, response.getCreatedUnitIds().size());
+        assertEquals(1, response.getUpdatedCount());
+        assertEquals(1, response.getDeletedCount());
+
+        Map<String, UnitResponse> roster = response.getRoster().getUnits().stream()
+            .collect(Collectors.toMap(UnitResponse::getName, unit -> unit));
+        assertEquals(List.of("Arco-flagellants", "Canoness", "Penitent Engines"), roster.keySet().stream().sorted().toList());
+        assertEquals(75, roster.get("Canoness").getPoints());
+        assertEquals(4, roster.get("Canoness").getXp());
+        assertTrue(response.getCreatedUnitIds().contains(roster.get("Arco-flagellants").getId()));
+        assertNotNull(unitRepository.findById(repentia.getId()).orElseThrow().getDeletedTimestamp());
+
+        // The force totals moved by the batch's net change
+        Force totals = reload(force);
+        assertEquals(3, totals.getUnitCount());
+        assertEquals(75 + 45 + 150, totals.getTotalPoints());
+        assertEquals(4, totals.getTotalXp());
+        assertEquals(3, response.getRoster().getUnitCount());
+        assertEquals(270, response.getRoster().getTotalPoints());
+    }
+
+    @Test
+    void appliesNothingWhenAUnitIsMissing() {
+        User owner = user();
+        Force force = force(owner, club(owner), "Adepta Sororitas");
+        UnitResponse canoness = unitService.createUnit(unitRequest(force.getId(), "Canoness", 60), owner.getGoogleId());
+
+        CreateUnitRequest change = new CreateUnitRequest();
+        change.setPoints(75);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> unitService.applyBatch(force.getId(), batch(
+            operation("create", null, unitRequest(null, "Arco-flagellants", 45)),
+            operation("update", canoness.getId(), change),
+            operation("delete", Long.MAX_VALUE, null)), owner.getGoogleId()));
+        assertEquals("Unit " + Long.MAX_VALUE + " not found in this force", e.getMessage());
+
+        assertUnchanged(force, canoness);
+    }
+
+    @Test
+    void appliesNothingWhenAUnitBelongsToAnotherForce() {
+        User owner = user();
+        Club club = club(owner);
+        Force force = force(owner, club, "Adepta Sororitas");
+        Force otherForce = force(owner, club, "Adepta Sororitas");
+        UnitResponse canoness = unitService.createUnit(unitRequest(force.getId(), "Canoness", 60), owner.getGoogleId());
+        UnitResponse other = unitService.createUnit(unitRequest(otherForce.getId(), "Celestine", 120), owner.getGoogleId());
+
+        CreateUnitRequest change = new CreateUnitRequest();
+        change.setPoints(75);
+        assertThrows(IllegalArgumentException.class, () -> unitService.applyBatch(force.getId(), batch(
+            operation("update", canoness.getId(), change),
+            operation("delete", other.getId(), null)), owner.getGoogleId()));
+
+        assertUnchanged(force, canoness);
+        assertEquals(null, unitRepository.findById(other.getId()).orElseThrow().getDeletedTimestamp());
+    }
+
+    @Test
+    void refusesAnotherPlayersForce() {
+        User owner = user();
+        User intruder = user();
+        Force force = force(owner, club(owner), "Adepta Sororitas");
+        UnitResponse canoness = unitService.createUnit(unitRequest(force.getId(), "Canoness", 60), owner.getGoogleId());
+
+        assertThrows(IllegalArgumentException.class, () -> unitService.applyBatch(force.getId(), batch(
+            operation("delete", canoness.getId(), null)), intruder.getGoogleId()));
+
+        assertUnchanged(force, canoness);
+    }
+
+    private void assertUnchanged(Force force, UnitResponse canoness) {
+        List<UnitResponse> units = unitRepository.findResponsesByForceId(force.getId());
+        assertEquals(List.of(canoness.getId()), units.stream().map(UnitResponse::getId).toList());
+        assertEquals(60, units.get(0).getPoints());
+        assertEquals(canoness.getVersion(), units.get(0).getVersion());
+
+        Force totals = reload(force);
+        assertEquals(1, totals.getUnitCount());
+        assertEquals(60, totals.getTotalPoints());
+    }
+
+    private static UnitBatchRequest batch(UnitBatchRequest.Operation... operations) {
+        UnitBatchRequest request = new UnitBatchRequest();
+        request.setOperations(List.of(operations));
+        return request;
+    }
+
+    private static UnitBatchRequest.Operation operation(String action, Long unitId, CreateUnitRequest unit) {
+        UnitBatchRequest.Operation operation = new UnitBatchRequest.Operation();
+        operation.setAction(action);
+        operation.setUnitId(unitId);
+        operation.setUnit(unit);
+        return operation;
+    }
+}